@@ -0,0 +1,96 @@
+package com.example.familybenefitstown.dto.entities;
+
+import lombok.*;
+import org.hibernate.Hibernate;
+import org.springframework.lang.NonNull;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDate;
+
+/**
+ * Модель записи таблицы "benefit_rule"
+ */
+@Entity
+@Table(name = "benefit_rule", schema = "family_benefit_town")
+@Getter
+@Setter
+@ToString
+@Builder
+@NoArgsConstructor(access = AccessLevel.PUBLIC)
+@AllArgsConstructor
+public class BenefitRuleEntity {
+
+  /**
+   * ID правила пособия
+   */
+  @NonNull
+  @Id
+  @Column(name = "id")
+  private String id;
+
+  /**
+   * ID города пособия
+   */
+  @NonNull
+  @Column(name = "id_city")
+  private String idCity;
+
+  /**
+   * Название пособия
+   */
+  @NonNull
+  @Column(name = "name")
+  private String name;
+
+  /**
+   * Минимальный полный возраст ребенка в годах, включительно. {@code null} - без ограничения
+   */
+  @Column(name = "min_age_child")
+  private Integer minAgeChild;
+
+  /**
+   * Максимальный полный возраст ребенка в годах, включительно. {@code null} - без ограничения
+   */
+  @Column(name = "max_age_child")
+  private Integer maxAgeChild;
+
+  /**
+   * Первая дата рождения ребенка, включительно. {@code null} - без ограничения
+   */
+  @Column(name = "date_birth_from")
+  private LocalDate dateBirthFrom;
+
+  /**
+   * Последняя дата рождения ребенка, включительно. {@code null} - без ограничения
+   */
+  @Column(name = "date_birth_to")
+  private LocalDate dateBirthTo;
+
+  /**
+   * Минимальное число подходящих детей
+   */
+  @Column(name = "min_count_children")
+  private int minCountChildren;
+
+  /**
+   * Максимальное число подходящих детей. {@code null} - без ограничения
+   */
+  @Column(name = "max_count_children")
+  private Integer maxCountChildren;
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
+    BenefitRuleEntity benefitRuleEntity = (BenefitRuleEntity) o;
+    return id.equals(benefitRuleEntity.id);
+  }
+
+  @Override
+  public int hashCode() {
+    return getClass().hashCode();
+  }
+}
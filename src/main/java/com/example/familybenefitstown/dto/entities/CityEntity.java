@@ -2,6 +2,7 @@ package com.example.familybenefitstown.dto.entities;
 
 import lombok.*;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.lang.NonNull;
 
 import javax.persistence.Column;
@@ -10,9 +11,10 @@ import javax.persistence.Id;
 import javax.persistence.Table;
 
 /**
- * Модель записи таблицы "cityEntity"
+ * Модель записи таблицы "cityEntity". При обновлении записываются только измененные столбцы
  */
 @Entity
+@DynamicUpdate
 @Table(name = "city", schema = "family_benefit_town")
 @Getter
 @Setter
@@ -38,10 +40,10 @@ public class CityEntity {
   private String name;
 
   /**
-   * Информация города
+   * Версия города, назначается базой данных при каждом изменении записи
    */
-  @Column(name = "info")
-  private String info;
+  @Column(name = "version", insertable = false, updatable = false)
+  private Long version;
 
   @Override
   public boolean equals(Object o) {
@@ -0,0 +1,53 @@
+package com.example.familybenefitstown.dto.entities;
+
+import lombok.*;
+import org.hibernate.Hibernate;
+import org.springframework.lang.NonNull;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+
+/**
+ * Модель записи таблицы "city_info"
+ */
+@Entity
+@Table(name = "city_info", schema = "family_benefit_town")
+@Getter
+@Setter
+@ToString
+@Builder
+@NoArgsConstructor(access = AccessLevel.PUBLIC)
+@AllArgsConstructor
+public class CityInfoEntity {
+
+  /**
+   * ID города
+   */
+  @NonNull
+  @Id
+  @Column(name = "id_city")
+  private String idCity;
+
+  /**
+   * Информация города, сжатая gzip
+   */
+  @NonNull
+  @ToString.Exclude
+  @Column(name = "info")
+  private byte[] info;
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || Hibernate.getClass(this) != Hibernate.getClass(o)) return false;
+    CityInfoEntity cityInfoEntity = (CityInfoEntity) o;
+    return idCity.equals(cityInfoEntity.idCity);
+  }
+
+  @Override
+  public int hashCode() {
+    return getClass().hashCode();
+  }
+}
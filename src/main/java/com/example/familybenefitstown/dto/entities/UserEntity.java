@@ -2,6 +2,7 @@ package com.example.familybenefitstown.dto.entities;
 
 import lombok.*;
 import org.hibernate.Hibernate;
+import org.hibernate.annotations.DynamicUpdate;
 import org.springframework.lang.NonNull;
 
 import javax.persistence.Column;
@@ -11,9 +12,10 @@ import javax.persistence.Table;
 import java.time.LocalDate;
 
 /**
- * Модель записи таблицы "user"
+ * Модель записи таблицы "user". При обновлении записываются только измененные столбцы
  */
 @Entity
+@DynamicUpdate
 @Table(name = "user", schema = "family_benefit_town")
 @Getter
 @Setter
@@ -57,6 +59,12 @@ public class UserEntity {
   @Column(name = "id_city")
   private String idCity;
 
+  /**
+   * Версия пользователя, назначается базой данных при изменении записи, ролей и детей
+   */
+  @Column(name = "version", insertable = false, updatable = false)
+  private Long version;
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
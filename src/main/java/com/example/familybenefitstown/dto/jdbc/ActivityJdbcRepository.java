@@ -0,0 +1,148 @@
+package com.example.familybenefitstown.dto.jdbc;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Репозиторий операций с таблицей "activity_sketch", выполняющий запросы сразу, напрямую через JDBC:
+ * объединение скетчей активных пользователей узлов, их чтение за период и удаление устаревших
+ */
+@Repository
+public class ActivityJdbcRepository {
+
+  /**
+   * Создание пустой строки скетча, существующая строка не изменяется.
+   * Параметры: ID города, дата активности, пустые регистры
+   */
+  private static final String SQL_INSERT_EMPTY =
+      "INSERT INTO family_benefit_town.activity_sketch (id_city, date_activity, registers) VALUES (?, ?, ?) " +
+          "ON CONFLICT ON CONSTRAINT activity_sketch_pk DO NOTHING;";
+
+  /**
+   * Регистры строки скетча с блокировкой строки до конца транзакции
+   */
+  private static final String SQL_LOCK_REGISTERS =
+      "SELECT family_benefit_town.activity_sketch.registers FROM family_benefit_town.activity_sketch " +
+          "WHERE family_benefit_town.activity_sketch.id_city = ? " +
+          "AND family_benefit_town.activity_sketch.date_activity = ? FOR UPDATE;";
+
+  /**
+   * Запись объединенных регистров и добавление входов.
+   * Параметры: регистры, число входов, ID города, дата активности
+   */
+  private static final String SQL_UPDATE_SKETCH =
+      "UPDATE family_benefit_town.activity_sketch " +
+          "SET registers = ?, count_logins = family_benefit_town.activity_sketch.count_logins + ?, date_update = now() " +
+          "WHERE family_benefit_town.activity_sketch.id_city = ? " +
+          "AND family_benefit_town.activity_sketch.date_activity = ?;";
+
+  /**
+   * Скетчи города за период, включительно
+   */
+  private static final String SQL_SELECT_SKETCHES =
+      "SELECT family_benefit_town.activity_sketch.date_activity, family_benefit_town.activity_sketch.registers, " +
+          "family_benefit_town.activity_sketch.count_logins " +
+          "FROM family_benefit_town.activity_sketch " +
+          "WHERE family_benefit_town.activity_sketch.id_city = ? " +
+          "AND family_benefit_town.activity_sketch.date_activity BETWEEN ? AND ?;";
+
+  /**
+   * Удаление скетчей с датой раньше указанной
+   */
+  private static final String SQL_DELETE_BEFORE =
+      "DELETE FROM family_benefit_town.activity_sketch WHERE family_benefit_town.activity_sketch.date_activity < ?;";
+
+  /**
+   * Шаблон выполнения запросов
+   */
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Конструктор для инициализации шаблона выполнения запросов
+   * @param dataSource источник соединений с бд
+   */
+  @Autowired
+  public ActivityJdbcRepository(DataSource dataSource) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  /**
+   * Создает, если отсутствует, и блокирует до конца транзакции строку скетча, возвращает её регистры.
+   * Должен вызываться внутри транзакции, чтобы узлы объединяли скетч с одной строкой по очереди
+   * @param idCity ID города или пустая строка для всех пользователей
+   * @param dateActivity дата активности
+   * @param emptyRegisters пустые регистры для новой строки
+   * @return регистры строки скетча
+   */
+  public byte[] lockRegisters(String idCity, LocalDate dateActivity, byte[] emptyRegisters) {
+
+    Date date = Date.valueOf(dateActivity);
+    jdbcTemplate.update(SQL_INSERT_EMPTY, idCity, date, emptyRegisters);
+    return jdbcTemplate.queryForObject(SQL_LOCK_REGISTERS, byte[].class, idCity, date);
+  }
+
+  /**
+   * Записывает объединенные регистры строки скетча, заблокированной {@link #lockRegisters}, и добавляет входы
+   * @param idCity ID города или пустая строка для всех пользователей
+   * @param dateActivity дата активности
+   * @param registers объединенные регистры
+   * @param countLogins число добавляемых входов
+   */
+  public void updateSketch(String idCity, LocalDate dateActivity, byte[] registers, long countLogins) {
+    jdbcTemplate.update(SQL_UPDATE_SKETCH, registers, countLogins, idCity, Date.valueOf(dateActivity));
+  }
+
+  /**
+   * Возвращает скетчи города за период
+   * @param idCity ID города или пустая строка для всех пользователей
+   * @param dateFrom первая дата периода
+   * @param dateTo последняя дата периода
+   * @return список скетчей, в которых была активность
+   */
+  public List<StoredSketch> findSketches(String idCity, LocalDate dateFrom, LocalDate dateTo) {
+
+    return jdbcTemplate.query(SQL_SELECT_SKETCHES, (resultSet, numberRow) -> new StoredSketch(
+        resultSet.getDate(1).toLocalDate(), resultSet.getBytes(2), resultSet.getLong(3)),
+        idCity, Date.valueOf(dateFrom), Date.valueOf(dateTo));
+  }
+
+  /**
+   * Удаляет скетчи с датой раньше указанной
+   * @param dateBefore первая сохраняемая дата
+   * @return число удаленных скетчей
+   */
+  public int deleteBefore(LocalDate dateBefore) {
+    return jdbcTemplate.update(SQL_DELETE_BEFORE, Date.valueOf(dateBefore));
+  }
+
+  /**
+   * Скетч активных пользователей за день, сохраненный в бд
+   */
+  @Getter
+  @AllArgsConstructor
+  public static class StoredSketch {
+
+    /**
+     * Дата активности
+     */
+    private final LocalDate dateActivity;
+
+    /**
+     * Регистры скетча
+     */
+    private final byte[] registers;
+
+    /**
+     * Число входов в систему
+     */
+    private final long countLogins;
+  }
+}
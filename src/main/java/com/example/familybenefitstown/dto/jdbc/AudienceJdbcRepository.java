@@ -0,0 +1,121 @@
+package com.example.familybenefitstown.dto.jdbc;
+
+import com.example.familybenefitstown.part_res_rest_api.audience.AudienceQuery;
+import com.example.familybenefitstown.resources.RDB;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Репозиторий выборки аудитории семей из таблицы "user" по подготовленному фильтру, выполняющий запросы сразу,
+ * напрямую через JDBC: подсчет подходящих семей и чтение их ID курсором.
+ * Семьи - пользователи с ролью "ROLE_USER"
+ */
+@Repository
+public class AudienceJdbcRepository {
+
+  /**
+   * Число строк, получаемых с сервера за один запрос курсора
+   */
+  private static final int FETCH_SIZE = 1000;
+
+  /**
+   * Максимальное время выполнения запроса, чтобы неудачный фильтр не занимал соединение
+   */
+  private static final int QUERY_TIMEOUT_SEC = 30;
+
+  /**
+   * Начало запроса числа семей
+   */
+  private static final String SQL_SELECT_COUNT =
+      "SELECT count(*) FROM family_benefit_town.user WHERE ";
+
+  /**
+   * Начало запроса ID семей
+   */
+  private static final String SQL_SELECT_ID =
+      "SELECT family_benefit_town.user.id FROM family_benefit_town.user WHERE ";
+
+  /**
+   * Условие роли "ROLE_USER", использует индекс роли связи "users_roles"
+   */
+  private static final String SQL_WHERE_FAMILY =
+      "EXISTS(SELECT 1 FROM family_benefit_town.users_roles " +
+          "WHERE family_benefit_town.users_roles.id_role = ? " +
+          "AND family_benefit_town.users_roles.id_user = family_benefit_town.user.id)";
+
+  /**
+   * Условие начала выборки после указанного ID
+   */
+  private static final String SQL_WHERE_AFTER = " AND family_benefit_town.user.id > ?";
+
+  /**
+   * Порядок выборки ID
+   */
+  private static final String SQL_ORDER = " ORDER BY family_benefit_town.user.id;";
+
+  /**
+   * Шаблон выполнения запросов
+   */
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Конструктор для инициализации шаблона выполнения запросов
+   * @param dataSource источник соединений с бд
+   */
+  @Autowired
+  public AudienceJdbcRepository(DataSource dataSource) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+    this.jdbcTemplate.setQueryTimeout(QUERY_TIMEOUT_SEC);
+  }
+
+  /**
+   * Возвращает число семей, подходящих под фильтр
+   * @param audienceQuery подготовленный фильтр аудитории
+   * @return число подходящих семей
+   */
+  public long count(AudienceQuery audienceQuery) {
+
+    List<Object> argList = new ArrayList<>();
+    argList.add(RDB.ID_ROLE_USER);
+    argList.addAll(audienceQuery.getArgList());
+
+    Long countFamilies = jdbcTemplate.queryForObject(
+        SQL_SELECT_COUNT + SQL_WHERE_FAMILY + " AND (" + audienceQuery.getSqlCondition() + ");",
+        Long.class, argList.toArray());
+    return countFamilies != null ? countFamilies : 0;
+  }
+
+  /**
+   * Передает получателю ID семей, подходящих под фильтр, по возрастанию, по мере чтения курсора,
+   * по {@link #FETCH_SIZE} строк за запрос. Метод должен вызываться внутри транзакции, иначе драйвер читает результат целиком
+   * @param audienceQuery подготовленный фильтр аудитории
+   * @param idAfter ID, после которого начинается выборка, {@code null} - с начала
+   * @param idConsumer получатель ID семьи
+   */
+  public void forEachId(AudienceQuery audienceQuery, String idAfter, Consumer<String> idConsumer) {
+
+    StringBuilder sql = new StringBuilder(SQL_SELECT_ID)
+        .append(SQL_WHERE_FAMILY)
+        .append(" AND (").append(audienceQuery.getSqlCondition()).append(')');
+    List<Object> argList = new ArrayList<>();
+    argList.add(RDB.ID_ROLE_USER);
+    argList.addAll(audienceQuery.getArgList());
+
+    if (idAfter != null) {
+      sql.append(SQL_WHERE_AFTER);
+      argList.add(idAfter);
+    }
+    sql.append(SQL_ORDER);
+
+    jdbcTemplate.query(sql.toString(), (RowCallbackHandler) resultSet -> idConsumer.accept(resultSet.getString(1)),
+                       argList.toArray());
+  }
+}
@@ -0,0 +1,168 @@
+package com.example.familybenefitstown.dto.jdbc;
+
+import com.example.familybenefitstown.part_auth.audit.AuditEvent;
+import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AuditEventInfo;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Репозиторий операций с таблицей "audit_event", выполняющий запросы сразу, напрямую через JDBC:
+ * пакетная запись событий аудита, создание месячных секций и поиск событий за период
+ */
+@Repository
+public class AuditJdbcRepository {
+
+  /**
+   * Запись события
+   */
+  private static final String SQL_INSERT_EVENT =
+      "INSERT INTO family_benefit_town.audit_event (date_event, type, id_user, details) VALUES (?, ?, ?, ?);";
+
+  /**
+   * Создание отсутствующих месячных секций с переносом их событий из секции по умолчанию.
+   * Параметры: дата первого месяца, число месяцев
+   */
+  private static final String SQL_CREATE_PARTITIONS =
+      "SELECT family_benefit_town.create_audit_event_partitions(?, ?);";
+
+  /**
+   * Число событий в секции по умолчанию, то есть вне созданных месячных секций
+   */
+  private static final String SQL_COUNT_DEFAULT_EVENTS =
+      "SELECT count(*) FROM family_benefit_town.audit_event_default;";
+
+  /**
+   * Начало запроса событий за период. Условие по дате события ограничивает просматриваемые секции
+   */
+  private static final String SQL_SELECT_EVENTS =
+      "SELECT family_benefit_town.audit_event.id, family_benefit_town.audit_event.date_event, " +
+          "family_benefit_town.audit_event.type, family_benefit_town.audit_event.id_user, " +
+          "family_benefit_town.audit_event.details " +
+          "FROM family_benefit_town.audit_event " +
+          "WHERE family_benefit_town.audit_event.date_event >= ? AND family_benefit_town.audit_event.date_event < ?";
+
+  /**
+   * Условие пользователя по его ID
+   */
+  private static final String SQL_WHERE_USER = " AND family_benefit_town.audit_event.id_user = ?";
+
+  /**
+   * Условие типа события
+   */
+  private static final String SQL_WHERE_TYPE = " AND family_benefit_town.audit_event.type = ?";
+
+  /**
+   * Условие начала страницы перед указанным ID
+   */
+  private static final String SQL_WHERE_BEFORE = " AND family_benefit_town.audit_event.id < ?";
+
+  /**
+   * Порядок от новых записей к старым и размер страницы
+   */
+  private static final String SQL_ORDER_LIMIT = " ORDER BY family_benefit_town.audit_event.id DESC LIMIT ?;";
+
+  /**
+   * Шаблон выполнения запросов
+   */
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Конструктор для инициализации шаблона выполнения запросов
+   * @param dataSource источник соединений с бд
+   */
+  @Autowired
+  public AuditJdbcRepository(DataSource dataSource) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  /**
+   * Записывает события одним пакетом запросов
+   * @param eventCollection события аудита
+   */
+  public void insertEvents(Collection<AuditEvent> eventCollection) {
+    jdbcTemplate.batchUpdate(SQL_INSERT_EVENT, eventCollection, eventCollection.size(),
+        (preparedStatement, auditEvent) -> {
+          preparedStatement.setTimestamp(1, Timestamp.valueOf(auditEvent.getDateTimeEvent()));
+          preparedStatement.setString(2, auditEvent.getType().name());
+          preparedStatement.setString(3, auditEvent.getIdUser());
+          preparedStatement.setString(4, auditEvent.getDetails());
+        });
+  }
+
+  /**
+   * Создает отсутствующие месячные секции таблицы, начиная с месяца даты.
+   * События месяца, записанные в секцию по умолчанию, переносятся в созданную секцию
+   * @param dateFrom дата первого месяца
+   * @param countMonths число месяцев
+   * @return число перенесенных событий
+   */
+  public long createPartitions(LocalDate dateFrom, int countMonths) {
+
+    Long countMoved = jdbcTemplate.queryForObject(SQL_CREATE_PARTITIONS, Long.class, Date.valueOf(dateFrom), countMonths);
+    return countMoved == null ? 0 : countMoved;
+  }
+
+  /**
+   * Возвращает число событий в секции по умолчанию. События попадают туда, только если секция их месяца не создана
+   * @return число событий вне месячных секций
+   */
+  public long countDefaultEvents() {
+
+    Long countEvents = jdbcTemplate.queryForObject(SQL_COUNT_DEFAULT_EVENTS, Long.class);
+    return countEvents == null ? 0 : countEvents;
+  }
+
+  /**
+   * Возвращает страницу событий за период, упорядоченных от новых записей к старым.
+   * Условия с параметром {@code null} не участвуют в запросе. Страница начинается перед указанным ID,
+   * поэтому время запроса не зависит от номера страницы
+   * @param dateFrom первая дата периода, включительно
+   * @param dateTo последняя дата периода, включительно
+   * @param idUser подготовленный для бд ID пользователя
+   * @param type тип события
+   * @param idBefore ID последней записи предыдущей страницы
+   * @param limit размер страницы
+   * @return список информаций о событиях
+   */
+  public List<AuditEventInfo> findEventPage(LocalDate dateFrom, LocalDate dateTo, String idUser, String type,
+                                            Long idBefore, int limit) {
+
+    StringBuilder sql = new StringBuilder(SQL_SELECT_EVENTS);
+    List<Object> argList = new ArrayList<>();
+    argList.add(Timestamp.valueOf(dateFrom.atStartOfDay()));
+    argList.add(Timestamp.valueOf(dateTo.plusDays(1).atStartOfDay()));
+
+    if (idUser != null) {
+      sql.append(SQL_WHERE_USER);
+      argList.add(idUser);
+    }
+    if (type != null) {
+      sql.append(SQL_WHERE_TYPE);
+      argList.add(type);
+    }
+    if (idBefore != null) {
+      sql.append(SQL_WHERE_BEFORE);
+      argList.add(idBefore);
+    }
+    sql.append(SQL_ORDER_LIMIT);
+    argList.add(limit);
+
+    return jdbcTemplate.query(sql.toString(), (resultSet, numberRow) -> AuditEventInfo
+        .builder()
+        .idEvent(resultSet.getLong(1))
+        .dateTimeEvent(resultSet.getTimestamp(2).toLocalDateTime().toString())
+        .type(resultSet.getString(3))
+        .idUser(resultSet.getString(4))
+        .details(resultSet.getString(5))
+        .build(), argList.toArray());
+  }
+}
@@ -0,0 +1,369 @@
+package com.example.familybenefitstown.dto.jdbc;
+
+import com.example.familybenefitstown.part_res_rest_api.api_models.common.ObjectShortInfo;
+import com.example.familybenefitstown.security.DBSecuritySupport;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Репозиторий операций с таблицами "user_benefit", "benefit_evaluation_job" и "benefit_aging_run", выполняющий запросы сразу,
+ * напрямую через JDBC: запрос, захват и продвижение задач переоценки положенных пособий, запись результатов пакетами
+ * и чтение сохраненных положенных пособий пользователя
+ */
+@Repository
+public class BenefitJdbcRepository {
+
+  /**
+   * Запрос переоценки города: новое поколение задачи, обработка с начала.
+   * Строка задачи блокируется до конца транзакции, поэтому запись страниц прежнего поколения ожидает её фиксации
+   */
+  private static final String SQL_REQUEST_EVALUATION =
+      "INSERT INTO family_benefit_town.benefit_evaluation_job (id_city) VALUES (?) " +
+          "ON CONFLICT ON CONSTRAINT benefit_evaluation_job_pk DO UPDATE " +
+          "SET generation = family_benefit_town.benefit_evaluation_job.generation + 1, status = 'PENDING', " +
+          "id_user_last = NULL, count_processed = 0, count_total = 0, date_start = now(), date_update = now();";
+
+  /**
+   * Запрос переоценки всех городов: новое поколение задач, обработка с начала
+   */
+  private static final String SQL_REQUEST_EVALUATION_ALL =
+      "INSERT INTO family_benefit_town.benefit_evaluation_job (id_city) " +
+          "SELECT family_benefit_town.city.id FROM family_benefit_town.city " +
+          "ON CONFLICT ON CONSTRAINT benefit_evaluation_job_pk DO UPDATE " +
+          "SET generation = family_benefit_town.benefit_evaluation_job.generation + 1, status = 'PENDING', " +
+          "id_user_last = NULL, count_processed = 0, count_total = 0, date_start = now(), date_update = now();";
+
+  /**
+   * Захват одной ожидающей или прерванной задачи: задача выполняется, число пользователей города считается,
+   * если обработка не начата. Задачи, захваченные другими транзакциями, пропускаются.
+   * Параметр: число секунд без изменений, после которого выполняемая задача считается прерванной
+   */
+  private static final String SQL_CLAIM_JOB =
+      "UPDATE family_benefit_town.benefit_evaluation_job " +
+          "SET status = 'RUNNING', date_update = now(), " +
+          "count_total = CASE WHEN family_benefit_town.benefit_evaluation_job.id_user_last IS NULL " +
+          "THEN (SELECT count(*) FROM family_benefit_town.user " +
+          "WHERE family_benefit_town.user.id_city = family_benefit_town.benefit_evaluation_job.id_city) " +
+          "ELSE family_benefit_town.benefit_evaluation_job.count_total END " +
+          "WHERE family_benefit_town.benefit_evaluation_job.id_city = (" +
+          "SELECT claimed.id_city FROM family_benefit_town.benefit_evaluation_job AS claimed " +
+          "WHERE claimed.status = 'PENDING' " +
+          "OR (claimed.status = 'RUNNING' AND claimed.date_update < now() - make_interval(secs => ?)) " +
+          "ORDER BY claimed.date_update LIMIT 1 FOR UPDATE SKIP LOCKED) " +
+          "RETURNING " + EvaluationJob.COLUMNS + ";";
+
+  /**
+   * Задача переоценки города
+   */
+  private static final String SQL_SELECT_JOB =
+      "SELECT " + EvaluationJob.COLUMNS + " FROM family_benefit_town.benefit_evaluation_job " +
+          "WHERE family_benefit_town.benefit_evaluation_job.id_city = ?;";
+
+  /**
+   * Продвижение задачи указанного поколения после обработки страницы.
+   * Параметры: ID последнего пользователя страницы, число пользователей страницы, ID города, поколение
+   */
+  private static final String SQL_ADVANCE_JOB =
+      "UPDATE family_benefit_town.benefit_evaluation_job " +
+          "SET id_user_last = ?, count_processed = family_benefit_town.benefit_evaluation_job.count_processed + ?, " +
+          "date_update = now() " +
+          "WHERE family_benefit_town.benefit_evaluation_job.id_city = ? " +
+          "AND family_benefit_town.benefit_evaluation_job.generation = ?;";
+
+  /**
+   * Завершение задачи указанного поколения
+   */
+  private static final String SQL_FINISH_JOB =
+      "UPDATE family_benefit_town.benefit_evaluation_job SET status = 'DONE', date_update = now() " +
+          "WHERE family_benefit_town.benefit_evaluation_job.id_city = ? " +
+          "AND family_benefit_town.benefit_evaluation_job.generation = ?;";
+
+  /**
+   * Удаление положенных пособий пользователей страницы, отсутствующих среди новых.
+   * Параметры: литерал массива ID пользователей страницы, литералы массивов ID пользователей и ID правил новых пособий
+   */
+  private static final String SQL_DELETE_STALE_BENEFITS =
+      "DELETE FROM family_benefit_town.user_benefit " +
+          "WHERE family_benefit_town.user_benefit.id_user = ANY(CAST(? AS TEXT[])) " +
+          "AND (family_benefit_town.user_benefit.id_user, family_benefit_town.user_benefit.id_benefit_rule) NOT IN (" +
+          "SELECT benefits.id_user, benefits.id_benefit_rule " +
+          "FROM unnest(CAST(? AS TEXT[]), CAST(? AS TEXT[])) AS benefits(id_user, id_benefit_rule));";
+
+  /**
+   * Добавление новых положенных пособий, существующие пропускаются. Правила блокируются от удаления, а правила,
+   * удаленные параллельной заменой правил города, пропускаются: их пользователи переоцениваются новым поколением задачи.
+   * Параметры: литералы массивов ID пользователей и ID правил пособий, литерал массива ID правил пособий
+   */
+  private static final String SQL_INSERT_BENEFITS =
+      "INSERT INTO family_benefit_town.user_benefit (id_user, id_benefit_rule) " +
+          "SELECT benefits.id_user, benefits.id_benefit_rule " +
+          "FROM unnest(CAST(? AS TEXT[]), CAST(? AS TEXT[])) AS benefits(id_user, id_benefit_rule) " +
+          "WHERE benefits.id_benefit_rule IN (SELECT family_benefit_town.benefit_rule.id FROM family_benefit_town.benefit_rule " +
+          "WHERE family_benefit_town.benefit_rule.id = ANY(CAST(? AS TEXT[])) FOR KEY SHARE) " +
+          "ON CONFLICT ON CONSTRAINT user_benefit_pk DO NOTHING;";
+
+  /**
+   * Сохраненные положенные пособия пользователя актуальны: возраст детей учтен на дату,
+   * и задача переоценки города пользователя завершена или уже обработала пользователя.
+   * Параметры: дата, ID пользователя
+   */
+  private static final String SQL_SELECT_IS_EVALUATED =
+      "SELECT EXISTS(SELECT 1 FROM family_benefit_town.benefit_aging_run " +
+          "WHERE family_benefit_town.benefit_aging_run.date_run = ?) " +
+          "AND EXISTS(SELECT 1 FROM family_benefit_town.user " +
+          "INNER JOIN family_benefit_town.benefit_evaluation_job " +
+          "ON family_benefit_town.benefit_evaluation_job.id_city = family_benefit_town.user.id_city " +
+          "WHERE family_benefit_town.user.id = ? " +
+          "AND (family_benefit_town.benefit_evaluation_job.status = 'DONE' " +
+          "OR family_benefit_town.benefit_evaluation_job.id_user_last >= family_benefit_town.user.id));";
+
+  /**
+   * Сохраненные положенные пособия пользователя в порядке названий пособий
+   */
+  private static final String SQL_SELECT_USER_BENEFITS =
+      "SELECT family_benefit_town.benefit_rule.id, family_benefit_town.benefit_rule.name " +
+          "FROM family_benefit_town.user_benefit " +
+          "INNER JOIN family_benefit_town.benefit_rule " +
+          "ON family_benefit_town.benefit_rule.id = family_benefit_town.user_benefit.id_benefit_rule " +
+          "WHERE family_benefit_town.user_benefit.id_user = ? " +
+          "ORDER BY family_benefit_town.benefit_rule.name;";
+
+  /**
+   * Начало учета возраста детей за дату. Учет за дату, уже выполненный или выполняемый другой транзакцией, пропускается
+   */
+  private static final String SQL_START_AGING_RUN =
+      "INSERT INTO family_benefit_town.benefit_aging_run (date_run) VALUES (?) " +
+          "ON CONFLICT ON CONSTRAINT benefit_aging_run_pk DO NOTHING;";
+
+  /**
+   * Последняя дата учета возраста детей до указанной даты
+   */
+  private static final String SQL_SELECT_LAST_AGING_RUN =
+      "SELECT max(family_benefit_town.benefit_aging_run.date_run) FROM family_benefit_town.benefit_aging_run " +
+          "WHERE family_benefit_town.benefit_aging_run.date_run < ?;";
+
+  /**
+   * Завершение учета возраста детей за дату
+   */
+  private static final String SQL_FINISH_AGING_RUN =
+      "UPDATE family_benefit_town.benefit_aging_run SET count_users = ? " +
+          "WHERE family_benefit_town.benefit_aging_run.date_run = ?;";
+
+  /**
+   * Шаблон выполнения запросов
+   */
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Конструктор для инициализации шаблона выполнения запросов
+   * @param dataSource источник соединений с бд
+   */
+  @Autowired
+  public BenefitJdbcRepository(DataSource dataSource) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  /**
+   * Запрашивает переоценку положенных пособий пользователей города с начала, новым поколением задачи.
+   * Должен вызываться внутри транзакции изменения правил до их удаления, чтобы запись страницы
+   * прежнего поколения не ссылалась на удаляемые правила
+   * @param idCity ID города
+   */
+  public void requestEvaluation(String idCity) {
+    jdbcTemplate.update(SQL_REQUEST_EVALUATION, idCity);
+  }
+
+  /**
+   * Запрашивает переоценку положенных пособий пользователей всех городов с начала, новым поколением задач
+   */
+  public void requestEvaluationOfAll() {
+    jdbcTemplate.update(SQL_REQUEST_EVALUATION_ALL);
+  }
+
+  /**
+   * Захватывает одну ожидающую или прерванную задачу переоценки
+   * @param staleAfterSec число секунд без изменений, после которого выполняемая задача считается прерванной
+   * @return захваченная задача, или {@code empty}, если задач нет
+   */
+  public Optional<EvaluationJob> claimJob(long staleAfterSec) {
+    return jdbcTemplate.query(SQL_CLAIM_JOB, EvaluationJob.ROW_MAPPER, staleAfterSec).stream().findFirst();
+  }
+
+  /**
+   * Возвращает задачу переоценки города
+   * @param idCity ID города
+   * @return задача переоценки, или {@code empty}, если переоценка города не запрашивалась
+   */
+  public Optional<EvaluationJob> findJob(String idCity) {
+    return jdbcTemplate.query(SQL_SELECT_JOB, EvaluationJob.ROW_MAPPER, idCity).stream().findFirst();
+  }
+
+  /**
+   * Записывает положенные пособия пользователей страницы и продвигает задачу указанного поколения.
+   * Если поколение задачи изменилось, результаты не записываются.
+   * Должен вызываться внутри транзакции, чтобы результаты и продвижение задачи фиксировались вместе
+   * @param job задача переоценки
+   * @param idUserPageList ID пользователей страницы в порядке ID
+   * @param idUserBenefitList ID пользователей положенных пособий
+   * @param idBenefitRuleList ID правил положенных пособий, в том же порядке
+   * @return true, если результаты записаны; false, если поколение задачи устарело
+   */
+  public boolean savePage(EvaluationJob job, List<String> idUserPageList,
+                          List<String> idUserBenefitList, List<String> idBenefitRuleList) {
+
+    int countAdvanced = jdbcTemplate.update(SQL_ADVANCE_JOB,
+        idUserPageList.get(idUserPageList.size() - 1), idUserPageList.size(), job.getIdCity(), job.getGeneration());
+    if (countAdvanced == 0) {
+      return false;
+    }
+
+    saveBenefits(idUserPageList, idUserBenefitList, idBenefitRuleList);
+    return true;
+  }
+
+  /**
+   * Заменяет сохраненные положенные пособия указанных пользователей новыми, без задачи переоценки.
+   * Пользователь, для которого нет новых пособий, остается без пособий
+   * @param idUserList ID пользователей
+   * @param idUserBenefitList ID пользователей положенных пособий
+   * @param idBenefitRuleList ID правил положенных пособий, в том же порядке
+   */
+  public void saveBenefits(List<String> idUserList, List<String> idUserBenefitList, List<String> idBenefitRuleList) {
+
+    String idUserBenefitArray = DBSecuritySupport.toPostgreSQLTextArray(idUserBenefitList);
+    String idBenefitRuleArray = DBSecuritySupport.toPostgreSQLTextArray(idBenefitRuleList);
+    jdbcTemplate.update(SQL_DELETE_STALE_BENEFITS,
+        DBSecuritySupport.toPostgreSQLTextArray(idUserList), idUserBenefitArray, idBenefitRuleArray);
+    if (!idBenefitRuleList.isEmpty()) {
+      jdbcTemplate.update(SQL_INSERT_BENEFITS, idUserBenefitArray, idBenefitRuleArray, idBenefitRuleArray);
+    }
+  }
+
+  /**
+   * Проверяет, актуальны ли сохраненные положенные пособия пользователя на дату: возраст детей учтен на дату,
+   * и задача переоценки его города завершена или уже обработала пользователя
+   * @param idUser ID пользователя
+   * @param dateCurrent текущая дата
+   * @return true, если сохраненные пособия пользователя актуальны; false, если пособия необходимо определить по правилам,
+   * или пользователь не найден, или у него не указан город
+   */
+  public boolean isEvaluated(String idUser, LocalDate dateCurrent) {
+
+    Boolean isEvaluated = jdbcTemplate.queryForObject(SQL_SELECT_IS_EVALUATED, Boolean.class, Date.valueOf(dateCurrent), idUser);
+    return isEvaluated != null && isEvaluated;
+  }
+
+  /**
+   * Возвращает сохраненные положенные пособия пользователя
+   * @param idUser ID пользователя
+   * @return список кратких информаций о положенных пособиях в порядке их названий
+   */
+  public List<ObjectShortInfo> findAllOfUser(String idUser) {
+
+    return jdbcTemplate.query(SQL_SELECT_USER_BENEFITS, (resultSet, numberRow) ->
+        new ObjectShortInfo(resultSet.getString(1), resultSet.getString(2)), idUser);
+  }
+
+  /**
+   * Начинает учет возраста детей за дату. Строка учета блокируется до конца транзакции,
+   * поэтому учет за одну дату выполняется одной транзакцией.
+   * Должен вызываться внутри транзакции, чтобы учет отменялся вместе с пересчетом пособий
+   * @param dateRun дата учета
+   * @return true, если учет начат; false, если учет за дату уже выполнен
+   */
+  public boolean startAgingRun(LocalDate dateRun) {
+    return jdbcTemplate.update(SQL_START_AGING_RUN, Date.valueOf(dateRun)) > 0;
+  }
+
+  /**
+   * Возвращает последнюю дату учета возраста детей до указанной даты
+   * @param dateBefore дата, до которой ищется учет
+   * @return последняя дата учета, или {@code empty}, если учет еще не выполнялся
+   */
+  public Optional<LocalDate> findLastAgingRun(LocalDate dateBefore) {
+
+    Date dateLast = jdbcTemplate.queryForObject(SQL_SELECT_LAST_AGING_RUN, Date.class, Date.valueOf(dateBefore));
+    return Optional.ofNullable(dateLast).map(Date::toLocalDate);
+  }
+
+  /**
+   * Завершает учет возраста детей за дату
+   * @param dateRun дата учета
+   * @param countUsers число пользователей, пособия которых пересчитаны
+   */
+  public void finishAgingRun(LocalDate dateRun, int countUsers) {
+    jdbcTemplate.update(SQL_FINISH_AGING_RUN, countUsers, Date.valueOf(dateRun));
+  }
+
+  /**
+   * Завершает задачу указанного поколения
+   * @param job задача переоценки
+   * @return true, если задача завершена; false, если поколение задачи устарело
+   */
+  public boolean finishJob(EvaluationJob job) {
+    return jdbcTemplate.update(SQL_FINISH_JOB, job.getIdCity(), job.getGeneration()) > 0;
+  }
+
+  /**
+   * Задача переоценки положенных пособий пользователей города
+   */
+  @Getter
+  @AllArgsConstructor
+  public static class EvaluationJob {
+
+    /**
+     * Столбцы задачи в порядке полей
+     */
+    private static final String COLUMNS =
+        "family_benefit_town.benefit_evaluation_job.id_city, family_benefit_town.benefit_evaluation_job.generation, " +
+            "family_benefit_town.benefit_evaluation_job.status, family_benefit_town.benefit_evaluation_job.id_user_last, " +
+            "family_benefit_town.benefit_evaluation_job.count_processed, family_benefit_town.benefit_evaluation_job.count_total";
+
+    /**
+     * Преобразование строки результата запроса в задачу
+     */
+    private static final RowMapper<EvaluationJob> ROW_MAPPER = (resultSet, numberRow) -> new EvaluationJob(
+        resultSet.getString(1), resultSet.getLong(2), resultSet.getString(3),
+        resultSet.getString(4), resultSet.getLong(5), resultSet.getLong(6));
+
+    /**
+     * ID города
+     */
+    private final String idCity;
+
+    /**
+     * Поколение задачи
+     */
+    private final long generation;
+
+    /**
+     * Состояние задачи: PENDING, RUNNING или DONE
+     */
+    private final String status;
+
+    /**
+     * ID последнего обработанного пользователя. {@code null}, если обработка не начата
+     */
+    private final String idUserLast;
+
+    /**
+     * Число обработанных пользователей
+     */
+    private final long countProcessed;
+
+    /**
+     * Число пользователей города на начало обработки
+     */
+    private final long countTotal;
+  }
+}
@@ -0,0 +1,198 @@
+package com.example.familybenefitstown.dto.jdbc;
+
+import com.example.familybenefitstown.security.DBSecuritySupport;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Репозиторий операций с таблицами "benefit_notification_run" и "benefit_notification", выполняющий запросы сразу,
+ * напрямую через JDBC: однократный поиск за дату, создание уведомлений пакетом, захват и отметка отправки
+ */
+@Repository
+public class BenefitNotificationJdbcRepository {
+
+  /**
+   * Начало поиска за дату. Строка не создается, если поиск за дату уже выполнен
+   */
+  private static final String SQL_INSERT_RUN =
+      "INSERT INTO family_benefit_town.benefit_notification_run (date_run) VALUES (?) " +
+          "ON CONFLICT ON CONSTRAINT benefit_notification_run_pk DO NOTHING;";
+
+  /**
+   * Запись числа созданных уведомлений поиска
+   */
+  private static final String SQL_UPDATE_RUN =
+      "UPDATE family_benefit_town.benefit_notification_run SET count_notifications = ? " +
+          "WHERE family_benefit_town.benefit_notification_run.date_run = ?;";
+
+  /**
+   * Создание уведомления, существующее уведомление пользователя за дату не изменяется
+   */
+  private static final String SQL_INSERT_NOTIFICATION =
+      "INSERT INTO family_benefit_town.benefit_notification (id_user, date_notification, benefits_gained, benefits_lost) " +
+          "VALUES (?, ?, ?, ?) " +
+          "ON CONFLICT ON CONSTRAINT benefit_notification_uniq_user_date DO NOTHING;";
+
+  /**
+   * Захват пакета неотправленных уведомлений с адресами пользователей: попытка засчитывается сразу,
+   * уведомления, захваченные другими транзакциями, пропускаются. Параметры: максимальное число попыток,
+   * число секунд до повторной попытки, размер пакета
+   */
+  private static final String SQL_CLAIM_UNSENT =
+      "UPDATE family_benefit_town.benefit_notification " +
+          "SET count_attempts = family_benefit_town.benefit_notification.count_attempts + 1, date_attempt = now() " +
+          "FROM family_benefit_town.user " +
+          "WHERE family_benefit_town.benefit_notification.id_user = family_benefit_town.user.id " +
+          "AND family_benefit_town.benefit_notification.id IN (" +
+          "SELECT unsent.id FROM family_benefit_town.benefit_notification AS unsent " +
+          "WHERE unsent.date_sent IS NULL AND unsent.count_attempts < ? " +
+          "AND (unsent.date_attempt IS NULL OR unsent.date_attempt < now() - make_interval(secs => ?)) " +
+          "ORDER BY unsent.id LIMIT ? FOR UPDATE SKIP LOCKED) " +
+          "RETURNING family_benefit_town.benefit_notification.id, family_benefit_town.user.email, " +
+          "family_benefit_town.user.name, family_benefit_town.benefit_notification.benefits_gained, " +
+          "family_benefit_town.benefit_notification.benefits_lost;";
+
+  /**
+   * Отметка отправки уведомлений. Параметр: литерал массива ID уведомлений
+   */
+  private static final String SQL_UPDATE_SENT =
+      "UPDATE family_benefit_town.benefit_notification SET date_sent = now() " +
+          "WHERE family_benefit_town.benefit_notification.id = ANY(CAST(? AS TEXT[]));";
+
+  /**
+   * Шаблон выполнения запросов
+   */
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Конструктор для инициализации шаблона выполнения запросов
+   * @param dataSource источник соединений с бд
+   */
+  @Autowired
+  public BenefitNotificationJdbcRepository(DataSource dataSource) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  /**
+   * Отмечает начало поиска за дату. Должен вызываться в одной транзакции с созданием уведомлений,
+   * чтобы прерванный поиск не считался выполненным
+   * @param dateRun дата поиска
+   * @return true, если поиск за дату еще не выполнялся
+   */
+  public boolean startRun(LocalDate dateRun) {
+    return jdbcTemplate.update(SQL_INSERT_RUN, Date.valueOf(dateRun)) > 0;
+  }
+
+  /**
+   * Записывает число созданных уведомлений поиска за дату
+   * @param dateRun дата поиска
+   * @param countNotifications число созданных уведомлений
+   */
+  public void finishRun(LocalDate dateRun, int countNotifications) {
+    jdbcTemplate.update(SQL_UPDATE_RUN, countNotifications, Date.valueOf(dateRun));
+  }
+
+  /**
+   * Создает уведомления одним пакетом запросов
+   * @param dateNotification дата, с которой изменились положенные пособия
+   * @param notificationCollection уведомления
+   */
+  public void insertNotifications(LocalDate dateNotification, Collection<NewNotification> notificationCollection) {
+
+    Date date = Date.valueOf(dateNotification);
+    jdbcTemplate.batchUpdate(SQL_INSERT_NOTIFICATION, notificationCollection, notificationCollection.size(),
+        (preparedStatement, notification) -> {
+          preparedStatement.setString(1, notification.getIdUser());
+          preparedStatement.setDate(2, date);
+          preparedStatement.setString(3, notification.getBenefitsGained());
+          preparedStatement.setString(4, notification.getBenefitsLost());
+        });
+  }
+
+  /**
+   * Захватывает пакет неотправленных уведомлений, засчитывая попытку отправки
+   * @param maxAttempts максимальное число попыток отправки уведомления
+   * @param retryAfterSec число секунд до повторной попытки
+   * @param limit размер пакета
+   * @return уведомления с адресами пользователей
+   */
+  public List<PendingNotification> claimUnsent(int maxAttempts, long retryAfterSec, int limit) {
+
+    return jdbcTemplate.query(SQL_CLAIM_UNSENT, (resultSet, numberRow) -> new PendingNotification(
+        resultSet.getString(1), resultSet.getString(2), resultSet.getString(3),
+        resultSet.getString(4), resultSet.getString(5)), maxAttempts, retryAfterSec, limit);
+  }
+
+  /**
+   * Отмечает уведомления отправленными
+   * @param idNotificationCollection ID отправленных уведомлений
+   */
+  public void markSent(Collection<String> idNotificationCollection) {
+    jdbcTemplate.update(SQL_UPDATE_SENT, DBSecuritySupport.toPostgreSQLTextArray(idNotificationCollection));
+  }
+
+  /**
+   * Создаваемое уведомление пользователя об изменении положенных пособий
+   */
+  @Getter
+  @AllArgsConstructor
+  public static class NewNotification {
+
+    /**
+     * ID пользователя
+     */
+    private final String idUser;
+
+    /**
+     * Названия пособий, ставших положенными, через запятую, или {@code null}
+     */
+    private final String benefitsGained;
+
+    /**
+     * Названия пособий, переставших быть положенными, через запятую, или {@code null}
+     */
+    private final String benefitsLost;
+  }
+
+  /**
+   * Неотправленное уведомление с адресом пользователя
+   */
+  @Getter
+  @AllArgsConstructor
+  public static class PendingNotification {
+
+    /**
+     * ID уведомления
+     */
+    private final String id;
+
+    /**
+     * Email пользователя
+     */
+    private final String email;
+
+    /**
+     * Имя пользователя
+     */
+    private final String nameUser;
+
+    /**
+     * Названия пособий, ставших положенными, через запятую, или {@code null}
+     */
+    private final String benefitsGained;
+
+    /**
+     * Названия пособий, переставших быть положенными, через запятую, или {@code null}
+     */
+    private final String benefitsLost;
+  }
+}
@@ -0,0 +1,152 @@
+package com.example.familybenefitstown.dto.jdbc;
+
+import com.example.familybenefitstown.dto.entities.CityEntity;
+import com.example.familybenefitstown.dto.entities.CityInfoEntity;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.function.BiConsumer;
+
+/**
+ * Репозиторий операций с таблицами "city" и "city_info", выполняющий запросы сразу, напрямую через JDBC:
+ * создание без предварительного чтения и массовая загрузка. Методы должны вызываться внутри транзакции
+ */
+@Repository
+public class CityJdbcRepository {
+
+  /**
+   * Название ограничения уникальности названия города
+   */
+  public static final String CONSTRAINT_UNIQ_NAME = "city_uniq_name";
+
+  /**
+   * Число строк, получаемых с сервера за один запрос курсора
+   */
+  private static final int FETCH_SIZE = 1000;
+
+  /**
+   * Создание города
+   */
+  private static final String SQL_INSERT = "INSERT INTO family_benefit_town.city (id, name) VALUES (?, ?);";
+
+  /**
+   * Создание информации города
+   */
+  private static final String SQL_INSERT_INFO = "INSERT INTO family_benefit_town.city_info (id_city, info) VALUES (?, ?);";
+
+  /**
+   * Удаление промежуточной таблицы загрузки, оставшейся от предыдущей загрузки в той же транзакции
+   */
+  private static final String SQL_DROP_IMPORT = "DROP TABLE IF EXISTS pg_temp.city_import;";
+
+  /**
+   * Создание промежуточной таблицы загрузки, удаляемой по окончании транзакции
+   */
+  private static final String SQL_CREATE_IMPORT =
+      "CREATE TEMP TABLE city_import (number_row BIGINT NOT NULL, id TEXT NOT NULL, name TEXT NOT NULL, info BYTEA NULL) " +
+          "ON COMMIT DROP;";
+
+  /**
+   * Загрузка строк в промежуточную таблицу
+   */
+  private static final String SQL_COPY_IMPORT =
+      "COPY city_import (number_row, id, name, info) FROM STDIN WITH (FORMAT csv)";
+
+  /**
+   * Перенос строк из промежуточной таблицы. Из повторяющихся в потоке названий сохраняется первое,
+   * существующие названия пропускаются по ограничению "city_uniq_name"
+   */
+  private static final String SQL_MERGE_IMPORT =
+      "INSERT INTO family_benefit_town.city (id, name) " +
+          "SELECT DISTINCT ON (city_import.name) city_import.id, city_import.name " +
+          "FROM city_import " +
+          "ORDER BY city_import.name, city_import.number_row " +
+          "ON CONFLICT ON CONSTRAINT city_uniq_name DO NOTHING;";
+
+  /**
+   * Перенос информации сохраненных городов из промежуточной таблицы
+   */
+  private static final String SQL_MERGE_IMPORT_INFO =
+      "INSERT INTO family_benefit_town.city_info (id_city, info) " +
+          "SELECT city_import.id, city_import.info " +
+          "FROM city_import " +
+          "INNER JOIN family_benefit_town.city ON family_benefit_town.city.id = city_import.id " +
+          "WHERE city_import.info IS NOT NULL;";
+
+  /**
+   * Строки промежуточной таблицы, не попавшие в таблицу "city"
+   */
+  private static final String SQL_SELECT_REJECTED =
+      "SELECT city_import.number_row, city_import.name FROM city_import " +
+          "WHERE NOT EXISTS(SELECT 1 FROM family_benefit_town.city WHERE family_benefit_town.city.id = city_import.id) " +
+          "ORDER BY city_import.number_row;";
+
+  /**
+   * Источник соединений с бд
+   */
+  private final DataSource dataSource;
+
+  /**
+   * Шаблон выполнения запросов
+   */
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Конструктор для инициализации источника соединений
+   * @param dataSource источник соединений с бд
+   */
+  @Autowired
+  public CityJdbcRepository(DataSource dataSource) {
+    this.dataSource = dataSource;
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+  }
+
+  /**
+   * Создает город одним запросом, без предварительного чтения по ID
+   * @param cityEntity модель таблицы "city"
+   */
+  public void insert(CityEntity cityEntity) {
+    jdbcTemplate.update(SQL_INSERT, cityEntity.getId(), cityEntity.getName());
+  }
+
+  /**
+   * Создает информацию города одним запросом, без предварительного чтения по ID
+   * @param cityInfoEntity модель таблицы "city_info"
+   */
+  public void insertInfo(CityInfoEntity cityInfoEntity) {
+    jdbcTemplate.update(SQL_INSERT_INFO, cityInfoEntity.getIdCity(), cityInfoEntity.getInfo());
+  }
+
+  /**
+   * Создает промежуточную таблицу загрузки и начинает запись в неё.
+   * Столбцы строк: номер записи, ID, название, информация, сжатая gzip
+   * @return объект записи строк в промежуточную таблицу
+   */
+  public PgCopyWriter beginImport() {
+
+    jdbcTemplate.execute(SQL_DROP_IMPORT);
+    jdbcTemplate.execute(SQL_CREATE_IMPORT);
+    return new PgCopyWriter(DataSourceUtils.getConnection(dataSource), SQL_COPY_IMPORT);
+  }
+
+  /**
+   * Переносит города из промежуточной таблицы в таблицы "city" и "city_info"
+   * @param rejectedConsumer получатель номера и названия каждой отклоненной записи
+   * @return число сохраненных городов
+   */
+  public long mergeImport(BiConsumer<Long, String> rejectedConsumer) {
+
+    long countImported = jdbcTemplate.update(SQL_MERGE_IMPORT);
+    jdbcTemplate.update(SQL_MERGE_IMPORT_INFO);
+
+    jdbcTemplate.query(SQL_SELECT_REJECTED, (RowCallbackHandler) resultSet ->
+        rejectedConsumer.accept(resultSet.getLong(1), resultSet.getString(2)));
+
+    return countImported;
+  }
+}
@@ -0,0 +1,174 @@
+package com.example.familybenefitstown.dto.jdbc;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.time.LocalDate;
+import java.util.Optional;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * Репозиторий операций с таблицами "city_stats" и "city_stats_child_birth", выполняющий запросы сразу,
+ * напрямую через JDBC: изменение счетчиков семей и детей городов на вклад пользователя, их чтение и полный пересчет
+ */
+@Repository
+public class CityStatsJdbcRepository {
+
+  /**
+   * Город и литерал массива дат рождений детей пользователя с блокировкой строки до конца транзакции
+   */
+  private static final String SQL_LOCK_MEMBERSHIP =
+      "SELECT family_benefit_town.user.id_city, CAST(family_benefit_town.user.children_birth AS TEXT) " +
+          "FROM family_benefit_town.user WHERE family_benefit_town.user.id = ? FOR UPDATE;";
+
+  /**
+   * Перенос вклада пользователя из прежних города и детей в текущие.
+   * Параметры: ID пользователя, прежний ID города, литерал массива прежних дат рождений детей
+   */
+  private static final String SQL_MOVE_USER =
+      "SELECT family_benefit_town.move_city_stats(?, ?, CAST(? AS DATE[]));";
+
+  /**
+   * Счетчики существующего города, отсутствующие счетчики - нули
+   */
+  private static final String SQL_SELECT_COUNTS =
+      "SELECT coalesce(family_benefit_town.city_stats.count_families, 0), " +
+          "coalesce(family_benefit_town.city_stats.count_children, 0), " +
+          "coalesce(family_benefit_town.city_stats.count_multi_child_families, 0) " +
+          "FROM family_benefit_town.city " +
+          "LEFT JOIN family_benefit_town.city_stats ON family_benefit_town.city_stats.id_city = family_benefit_town.city.id " +
+          "WHERE family_benefit_town.city.id = ?;";
+
+  /**
+   * Число детей города по дате рождения
+   */
+  private static final String SQL_SELECT_CHILD_BIRTH =
+      "SELECT family_benefit_town.city_stats_child_birth.date_birth, family_benefit_town.city_stats_child_birth.count_children " +
+          "FROM family_benefit_town.city_stats_child_birth " +
+          "WHERE family_benefit_town.city_stats_child_birth.id_city = ?;";
+
+  /**
+   * Полный пересчет счетчиков всех городов
+   */
+  private static final String SQL_REBUILD =
+      "SELECT family_benefit_town.rebuild_city_stats();";
+
+  /**
+   * Шаблон выполнения запросов
+   */
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Конструктор для инициализации шаблона выполнения запросов
+   * @param dataSource источник соединений с бд
+   */
+  @Autowired
+  public CityStatsJdbcRepository(DataSource dataSource) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+  }
+
+  /**
+   * Блокирует строку пользователя до конца транзакции и возвращает его вклад в счетчики города.
+   * Вызывается в транзакции изменения пользователя до изменений, чтобы одновременное изменение
+   * того же пользователя не изменило вклад между его чтением и переносом
+   * @param idUser подготовленный для бд ID пользователя
+   * @return вклад пользователя, или {@code empty}, если пользователь не найден
+   */
+  public Optional<Membership> lockMembership(String idUser) {
+    return jdbcTemplate.query(SQL_LOCK_MEMBERSHIP, (resultSet, numberRow) -> new Membership(
+        resultSet.getString(1), resultSet.getString(2)), idUser).stream().findFirst();
+  }
+
+  /**
+   * Переносит вклад пользователя в счетчики из прежних города и детей в текущие из таблицы "user".
+   * Вызывается в транзакции изменения пользователя после всех изменений, выполненных через JPA,
+   * иначе невыгруженные изменения не попадут в счетчики
+   * @param idUser подготовленный для бд ID пользователя
+   * @param membershipBefore вклад пользователя до изменений, {@link Membership#NONE} для созданного пользователя
+   */
+  public void moveUser(String idUser, Membership membershipBefore) {
+    jdbcTemplate.query(SQL_MOVE_USER, (RowCallbackHandler) resultSet -> {},
+        idUser, membershipBefore.getIdCity(), membershipBefore.getChildrenBirth());
+  }
+
+  /**
+   * Возвращает счетчики семей и детей города
+   * @param idCity подготовленный для бд ID города
+   * @return счетчики города, или {@code empty}, если город не найден
+   */
+  public Optional<Counts> findCounts(String idCity) {
+    return jdbcTemplate.query(SQL_SELECT_COUNTS, (resultSet, numberRow) -> new Counts(
+        resultSet.getLong(1), resultSet.getLong(2), resultSet.getLong(3)), idCity).stream().findFirst();
+  }
+
+  /**
+   * Передает получателю число детей города по каждой дате рождения
+   * @param idCity подготовленный для бд ID города
+   * @param childBirthConsumer получатель даты рождения и числа детей
+   */
+  public void forEachChildBirth(String idCity, ObjLongConsumer<LocalDate> childBirthConsumer) {
+    jdbcTemplate.query(SQL_SELECT_CHILD_BIRTH, (RowCallbackHandler) resultSet -> childBirthConsumer.accept(
+        resultSet.getDate(1).toLocalDate(), resultSet.getLong(2)), idCity);
+  }
+
+  /**
+   * Пересчитывает счетчики всех городов по таблице "user". Изменения счетчиков ожидают окончания пересчета.
+   * Должен вызываться внутри транзакции
+   * @return число городов, счетчики которых отличались от пересчитанных
+   */
+  public long rebuild() {
+    Long countDrifted = jdbcTemplate.queryForObject(SQL_REBUILD, Long.class);
+    return countDrifted != null ? countDrifted : 0;
+  }
+
+  /**
+   * Вклад пользователя в счетчики города
+   */
+  @Getter
+  @AllArgsConstructor
+  public static class Membership {
+
+    /**
+     * Вклад отсутствующего пользователя
+     */
+    public static final Membership NONE = new Membership(null, null);
+
+    /**
+     * ID города пользователя. {@code null}, если город не указан
+     */
+    private final String idCity;
+
+    /**
+     * Литерал массива дат рождений детей пользователя
+     */
+    private final String childrenBirth;
+  }
+
+  /**
+   * Счетчики семей и детей города
+   */
+  @Getter
+  @AllArgsConstructor
+  public static class Counts {
+
+    /**
+     * Число пользователей города
+     */
+    private final long countFamilies;
+
+    /**
+     * Число детей пользователей города
+     */
+    private final long countChildren;
+
+    /**
+     * Число пользователей города с тремя и более детьми
+     */
+    private final long countMultiChildFamilies;
+  }
+}
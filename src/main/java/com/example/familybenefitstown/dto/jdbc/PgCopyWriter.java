@@ -0,0 +1,156 @@
+package com.example.familybenefitstown.dto.jdbc;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.CopyIn;
+import org.springframework.jdbc.UncategorizedSQLException;
+
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * Записывает строки в таблицу командой PostgreSQL "COPY ... FROM STDIN" в формате CSV.
+ * Строки передаются на сервер по мере записи, без накопления в памяти
+ */
+public class PgCopyWriter implements AutoCloseable {
+
+  /**
+   * Размер буфера, после заполнения которого данные передаются на сервер
+   */
+  private static final int FLUSH_SIZE = 1 << 16;
+
+  /**
+   * Шестнадцатеричные цифры для записи массивов байтов
+   */
+  private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+  /**
+   * Команда COPY
+   */
+  private final String sqlCopy;
+
+  /**
+   * Операция COPY текущего соединения
+   */
+  private final CopyIn copyIn;
+
+  /**
+   * Буфер строки в формате CSV
+   */
+  private final StringBuilder buffer = new StringBuilder(FLUSH_SIZE + 1024);
+
+  /**
+   * Число записанных строк
+   */
+  private long countRows;
+
+  /**
+   * Конструктор, начинает операцию COPY на указанном соединении
+   * @param connection соединение с бд, участвующее в текущей транзакции
+   * @param sqlCopy команда вида "COPY table (columns) FROM STDIN WITH (FORMAT csv)"
+   */
+  public PgCopyWriter(Connection connection, String sqlCopy) {
+    this.sqlCopy = sqlCopy;
+    try {
+      this.copyIn = connection.unwrap(PGConnection.class).getCopyAPI().copyIn(sqlCopy);
+    } catch (SQLException e) {
+      throw new UncategorizedSQLException("COPY start", sqlCopy, e);
+    }
+  }
+
+  /**
+   * Записывает строку. Значение {@code null} записывается как NULL, массив байтов - как значение BYTEA
+   * в шестнадцатеричном формате, остальные значения - как строки в кавычках
+   * @param values значения столбцов в порядке, указанном в команде COPY
+   */
+  public void writeRow(Object... values) {
+
+    for (int i = 0; i < values.length; i++) {
+      if (i > 0) {
+        buffer.append(',');
+      }
+      if (values[i] instanceof byte[]) {
+        appendHex((byte[]) values[i]);
+      } else if (values[i] != null) {
+        buffer.append('"').append(values[i].toString().replace("\"", "\"\"")).append('"');
+      }
+    }
+    buffer.append('\n');
+    countRows++;
+
+    if (buffer.length() >= FLUSH_SIZE) {
+      flush();
+    }
+  }
+
+  /**
+   * Возвращает число записанных строк
+   * @return число строк
+   */
+  public long getCountRows() {
+    return countRows;
+  }
+
+  /**
+   * Отменяет операцию COPY. Ни одна строка не будет сохранена
+   */
+  public void cancel() {
+
+    try {
+      if (copyIn.isActive()) {
+        copyIn.cancelCopy();
+      }
+    } catch (SQLException e) {
+      throw new UncategorizedSQLException("COPY cancel", sqlCopy, e);
+    }
+  }
+
+  /**
+   * Завершает операцию COPY, передавая оставшиеся строки
+   */
+  @Override
+  public void close() {
+
+    if (!copyIn.isActive()) {
+      return;
+    }
+
+    flush();
+    try {
+      copyIn.endCopy();
+    } catch (SQLException e) {
+      throw new UncategorizedSQLException("COPY end", sqlCopy, e);
+    }
+  }
+
+  /**
+   * Добавляет в буфер массив байтов в формате BYTEA "\x..."
+   * @param bytes массив байтов
+   */
+  private void appendHex(byte[] bytes) {
+
+    buffer.ensureCapacity(buffer.length() + bytes.length * 2 + 2);
+    buffer.append("\\x");
+    for (byte value : bytes) {
+      buffer.append(HEX_DIGITS[(value >> 4) & 0x0f]).append(HEX_DIGITS[value & 0x0f]);
+    }
+  }
+
+  /**
+   * Передает накопленные строки на сервер
+   */
+  private void flush() {
+
+    if (buffer.length() == 0) {
+      return;
+    }
+
+    byte[] bytes = buffer.toString().getBytes(StandardCharsets.UTF_8);
+    buffer.setLength(0);
+    try {
+      copyIn.writeToCopy(bytes, 0, bytes.length);
+    } catch (SQLException e) {
+      throw new UncategorizedSQLException("COPY write", sqlCopy, e);
+    }
+  }
+}
@@ -0,0 +1,659 @@
+package com.example.familybenefitstown.dto.jdbc;
+
+import com.example.familybenefitstown.dto.entities.UserEntity;
+import com.example.familybenefitstown.dto.projections.UserProfile;
+import com.example.familybenefitstown.part_res_rest_api.api_models.common.ObjectShortInfo;
+import com.example.familybenefitstown.part_res_rest_api.benefits.BenefitSubject;
+import com.example.familybenefitstown.security.DBSecuritySupport;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.ResultSetExtractor;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.datasource.DataSourceUtils;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * Репозиторий операций с таблицей "user", выполняющий запросы сразу, напрямую через JDBC:
+ * создание без предварительного чтения, массовые загрузка и выгрузка, поиск с набором условий, зависящим от запроса.
+ * Методы изменения должны вызываться внутри транзакции
+ */
+@Repository
+public class UserJdbcRepository {
+
+  /**
+   * Название ограничения уникальности email пользователя
+   */
+  public static final String CONSTRAINT_UNIQ_EMAIL = "user_uniq_email";
+
+  /**
+   * Название ограничения внешнего ключа города пользователя
+   */
+  public static final String CONSTRAINT_FK_CITY = "user_fk_city";
+
+  /**
+   * Число строк, получаемых с сервера за один запрос курсора
+   */
+  private static final int FETCH_SIZE = 1000;
+
+  /**
+   * Создание пользователя
+   */
+  private static final String SQL_INSERT =
+      "INSERT INTO family_benefit_town.user (id, name, email, date_birth, id_city) VALUES (?, ?, ?, ?, ?);";
+
+  /**
+   * Начало запроса страницы кратких информаций о пользователях
+   */
+  private static final String SQL_SELECT_SHORT_INFO =
+      "SELECT family_benefit_town.user.id, family_benefit_town.user.name FROM family_benefit_town.user WHERE TRUE";
+
+  /**
+   * Условие поиска по подстроке имени или email, использует триграммные индексы
+   */
+  private static final String SQL_WHERE_SUBSTRING =
+      " AND (lower(family_benefit_town.user.name) LIKE ? OR lower(family_benefit_town.user.email) LIKE ?)";
+
+  /**
+   * Условие наличия роли по её названию
+   */
+  private static final String SQL_WHERE_ROLE =
+      " AND EXISTS(SELECT 1 FROM family_benefit_town.users_roles " +
+          "INNER JOIN family_benefit_town.role ON family_benefit_town.users_roles.id_role = family_benefit_town.role.id " +
+          "WHERE family_benefit_town.users_roles.id_user = family_benefit_town.user.id AND family_benefit_town.role.name = ?)";
+
+  /**
+   * Условие города по его ID
+   */
+  private static final String SQL_WHERE_CITY = " AND family_benefit_town.user.id_city = ?";
+
+  /**
+   * Условие начала страницы после указанного ID
+   */
+  private static final String SQL_WHERE_AFTER = " AND family_benefit_town.user.id > ?";
+
+  /**
+   * Порядок и размер страницы
+   */
+  private static final String SQL_ORDER_LIMIT = " ORDER BY family_benefit_town.user.id LIMIT ?;";
+
+  /**
+   * Удаление промежуточной таблицы загрузки, оставшейся от предыдущей загрузки в той же транзакции
+   */
+  private static final String SQL_DROP_IMPORT = "DROP TABLE IF EXISTS pg_temp.user_import;";
+
+  /**
+   * Создание промежуточной таблицы загрузки, удаляемой по окончании транзакции
+   */
+  private static final String SQL_CREATE_IMPORT =
+      "CREATE TEMP TABLE user_import (number_row BIGINT NOT NULL, id TEXT NOT NULL, name TEXT NOT NULL, " +
+          "email TEXT NOT NULL, date_birth DATE NULL, id_city TEXT NULL, children_birth DATE[] NOT NULL) " +
+          "ON COMMIT DROP;";
+
+  /**
+   * Загрузка строк в промежуточную таблицу
+   */
+  private static final String SQL_COPY_IMPORT =
+      "COPY user_import (number_row, id, name, email, date_birth, id_city, children_birth) FROM STDIN WITH (FORMAT csv)";
+
+  /**
+   * Перенос пользователей из промежуточной таблицы. Из повторяющихся в потоке email сохраняется первый,
+   * существующие email пропускаются по ограничению "user_uniq_email", пользователи с несуществующим городом пропускаются.
+   * Связь "users_children" и отсутствующие рождения детей создаются триггером бд одним набором запросов
+   */
+  private static final String SQL_MERGE_IMPORT =
+      "INSERT INTO family_benefit_town.user (id, name, email, date_birth, id_city, children_birth, date_import) " +
+          "SELECT DISTINCT ON (user_import.email) user_import.id, user_import.name, user_import.email, " +
+          "user_import.date_birth, user_import.id_city, user_import.children_birth, now() " +
+          "FROM user_import " +
+          "WHERE EXISTS(SELECT 1 FROM family_benefit_town.city WHERE family_benefit_town.city.id = user_import.id_city) " +
+          "ORDER BY user_import.email, user_import.number_row " +
+          "ON CONFLICT ON CONSTRAINT user_uniq_email DO NOTHING;";
+
+  /**
+   * Добавление роли сохраненным пользователям
+   */
+  private static final String SQL_MERGE_IMPORT_ROLE =
+      "INSERT INTO family_benefit_town.users_roles (id_user, id_role) " +
+          "SELECT user_import.id, ? FROM user_import " +
+          "INNER JOIN family_benefit_town.user ON family_benefit_town.user.id = user_import.id;";
+
+  /**
+   * Создание профилей сохраненных пользователей
+   */
+  private static final String SQL_MERGE_IMPORT_PROFILE =
+      "SELECT family_benefit_town.refresh_user_profile(ARRAY(SELECT user_import.id FROM user_import " +
+          "INNER JOIN family_benefit_town.user ON family_benefit_town.user.id = user_import.id));";
+
+  /**
+   * Добавление сохраненных пользователей в счетчики семей и детей их городов
+   */
+  private static final String SQL_MERGE_IMPORT_CITY_STATS =
+      "SELECT family_benefit_town.apply_city_stats_delta(ARRAY(" +
+          "SELECT ROW(family_benefit_town.user.id_city, family_benefit_town.user.children_birth, 1)" +
+          "::family_benefit_town.city_stats_delta FROM user_import " +
+          "INNER JOIN family_benefit_town.user ON family_benefit_town.user.id = user_import.id));";
+
+  /**
+   * Сохраненные пользователи промежуточной таблицы с городом и датами рождений детей в днях от 01.01.1970, по возрастанию
+   */
+  private static final String SQL_SELECT_IMPORTED_BENEFIT_SUBJECT =
+      "SELECT family_benefit_town.user.id, family_benefit_town.user.id_city, " +
+          "ARRAY(SELECT children.date_birth - DATE '1970-01-01' " +
+          "FROM unnest(family_benefit_town.user.children_birth) AS children(date_birth) ORDER BY 1) " +
+          "FROM user_import " +
+          "INNER JOIN family_benefit_town.user ON family_benefit_town.user.id = user_import.id;";
+
+  /**
+   * Строки промежуточной таблицы, не попавшие в таблицу "user", с признаком существования города
+   */
+  private static final String SQL_SELECT_REJECTED =
+      "SELECT user_import.number_row, user_import.email, " +
+          "EXISTS(SELECT 1 FROM family_benefit_town.city WHERE family_benefit_town.city.id = user_import.id_city) " +
+          "FROM user_import " +
+          "WHERE NOT EXISTS(SELECT 1 FROM family_benefit_town.user WHERE family_benefit_town.user.id = user_import.id) " +
+          "ORDER BY user_import.number_row;";
+
+  /**
+   * Профили всех пользователей из таблицы "user_profile_view", в порядке ID
+   */
+  private static final String SQL_SELECT_PROFILES =
+      "SELECT family_benefit_town.user_profile_view.id, family_benefit_town.user_profile_view.name, " +
+          "family_benefit_town.user_profile_view.email, family_benefit_town.user_profile_view.name_city, " +
+          "family_benefit_town.user_profile_view.birth_date_children, family_benefit_town.user_profile_view.name_roles " +
+          "FROM family_benefit_town.user_profile_view " +
+          "ORDER BY family_benefit_town.user_profile_view.id;";
+
+  /**
+   * Пересчет профилей указанных пользователей
+   */
+  private static final String SQL_REFRESH_PROFILE =
+      "SELECT family_benefit_town.refresh_user_profile(CAST(? AS TEXT[]));";
+
+  /**
+   * Обновление названия города в профилях его пользователей
+   */
+  private static final String SQL_REFRESH_PROFILE_CITY =
+      "SELECT family_benefit_town.refresh_user_profile_city(?);";
+
+  /**
+   * Полное пересоздание профилей всех пользователей
+   */
+  private static final String SQL_REBUILD_PROFILE =
+      "SELECT family_benefit_town.rebuild_user_profile();";
+
+  /**
+   * Установка времени последней активности пользователя
+   */
+  private static final String SQL_UPDATE_LAST_ACTIVITY =
+      "UPDATE family_benefit_town.user SET date_last_activity = now() WHERE family_benefit_town.user.id = ?;";
+
+  /**
+   * ID города пользователя
+   */
+  private static final String SQL_SELECT_ID_CITY =
+      "SELECT family_benefit_town.user.id_city FROM family_benefit_town.user WHERE family_benefit_town.user.id = ?;";
+
+  /**
+   * Условие удаления пользователя: нет защищенных ролей, и пользователь без ролей, или зарегистрировался сам
+   * и ни разу не входил дольше указанного числа дней с регистрации, или загружен и ни разу не входил
+   * дольше числа дней без активности с загрузки, или неактивен дольше числа дней без активности.
+   * Параметры: литерал массива ID защищенных ролей, число дней без входа, дважды число дней без активности
+   */
+  private static final String SQL_PURGE_CONDITION =
+      "NOT EXISTS(SELECT 1 FROM family_benefit_town.users_roles " +
+          "WHERE family_benefit_town.users_roles.id_user = family_benefit_town.user.id " +
+          "AND family_benefit_town.users_roles.id_role = ANY(CAST(? AS TEXT[]))) " +
+          "AND (NOT EXISTS(SELECT 1 FROM family_benefit_town.users_roles " +
+          "WHERE family_benefit_town.users_roles.id_user = family_benefit_town.user.id) " +
+          "OR (family_benefit_town.user.date_last_activity IS NULL " +
+          "AND family_benefit_town.user.date_import IS NULL " +
+          "AND family_benefit_town.user.date_registration < now() - make_interval(days => ?)) " +
+          "OR (family_benefit_town.user.date_last_activity IS NULL " +
+          "AND family_benefit_town.user.date_import < now() - make_interval(days => ?)) " +
+          "OR family_benefit_town.user.date_last_activity < now() - make_interval(days => ?)) ";
+
+  /**
+   * Число пользователей, подлежащих удалению
+   */
+  private static final String SQL_COUNT_PURGE =
+      "SELECT count(*) FROM family_benefit_town.user WHERE " + SQL_PURGE_CONDITION + ";";
+
+  /**
+   * ID пользователей, подлежащих удалению, не более указанного числа, без блокировки
+   */
+  private static final String SQL_SELECT_PURGE =
+      "SELECT family_benefit_town.user.id FROM family_benefit_town.user WHERE " + SQL_PURGE_CONDITION +
+          "ORDER BY family_benefit_town.user.id LIMIT ?;";
+
+  /**
+   * Удаление пакета пользователей, подлежащих удалению. Строки, заблокированные другими транзакциями, пропускаются,
+   * связанные записи "users_roles", "users_children", "refresh_token", "login_code" и "user_profile_view"
+   * удаляются внешними ключами, удаленные пользователи вычитаются из счетчиков семей и детей их городов
+   */
+  private static final String SQL_DELETE_PURGE =
+      "WITH purged AS (" +
+          "SELECT family_benefit_town.user.id FROM family_benefit_town.user WHERE " + SQL_PURGE_CONDITION +
+          "LIMIT ? FOR UPDATE SKIP LOCKED), " +
+          "deleted AS (" +
+          "DELETE FROM family_benefit_town.user USING purged " +
+          "WHERE family_benefit_town.user.id = purged.id " +
+          "RETURNING family_benefit_town.user.id, family_benefit_town.user.id_city, family_benefit_town.user.children_birth), " +
+          "stats AS (" +
+          "SELECT family_benefit_town.apply_city_stats_delta(ARRAY(" +
+          "SELECT ROW(deleted.id_city, deleted.children_birth, -1)::family_benefit_town.city_stats_delta FROM deleted))) " +
+          "SELECT deleted.id FROM deleted CROSS JOIN stats;";
+
+  /**
+   * Город пользователя и даты рождений его детей в днях от 01.01.1970, по возрастанию
+   */
+  private static final String SQL_SELECT_BENEFIT_SUBJECT =
+      "SELECT family_benefit_town.user.id, family_benefit_town.user.id_city, " +
+          "ARRAY(SELECT children.date_birth - DATE '1970-01-01' " +
+          "FROM unnest(family_benefit_town.user.children_birth) AS children(date_birth) ORDER BY 1) " +
+          "FROM family_benefit_town.user WHERE family_benefit_town.user.id = ?;";
+
+  /**
+   * Страница пользователей города после указанного ID по индексу "user_idx_id_city", с городом и датами рождений детей
+   * в днях от 01.01.1970, по возрастанию. Строки пользователей блокируются от изменения до конца транзакции, чтобы
+   * пособия, рассчитанные по странице, не заменили пособия, рассчитанные при параллельном сохранении пользователя.
+   * Параметры: ID города, ID пользователя, после которого начинается страница, или пустая строка, размер страницы
+   */
+  private static final String SQL_SELECT_BENEFIT_SUBJECT_PAGE =
+      "SELECT family_benefit_town.user.id, family_benefit_town.user.id_city, " +
+          "ARRAY(SELECT children.date_birth - DATE '1970-01-01' " +
+          "FROM unnest(family_benefit_town.user.children_birth) AS children(date_birth) ORDER BY 1) " +
+          "FROM family_benefit_town.user " +
+          "WHERE family_benefit_town.user.id_city = ? AND family_benefit_town.user.id > ? " +
+          "ORDER BY family_benefit_town.user.id LIMIT ? FOR SHARE;";
+
+  /**
+   * Пользователи с городом, у которых есть ребенок с одной из дат рождения, с датами рождений всех детей
+   * в днях от 01.01.1970, по возрастанию. Пользователи ищутся пересечением столбца "children_birth" с датами
+   * по индексу "user_idx_children_birth". Строки пользователей блокируются от изменения
+   * до конца транзакции. Параметр: литерал массива дат рождения
+   */
+  private static final String SQL_SELECT_BENEFIT_SUBJECT_BY_CHILD_BIRTH =
+      "SELECT family_benefit_town.user.id, family_benefit_town.user.id_city, " +
+          "ARRAY(SELECT children.date_birth - DATE '1970-01-01' " +
+          "FROM unnest(family_benefit_town.user.children_birth) AS children(date_birth) ORDER BY 1) " +
+          "FROM family_benefit_town.user " +
+          "WHERE family_benefit_town.user.id_city IS NOT NULL " +
+          "AND family_benefit_town.user.children_birth && CAST(? AS DATE[]) FOR SHARE;";
+
+  /**
+   * Источник соединений с бд
+   */
+  private final DataSource dataSource;
+
+  /**
+   * Шаблон выполнения запросов
+   */
+  private final JdbcTemplate jdbcTemplate;
+
+  /**
+   * Конструктор для инициализации источника соединений
+   * @param dataSource источник соединений с бд
+   */
+  @Autowired
+  public UserJdbcRepository(DataSource dataSource) {
+    this.dataSource = dataSource;
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.jdbcTemplate.setFetchSize(FETCH_SIZE);
+  }
+
+  /**
+   * Создает пользователя одним запросом, без предварительного чтения по ID
+   * @param userEntity модель таблицы "user"
+   */
+  public void insert(UserEntity userEntity) {
+
+    jdbcTemplate.update(SQL_INSERT,
+                        userEntity.getId(), userEntity.getName(), userEntity.getEmail(),
+                        userEntity.getDateBirth(), userEntity.getIdCity());
+  }
+
+  /**
+   * Создает промежуточную таблицу загрузки и начинает запись в неё.
+   * Столбцы строк: номер записи, ID, имя, email, дата рождения, ID города, литерал массива дат рождений детей
+   * @return объект записи строк в промежуточную таблицу
+   */
+  public PgCopyWriter beginImport() {
+
+    jdbcTemplate.execute(SQL_DROP_IMPORT);
+    jdbcTemplate.execute(SQL_CREATE_IMPORT);
+    return new PgCopyWriter(DataSourceUtils.getConnection(dataSource), SQL_COPY_IMPORT);
+  }
+
+  /**
+   * Переносит пользователей из промежуточной таблицы в таблицу "user" вместе с датами рождений детей, добавляя им роль
+   * @param idRole ID роли, добавляемой сохраненным пользователям
+   * @param rejectedConsumer получатель номера, email и признака существования города каждой отклоненной записи
+   * @return число сохраненных пользователей
+   */
+  public long mergeImport(String idRole, RejectedUserConsumer rejectedConsumer) {
+
+    long countImported = jdbcTemplate.update(SQL_MERGE_IMPORT);
+    jdbcTemplate.update(SQL_MERGE_IMPORT_ROLE, idRole);
+    jdbcTemplate.query(SQL_MERGE_IMPORT_PROFILE, (ResultSetExtractor<Void>) resultSet -> null);
+    jdbcTemplate.query(SQL_MERGE_IMPORT_CITY_STATS, (ResultSetExtractor<Void>) resultSet -> null);
+
+    jdbcTemplate.query(SQL_SELECT_REJECTED, (RowCallbackHandler) resultSet ->
+        rejectedConsumer.accept(resultSet.getLong(1), resultSet.getString(2), resultSet.getBoolean(3)));
+
+    return countImported;
+  }
+
+  /**
+   * Возвращает пользователей, сохраненных из промежуточной таблицы, с датами рождений их детей.
+   * Должен вызываться после {@link #mergeImport} в той же транзакции, пока промежуточная таблица существует
+   * @return данные сохраненных пользователей для определения пособий
+   */
+  public List<BenefitSubject> findImportedBenefitSubjects() {
+    return jdbcTemplate.query(SQL_SELECT_IMPORTED_BENEFIT_SUBJECT, (resultSet, numberRow) -> toBenefitSubject(resultSet));
+  }
+
+  /**
+   * Получатель отклоненной записи загрузки пользователей
+   */
+  @FunctionalInterface
+  public interface RejectedUserConsumer {
+
+    /**
+     * Принимает отклоненную запись
+     * @param numberRow номер записи
+     * @param email email пользователя
+     * @param existsCity true, если город пользователя существует, и запись отклонена из-за email
+     */
+    void accept(long numberRow, String email, boolean existsCity);
+  }
+
+  /**
+   * Возвращает страницу кратких информаций о пользователях, упорядоченных по ID.
+   * Условия с параметром {@code null} не участвуют в запросе. Страница начинается после указанного ID,
+   * поэтому время запроса не зависит от номера страницы
+   * @param substring подстрока имени или email без учета регистра
+   * @param nameRole название роли пользователя
+   * @param idCity ID города пользователя
+   * @param idAfter ID последнего пользователя предыдущей страницы
+   * @param limit размер страницы
+   * @return список кратких информаций о пользователях, название объекта - имя пользователя
+   */
+  public List<ObjectShortInfo> findShortInfoPage(String substring, String nameRole, String idCity, String idAfter, int limit) {
+
+    StringBuilder sql = new StringBuilder(SQL_SELECT_SHORT_INFO);
+    List<Object> argList = new ArrayList<>();
+
+    if (substring != null) {
+      String pattern = "%" + escapeLike(substring.toLowerCase()) + "%";
+      sql.append(SQL_WHERE_SUBSTRING);
+      argList.add(pattern);
+      argList.add(pattern);
+    }
+    if (nameRole != null) {
+      sql.append(SQL_WHERE_ROLE);
+      argList.add(nameRole);
+    }
+    if (idCity != null) {
+      sql.append(SQL_WHERE_CITY);
+      argList.add(idCity);
+    }
+    if (idAfter != null) {
+      sql.append(SQL_WHERE_AFTER);
+      argList.add(idAfter);
+    }
+    sql.append(SQL_ORDER_LIMIT);
+    argList.add(limit);
+
+    return jdbcTemplate.query(sql.toString(), (resultSet, numberRow) -> ObjectShortInfo
+        .builder()
+        .idObject(resultSet.getString(1))
+        .nameObject(resultSet.getString(2))
+        .build(), argList.toArray());
+  }
+
+  /**
+   * Пересчитывает профили указанных пользователей в таблице "user_profile_view" одним запросом.
+   * Вызывается в транзакции изменения пользователей, их ролей или детей после всех изменений,
+   * выполненных через JPA, иначе невыгруженные изменения не попадут в профиль
+   * @param idUserCollection коллекция подготовленных для бд ID пользователей
+   */
+  public void refreshProfiles(Collection<String> idUserCollection) {
+
+    if (idUserCollection.isEmpty()) {
+      return;
+    }
+    jdbcTemplate.query(SQL_REFRESH_PROFILE, (ResultSetExtractor<Void>) resultSet -> null,
+                       DBSecuritySupport.toPostgreSQLTextArray(idUserCollection));
+  }
+
+  /**
+   * Пересчитывает профиль пользователя в таблице "user_profile_view"
+   * @param idUser подготовленное для бд ID пользователя
+   */
+  public void refreshProfile(String idUser) {
+    refreshProfiles(List.of(idUser));
+  }
+
+  /**
+   * Обновляет название города в профилях всех его пользователей одним запросом.
+   * Вызывается в транзакции переименования города после сохранения названия
+   * @param idCity подготовленное для бд ID города
+   */
+  public void refreshProfileCity(String idCity) {
+    jdbcTemplate.query(SQL_REFRESH_PROFILE_CITY, (ResultSetExtractor<Void>) resultSet -> null, idCity);
+  }
+
+  /**
+   * Пересоздает профили всех пользователей в таблице "user_profile_view"
+   * @return число созданных профилей
+   */
+  public long rebuildProfiles() {
+
+    Long countProfiles = jdbcTemplate.queryForObject(SQL_REBUILD_PROFILE, Long.class);
+    return countProfiles != null ? countProfiles : 0;
+  }
+
+  /**
+   * Устанавливает время последней активности пользователя текущим временем бд.
+   * Версия пользователя при этом не изменяется
+   * @param idUser ID пользователя
+   */
+  public void updateLastActivity(String idUser) {
+    jdbcTemplate.update(SQL_UPDATE_LAST_ACTIVITY, idUser);
+  }
+
+  /**
+   * Возвращает ID города пользователя
+   * @param idUser ID пользователя
+   * @return ID города, или {@code empty}, если пользователь не найден или город не указан
+   */
+  public Optional<String> findIdCity(String idUser) {
+
+    return jdbcTemplate.query(SQL_SELECT_ID_CITY, (resultSet, numberRow) -> resultSet.getString(1), idUser)
+        .stream()
+        .filter(Objects::nonNull)
+        .findFirst();
+  }
+
+  /**
+   * Возвращает число пользователей, подлежащих удалению
+   * @param idsProtectedRole ID ролей, пользователи с которыми не удаляются
+   * @param neverActiveDays число дней с регистрации, после которого удаляется ни разу не входивший зарегистрировавшийся пользователь
+   * @param inactiveDays число дней без активности или с загрузки, после которого удаляется пользователь
+   * @return число пользователей
+   */
+  public long countPurgeCandidates(Collection<String> idsProtectedRole, int neverActiveDays, int inactiveDays) {
+
+    Long countCandidates = jdbcTemplate.queryForObject(SQL_COUNT_PURGE, Long.class,
+        DBSecuritySupport.toPostgreSQLTextArray(idsProtectedRole), neverActiveDays, inactiveDays, inactiveDays);
+    return countCandidates != null ? countCandidates : 0;
+  }
+
+  /**
+   * Возвращает ID пользователей, подлежащих удалению, без их удаления и блокировки
+   * @param idsProtectedRole ID ролей, пользователи с которыми не удаляются
+   * @param neverActiveDays число дней с регистрации, после которого удаляется ни разу не входивший зарегистрировавшийся пользователь
+   * @param inactiveDays число дней без активности или с загрузки, после которого удаляется пользователь
+   * @param limit максимальное число ID
+   * @return список ID пользователей
+   */
+  public List<String> findPurgeCandidates(Collection<String> idsProtectedRole, int neverActiveDays, int inactiveDays, int limit) {
+
+    return jdbcTemplate.queryForList(SQL_SELECT_PURGE, String.class,
+        DBSecuritySupport.toPostgreSQLTextArray(idsProtectedRole), neverActiveDays, inactiveDays, inactiveDays, limit);
+  }
+
+  /**
+   * Удаляет пакет пользователей, подлежащих удалению, одним запросом. Вне транзакции запрос фиксируется сразу,
+   * поэтому блокировки удаленных строк и каскадно удаленных записей удерживаются только на время пакета
+   * @param idsProtectedRole ID ролей, пользователи с которыми не удаляются
+   * @param neverActiveDays число дней с регистрации, после которого удаляется ни разу не входивший зарегистрировавшийся пользователь
+   * @param inactiveDays число дней без активности или с загрузки, после которого удаляется пользователь
+   * @param limit максимальное число удаляемых пользователей
+   * @return список ID удаленных пользователей
+   */
+  public List<String> purgeBatch(Collection<String> idsProtectedRole, int neverActiveDays, int inactiveDays, int limit) {
+
+    return jdbcTemplate.queryForList(SQL_DELETE_PURGE, String.class,
+        DBSecuritySupport.toPostgreSQLTextArray(idsProtectedRole), neverActiveDays, inactiveDays, inactiveDays, limit);
+  }
+
+  /**
+   * Возвращает город пользователя и даты рождений его детей одним запросом по первичному ключу.
+   * Даты преобразуются в дни от 01.01.1970 на стороне бд
+   * @param idUser ID пользователя
+   * @return данные пользователя для определения пособий, или {@code empty}, если пользователь не найден
+   */
+  public Optional<BenefitSubject> findBenefitSubject(String idUser) {
+
+    return Optional.ofNullable(jdbcTemplate.query(SQL_SELECT_BENEFIT_SUBJECT, (ResultSetExtractor<BenefitSubject>) resultSet ->
+        resultSet.next() ? toBenefitSubject(resultSet) : null, idUser));
+  }
+
+  /**
+   * Возвращает страницу пользователей города с датами рождений их детей одним запросом, без смещения:
+   * следующая страница начинается после последнего ID предыдущей
+   * @param idCity ID города
+   * @param idAfter ID пользователя, после которого начинается страница, или {@code null} для первой страницы
+   * @param limit размер страницы
+   * @return данные пользователей для определения пособий в порядке ID
+   */
+  public List<BenefitSubject> findBenefitSubjectPage(String idCity, String idAfter, int limit) {
+
+    return jdbcTemplate.query(SQL_SELECT_BENEFIT_SUBJECT_PAGE, (resultSet, numberRow) -> toBenefitSubject(resultSet),
+                              idCity, idAfter != null ? idAfter : "", limit);
+  }
+
+  /**
+   * Возвращает пользователей с городом, у которых есть ребенок с одной из указанных дат рождения.
+   * Объем работы пропорционален числу найденных детей, а не числу всех детей.
+   * Найденные пользователи блокируются от изменения до конца транзакции
+   * @param datesBirth даты рождения детей
+   * @return данные найденных пользователей для определения пособий
+   */
+  public List<BenefitSubject> findBenefitSubjectsByChildBirth(Collection<LocalDate> datesBirth) {
+
+    return jdbcTemplate.query(SQL_SELECT_BENEFIT_SUBJECT_BY_CHILD_BIRTH, (resultSet, numberRow) -> toBenefitSubject(resultSet),
+                              DBSecuritySupport.toPostgreSQLDateArray(datesBirth));
+  }
+
+  /**
+   * Передает получателю профили всех пользователей по мере чтения курсора, по {@link #FETCH_SIZE} строк за запрос.
+   * Результат не накапливается в памяти. Метод должен вызываться внутри транзакции, иначе драйвер читает результат целиком
+   * @param profileConsumer получатель профиля пользователя
+   */
+  public void forEachProfile(Consumer<UserProfile> profileConsumer) {
+
+    jdbcTemplate.query(SQL_SELECT_PROFILES, (RowCallbackHandler) resultSet -> profileConsumer.accept(new RowUserProfile(
+        resultSet.getString(1), resultSet.getString(2), resultSet.getString(3),
+        resultSet.getString(4), resultSet.getString(5), resultSet.getString(6))));
+  }
+
+  /**
+   * Преобразует текущую строку результата запроса данных пользователя для определения пособий
+   * @param resultSet результат запроса, установленный на строку: ID пользователя, ID города, массив дней от 01.01.1970
+   * @return данные пользователя для определения пособий
+   * @throws SQLException если не удалось прочитать строку
+   */
+  private static BenefitSubject toBenefitSubject(ResultSet resultSet) throws SQLException {
+
+    Integer[] childrenEpochDays = (Integer[]) resultSet.getArray(3).getArray();
+    int[] childrenEpochDaysSorted = new int[childrenEpochDays.length];
+    for (int index = 0; index < childrenEpochDays.length; index++) {
+      childrenEpochDaysSorted[index] = childrenEpochDays[index];
+    }
+    return new BenefitSubject(resultSet.getString(1), resultSet.getString(2), childrenEpochDaysSorted);
+  }
+
+  /**
+   * Экранирует специальные символы шаблона LIKE
+   * @param content строка для поиска
+   * @return строка, в которой символы "\", "%" и "_" ищутся буквально
+   */
+  private static String escapeLike(String content) {
+    return content.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+
+  /**
+   * Профиль пользователя, прочитанный из строки результата запроса
+   */
+  private static class RowUserProfile implements UserProfile {
+
+    private final String id;
+    private final String name;
+    private final String email;
+    private final String nameCity;
+    private final String birthDateChildren;
+    private final String nameRoles;
+
+    private RowUserProfile(String id, String name, String email, String nameCity, String birthDateChildren, String nameRoles) {
+      this.id = id;
+      this.name = name;
+      this.email = email;
+      this.nameCity = nameCity;
+      this.birthDateChildren = birthDateChildren;
+      this.nameRoles = nameRoles;
+    }
+
+    @Override
+    public String getId() {
+      return id;
+    }
+
+    @Override
+    public String getName() {
+      return name;
+    }
+
+    @Override
+    public String getEmail() {
+      return email;
+    }
+
+    @Override
+    public String getNameCity() {
+      return nameCity;
+    }
+
+    @Override
+    public String getBirthDateChildren() {
+      return birthDateChildren;
+    }
+
+    @Override
+    public String getNameRoles() {
+      return nameRoles;
+    }
+  }
+}
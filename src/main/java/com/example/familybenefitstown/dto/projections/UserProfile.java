@@ -0,0 +1,43 @@
+package com.example.familybenefitstown.dto.projections;
+
+/**
+ * Профиль пользователя, получаемый одним запросом вместе с городом, ролями и рождениями детей
+ */
+public interface UserProfile {
+
+  /**
+   * Возвращает ID пользователя
+   * @return ID пользователя
+   */
+  String getId();
+
+  /**
+   * Возвращает имя пользователя
+   * @return имя пользователя
+   */
+  String getName();
+
+  /**
+   * Возвращает электронную почту пользователя
+   * @return электронная почта пользователя
+   */
+  String getEmail();
+
+  /**
+   * Возвращает название города пользователя
+   * @return название города или {@code null}, если город не указан
+   */
+  String getNameCity();
+
+  /**
+   * Возвращает даты рождений детей в формате "yyyy-mm-dd" через запятую, по возрастанию
+   * @return даты рождений детей или {@code null}, если детей нет
+   */
+  String getBirthDateChildren();
+
+  /**
+   * Возвращает названия ролей пользователя через запятую
+   * @return названия ролей или {@code null}, если ролей нет
+   */
+  String getNameRoles();
+}
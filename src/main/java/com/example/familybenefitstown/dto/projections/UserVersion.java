@@ -0,0 +1,19 @@
+package com.example.familybenefitstown.dto.projections;
+
+/**
+ * Версия пользователя вместе с версией его города, получаемая без загрузки пользователя
+ */
+public interface UserVersion {
+
+  /**
+   * Возвращает ID пользователя
+   * @return ID пользователя
+   */
+  String getId();
+
+  /**
+   * Возвращает версии пользователя и его города через "-"
+   * @return версии пользователя и города
+   */
+  String getVersion();
+}
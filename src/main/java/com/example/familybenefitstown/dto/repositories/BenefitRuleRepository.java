@@ -0,0 +1,42 @@
+package com.example.familybenefitstown.dto.repositories;
+
+import com.example.familybenefitstown.dto.entities.BenefitRuleEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+
+import java.util.List;
+
+/**
+ * Репозиторий, работающий с моделью таблицы "benefit_rule"
+ */
+public interface BenefitRuleRepository extends JpaRepository<BenefitRuleEntity, String> {
+
+  /**
+   * Возвращает правила пособий города по его ID в порядке названий пособий
+   * @param idCity ID города
+   * @return список правил пособий города
+   */
+  List<BenefitRuleEntity> findAllByIdCityOrderByName(String idCity);
+
+  /**
+   * Удаляет все правила пособий города одним запросом, без предварительного чтения
+   * @param idCity ID города
+   */
+  @Modifying
+  @Query(nativeQuery = true,
+      value = "DELETE FROM family_benefit_town.benefit_rule WHERE family_benefit_town.benefit_rule.id_city = ?;")
+  void deleteAllByIdCity(String idCity);
+
+  /**
+   * Возвращает возрасты детей в полных годах, с которых пособие становится или перестает быть положенным:
+   * минимальные возрасты и следующие за максимальными, по всем городам
+   * @return список возрастов без повторов
+   */
+  @Query(nativeQuery = true,
+      value = "SELECT family_benefit_town.benefit_rule.min_age_child FROM family_benefit_town.benefit_rule " +
+          "WHERE family_benefit_town.benefit_rule.min_age_child > 0 " +
+          "UNION SELECT family_benefit_town.benefit_rule.max_age_child + 1 FROM family_benefit_town.benefit_rule " +
+          "WHERE family_benefit_town.benefit_rule.max_age_child IS NOT NULL;")
+  List<Integer> findAllAgeThresholds();
+}
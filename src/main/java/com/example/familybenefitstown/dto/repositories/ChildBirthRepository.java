@@ -5,6 +5,7 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 
 import java.time.LocalDate;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -21,14 +22,33 @@ public interface ChildBirthRepository extends JpaRepository<ChildBirthEntity, St
   Optional<ChildBirthEntity> findByDateBirth(LocalDate dateBirth);
 
   /**
-   * Возвращает список рождений детей по ID пользователя
+   * Возвращает список рождений детей по датам из столбца "children_birth" пользователя, по его ID
    * @param idUser ID пользователя
    * @return список рождений детей
    */
   @Query(nativeQuery = true,
       value = "SELECT family_benefit_town.child_birth.id, family_benefit_town.child_birth.date_birth " +
-          "FROM family_benefit_town.users_children " +
-          "INNER JOIN family_benefit_town.child_birth ON family_benefit_town.users_children.id_child_birth = family_benefit_town.child_birth.id " +
-          "WHERE family_benefit_town.users_children.id_user = ?;")
+          "FROM family_benefit_town.user " +
+          "INNER JOIN family_benefit_town.child_birth ON family_benefit_town.child_birth.date_birth = ANY(family_benefit_town.user.children_birth) " +
+          "WHERE family_benefit_town.user.id = ?;")
   List<ChildBirthEntity> findAllByIdUser(String idUser);
+
+  /**
+   * Находит рождения детей по датам рождения
+   * @param datesBirth коллекция дат рождения
+   * @return список найденных рождений детей
+   */
+  List<ChildBirthEntity> findAllByDateBirthIn(Collection<LocalDate> datesBirth);
+
+  /**
+   * Создает рождения детей с указанными датами одним запросом. Уже существующие даты пропускаются
+   * @param datesBirth литерал массива дат рождения вида "{yyyy-mm-dd,...}"
+   * @return список созданных рождений детей, без пропущенных
+   */
+  @Query(nativeQuery = true,
+      value = "INSERT INTO family_benefit_town.child_birth (date_birth) " +
+          "SELECT unnest(CAST(?1 AS DATE[])) " +
+          "ON CONFLICT ON CONSTRAINT child_birth_uniq_birth DO NOTHING " +
+          "RETURNING family_benefit_town.child_birth.id, family_benefit_town.child_birth.date_birth;")
+  List<ChildBirthEntity> saveAllDateBirth(String datesBirth);
 }
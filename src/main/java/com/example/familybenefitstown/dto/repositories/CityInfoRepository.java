@@ -0,0 +1,10 @@
+package com.example.familybenefitstown.dto.repositories;
+
+import com.example.familybenefitstown.dto.entities.CityInfoEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+/**
+ * Репозиторий, работающий с моделью таблицы "city_info"
+ */
+public interface CityInfoRepository extends JpaRepository<CityInfoEntity, String> {
+}
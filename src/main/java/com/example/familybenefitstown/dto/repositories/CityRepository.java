@@ -32,9 +32,28 @@ public interface CityRepository extends JpaRepository<CityEntity, String> {
    * @return город пользователя, или {@code empty} если не найден город указанного пользователя
    */
   @Query(nativeQuery = true,
-      value = "SELECT family_benefit_town.city.id, family_benefit_town.city.name, family_benefit_town.city.info " +
+      value = "SELECT family_benefit_town.city.id, family_benefit_town.city.name, family_benefit_town.city.version " +
           "FROM family_benefit_town.user " +
           "INNER JOIN family_benefit_town.city ON family_benefit_town.user.id_city = family_benefit_town.city.id " +
           "WHERE family_benefit_town.user.id = ?;")
   Optional<CityEntity> findByIdUser(String idUser);
+
+  /**
+   * Возвращает версию города по его ID
+   * @param id ID города
+   * @return версия города, или {@code empty} если город не найден
+   */
+  @Query(nativeQuery = true,
+      value = "SELECT CAST(family_benefit_town.city.version AS TEXT) FROM family_benefit_town.city " +
+          "WHERE family_benefit_town.city.id = ?;")
+  Optional<String> findVersionById(String id);
+
+  /**
+   * Возвращает версию множества городов, меняющуюся при любом изменении таблицы "city"
+   * @return версия множества городов
+   */
+  @Query(nativeQuery = true,
+      value = "SELECT CAST(family_benefit_town.table_version.version AS TEXT) FROM family_benefit_town.table_version " +
+          "WHERE family_benefit_town.table_version.name = 'city';")
+  String getAllVersion();
 }
@@ -1,10 +1,13 @@
 package com.example.familybenefitstown.dto.repositories;
 
 import com.example.familybenefitstown.dto.entities.UserEntity;
+import com.example.familybenefitstown.dto.projections.UserProfile;
+import com.example.familybenefitstown.dto.projections.UserVersion;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
 
+import java.util.List;
 import java.util.Optional;
 
 /**
@@ -34,6 +37,65 @@ public interface UserRepository extends JpaRepository<UserEntity, String> {
    */
   boolean existsByIdIsNotAndEmail(String id, String email);
 
+  /**
+   * Возвращает профиль пользователя по его ID чтением одной записи таблицы "user_profile_view":
+   * пользователь, название города, названия ролей и даты рождений детей, объединенные в строки
+   * @param id ID пользователя
+   * @return профиль пользователя или {@code empty}, если пользователь не найден
+   */
+  @Query(nativeQuery = true,
+      value = "SELECT family_benefit_town.user_profile_view.id AS \"id\", " +
+          "family_benefit_town.user_profile_view.name AS \"name\", " +
+          "family_benefit_town.user_profile_view.email AS \"email\", " +
+          "family_benefit_town.user_profile_view.name_city AS \"nameCity\", " +
+          "family_benefit_town.user_profile_view.birth_date_children AS \"birthDateChildren\", " +
+          "family_benefit_town.user_profile_view.name_roles AS \"nameRoles\" " +
+          "FROM family_benefit_town.user_profile_view " +
+          "WHERE family_benefit_town.user_profile_view.id = ?;")
+  Optional<UserProfile> findProfileById(String id);
+
+  /**
+   * Возвращает профили пользователей по их ID одним запросом, аналогично {@link #findProfileById(String)}
+   * @param ids литерал массива ID пользователей вида "{"id",...}"
+   * @return список профилей найденных пользователей
+   */
+  @Query(nativeQuery = true,
+      value = "SELECT family_benefit_town.user_profile_view.id AS \"id\", " +
+          "family_benefit_town.user_profile_view.name AS \"name\", " +
+          "family_benefit_town.user_profile_view.email AS \"email\", " +
+          "family_benefit_town.user_profile_view.name_city AS \"nameCity\", " +
+          "family_benefit_town.user_profile_view.birth_date_children AS \"birthDateChildren\", " +
+          "family_benefit_town.user_profile_view.name_roles AS \"nameRoles\" " +
+          "FROM family_benefit_town.user_profile_view " +
+          "WHERE family_benefit_town.user_profile_view.id = ANY(CAST(?1 AS TEXT[]));")
+  List<UserProfile> findAllProfileByIdIn(String ids);
+
+  /**
+   * Возвращает версию пользователя вместе с версией его города по ID пользователя
+   * @param id ID пользователя
+   * @return версии пользователя и города через "-", или {@code empty} если пользователь не найден
+   */
+  @Query(nativeQuery = true,
+      value = "SELECT CONCAT(family_benefit_town.user.version, '-', COALESCE(family_benefit_town.city.version, 0)) " +
+          "FROM family_benefit_town.user " +
+          "LEFT JOIN family_benefit_town.city ON family_benefit_town.user.id_city = family_benefit_town.city.id " +
+          "WHERE family_benefit_town.user.id = ?;")
+  Optional<String> findVersionById(String id);
+
+  /**
+   * Возвращает версии пользователей вместе с версиями их городов по ID пользователей одним запросом,
+   * аналогично {@link #findVersionById(String)}
+   * @param ids литерал массива ID пользователей вида "{"id",...}"
+   * @return список версий найденных пользователей
+   */
+  @Query(nativeQuery = true,
+      value = "SELECT family_benefit_town.user.id AS \"id\", " +
+          "CONCAT(family_benefit_town.user.version, '-', COALESCE(family_benefit_town.city.version, 0)) AS \"version\" " +
+          "FROM family_benefit_town.user " +
+          "LEFT JOIN family_benefit_town.city ON family_benefit_town.user.id_city = family_benefit_town.city.id " +
+          "WHERE family_benefit_town.user.id = ANY(CAST(?1 AS TEXT[]));")
+  List<UserVersion> findAllVersionByIdIn(String ids);
+
   /**
    * Возвращает пользователя с ролью "ROLE_SUPER_ADMIN"
    * @return пользователь с ролью "ROLE_SUPER_ADMIN"
@@ -46,7 +108,8 @@ public interface UserRepository extends JpaRepository<UserEntity, String> {
   UserEntity getSuperAdmin();
 
   /**
-   * Создает связь между существующими рождением ребенка и пользователем, по их ID
+   * Создает связь между существующими рождением ребенка и пользователем, по их ID.
+   * Столбец "children_birth" пользователя приводится к связи триггером бд
    * @param idUser ID пользователя
    * @param idChildBirth ID рождения ребенка
    */
@@ -56,7 +119,36 @@ public interface UserRepository extends JpaRepository<UserEntity, String> {
   void addChildToUser(String idUser, String idChildBirth);
 
   /**
-   * Удаляет связь между пользователем и детьми, по его ID
+   * Создает связи между пользователем и существующими рождениями детей по их ID одним запросом.
+   * Уже существующие связи пропускаются. Столбец "children_birth" пользователя приводится к связи триггером бд
+   * @param idUser ID пользователя
+   * @param idsChildBirth литерал массива ID рождений детей вида "{"id",...}"
+   */
+  @Modifying
+  @Query(nativeQuery = true,
+      value = "INSERT INTO family_benefit_town.users_children (id_user, id_child_birth) " +
+          "SELECT ?1, unnest(CAST(?2 AS TEXT[])) " +
+          "ON CONFLICT ON CONSTRAINT users_children_pk DO NOTHING;")
+  void addChildrenToUser(String idUser, String idsChildBirth);
+
+  /**
+   * Удаляет связи между пользователем и рождениями детей с указанными датами одним запросом.
+   * Столбец "children_birth" пользователя приводится к связи триггером бд
+   * @param idUser ID пользователя
+   * @param datesBirth литерал массива дат рождения вида "{yyyy-mm-dd,...}"
+   */
+  @Modifying
+  @Query(nativeQuery = true,
+      value = "DELETE FROM family_benefit_town.users_children " +
+          "USING family_benefit_town.child_birth " +
+          "WHERE family_benefit_town.users_children.id_user = ?1 " +
+          "AND family_benefit_town.users_children.id_child_birth = family_benefit_town.child_birth.id " +
+          "AND family_benefit_town.child_birth.date_birth = ANY(CAST(?2 AS DATE[]));")
+  void deleteChildrenFromUser(String idUser, String datesBirth);
+
+  /**
+   * Удаляет связь между пользователем и детьми, по его ID.
+   * Столбец "children_birth" пользователя приводится к связи триггером бд
    * @param idUser ID пользователя
    */
   @Modifying
@@ -64,6 +156,22 @@ public interface UserRepository extends JpaRepository<UserEntity, String> {
       value = "DELETE FROM family_benefit_town.users_children WHERE (id_user = ?1);")
   void deleteAllChildrenFromUser(String idUser);
 
+  /**
+   * Устанавливает пользователю даты рождений детей одним изменением столбца "children_birth".
+   * Даты сохраняются без повторов, по возрастанию. Если даты не изменились, запись не изменяется.
+   * Связь "users_children" и отсутствующие рождения детей приводятся к столбцу триггером бд
+   * @param idUser ID пользователя
+   * @param datesBirth литерал массива дат рождения вида "{yyyy-mm-dd,...}"
+   */
+  @Modifying
+  @Query(nativeQuery = true,
+      value = "UPDATE family_benefit_town.user " +
+          "SET children_birth = children.dates_birth " +
+          "FROM (SELECT ARRAY(SELECT DISTINCT unnest(CAST(?2 AS DATE[])) ORDER BY 1) AS dates_birth) AS children " +
+          "WHERE family_benefit_town.user.id = ?1 " +
+          "AND family_benefit_town.user.children_birth <> children.dates_birth;")
+  void setChildrenToUser(String idUser, String datesBirth);
+
   /**
    * Проверяет наличие роли у пользователя по их ID
    * @param idUser ID пользователя
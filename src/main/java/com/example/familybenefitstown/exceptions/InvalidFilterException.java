@@ -0,0 +1,21 @@
+package com.example.familybenefitstown.exceptions;
+
+/**
+ * Исключение, связанное со структурой фильтра из объекта запроса: неизвестный тип условия,
+ * отсутствующие поля условия или превышенные размеры фильтра
+ */
+public class InvalidFilterException extends Exception {
+
+  /**
+   * Код варианта ошибки в api
+   */
+  public static final int API_VARIANT_CODE = 7;
+
+  /**
+   * Конструктор, создает исключение с описанием исключения
+   * @param message описание исключения
+   */
+  public InvalidFilterException(String message) {
+    super(message);
+  }
+}
@@ -0,0 +1,20 @@
+package com.example.familybenefitstown.exceptions;
+
+/**
+ * Исключение, связанное с числовым параметром или диапазоном значений из объекта запроса
+ */
+public class InvalidRangeException extends Exception {
+
+  /**
+   * Код варианта ошибки в api
+   */
+  public static final int API_VARIANT_CODE = 6;
+
+  /**
+   * Конструктор, создает исключение с описанием исключения
+   * @param message описание исключения
+   */
+  public InvalidRangeException(String message) {
+    super(message);
+  }
+}
@@ -128,6 +128,50 @@ public class GlobalExceptionHandler extends ResponseEntityExceptionHandler {
         HttpStatus.BAD_REQUEST.value(), InvalidStringException.API_VARIANT_CODE));
   }
 
+  /**
+   * Обрабатывает исключение {@link InvalidRangeException}, выброшенное контроллером
+   * @param ex выброшенное контроллером исключение
+   * @param request запрос, обработка которого вызывала исключение
+   * @return ответ ошибки {@link ErrorResponse} со статусом ошибки 400 и кодом варианта api
+   */
+  @ExceptionHandler(InvalidRangeException.class)
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public ResponseEntity<ErrorResponse> handleInvalidRangeException(InvalidRangeException ex, WebRequest request) {
+
+    HttpServletRequest httpServletRequest = ((HttpServletRequest)((NativeWebRequest)request).getNativeRequest());
+
+    String requestURI = httpServletRequest.getRequestURI();
+    String requestMethod = httpServletRequest.getMethod();
+    String requestAddress = httpServletRequest.getRemoteAddr();
+
+    log.warn("{} {} \"{}\": Invalid range exception: {}", requestAddress, requestMethod, requestURI, ex.getMessage());
+
+    return ResponseEntity.badRequest().body(new ErrorResponse(
+        HttpStatus.BAD_REQUEST.value(), InvalidRangeException.API_VARIANT_CODE));
+  }
+
+  /**
+   * Обрабатывает исключение {@link InvalidFilterException}, выброшенное контроллером
+   * @param ex выброшенное контроллером исключение
+   * @param request запрос, обработка которого вызывала исключение
+   * @return ответ ошибки {@link ErrorResponse} со статусом ошибки 400 и кодом варианта api
+   */
+  @ExceptionHandler(InvalidFilterException.class)
+  @ResponseStatus(HttpStatus.BAD_REQUEST)
+  public ResponseEntity<ErrorResponse> handleInvalidFilterException(InvalidFilterException ex, WebRequest request) {
+
+    HttpServletRequest httpServletRequest = ((HttpServletRequest)((NativeWebRequest)request).getNativeRequest());
+
+    String requestURI = httpServletRequest.getRequestURI();
+    String requestMethod = httpServletRequest.getMethod();
+    String requestAddress = httpServletRequest.getRemoteAddr();
+
+    log.warn("{} {} \"{}\": Invalid filter exception: {}", requestAddress, requestMethod, requestURI, ex.getMessage());
+
+    return ResponseEntity.badRequest().body(new ErrorResponse(
+        HttpStatus.BAD_REQUEST.value(), InvalidFilterException.API_VARIANT_CODE));
+  }
+
   /**
    * Обрабатывает исключение {@link NotFoundException}, выброшенное контроллером
    * @param ex выброшенное контроллером исключение
@@ -14,6 +14,17 @@ import java.util.Properties;
 @Slf4j
 public class MailSenderProvider {
 
+  /**
+   * Тема сообщения об изменении положенных пособий
+   */
+  private static final String BENEFITS_MESSAGE_SUBJECT = "Изменение положенных пособий";
+
+  /**
+   * Шаблон текста сообщения об изменении положенных пособий: имя пользователя, строки изменений
+   */
+  private static final String BENEFITS_MESSAGE_TEXT_PATTERN =
+      "Здравствуйте, %s!\n\nС сегодняшнего дня из-за возраста ваших детей изменились положенные вам пособия.\n%s";
+
   /**
    * Почтовый сервис
    */
@@ -48,6 +59,28 @@ public class MailSenderProvider {
     log.info("Message with login code \"{}\" was sent to \"{}\"", loginCode, to);
   }
 
+  /**
+   * Отправляет сообщение об изменении положенных пособий указанному пользователю
+   * @param to адрес получателя, email пользователя
+   * @param nameUser имя пользователя
+   * @param benefitsGained названия пособий, ставших положенными, через запятую, или {@code null}
+   * @param benefitsLost названия пособий, переставших быть положенными, через запятую, или {@code null}
+   * @throws MailException если не удалось отправить сообщение
+   */
+  public static void sendBenefitsChanged(String to, String nameUser, String benefitsGained, String benefitsLost) throws MailException {
+
+    StringBuilder changes = new StringBuilder();
+    if (benefitsGained != null) {
+      changes.append("\nТеперь положены: ").append(benefitsGained).append('.');
+    }
+    if (benefitsLost != null) {
+      changes.append("\nБольше не положены: ").append(benefitsLost).append('.');
+    }
+
+    send(to, BENEFITS_MESSAGE_SUBJECT, String.format(BENEFITS_MESSAGE_TEXT_PATTERN, nameUser, changes));
+    log.info("Message with benefit changes was sent to \"{}\"", to);
+  }
+
   /**
    * Отправляет сообщение от имени сервиса пользователю по адресу с темой и текстом
    * @param to адрес получателя
@@ -0,0 +1,263 @@
+package com.example.familybenefitstown.part_auth.activity;
+
+import com.example.familybenefitstown.dto.jdbc.UserJdbcRepository;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Учитывает активных пользователей и входы в систему в памяти узла: по скетчу HyperLogLog
+ * и счетчику входов на день и город и на день по всем городам. Память корзины не зависит от числа пользователей.
+ * Корзины периодически объединяются с таблицей "activity_sketch" задачей выгрузки
+ */
+@Component
+public class ActivityTracker {
+
+  /**
+   * Ключ города корзины всех пользователей, включая пользователей без города
+   */
+  public static final String ID_CITY_ALL = "";
+
+  /**
+   * Время жизни города пользователя в кэше после его загрузки
+   */
+  private static final Duration CITY_EXPIRE_AFTER_WRITE = Duration.ofMinutes(30);
+
+  /**
+   * Репозиторий операций с таблицей "user", выполняющий запросы сразу
+   */
+  private final UserJdbcRepository userJdbcRepository;
+
+  /**
+   * Корзины активности узла
+   */
+  private final ConcurrentMap<BucketKey, Bucket> bucketMap = new ConcurrentHashMap<>();
+
+  /**
+   * Города пользователей, ключ - ID пользователя, значение - ID города или {@link #ID_CITY_ALL}, если город не указан.
+   * Аутентификация выполняется при каждом запросе, поэтому город читается из бд не чаще раза за время жизни записи
+   */
+  private final Cache<String, String> cityOfUserCache;
+
+  /**
+   * Конструктор для инициализации репозитория и кэша городов пользователей
+   * @param userJdbcRepository репозиторий операций с таблицей "user", выполняющий запросы сразу
+   * @param citySizeCache максимальное число пользователей в кэше городов
+   */
+  @Autowired
+  public ActivityTracker(UserJdbcRepository userJdbcRepository,
+                         @Value("${family-benefits-town.activity.city-cache-size:100000}") long citySizeCache) {
+    this.userJdbcRepository = userJdbcRepository;
+    this.cityOfUserCache = Caffeine
+        .newBuilder()
+        .maximumSize(citySizeCache)
+        .expireAfterWrite(CITY_EXPIRE_AFTER_WRITE)
+        .build();
+  }
+
+  /**
+   * Учитывает вход пользователя в систему
+   * @param idUser ID пользователя
+   * @param idCity ID города пользователя, {@code null}, если город не указан
+   */
+  public void recordLogin(String idUser, String idCity) {
+
+    String idCityKey = idCity != null ? idCity : ID_CITY_ALL;
+    cityOfUserCache.put(idUser, idCityKey);
+    record(idUser, idCityKey, true);
+  }
+
+  /**
+   * Учитывает активность аутентифицированного пользователя
+   * @param idUser ID пользователя
+   */
+  public void recordActivity(String idUser) {
+
+    String idCityKey = cityOfUserCache.get(idUser, key -> userJdbcRepository.findIdCity(key).orElse(ID_CITY_ALL));
+    record(idUser, idCityKey, false);
+  }
+
+  /**
+   * Возвращает корзины узла, измененные после последней выгрузки
+   * @return список измененных корзин
+   */
+  public List<Bucket> findDirtyBuckets() {
+
+    List<Bucket> bucketList = new ArrayList<>();
+    for (Bucket bucket : bucketMap.values()) {
+      if (bucket.dirty.get()) {
+        bucketList.add(bucket);
+      }
+    }
+    return bucketList;
+  }
+
+  /**
+   * Возвращает корзину узла
+   * @param dateActivity дата активности
+   * @param idCity ID города или {@link #ID_CITY_ALL}
+   * @return корзина, или {@code null}, если на узле не было активности
+   */
+  public Bucket findBucket(LocalDate dateActivity, String idCity) {
+    return bucketMap.get(new BucketKey(dateActivity, idCity));
+  }
+
+  /**
+   * Удаляет выгруженные корзины с датой раньше указанной
+   * @param dateBefore первая сохраняемая дата
+   */
+  public void removeFlushedBefore(LocalDate dateBefore) {
+    bucketMap.values().removeIf(bucket -> bucket.getDateActivity().isBefore(dateBefore) && !bucket.dirty.get());
+  }
+
+  /**
+   * Учитывает пользователя в корзинах города и всех пользователей на текущую дату
+   * @param idUser ID пользователя
+   * @param idCityKey ID города или {@link #ID_CITY_ALL}
+   * @param isLogin true, если пользователь вошел в систему
+   */
+  private void record(String idUser, String idCityKey, boolean isLogin) {
+
+    LocalDate dateCurrent = LocalDate.now();
+    bucketMap.computeIfAbsent(new BucketKey(dateCurrent, ID_CITY_ALL), Bucket::new).record(idUser, isLogin);
+    if (!idCityKey.equals(ID_CITY_ALL)) {
+      bucketMap.computeIfAbsent(new BucketKey(dateCurrent, idCityKey), Bucket::new).record(idUser, isLogin);
+    }
+  }
+
+  /**
+   * Ключ корзины: дата и ID города
+   */
+  @Getter
+  @EqualsAndHashCode
+  @AllArgsConstructor
+  private static class BucketKey {
+
+    /**
+     * Дата активности
+     */
+    private final LocalDate dateActivity;
+
+    /**
+     * ID города или {@link #ID_CITY_ALL}
+     */
+    private final String idCity;
+  }
+
+  /**
+   * Корзина активности узла за день по городу: скетч активных пользователей и невыгруженное число входов
+   */
+  public static class Bucket {
+
+    /**
+     * Ключ корзины
+     */
+    private final BucketKey bucketKey;
+
+    /**
+     * Скетч активных пользователей
+     */
+    private final HyperLogLog activeSketch = new HyperLogLog();
+
+    /**
+     * Число входов после последней выгрузки
+     */
+    private final LongAdder countLoginsUnflushed = new LongAdder();
+
+    /**
+     * Изменилась ли корзина после последней выгрузки
+     */
+    private final AtomicBoolean dirty = new AtomicBoolean();
+
+    /**
+     * Конструктор для создания пустой корзины
+     * @param bucketKey ключ корзины
+     */
+    private Bucket(BucketKey bucketKey) {
+      this.bucketKey = bucketKey;
+    }
+
+    /**
+     * Возвращает дату активности корзины
+     * @return дата активности
+     */
+    public LocalDate getDateActivity() {
+      return bucketKey.getDateActivity();
+    }
+
+    /**
+     * Возвращает ID города корзины
+     * @return ID города или {@link #ID_CITY_ALL}
+     */
+    public String getIdCity() {
+      return bucketKey.getIdCity();
+    }
+
+    /**
+     * Возвращает копию регистров скетча активных пользователей
+     * @return регистры скетча
+     */
+    public byte[] getActiveRegisters() {
+      return activeSketch.toByteArray();
+    }
+
+    /**
+     * Возвращает число входов после последней выгрузки
+     * @return число невыгруженных входов
+     */
+    public long getCountLoginsUnflushed() {
+      return countLoginsUnflushed.sum();
+    }
+
+    /**
+     * Начинает выгрузку: сбрасывает признак изменения и число невыгруженных входов.
+     * Изменения во время выгрузки снова отмечают корзину измененной
+     * @return число входов, выгружаемых с корзиной
+     */
+    public long beginFlush() {
+      dirty.set(false);
+      return countLoginsUnflushed.sumThenReset();
+    }
+
+    /**
+     * Возвращает корзину в измененные после неудачной выгрузки
+     * @param countLogins число входов, не выгруженных с корзиной
+     */
+    public void failFlush(long countLogins) {
+      countLoginsUnflushed.add(countLogins);
+      dirty.set(true);
+    }
+
+    /**
+     * Учитывает пользователя в корзине. Повторная активность пользователя за день обычно не меняет скетч
+     * и не отмечает корзину измененной
+     * @param idUser ID пользователя
+     * @param isLogin true, если пользователь вошел в систему
+     */
+    private void record(String idUser, boolean isLogin) {
+
+      boolean changed = activeSketch.offer(idUser);
+      if (isLogin) {
+        countLoginsUnflushed.increment();
+        changed = true;
+      }
+      if (changed) {
+        dirty.set(true);
+      }
+    }
+  }
+}
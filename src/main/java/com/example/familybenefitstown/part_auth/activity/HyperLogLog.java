@@ -0,0 +1,162 @@
+package com.example.familybenefitstown.part_auth.activity;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Скетч HyperLogLog для приближенного подсчета числа различных строк с фиксированным размером 4 КБ.
+ * Регистр - максимальный ранг хешей, попавших в него, по одному байту, четыре регистра в одном int.
+ * Добавление выполняется без блокировок, сравнением с обменом; скетчи объединяются максимумом регистров,
+ * поэтому объединение скетчей разных узлов и повторное объединение не искажают оценку.
+ * Относительная погрешность оценки около 1,6%
+ */
+public class HyperLogLog {
+
+  /**
+   * Число бит хеша, выбирающих регистр
+   */
+  private static final int PRECISION = 12;
+
+  /**
+   * Число регистров
+   */
+  public static final int COUNT_REGISTERS = 1 << PRECISION;
+
+  /**
+   * Максимальный ранг хеша
+   */
+  private static final int MAX_RANK = Long.SIZE - PRECISION + 1;
+
+  /**
+   * Поправочный коэффициент оценки для числа регистров
+   */
+  private static final double ALPHA = 0.7213 / (1 + 1.079 / COUNT_REGISTERS);
+
+  /**
+   * Регистры, по четыре в одном элементе
+   */
+  private final AtomicIntegerArray registerWords = new AtomicIntegerArray(COUNT_REGISTERS / 4);
+
+  /**
+   * Добавляет строку в скетч
+   * @param value строка
+   * @return true, если регистр скетча изменился
+   */
+  public boolean offer(String value) {
+
+    long hash = hash(value);
+    int rank = Math.min(Long.numberOfLeadingZeros(hash << PRECISION) + 1, MAX_RANK);
+    return raiseRegister((int) (hash >>> (Long.SIZE - PRECISION)), rank);
+  }
+
+  /**
+   * Объединяет скетч с регистрами другого скетча
+   * @param registers регистры другого скетча, {@link #COUNT_REGISTERS} байт
+   */
+  public void merge(byte[] registers) {
+
+    for (int indexRegister = 0; indexRegister < COUNT_REGISTERS; indexRegister++) {
+      if (registers[indexRegister] != 0) {
+        raiseRegister(indexRegister, registers[indexRegister]);
+      }
+    }
+  }
+
+  /**
+   * Возвращает копию регистров скетча
+   * @return регистры скетча, {@link #COUNT_REGISTERS} байт
+   */
+  public byte[] toByteArray() {
+
+    byte[] registers = new byte[COUNT_REGISTERS];
+    for (int indexWord = 0; indexWord < registerWords.length(); indexWord++) {
+      int word = registerWords.get(indexWord);
+      for (int lane = 0; lane < 4; lane++) {
+        registers[indexWord * 4 + lane] = (byte) (word >>> (lane * Byte.SIZE));
+      }
+    }
+    return registers;
+  }
+
+  /**
+   * Объединяет регистры источника с регистрами приемника максимумом
+   * @param target регистры приемника, изменяются
+   * @param source регистры источника
+   */
+  public static void mergeInto(byte[] target, byte[] source) {
+
+    for (int indexRegister = 0; indexRegister < COUNT_REGISTERS; indexRegister++) {
+      if (source[indexRegister] > target[indexRegister]) {
+        target[indexRegister] = source[indexRegister];
+      }
+    }
+  }
+
+  /**
+   * Оценивает число различных строк по регистрам скетча.
+   * При малом числе заполненных регистров используется линейный подсчет по числу пустых регистров
+   * @param registers регистры скетча, {@link #COUNT_REGISTERS} байт
+   * @return приближенное число различных строк
+   */
+  public static long estimate(byte[] registers) {
+
+    double sumInverse = 0;
+    int countZeroRegisters = 0;
+    for (byte register : registers) {
+      sumInverse += Math.scalb(1.0, -register);
+      if (register == 0) {
+        countZeroRegisters++;
+      }
+    }
+
+    double estimate = ALPHA * COUNT_REGISTERS * COUNT_REGISTERS / sumInverse;
+    if (estimate <= 2.5 * COUNT_REGISTERS && countZeroRegisters > 0) {
+      estimate = COUNT_REGISTERS * Math.log((double) COUNT_REGISTERS / countZeroRegisters);
+    }
+    return Math.round(estimate);
+  }
+
+  /**
+   * Повышает регистр до ранга, если регистр меньше ранга
+   * @param indexRegister номер регистра
+   * @param rank ранг
+   * @return true, если регистр изменился
+   */
+  private boolean raiseRegister(int indexRegister, int rank) {
+
+    int indexWord = indexRegister / 4;
+    int shift = (indexRegister % 4) * Byte.SIZE;
+
+    while (true) {
+      int word = registerWords.get(indexWord);
+      if (((word >>> shift) & 0xFF) >= rank) {
+        return false;
+      }
+      int wordRaised = (word & ~(0xFF << shift)) | (rank << shift);
+      if (registerWords.compareAndSet(indexWord, word, wordRaised)) {
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Вычисляет 64-битный хеш строки: FNV-1a с перемешиванием финализатором MurmurHash3,
+   * чтобы старшие биты, выбирающие регистр, зависели от всех символов
+   * @param value строка
+   * @return хеш строки
+   */
+  private static long hash(String value) {
+
+    long hash = 0xcbf29ce484222325L;
+    for (int indexChar = 0; indexChar < value.length(); indexChar++) {
+      hash ^= value.charAt(indexChar);
+      hash *= 0x100000001b3L;
+    }
+
+    hash ^= hash >>> 33;
+    hash *= 0xff51afd7ed558ccdL;
+    hash ^= hash >>> 33;
+    hash *= 0xc4ceb9fe1a85ec53L;
+    hash ^= hash >>> 33;
+    return hash;
+  }
+}
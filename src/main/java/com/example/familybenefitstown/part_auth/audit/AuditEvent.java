@@ -0,0 +1,34 @@
+package com.example.familybenefitstown.part_auth.audit;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.time.LocalDateTime;
+
+/**
+ * Событие аудита, ожидающее записи в таблицу "audit_event"
+ */
+@Getter
+@AllArgsConstructor
+public class AuditEvent {
+
+  /**
+   * Дата и время события
+   */
+  private final LocalDateTime dateTimeEvent;
+
+  /**
+   * Тип события
+   */
+  private final AuditEventType type;
+
+  /**
+   * ID пользователя, к которому относится событие
+   */
+  private final String idUser;
+
+  /**
+   * Подробности события: название роли или адрес клиента. {@code null}, если подробностей нет
+   */
+  private final String details;
+}
@@ -0,0 +1,52 @@
+package com.example.familybenefitstown.part_auth.audit;
+
+/**
+ * Тип события аудита
+ */
+public enum AuditEventType {
+
+  /**
+   * Создан код для входа в систему
+   */
+  LOGIN_CODE_CREATED,
+
+  /**
+   * Пользователь вошел в систему по коду
+   */
+  LOGIN,
+
+  /**
+   * Пользователь вышел из системы
+   */
+  LOGOUT,
+
+  /**
+   * Токены доступа и восстановления выданы заново по истекшему токену доступа
+   */
+  TOKENS_ROTATED,
+
+  /**
+   * Токен восстановления удален из-за некорректного токена доступа
+   */
+  TOKEN_REVOKED,
+
+  /**
+   * Создан администратор
+   */
+  ADMIN_CREATED,
+
+  /**
+   * Удален администратор
+   */
+  ADMIN_DELETED,
+
+  /**
+   * Пользователю добавлена роль
+   */
+  ROLE_ADDED,
+
+  /**
+   * У пользователя удалена роль
+   */
+  ROLE_REMOVED
+}
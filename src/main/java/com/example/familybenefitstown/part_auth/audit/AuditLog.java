@@ -0,0 +1,91 @@
+package com.example.familybenefitstown.part_auth.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * Журнал событий аудита: вход в систему, выдача токенов и изменение ролей.
+ * Событие помещается в кольцевой буфер в памяти без блокировок и ожидания, запись в таблицу "audit_event"
+ * выполняет фоновая задача пакетами, поэтому журнал не увеличивает время обработки запроса.
+ * При заполненном буфере событие отбрасывается и учитывается в метрике "audit.dropped"
+ */
+@Component
+public class AuditLog {
+
+  /**
+   * Буфер событий, ожидающих записи
+   */
+  private final AuditRingBuffer<AuditEvent> eventBuffer;
+
+  /**
+   * Число отброшенных при заполненном буфере событий
+   */
+  private final Counter droppedCounter;
+
+  /**
+   * Конструктор для инициализации буфера и метрик журнала
+   * @param meterRegistry реестр метрик
+   * @param bufferCapacity емкость буфера событий, степень двойки
+   */
+  @Autowired
+  public AuditLog(MeterRegistry meterRegistry,
+                  @Value("${family-benefits-town.audit.buffer-capacity:65536}") int bufferCapacity) {
+    this.eventBuffer = new AuditRingBuffer<>(bufferCapacity);
+
+    this.droppedCounter = meterRegistry.counter("audit.dropped");
+    meterRegistry.gauge("audit.buffer.size", eventBuffer, AuditRingBuffer::size);
+  }
+
+  /**
+   * Записывает событие аудита. Внутри транзакции событие записывается только после её фиксации,
+   * чтобы отмененные изменения не попали в журнал
+   * @param type тип события
+   * @param idUser ID пользователя, к которому относится событие
+   * @param details подробности события, {@code null}, если подробностей нет
+   */
+  public void record(AuditEventType type, String idUser, String details) {
+
+    AuditEvent auditEvent = new AuditEvent(LocalDateTime.now(), type, idUser, details);
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          offer(auditEvent);
+        }
+      });
+    } else {
+      offer(auditEvent);
+    }
+  }
+
+  /**
+   * Переносит ожидающие записи события в список. Вызывается задачей записи журнала
+   * @param eventList список, в который добавляются события
+   * @param maxCount максимальное число переносимых событий
+   * @return число перенесенных событий
+   */
+  public synchronized int drainTo(List<AuditEvent> eventList, int maxCount) {
+    return eventBuffer.drainTo(eventList, maxCount);
+  }
+
+  /**
+   * Помещает событие в буфер или отбрасывает его, если буфер заполнен
+   * @param auditEvent событие аудита
+   */
+  private void offer(AuditEvent auditEvent) {
+
+    // Без записи в лог: при заполненном буфере лог замедлил бы каждый запрос
+    if (!eventBuffer.offer(auditEvent)) {
+      droppedCounter.increment();
+    }
+  }
+}
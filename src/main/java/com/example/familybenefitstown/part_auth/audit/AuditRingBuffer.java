@@ -0,0 +1,102 @@
+package com.example.familybenefitstown.part_auth.audit;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Ограниченный кольцевой буфер без блокировок: много производителей и один потребитель.
+ * Производитель занимает позицию сравнением с обменом и не ждет потребителя: при заполненном буфере
+ * элемент отклоняется. Потребитель освобождает ячейку до сдвига начала, поэтому занятая
+ * производителем ячейка всегда пуста
+ * @param <E> тип элемента
+ */
+public class AuditRingBuffer<E> {
+
+  /**
+   * Ячейки буфера
+   */
+  private final AtomicReferenceArray<E> slots;
+
+  /**
+   * Маска номера ячейки по позиции
+   */
+  private final int mask;
+
+  /**
+   * Позиция следующего элемента производителя
+   */
+  private final AtomicLong tail = new AtomicLong();
+
+  /**
+   * Позиция следующего элемента потребителя
+   */
+  private final AtomicLong head = new AtomicLong();
+
+  /**
+   * Конструктор для создания пустого буфера
+   * @param capacity емкость буфера, степень двойки
+   * @throws IllegalArgumentException если емкость не является степенью двойки
+   */
+  public AuditRingBuffer(int capacity) {
+
+    if (capacity < 1 || Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException(String.format("Capacity %d is not a power of two", capacity));
+    }
+    this.slots = new AtomicReferenceArray<>(capacity);
+    this.mask = capacity - 1;
+  }
+
+  /**
+   * Добавляет элемент в буфер без ожидания. Может вызываться из любого потока
+   * @param element элемент
+   * @return true, если элемент добавлен, false, если буфер заполнен
+   */
+  public boolean offer(E element) {
+
+    while (true) {
+      long position = tail.get();
+      if (position - head.get() >= slots.length()) {
+        return false;
+      }
+      if (tail.compareAndSet(position, position + 1)) {
+        slots.set((int) position & mask, element);
+        return true;
+      }
+    }
+  }
+
+  /**
+   * Переносит элементы из буфера в список. Должен вызываться одним потоком-потребителем.
+   * Перенос останавливается на позиции, занятой производителем, но еще не заполненной
+   * @param elementList список, в который добавляются элементы
+   * @param maxCount максимальное число переносимых элементов
+   * @return число перенесенных элементов
+   */
+  public int drainTo(List<E> elementList, int maxCount) {
+
+    long position = head.get();
+    int count = 0;
+    while (count < maxCount) {
+      int index = (int) position & mask;
+      E element = slots.get(index);
+      if (element == null) {
+        break;
+      }
+      slots.set(index, null);
+      elementList.add(element);
+      position++;
+      count++;
+      head.lazySet(position);
+    }
+    return count;
+  }
+
+  /**
+   * Возвращает приближенное число элементов в буфере
+   * @return число элементов
+   */
+  public int size() {
+    return (int) Math.max(0, tail.get() - head.get());
+  }
+}
@@ -56,6 +56,29 @@ public class AdminRequestHandler {
     String requestURI = request.getRequestURI();
     String requestMethod = request.getMethod();
 
+    // Проверка аутентификации и авторизации для поиска пользователей, статистики активности, событий аудита
+    // и выборки аудитории семей
+    if ((requestMethod.equals("GET") &&
+        (requestURI.equals("/api/admins/users") || requestURI.equals("/api/admins/activity") ||
+            requestURI.equals("/api/admins/audit"))) ||
+        (requestMethod.equals("POST") &&
+            (requestURI.equals("/api/admins/audience/count") || requestURI.equals("/api/admins/audience/ids")))) {
+
+      // Проверка аутентификации по токенам доступа (jwt) и восстановления из запроса
+      Optional<JwtUserData> optUserData = authService.authenticate(request, response);
+      if (optUserData.isEmpty()) {
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        return false;
+      }
+
+      // Проверка авторизации по наличию необходимых ролей
+      if (!optUserData.get().hasRole(List.of(RDB.ROLE_ADMIN))) {
+        response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+        return false;
+      }
+      return true;
+    }
+
     Matcher matcherAdminsId = PATTERN_ADMINS_ID.matcher(requestURI);
 
     // Проверка аутентификации и авторизации для запросов, которые для авторизованных пользователей
@@ -25,6 +25,30 @@ public class CityRequestHandler {
   private static final Pattern PATTERN_CITIES_ID = Pattern.compile(String.format(
       "^/api/cities/(?<id>[A-Za-z0-9]{%s})$", R.ID_LENGTH));
 
+  /**
+   * Шаблон для проверки соответствия запроса "/api/cities/(id)/info"
+   */
+  private static final Pattern PATTERN_CITIES_ID_INFO = Pattern.compile(String.format(
+      "^/api/cities/[A-Za-z0-9]{%s}/info$", R.ID_LENGTH));
+
+  /**
+   * Шаблон для проверки соответствия запроса "/api/cities/(id)/benefits"
+   */
+  private static final Pattern PATTERN_CITIES_ID_BENEFITS = Pattern.compile(String.format(
+      "^/api/cities/[A-Za-z0-9]{%s}/benefits$", R.ID_LENGTH));
+
+  /**
+   * Шаблон для проверки соответствия запроса "/api/cities/(id)/benefits/evaluation"
+   */
+  private static final Pattern PATTERN_CITIES_ID_BENEFITS_EVALUATION = Pattern.compile(String.format(
+      "^/api/cities/[A-Za-z0-9]{%s}/benefits/evaluation$", R.ID_LENGTH));
+
+  /**
+   * Шаблон для проверки соответствия запроса "/api/cities/(id)/stats"
+   */
+  private static final Pattern PATTERN_CITIES_ID_STATS = Pattern.compile(String.format(
+      "^/api/cities/[A-Za-z0-9]{%s}/stats$", R.ID_LENGTH));
+
   /**
    * Интерфейс сервиса, отвечающего за аутентификацию и авторизацию в системе
    */
@@ -57,18 +81,26 @@ public class CityRequestHandler {
     String requestMethod = request.getMethod();
 
     Matcher matcherCitiesId = PATTERN_CITIES_ID.matcher(requestURI);
+    boolean isCitiesIdBenefits = PATTERN_CITIES_ID_BENEFITS.matcher(requestURI).matches();
 
     // Разрешение запросов, которые доступны всем
     if (requestMethod.equals("GET") &&
-        (requestURI.equals("/api/cities") || matcherCitiesId.matches())) {
+        (requestURI.equals("/api/cities") || requestURI.equals("/api/cities/changes") || matcherCitiesId.matches() ||
+            PATTERN_CITIES_ID_INFO.matcher(requestURI).matches() || isCitiesIdBenefits)) {
       return true;
     }
 
     // Проверка аутентификации и авторизации для запросов, предназначенных для авторизованных пользователей
-    if (((requestMethod.equals("PUT") || requestMethod.equals("DELETE")) &&
+    if (((requestMethod.equals("PUT") || requestMethod.equals("PATCH") || requestMethod.equals("DELETE")) &&
         matcherCitiesId.matches())
         ||
-        (requestMethod.equals("POST") && (requestURI.equals("/api/cities")))) {
+        (requestMethod.equals("PUT") && isCitiesIdBenefits)
+        ||
+        (requestMethod.equals("GET") && (PATTERN_CITIES_ID_BENEFITS_EVALUATION.matcher(requestURI).matches() ||
+            PATTERN_CITIES_ID_STATS.matcher(requestURI).matches()))
+        ||
+        (requestMethod.equals("POST") &&
+            (requestURI.equals("/api/cities") || requestURI.equals("/api/cities/import")))) {
 
       // Проверка аутентификации по токенам доступа (jwt) и восстановления из запроса
       Optional<JwtUserData> optUserData = authService.authenticate(request, response);
@@ -26,6 +26,12 @@ public class UserRequestHandler {
   private static final Pattern PATTERN_USERS_ID = Pattern.compile(String.format(
       "^/api/users/(?<id>[A-Za-z0-9]{%s})$", R.ID_LENGTH));
 
+  /**
+   * Шаблон для проверки соответствия и извлечения параметра (id) из запроса "/api/users/(id)/benefits"
+   */
+  private static final Pattern PATTERN_USERS_ID_BENEFITS = Pattern.compile(String.format(
+      "^/api/users/(?<id>[A-Za-z0-9]{%s})/benefits$", R.ID_LENGTH));
+
   /**
    * Интерфейс сервиса, отвечающего за аутентификацию и авторизацию в системе
    */
@@ -73,10 +79,72 @@ public class UserRequestHandler {
       return false;
     }
 
+    // Проверка аутентификации и авторизации для получения нескольких пользователей.
+    // Доступ к каждому ID проверяется контроллером по данным пользователя из атрибута запроса
+    if (requestMethod.equals("POST") && requestURI.equals("/api/users/batch-read")) {
+
+      // Проверка аутентификации по токенам доступа (jwt) и восстановления из запроса
+      Optional<JwtUserData> optUserData = authService.authenticate(request, response);
+      if (optUserData.isEmpty()) {
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        return false;
+      }
+      JwtUserData userData = optUserData.get();
+
+      // Проверка авторизации по наличию необходимых ролей
+      if (!userData.hasRole(List.of(RDB.ROLE_USER, RDB.ROLE_ADMIN))) {
+        response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+        return false;
+      }
+      request.setAttribute(JwtUserData.REQUEST_ATTRIBUTE, userData);
+      return true;
+    }
+
+    // Проверка аутентификации и авторизации для запросов, которые для администраторов
+    if ((requestMethod.equals("POST") && requestURI.equals("/api/users/import")) ||
+        (requestMethod.equals("GET") && requestURI.equals("/api/users/export"))) {
+
+      // Проверка аутентификации по токенам доступа (jwt) и восстановления из запроса
+      Optional<JwtUserData> optUserData = authService.authenticate(request, response);
+      if (optUserData.isEmpty()) {
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        return false;
+      }
+
+      // Проверка авторизации по наличию необходимых ролей
+      if (!optUserData.get().hasRole(List.of(RDB.ROLE_ADMIN))) {
+        response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+        return false;
+      }
+      return true;
+    }
+
     Matcher matcherUsersId = PATTERN_USERS_ID.matcher(requestURI);
 
+    // Проверка аутентификации и авторизации для получения положенных пользователю пособий
+    Matcher matcherUsersIdBenefits = PATTERN_USERS_ID_BENEFITS.matcher(requestURI);
+    if (requestMethod.equals("GET") && matcherUsersIdBenefits.matches()) {
+
+      // Проверка аутентификации по токенам доступа (jwt) и восстановления из запроса
+      Optional<JwtUserData> optUserData = authService.authenticate(request, response);
+      if (optUserData.isEmpty()) {
+        response.setStatus(HttpServletResponse.SC_UNAUTHORIZED);
+        return false;
+      }
+      JwtUserData userData = optUserData.get();
+
+      // Проверка авторизации по наличию необходимых ролей
+      if (!userData.hasRole(List.of(RDB.ROLE_USER)) ||
+          !userData.getIdUser().equals(matcherUsersIdBenefits.group("id"))) {
+        response.setStatus(HttpServletResponse.SC_FORBIDDEN);
+        return false;
+      }
+      return true;
+    }
+
     // Проверка аутентификации и авторизации для запросов, которые для авторизованных пользователей
-    if ((requestMethod.equals("GET") || requestMethod.equals("PUT") || requestMethod.equals("DELETE")) &&
+    if ((requestMethod.equals("GET") || requestMethod.equals("PUT") || requestMethod.equals("PATCH") ||
+        requestMethod.equals("DELETE")) &&
         matcherUsersId.matches()) {
 
       // Проверка аутентификации по токенам доступа (jwt) и восстановления из запроса
@@ -16,6 +16,12 @@ import java.util.regex.Pattern;
 @Builder
 public class JwtUserData {
 
+  /**
+   * Название атрибута запроса, в который фильтр записывает данные аутентифицированного пользователя,
+   * если контроллеру необходимо проверить доступ к отдельным объектам запроса
+   */
+  public static final String REQUEST_ATTRIBUTE = "jwtUserData";
+
   /**
    * ID пользователя
    */
@@ -1,5 +1,6 @@
 package com.example.familybenefitstown.part_auth.services.implementations;
 
+import com.example.familybenefitstown.dto.jdbc.UserJdbcRepository;
 import com.example.familybenefitstown.dto.repositories.LoginCodeRepository;
 import com.example.familybenefitstown.dto.repositories.RefreshTokenRepository;
 import com.example.familybenefitstown.exceptions.DateTimeException;
@@ -10,6 +11,9 @@ import com.example.familybenefitstown.dto.repositories.RoleRepository;
 import com.example.familybenefitstown.dto.repositories.UserRepository;
 import com.example.familybenefitstown.exceptions.NotFoundException;
 import com.example.familybenefitstown.part_auth.MailSenderProvider;
+import com.example.familybenefitstown.part_auth.activity.ActivityTracker;
+import com.example.familybenefitstown.part_auth.audit.AuditEventType;
+import com.example.familybenefitstown.part_auth.audit.AuditLog;
 import com.example.familybenefitstown.part_auth.services.interfaces.TokenCodeService;
 import com.example.familybenefitstown.part_auth.services.interfaces.AuthService;
 import com.example.familybenefitstown.part_auth.HttpHeadersSupport;
@@ -50,30 +54,54 @@ public class AuthServiceFB implements AuthService {
    */
   private final LoginCodeRepository loginCodeRepository;
 
+  /**
+   * Репозиторий операций с таблицей "user", выполняющий запросы сразу
+   */
+  private final UserJdbcRepository userJdbcRepository;
+
   /**
    * Сервис для работы с токенами доступа (в формате jwt) и восстановления и кодом для входа
    */
   private final TokenCodeService tokenCodeService;
 
+  /**
+   * Учет активных пользователей и входов в памяти узла
+   */
+  private final ActivityTracker activityTracker;
+
+  /**
+   * Журнал событий аудита
+   */
+  private final AuditLog auditLog;
+
   /**
    * Конструктор для инициализации интерфейсов репозиториев и сервисов
    * @param userRepository репозиторий, работающий с моделью таблицы "user"
    * @param roleRepository репозиторий, работающий с моделью таблицы "role"
    * @param refreshTokenRepository репозиторий, работающий с моделью таблицы "refresh_token"
    * @param loginCodeRepository репозиторий, работающий с моделью таблицы "login_code"
+   * @param userJdbcRepository репозиторий операций с таблицей "user", выполняющий запросы сразу
    * @param tokenCodeService интерфейс сервиса для работы с токеном доступа (в формате jwt) и кодом для входа
+   * @param activityTracker учет активных пользователей и входов в памяти узла
+   * @param auditLog журнал событий аудита
    */
   @Autowired
   public AuthServiceFB(UserRepository userRepository,
                        RoleRepository roleRepository,
                        RefreshTokenRepository refreshTokenRepository,
                        LoginCodeRepository loginCodeRepository,
-                       TokenCodeService tokenCodeService) {
+                       UserJdbcRepository userJdbcRepository,
+                       TokenCodeService tokenCodeService,
+                       ActivityTracker activityTracker,
+                       AuditLog auditLog) {
     this.userRepository = userRepository;
     this.roleRepository = roleRepository;
     this.refreshTokenRepository = refreshTokenRepository;
     this.loginCodeRepository = loginCodeRepository;
+    this.userJdbcRepository = userJdbcRepository;
     this.tokenCodeService = tokenCodeService;
+    this.activityTracker = activityTracker;
+    this.auditLog = auditLog;
   }
 
   /**
@@ -92,6 +120,7 @@ public class AuthServiceFB implements AuthService {
 
     // Получение сгенерированного кода для входа
     int code = tokenCodeService.generateAndSaveLoginCode(userEntityFromRequest.getId());
+    auditLog.record(AuditEventType.LOGIN_CODE_CREATED, userEntityFromRequest.getId(), null);
 
     // Отправка кода на почту
     MailSenderProvider.sendLoginCode(email, userEntityFromRequest.getName(), code);
@@ -118,6 +147,11 @@ public class AuthServiceFB implements AuthService {
     // Удаление кода входа
     loginCodeRepository.deleteByCode(loginCode);
 
+    // Сохранение времени активности, по которому удаляются неактивные пользователи
+    userJdbcRepository.updateLastActivity(idUser);
+    activityTracker.recordLogin(idUser, userEntityFromRequest.getIdCity());
+    auditLog.record(AuditEventType.LOGIN, idUser, null);
+
     // Формирование ответа
     return LoginResponse
         .builder()
@@ -138,6 +172,7 @@ public class AuthServiceFB implements AuthService {
   public void logout(String idUser) {
 
     refreshTokenRepository.deleteById(idUser);
+    auditLog.record(AuditEventType.LOGOUT, idUser, null);
   }
 
   /**
@@ -184,7 +219,9 @@ public class AuthServiceFB implements AuthService {
       // Токен jwt истек, но корректный.
       // Запрос новых токенов и сохранение в бд токена восстановления
       AuthData newAuthData = tokenCodeService.generateAndSaveAuthTokens(idUser);
+      userJdbcRepository.updateLastActivity(idUser);
       userData = newAuthData.getJwtData().getUserData();
+      auditLog.record(AuditEventType.TOKENS_ROTATED, idUser, requestAddress);
       // Установка токенов в заголовки http ответа
       HttpHeadersSupport.setTokens(response, newAuthData);
 
@@ -193,10 +230,14 @@ public class AuthServiceFB implements AuthService {
       // Удаление токена восстановления.
       HttpHeadersSupport.removeRefreshToken(response);
       refreshTokenRepository.deleteByToken(requestRefreshToken);
+      auditLog.record(AuditEventType.TOKEN_REVOKED, idUser, requestAddress);
       log.warn("{} {} \"{}\": Jwt token's exceptions. {}", requestAddress, requestMethod, requestURI, e.getMessage());
       return Optional.empty();
     }
 
+    // Учет активности в памяти, без запроса к бд при повторной активности пользователя
+    activityTracker.recordActivity(userData.getIdUser());
+
     return Optional.of(userData);
   }
 }
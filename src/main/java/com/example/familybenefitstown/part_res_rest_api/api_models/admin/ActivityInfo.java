@@ -0,0 +1,53 @@
+package com.example.familybenefitstown.part_res_rest_api.api_models.admin;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Приближенное число активных пользователей и число входов в систему за день, неделю и месяц, заканчивающиеся датой
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ActivityInfo {
+
+  /**
+   * Приближенное число различных активных пользователей за день
+   */
+  @JsonProperty("countActiveDay")
+  private long countActiveDay;
+
+  /**
+   * Приближенное число различных активных пользователей за 7 дней
+   */
+  @JsonProperty("countActiveWeek")
+  private long countActiveWeek;
+
+  /**
+   * Приближенное число различных активных пользователей за 30 дней
+   */
+  @JsonProperty("countActiveMonth")
+  private long countActiveMonth;
+
+  /**
+   * Число входов в систему за день
+   */
+  @JsonProperty("countLoginsDay")
+  private long countLoginsDay;
+
+  /**
+   * Число входов в систему за 7 дней
+   */
+  @JsonProperty("countLoginsWeek")
+  private long countLoginsWeek;
+
+  /**
+   * Число входов в систему за 30 дней
+   */
+  @JsonProperty("countLoginsMonth")
+  private long countLoginsMonth;
+}
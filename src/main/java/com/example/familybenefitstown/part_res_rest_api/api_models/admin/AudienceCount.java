@@ -0,0 +1,23 @@
+package com.example.familybenefitstown.part_res_rest_api.api_models.admin;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Число семей, подходящих под фильтр аудитории
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AudienceCount {
+
+  /**
+   * Число подходящих семей
+   */
+  @JsonProperty("countFamilies")
+  private long countFamilies;
+}
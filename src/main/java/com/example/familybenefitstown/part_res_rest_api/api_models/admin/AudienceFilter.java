@@ -0,0 +1,74 @@
+package com.example.familybenefitstown.part_res_rest_api.api_models.admin;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Условие фильтра аудитории семей. Используются только поля, относящиеся к типу условия,
+ * пределы включительно, отсутствующий предел не ограничивает
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AudienceFilter {
+
+  /**
+   * Тип условия
+   */
+  @JsonProperty("type")
+  private AudienceFilterType type;
+
+  /**
+   * Вложенные условия для типов {@code AND}, {@code OR} и {@code NOT}
+   */
+  @JsonProperty("filterList")
+  private List<AudienceFilter> filterList;
+
+  /**
+   * ID города для типа {@code CITY}
+   */
+  @JsonProperty("idCity")
+  private String idCity;
+
+  /**
+   * Минимальный полный возраст ребенка в годах для типа {@code CHILD_AGE}
+   */
+  @JsonProperty("minAgeChild")
+  private Integer minAgeChild;
+
+  /**
+   * Максимальный полный возраст ребенка в годах для типа {@code CHILD_AGE}
+   */
+  @JsonProperty("maxAgeChild")
+  private Integer maxAgeChild;
+
+  /**
+   * Первая дата рождения ребенка в формате "dd.mm.yyyy" для типа {@code CHILD_BIRTH}
+   */
+  @JsonProperty("dateBirthFrom")
+  private String dateBirthFrom;
+
+  /**
+   * Последняя дата рождения ребенка в формате "dd.mm.yyyy" для типа {@code CHILD_BIRTH}
+   */
+  @JsonProperty("dateBirthTo")
+  private String dateBirthTo;
+
+  /**
+   * Минимальное число детей для типа {@code COUNT_CHILDREN}
+   */
+  @JsonProperty("minCountChildren")
+  private Integer minCountChildren;
+
+  /**
+   * Максимальное число детей для типа {@code COUNT_CHILDREN}
+   */
+  @JsonProperty("maxCountChildren")
+  private Integer maxCountChildren;
+}
@@ -0,0 +1,42 @@
+package com.example.familybenefitstown.part_res_rest_api.api_models.admin;
+
+/**
+ * Тип условия фильтра аудитории
+ */
+public enum AudienceFilterType {
+
+  /**
+   * Выполнены все вложенные условия
+   */
+  AND,
+
+  /**
+   * Выполнено хотя бы одно вложенное условие
+   */
+  OR,
+
+  /**
+   * Не выполнено единственное вложенное условие
+   */
+  NOT,
+
+  /**
+   * Пользователь из города
+   */
+  CITY,
+
+  /**
+   * У пользователя есть ребенок с полным возрастом в годах в пределах, на текущую дату
+   */
+  CHILD_AGE,
+
+  /**
+   * У пользователя есть ребенок с датой рождения в пределах
+   */
+  CHILD_BIRTH,
+
+  /**
+   * Число детей пользователя в пределах
+   */
+  COUNT_CHILDREN
+}
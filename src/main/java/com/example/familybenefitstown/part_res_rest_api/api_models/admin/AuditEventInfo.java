@@ -0,0 +1,47 @@
+package com.example.familybenefitstown.part_res_rest_api.api_models.admin;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Информация о событии аудита
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AuditEventInfo {
+
+  /**
+   * ID записи события
+   */
+  @JsonProperty("idEvent")
+  private long idEvent;
+
+  /**
+   * Дата и время события в формате ISO-8601
+   */
+  @JsonProperty("dateTimeEvent")
+  private String dateTimeEvent;
+
+  /**
+   * Тип события
+   */
+  @JsonProperty("type")
+  private String type;
+
+  /**
+   * ID пользователя, к которому относится событие
+   */
+  @JsonProperty("idUser")
+  private String idUser;
+
+  /**
+   * Подробности события: название роли или адрес клиента
+   */
+  @JsonProperty("details")
+  private String details;
+}
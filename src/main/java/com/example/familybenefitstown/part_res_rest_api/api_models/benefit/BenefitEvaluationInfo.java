@@ -0,0 +1,35 @@
+package com.example.familybenefitstown.part_res_rest_api.api_models.benefit;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Информация о ходе переоценки положенных пособий пользователей города
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BenefitEvaluationInfo {
+
+  /**
+   * Состояние переоценки: PENDING - ожидает, RUNNING - выполняется, DONE - выполнена
+   */
+  @JsonProperty("status")
+  private String status;
+
+  /**
+   * Число обработанных пользователей
+   */
+  @JsonProperty("countProcessed")
+  private long countProcessed;
+
+  /**
+   * Число пользователей города на начало обработки
+   */
+  @JsonProperty("countTotal")
+  private long countTotal;
+}
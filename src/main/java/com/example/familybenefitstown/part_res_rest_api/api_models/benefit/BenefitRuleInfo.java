@@ -0,0 +1,66 @@
+package com.example.familybenefitstown.part_res_rest_api.api_models.benefit;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Информация о правиле пособия города.
+ * Пособие положено, если число детей, подходящих по возрасту и дате рождения, в указанных пределах
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class BenefitRuleInfo {
+
+  /**
+   * ID правила пособия
+   */
+  @JsonProperty("id")
+  private String id;
+
+  /**
+   * Название пособия
+   */
+  @JsonProperty("name")
+  private String name;
+
+  /**
+   * Минимальный полный возраст ребенка в годах, включительно. {@code null} - без ограничения
+   */
+  @JsonProperty("minAgeChild")
+  private Integer minAgeChild;
+
+  /**
+   * Максимальный полный возраст ребенка в годах, включительно. {@code null} - без ограничения
+   */
+  @JsonProperty("maxAgeChild")
+  private Integer maxAgeChild;
+
+  /**
+   * Первая дата рождения ребенка в формате "dd.mm.yyyy", включительно. {@code null} - без ограничения
+   */
+  @JsonProperty("dateBirthFrom")
+  private String dateBirthFrom;
+
+  /**
+   * Последняя дата рождения ребенка в формате "dd.mm.yyyy", включительно. {@code null} - без ограничения
+   */
+  @JsonProperty("dateBirthTo")
+  private String dateBirthTo;
+
+  /**
+   * Минимальное число подходящих детей
+   */
+  @JsonProperty("minCountChildren")
+  private int minCountChildren;
+
+  /**
+   * Максимальное число подходящих детей. {@code null} - без ограничения
+   */
+  @JsonProperty("maxCountChildren")
+  private Integer maxCountChildren;
+}
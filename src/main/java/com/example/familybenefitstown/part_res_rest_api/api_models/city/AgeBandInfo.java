@@ -0,0 +1,35 @@
+package com.example.familybenefitstown.part_res_rest_api.api_models.city;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Число детей возрастной группы
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class AgeBandInfo {
+
+  /**
+   * Минимальный полный возраст в годах, включительно
+   */
+  @JsonProperty("minAge")
+  private int minAge;
+
+  /**
+   * Максимальный полный возраст в годах, включительно. {@code null} - без ограничения
+   */
+  @JsonProperty("maxAge")
+  private Integer maxAge;
+
+  /**
+   * Число детей группы
+   */
+  @JsonProperty("countChildren")
+  private long countChildren;
+}
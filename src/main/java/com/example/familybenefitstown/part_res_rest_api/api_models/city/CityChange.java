@@ -0,0 +1,36 @@
+package com.example.familybenefitstown.part_res_rest_api.api_models.city;
+
+import com.example.familybenefitstown.part_res_rest_api.events.CityChangeType;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Изменение города в потоке изменений
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CityChange {
+
+  /**
+   * Тип изменения
+   */
+  @JsonProperty("type")
+  private CityChangeType type;
+
+  /**
+   * ID города
+   */
+  @JsonProperty("idCity")
+  private String idCity;
+
+  /**
+   * Название города
+   */
+  @JsonProperty("nameCity")
+  private String nameCity;
+}
@@ -0,0 +1,59 @@
+package com.example.familybenefitstown.part_res_rest_api.api_models.city;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Объект запроса для частичного обновления города по правилам JSON Merge Patch (RFC 7396).
+ * Отсутствующее поле не изменяется, поле со значением {@code null} удаляется, остальные поля заменяются.
+ * Поля, указанные в запросе, запоминаются при десериализации
+ */
+@Getter
+@ToString
+@NoArgsConstructor
+public class CityPatch {
+
+  /**
+   * Название города
+   */
+  private String name;
+
+  /**
+   * Информация города
+   */
+  private String info;
+
+  /**
+   * Названия полей, указанных в запросе
+   */
+  @JsonIgnore
+  @ToString.Exclude
+  private final Set<String> patchedFieldSet = new HashSet<>();
+
+  @JsonProperty("name")
+  public void setName(String name) {
+    this.name = name;
+    patchedFieldSet.add("name");
+  }
+
+  @JsonProperty("info")
+  public void setInfo(String info) {
+    this.info = info;
+    patchedFieldSet.add("info");
+  }
+
+  /**
+   * Проверяет, указано ли поле в запросе
+   * @param field название поля
+   * @return true, если поле указано в запросе, в том числе со значением {@code null}
+   */
+  public boolean isPatched(String field) {
+    return patchedFieldSet.contains(field);
+  }
+}
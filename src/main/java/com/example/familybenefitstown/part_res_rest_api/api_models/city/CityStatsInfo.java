@@ -0,0 +1,43 @@
+package com.example.familybenefitstown.part_res_rest_api.api_models.city;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Статистика семей и детей города
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class CityStatsInfo {
+
+  /**
+   * Число семей (пользователей) города
+   */
+  @JsonProperty("countFamilies")
+  private long countFamilies;
+
+  /**
+   * Число детей пользователей города
+   */
+  @JsonProperty("countChildren")
+  private long countChildren;
+
+  /**
+   * Число многодетных семей города, с тремя и более детьми
+   */
+  @JsonProperty("countMultiChildFamilies")
+  private long countMultiChildFamilies;
+
+  /**
+   * Число детей по возрастным группам, в порядке возраста
+   */
+  @JsonProperty("ageBandList")
+  private List<AgeBandInfo> ageBandList;
+}
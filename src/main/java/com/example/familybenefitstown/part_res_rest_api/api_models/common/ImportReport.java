@@ -0,0 +1,49 @@
+package com.example.familybenefitstown.part_res_rest_api.api_models.common;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Отчет о массовой загрузке объектов
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportReport {
+
+  /**
+   * Число прочитанных записей
+   */
+  @JsonProperty("countRecord")
+  private long countRecord;
+
+  /**
+   * Число сохраненных объектов
+   */
+  @JsonProperty("countImported")
+  private long countImported;
+
+  /**
+   * Число отклоненных записей
+   */
+  @JsonProperty("countRejected")
+  private long countRejected;
+
+  /**
+   * Список ошибок по записям, ограниченный по размеру
+   */
+  @JsonProperty("errorList")
+  private List<ImportRowError> errorList;
+
+  /**
+   * true, если в список ошибок попали не все отклоненные записи
+   */
+  @JsonProperty("isErrorListTruncated")
+  private boolean isErrorListTruncated;
+}
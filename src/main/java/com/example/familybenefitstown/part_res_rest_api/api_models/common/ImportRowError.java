@@ -0,0 +1,29 @@
+package com.example.familybenefitstown.part_res_rest_api.api_models.common;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * Ошибка загрузки одной записи
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class ImportRowError {
+
+  /**
+   * Номер записи в потоке, начиная с 1
+   */
+  @JsonProperty("numberRow")
+  private long numberRow;
+
+  /**
+   * Описание ошибки
+   */
+  @JsonProperty("message")
+  private String message;
+}
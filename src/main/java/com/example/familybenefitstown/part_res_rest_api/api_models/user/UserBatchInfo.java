@@ -0,0 +1,38 @@
+package com.example.familybenefitstown.part_res_rest_api.api_models.user;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Информация о нескольких пользователях.
+ * Содержит информацию о найденных пользователях и ID, по которым информация не получена
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBatchInfo {
+
+  /**
+   * Список информаций о найденных пользователях, в порядке запроса
+   */
+  @JsonProperty("userInfoList")
+  private List<UserInfo> userInfoList;
+
+  /**
+   * Список ID пользователей, которые не найдены
+   */
+  @JsonProperty("notFoundIdList")
+  private List<String> notFoundIdList;
+
+  /**
+   * Список ID пользователей, к которым у клиента нет доступа
+   */
+  @JsonProperty("forbiddenIdList")
+  private List<String> forbiddenIdList;
+}
@@ -0,0 +1,25 @@
+package com.example.familybenefitstown.part_res_rest_api.api_models.user;
+
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+/**
+ * Объект запроса на получение информации о нескольких пользователях
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class UserBatchRead {
+
+  /**
+   * Список ID пользователей
+   */
+  @JsonProperty("idList")
+  private List<String> idList;
+}
@@ -0,0 +1,93 @@
+package com.example.familybenefitstown.part_res_rest_api.api_models.user;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import lombok.ToString;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Объект запроса для частичного обновления пользователя по правилам JSON Merge Patch (RFC 7396).
+ * Отсутствующее поле не изменяется, поле со значением {@code null} удаляется, остальные поля заменяются.
+ * Поля, указанные в запросе, запоминаются при десериализации
+ */
+@Getter
+@ToString
+@NoArgsConstructor
+public class UserPatch {
+
+  /**
+   * Имя пользователя
+   */
+  private String name;
+
+  /**
+   * Электронная почта пользователя
+   */
+  private String email;
+
+  /**
+   * Список дат рождений детей пользователя
+   */
+  private List<String> birthDateChildren;
+
+  /**
+   * Дата рождения пользователя
+   */
+  private String dateBirth;
+
+  /**
+   * ID города пользователя
+   */
+  private String idCity;
+
+  /**
+   * Названия полей, указанных в запросе
+   */
+  @JsonIgnore
+  @ToString.Exclude
+  private final Set<String> patchedFieldSet = new HashSet<>();
+
+  @JsonProperty("name")
+  public void setName(String name) {
+    this.name = name;
+    patchedFieldSet.add("name");
+  }
+
+  @JsonProperty("email")
+  public void setEmail(String email) {
+    this.email = email;
+    patchedFieldSet.add("email");
+  }
+
+  @JsonProperty("birthDateChildren")
+  public void setBirthDateChildren(List<String> birthDateChildren) {
+    this.birthDateChildren = birthDateChildren;
+    patchedFieldSet.add("birthDateChildren");
+  }
+
+  @JsonProperty("dateBirth")
+  public void setDateBirth(String dateBirth) {
+    this.dateBirth = dateBirth;
+    patchedFieldSet.add("dateBirth");
+  }
+
+  @JsonProperty("idCity")
+  public void setIdCity(String idCity) {
+    this.idCity = idCity;
+    patchedFieldSet.add("idCity");
+  }
+
+  /**
+   * Проверяет, указано ли поле в запросе
+   * @param field название поля
+   * @return true, если поле указано в запросе, в том числе со значением {@code null}
+   */
+  public boolean isPatched(String field) {
+    return patchedFieldSet.contains(field);
+  }
+}
@@ -0,0 +1,345 @@
+package com.example.familybenefitstown.part_res_rest_api.audience;
+
+import com.example.familybenefitstown.exceptions.DateFormatException;
+import com.example.familybenefitstown.exceptions.InvalidFilterException;
+import com.example.familybenefitstown.exceptions.InvalidRangeException;
+import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AudienceFilter;
+import com.example.familybenefitstown.part_res_rest_api.benefits.CompiledBenefitRule;
+import com.example.familybenefitstown.security.DBSecuritySupport;
+import com.example.familybenefitstown.security.DateTimeSupport;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Фильтр аудитории, подготовленный в условие SQL запроса к таблице "user" с параметрами.
+ * Условия сведены к столбцам с индексами: город - к индексу города, число детей - к индексу числа детей города,
+ * возраст и даты рождения детей - к пересечению массива дат рождений детей с известными датами рождения из отрезка,
+ * по индексу GIN. Значения передаются только параметрами запроса
+ */
+public final class AudienceQuery {
+
+  /**
+   * Максимальная глубина вложенности условий
+   */
+  private static final int MAX_DEPTH = 8;
+
+  /**
+   * Максимальное число условий фильтра
+   */
+  private static final int MAX_COUNT_FILTERS = 64;
+
+  /**
+   * Условие города
+   */
+  private static final String SQL_CITY = "family_benefit_town.user.id_city = ?";
+
+  /**
+   * Число детей пользователя, записывается как в выражении индекса "user_idx_city_count_children"
+   */
+  private static final String SQL_COUNT_CHILDREN = "cardinality(family_benefit_town.user.children_birth)";
+
+  /**
+   * Условие наличия детей
+   */
+  private static final String SQL_HAS_CHILDREN = SQL_COUNT_CHILDREN + " > 0";
+
+  /**
+   * Начало условия наличия ребенка с датой рождения из отрезка: пересечение с известными датами рождения отрезка,
+   * которые читаются один раз по уникальному индексу дат рождения
+   */
+  private static final String SQL_CHILD_BIRTH =
+      "family_benefit_town.user.children_birth && ARRAY(SELECT family_benefit_town.child_birth.date_birth " +
+          "FROM family_benefit_town.child_birth WHERE TRUE";
+
+  /**
+   * Условие первой даты рождения
+   */
+  private static final String SQL_CHILD_BIRTH_FROM = " AND family_benefit_town.child_birth.date_birth >= ?";
+
+  /**
+   * Условие последней даты рождения
+   */
+  private static final String SQL_CHILD_BIRTH_TO = " AND family_benefit_town.child_birth.date_birth <= ?";
+
+  /**
+   * Условие SQL запроса
+   */
+  private final String sqlCondition;
+
+  /**
+   * Параметры условия в порядке их следования
+   */
+  private final List<Object> argList;
+
+  /**
+   * Конструктор для инициализации подготовленного фильтра
+   * @param sqlCondition условие SQL запроса
+   * @param argList параметры условия в порядке их следования
+   */
+  private AudienceQuery(String sqlCondition, List<Object> argList) {
+    this.sqlCondition = sqlCondition;
+    this.argList = argList;
+  }
+
+  /**
+   * Подготавливает фильтр аудитории на указанную дату. Возраст ребенка - число полных лет,
+   * как в правилах пособий: у родившихся 29 февраля день рождения в невисокосный год - 28 февраля
+   * @param audienceFilter корневое условие фильтра
+   * @param dateCurrent дата, на которую определяется возраст детей
+   * @return подготовленный фильтр
+   * @throws InvalidFilterException если тип условия не указан, у условия нет необходимых полей или превышены размеры фильтра
+   * @throws InvalidRangeException если возраст или число детей отрицательные, или начало диапазона больше его конца
+   * @throws DateFormatException если дата рождения ребенка не соответствует формату "dd.mm.yyyy"
+   */
+  public static AudienceQuery compile(AudienceFilter audienceFilter, LocalDate dateCurrent)
+      throws InvalidFilterException, InvalidRangeException, DateFormatException {
+
+    Compiler compiler = new Compiler(dateCurrent);
+    compiler.append(audienceFilter, 1);
+    return new AudienceQuery(compiler.sql.toString(), compiler.argList);
+  }
+
+  /**
+   * Возвращает условие SQL запроса
+   * @return условие SQL запроса
+   */
+  public String getSqlCondition() {
+    return sqlCondition;
+  }
+
+  /**
+   * Возвращает параметры условия в порядке их следования
+   * @return параметры условия
+   */
+  public List<Object> getArgList() {
+    return List.copyOf(argList);
+  }
+
+  /**
+   * Рекурсивная подготовка условий фильтра с подсчетом их числа
+   */
+  private static class Compiler {
+
+    /**
+     * Дата, на которую определяется возраст детей
+     */
+    private final LocalDate dateCurrent;
+
+    /**
+     * Условие SQL запроса
+     */
+    private final StringBuilder sql = new StringBuilder();
+
+    /**
+     * Параметры условия в порядке их следования
+     */
+    private final List<Object> argList = new ArrayList<>();
+
+    /**
+     * Число подготовленных условий
+     */
+    private int countFilters;
+
+    /**
+     * Конструктор для инициализации даты подготовки
+     * @param dateCurrent дата, на которую определяется возраст детей
+     */
+    private Compiler(LocalDate dateCurrent) {
+      this.dateCurrent = dateCurrent;
+    }
+
+    /**
+     * Добавляет условие и вложенные в него условия
+     * @param audienceFilter условие фильтра
+     * @param depth глубина вложенности условия, у корневого условия - 1
+     * @throws InvalidFilterException если тип условия не указан, у условия нет необходимых полей или превышены размеры фильтра
+     * @throws InvalidRangeException если возраст или число детей отрицательные, или начало диапазона больше его конца
+     * @throws DateFormatException если дата рождения ребенка не соответствует формату "dd.mm.yyyy"
+     */
+    private void append(AudienceFilter audienceFilter, int depth)
+        throws InvalidFilterException, InvalidRangeException, DateFormatException {
+
+      if (audienceFilter == null || audienceFilter.getType() == null) {
+        throw new InvalidFilterException("The filter has no \"type\"");
+      }
+      if (depth > MAX_DEPTH) {
+        throw new InvalidFilterException(String.format("The filter is nested deeper than %d", MAX_DEPTH));
+      }
+      if (++countFilters > MAX_COUNT_FILTERS) {
+        throw new InvalidFilterException(String.format("The filter has more than %d conditions", MAX_COUNT_FILTERS));
+      }
+
+      switch (audienceFilter.getType()) {
+        case AND:
+          appendJoined(audienceFilter, " AND ", depth);
+          break;
+        case OR:
+          appendJoined(audienceFilter, " OR ", depth);
+          break;
+        case NOT:
+          List<AudienceFilter> filterList = audienceFilter.getFilterList();
+          if (filterList == null || filterList.size() != 1) {
+            throw new InvalidFilterException("The filter \"NOT\" must have exactly one condition in \"filterList\"");
+          }
+          sql.append("NOT (");
+          append(filterList.get(0), depth + 1);
+          sql.append(')');
+          break;
+        case CITY:
+          if (audienceFilter.getIdCity() == null || audienceFilter.getIdCity().isBlank()) {
+            throw new InvalidFilterException("The filter \"CITY\" has no \"idCity\"");
+          }
+          sql.append(SQL_CITY);
+          argList.add(DBSecuritySupport.preparePostgreSQLString(audienceFilter.getIdCity()));
+          break;
+        case CHILD_AGE:
+          appendChildAge(audienceFilter.getMinAgeChild(), audienceFilter.getMaxAgeChild());
+          break;
+        case CHILD_BIRTH:
+          appendChildBirth(audienceFilter.getDateBirthFrom(), audienceFilter.getDateBirthTo());
+          break;
+        case COUNT_CHILDREN:
+          appendCountChildren(audienceFilter.getMinCountChildren(), audienceFilter.getMaxCountChildren());
+          break;
+      }
+    }
+
+    /**
+     * Добавляет вложенные условия, соединенные логической операцией
+     * @param audienceFilter условие фильтра с вложенными условиями
+     * @param sqlOperator логическая операция с пробелами вокруг
+     * @param depth глубина вложенности условия
+     * @throws InvalidFilterException если вложенных условий нет или они некорректны
+     * @throws InvalidRangeException если диапазон вложенного условия некорректен
+     * @throws DateFormatException если дата вложенного условия не соответствует формату "dd.mm.yyyy"
+     */
+    private void appendJoined(AudienceFilter audienceFilter, String sqlOperator, int depth)
+        throws InvalidFilterException, InvalidRangeException, DateFormatException {
+
+      List<AudienceFilter> filterList = audienceFilter.getFilterList();
+      if (filterList == null || filterList.isEmpty()) {
+        throw new InvalidFilterException(String.format(
+            "The filter \"%s\" has no conditions in \"filterList\"", audienceFilter.getType()));
+      }
+
+      sql.append('(');
+      for (int index = 0; index < filterList.size(); index++) {
+        if (index > 0) {
+          sql.append(sqlOperator);
+        }
+        append(filterList.get(index), depth + 1);
+      }
+      sql.append(')');
+    }
+
+    /**
+     * Добавляет условие наличия ребенка с полным возрастом в пределах, сведенное к отрезку дат рождения
+     * @param minAgeChild минимальный полный возраст в годах или {@code null}
+     * @param maxAgeChild максимальный полный возраст в годах или {@code null}
+     * @throws InvalidRangeException если возраст отрицательный или минимальный больше максимального
+     */
+    private void appendChildAge(Integer minAgeChild, Integer maxAgeChild) throws InvalidRangeException {
+
+      checkRange(minAgeChild, maxAgeChild, "AgeChild");
+
+      // Ребенку не меньше минимального возраста - родился не позже последней даты рождения для этого возраста,
+      // не больше максимального - родился позже последней даты рождения для следующего возраста
+      LocalDate dateBirthTo = minAgeChild != null
+          ? CompiledBenefitRule.lastDateBirthForAge(dateCurrent, minAgeChild)
+          : null;
+      LocalDate dateBirthFrom = maxAgeChild != null
+          ? CompiledBenefitRule.lastDateBirthForAge(dateCurrent, maxAgeChild + 1).plusDays(1)
+          : null;
+      appendChildBirthRange(dateBirthFrom, dateBirthTo);
+    }
+
+    /**
+     * Добавляет условие наличия ребенка с датой рождения в пределах
+     * @param dateBirthFrom первая дата рождения в формате "dd.mm.yyyy" или {@code null}
+     * @param dateBirthTo последняя дата рождения в формате "dd.mm.yyyy" или {@code null}
+     * @throws DateFormatException если дата не соответствует формату "dd.mm.yyyy"
+     * @throws InvalidRangeException если первая дата позже последней
+     */
+    private void appendChildBirth(String dateBirthFrom, String dateBirthTo) throws DateFormatException, InvalidRangeException {
+
+      LocalDate dateFrom = dateBirthFrom != null ? DateTimeSupport.strToDate(dateBirthFrom) : null;
+      LocalDate dateTo = dateBirthTo != null ? DateTimeSupport.strToDate(dateBirthTo) : null;
+      if (dateFrom != null && dateTo != null && dateFrom.isAfter(dateTo)) {
+        throw new InvalidRangeException(String.format(
+            "The filter has \"dateBirthFrom\" %s after \"dateBirthTo\" %s", dateFrom, dateTo));
+      }
+      appendChildBirthRange(dateFrom, dateTo);
+    }
+
+    /**
+     * Добавляет условие наличия ребенка с датой рождения из отрезка
+     * @param dateBirthFrom первая дата рождения, включительно, или {@code null}
+     * @param dateBirthTo последняя дата рождения, включительно, или {@code null}
+     */
+    private void appendChildBirthRange(LocalDate dateBirthFrom, LocalDate dateBirthTo) {
+
+      if (dateBirthFrom == null && dateBirthTo == null) {
+        sql.append(SQL_HAS_CHILDREN);
+        return;
+      }
+
+      sql.append(SQL_CHILD_BIRTH);
+      if (dateBirthFrom != null) {
+        sql.append(SQL_CHILD_BIRTH_FROM);
+        argList.add(Date.valueOf(dateBirthFrom));
+      }
+      if (dateBirthTo != null) {
+        sql.append(SQL_CHILD_BIRTH_TO);
+        argList.add(Date.valueOf(dateBirthTo));
+      }
+      sql.append(')');
+    }
+
+    /**
+     * Добавляет условие числа детей в пределах
+     * @param minCountChildren минимальное число детей или {@code null}
+     * @param maxCountChildren максимальное число детей или {@code null}
+     * @throws InvalidRangeException если число отрицательное или минимальное больше максимального
+     */
+    private void appendCountChildren(Integer minCountChildren, Integer maxCountChildren) throws InvalidRangeException {
+
+      checkRange(minCountChildren, maxCountChildren, "CountChildren");
+
+      if (minCountChildren == null && maxCountChildren == null) {
+        sql.append("TRUE");
+      } else if (maxCountChildren == null) {
+        sql.append(SQL_COUNT_CHILDREN).append(" >= ?");
+        argList.add(minCountChildren);
+      } else if (minCountChildren == null) {
+        sql.append(SQL_COUNT_CHILDREN).append(" <= ?");
+        argList.add(maxCountChildren);
+      } else {
+        sql.append(SQL_COUNT_CHILDREN).append(" BETWEEN ? AND ?");
+        argList.add(minCountChildren);
+        argList.add(maxCountChildren);
+      }
+    }
+
+    /**
+     * Проверяет неотрицательные границы диапазона и предшествие начала диапазона его концу
+     * @param min начало диапазона или {@code null}, если не ограничено
+     * @param max конец диапазона или {@code null}, если не ограничен
+     * @param field окончание названий полей диапазона
+     * @throws InvalidRangeException если граница отрицательная или начало больше конца
+     */
+    private static void checkRange(Integer min, Integer max, String field) throws InvalidRangeException {
+
+      if ((min != null && min < 0) || (max != null && max < 0)) {
+        throw new InvalidRangeException(String.format(
+            "The filter has negative \"min%s\" or \"max%s\"", field, field));
+      }
+      if (min != null && max != null && min > max) {
+        throw new InvalidRangeException(String.format(
+            "The filter has \"min%s\" %s greater than \"max%s\" %s", field, min, field, max));
+      }
+    }
+  }
+}
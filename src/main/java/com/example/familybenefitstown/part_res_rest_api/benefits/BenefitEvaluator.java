@@ -0,0 +1,185 @@
+package com.example.familybenefitstown.part_res_rest_api.benefits;
+
+import com.example.familybenefitstown.dto.entities.BenefitRuleEntity;
+import com.example.familybenefitstown.dto.repositories.BenefitRuleRepository;
+import com.example.familybenefitstown.part_res_rest_api.api_models.common.ObjectShortInfo;
+import com.example.familybenefitstown.part_res_rest_api.events.CityChangeType;
+import com.example.familybenefitstown.part_res_rest_api.events.CityChangedEvent;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Определяет положенные пособия по правилам города и датам рождений детей.
+ * Правила города читаются из бд и подготавливаются один раз в день, при первой проверке,
+ * и удаляются при изменении правил или удалении города
+ */
+@Component
+public class BenefitEvaluator {
+
+  /**
+   * Репозиторий, работающий с моделью таблицы "benefit_rule"
+   */
+  private final BenefitRuleRepository benefitRuleRepository;
+
+  /**
+   * Подготовленные правила пособий, ключ - ID города
+   */
+  private final Map<String, CityRules> cityRulesMap = new ConcurrentHashMap<>();
+
+  /**
+   * Число удалений подготовленных правил. Правила, прочитанные из бд, сохраняются, только если
+   * с начала чтения правила не удалялись
+   */
+  private final AtomicLong countInvalidation = new AtomicLong();
+
+  /**
+   * Конструктор для инициализации репозитория
+   * @param benefitRuleRepository репозиторий, работающий с моделью таблицы "benefit_rule"
+   */
+  @Autowired
+  public BenefitEvaluator(BenefitRuleRepository benefitRuleRepository) {
+    this.benefitRuleRepository = benefitRuleRepository;
+  }
+
+  /**
+   * Возвращает пособия города, положенные по датам рождений детей, в порядке названий пособий
+   * @param idCity ID города
+   * @param childrenEpochDays даты рождений детей в днях от 01.01.1970, без повторов, по возрастанию
+   * @return список кратких информаций о положенных пособиях
+   */
+  public List<ObjectShortInfo> evaluate(String idCity, int[] childrenEpochDays) {
+
+    CompiledBenefitRule[] compiledRules = getRules(idCity);
+
+    List<ObjectShortInfo> benefitShortInfoList = new ArrayList<>();
+    for (CompiledBenefitRule compiledRule : compiledRules) {
+      if (compiledRule.test(childrenEpochDays)) {
+        benefitShortInfoList.add(new ObjectShortInfo(compiledRule.getId(), compiledRule.getName()));
+      }
+    }
+    return benefitShortInfoList;
+  }
+
+  /**
+   * Удаляет подготовленные правила города сразу и повторно после фиксации текущей транзакции,
+   * чтобы чтение, выполненное до фиксации, не оставило устаревшие правила
+   * @param idCity ID города
+   */
+  public void invalidateAfterCommit(String idCity) {
+
+    invalidate(idCity);
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          invalidate(idCity);
+        }
+      });
+    }
+  }
+
+  /**
+   * Удаляет подготовленные правила после фиксации удаления города, правила которого удалены внешним ключом,
+   * или перезагрузки городов
+   * @param cityChangedEvent событие изменения города
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCityChanged(CityChangedEvent cityChangedEvent) {
+
+    if (cityChangedEvent.getType() == CityChangeType.DELETED) {
+      invalidate(cityChangedEvent.getIdCity());
+    } else if (cityChangedEvent.getType() == CityChangeType.RELOADED) {
+      countInvalidation.incrementAndGet();
+      cityRulesMap.clear();
+    }
+  }
+
+  /**
+   * Возвращает правила города, подготовленные на текущую дату. Правила, подготовленные на другую дату,
+   * подготавливаются заново, так как возраст детей изменился.
+   * Прочитанные правила сохраняются, только если во время чтения правила не удалялись: чтение, начатое
+   * до фиксации изменения правил, не заменяет удаление после фиксации
+   * @param idCity ID города
+   * @return подготовленные правила города в порядке названий пособий
+   */
+  public CompiledBenefitRule[] getRules(String idCity) {
+
+    LocalDate dateCurrent = LocalDate.now();
+
+    CityRules cityRules = cityRulesMap.get(idCity);
+    if (cityRules != null && cityRules.dateCompiled.equals(dateCurrent)) {
+      return cityRules.compiledRules;
+    }
+
+    long countInvalidationRead = countInvalidation.get();
+    CompiledBenefitRule[] compiledRules = compileRules(idCity, dateCurrent);
+    // Проверка и сохранение выполняются атомарно относительно удаления, которое увеличивает счетчик до удаления
+    cityRulesMap.compute(idCity, (idCityKey, cityRulesCurrent) -> countInvalidation.get() == countInvalidationRead
+        ? new CityRules(dateCurrent, compiledRules)
+        : cityRulesCurrent);
+    return compiledRules;
+  }
+
+  /**
+   * Удаляет подготовленные правила города. Счетчик удалений увеличивается до удаления, поэтому правила,
+   * чтение которых началось до удаления, не сохраняются после него
+   * @param idCity ID города
+   */
+  private void invalidate(String idCity) {
+
+    countInvalidation.incrementAndGet();
+    cityRulesMap.remove(idCity);
+  }
+
+  /**
+   * Читает правила города из бд и подготавливает их на текущую дату, без обращения к подготовленным правилам.
+   * Используется внутри транзакций, записывающих положенные пособия: подготовленные правила могут быть прочитаны
+   * до фиксации изменения правил, а записанные пособия должны соответствовать правилам, видимым в транзакции
+   * @param idCity ID города
+   * @return подготовленные правила города в порядке названий пособий
+   */
+  public CompiledBenefitRule[] readRules(String idCity) {
+    return compileRules(idCity, LocalDate.now());
+  }
+
+  /**
+   * Читает правила города из бд и подготавливает их на указанную дату, без сохранения
+   * @param idCity ID города
+   * @param dateCurrent дата, на которую подготавливаются правила
+   * @return подготовленные правила города в порядке названий пособий
+   */
+  private CompiledBenefitRule[] compileRules(String idCity, LocalDate dateCurrent) {
+
+    List<BenefitRuleEntity> benefitRuleEntityList = benefitRuleRepository.findAllByIdCityOrderByName(idCity);
+    CompiledBenefitRule[] compiledRules = new CompiledBenefitRule[benefitRuleEntityList.size()];
+    for (int index = 0; index < compiledRules.length; index++) {
+      compiledRules[index] = CompiledBenefitRule.compile(benefitRuleEntityList.get(index), dateCurrent);
+    }
+    return compiledRules;
+  }
+
+  /**
+   * Правила города, подготовленные на дату
+   */
+  private static class CityRules {
+
+    private final LocalDate dateCompiled;
+    private final CompiledBenefitRule[] compiledRules;
+
+    private CityRules(LocalDate dateCompiled, CompiledBenefitRule[] compiledRules) {
+      this.dateCompiled = dateCompiled;
+      this.compiledRules = compiledRules;
+    }
+  }
+}
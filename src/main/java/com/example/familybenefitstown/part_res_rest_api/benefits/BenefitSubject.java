@@ -0,0 +1,27 @@
+package com.example.familybenefitstown.part_res_rest_api.benefits;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Данные пользователя, по которым определяются положенные ему пособия
+ */
+@Getter
+@AllArgsConstructor
+public class BenefitSubject {
+
+  /**
+   * ID пользователя
+   */
+  private final String idUser;
+
+  /**
+   * ID города пользователя. {@code null}, если город не указан
+   */
+  private final String idCity;
+
+  /**
+   * Даты рождений детей пользователя в днях от 01.01.1970, без повторов, по возрастанию
+   */
+  private final int[] childrenEpochDays;
+}
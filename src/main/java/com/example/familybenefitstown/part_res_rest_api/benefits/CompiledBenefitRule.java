@@ -0,0 +1,187 @@
+package com.example.familybenefitstown.part_res_rest_api.benefits;
+
+import com.example.familybenefitstown.dto.entities.BenefitRuleEntity;
+import com.example.familybenefitstown.security.DateTimeSupport;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * Правило пособия, подготовленное для проверки на указанную дату.
+ * Ограничения по возрасту и датам рождения сведены к одному отрезку дат рождения в днях от 01.01.1970,
+ * поэтому проверка пользователя - два двоичных поиска по отсортированным датам рождений его детей, без создания объектов
+ */
+public final class CompiledBenefitRule {
+
+  /**
+   * ID правила пособия
+   */
+  private final String id;
+
+  /**
+   * Название пособия
+   */
+  private final String name;
+
+  /**
+   * Первая подходящая дата рождения ребенка в днях от 01.01.1970, включительно
+   */
+  private final long fromEpochDay;
+
+  /**
+   * Последняя подходящая дата рождения ребенка в днях от 01.01.1970, включительно
+   */
+  private final long toEpochDay;
+
+  /**
+   * Минимальное число подходящих детей
+   */
+  private final int minCountChildren;
+
+  /**
+   * Максимальное число подходящих детей
+   */
+  private final int maxCountChildren;
+
+  /**
+   * Конструктор для инициализации подготовленного правила
+   * @param id ID правила пособия
+   * @param name название пособия
+   * @param fromEpochDay первая подходящая дата рождения ребенка в днях от 01.01.1970, включительно
+   * @param toEpochDay последняя подходящая дата рождения ребенка в днях от 01.01.1970, включительно
+   * @param minCountChildren минимальное число подходящих детей
+   * @param maxCountChildren максимальное число подходящих детей
+   */
+  private CompiledBenefitRule(String id, String name, long fromEpochDay, long toEpochDay,
+                              int minCountChildren, int maxCountChildren) {
+    this.id = id;
+    this.name = name;
+    this.fromEpochDay = fromEpochDay;
+    this.toEpochDay = toEpochDay;
+    this.minCountChildren = minCountChildren;
+    this.maxCountChildren = maxCountChildren;
+  }
+
+  /**
+   * Подготавливает правило пособия для проверки на указанную дату. Возраст ребенка - число полных лет,
+   * день рождения наступает как в {@link DateTimeSupport#checkBirthdayBefore}: у родившихся 29 февраля - 28 февраля
+   * @param benefitRuleEntity модель таблицы "benefit_rule"
+   * @param dateCurrent дата, на которую проверяется правило
+   * @return подготовленное правило
+   */
+  public static CompiledBenefitRule compile(BenefitRuleEntity benefitRuleEntity, LocalDate dateCurrent) {
+
+    long fromEpochDay = Integer.MIN_VALUE;
+    long toEpochDay = Integer.MAX_VALUE;
+
+    // Ребенку не меньше минимального возраста - родился не позже последней даты рождения для этого возраста
+    if (benefitRuleEntity.getMinAgeChild() != null) {
+      toEpochDay = Math.min(toEpochDay,
+                            lastDateBirthForAge(dateCurrent, benefitRuleEntity.getMinAgeChild()).toEpochDay());
+    }
+    // Ребенку не больше максимального возраста - родился позже последней даты рождения для следующего возраста
+    if (benefitRuleEntity.getMaxAgeChild() != null) {
+      fromEpochDay = Math.max(fromEpochDay,
+                              lastDateBirthForAge(dateCurrent, benefitRuleEntity.getMaxAgeChild() + 1).toEpochDay() + 1);
+    }
+    if (benefitRuleEntity.getDateBirthFrom() != null) {
+      fromEpochDay = Math.max(fromEpochDay, benefitRuleEntity.getDateBirthFrom().toEpochDay());
+    }
+    if (benefitRuleEntity.getDateBirthTo() != null) {
+      toEpochDay = Math.min(toEpochDay, benefitRuleEntity.getDateBirthTo().toEpochDay());
+    }
+
+    return new CompiledBenefitRule(
+        benefitRuleEntity.getId(),
+        benefitRuleEntity.getName(),
+        fromEpochDay,
+        toEpochDay,
+        benefitRuleEntity.getMinCountChildren(),
+        benefitRuleEntity.getMaxCountChildren() != null
+            ? benefitRuleEntity.getMaxCountChildren()
+            : Integer.MAX_VALUE);
+  }
+
+  /**
+   * Проверяет, положено ли пособие по датам рождений детей
+   * @param childrenEpochDays даты рождений детей в днях от 01.01.1970, без повторов, по возрастанию
+   * @return true, если число детей с подходящей датой рождения в пределах правила
+   */
+  public boolean test(int[] childrenEpochDays) {
+
+    int countChildren = fromEpochDay > toEpochDay
+        ? 0
+        : countNotAfter(childrenEpochDays, toEpochDay) - countNotAfter(childrenEpochDays, fromEpochDay - 1);
+    return countChildren >= minCountChildren && countChildren <= maxCountChildren;
+  }
+
+  /**
+   * Возвращает ID правила пособия
+   * @return ID правила пособия
+   */
+  public String getId() {
+    return id;
+  }
+
+  /**
+   * Возвращает название пособия
+   * @return название пособия
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Возвращает даты рождения, у которых на указанную дату день рождения с указанным числом полных лет.
+   * Обычно это одна дата; 28 февраля невисокосного года добавляется 29 февраля
+   * @param dateCurrent дата дня рождения
+   * @param age число полных лет
+   * @return даты рождения по возрастанию
+   */
+  public static List<LocalDate> datesBirthWithBirthday(LocalDate dateCurrent, int age) {
+
+    LocalDate dateBirth = dateCurrent.minusYears(age);
+    LocalDate dateBirthNext = dateBirth.plusDays(1);
+
+    return dateBirthNext.plusYears(age).equals(dateCurrent)
+        ? List.of(dateBirth, dateBirthNext)
+        : List.of(dateBirth);
+  }
+
+  /**
+   * Возвращает последнюю дату рождения, при которой на указанную дату исполнилось указанное число полных лет.
+   * День рождения 29 февраля в невисокосный год наступает 28 февраля
+   * @param dateCurrent дата, на которую определяется возраст
+   * @param age число полных лет
+   * @return последняя дата рождения для указанного возраста
+   */
+  public static LocalDate lastDateBirthForAge(LocalDate dateCurrent, int age) {
+
+    LocalDate dateBirth = dateCurrent.minusYears(age);
+    LocalDate dateBirthNext = dateBirth.plusDays(1);
+
+    // 29 февраля после 28 февраля невисокосного года: день рождения тоже наступил
+    return dateBirthNext.plusYears(age).isAfter(dateCurrent) ? dateBirth : dateBirthNext;
+  }
+
+  /**
+   * Возвращает число дат, не превышающих указанную, двоичным поиском
+   * @param epochDays даты в днях от 01.01.1970, по возрастанию
+   * @param epochDay граница поиска в днях от 01.01.1970
+   * @return число дат не позже границы
+   */
+  private static int countNotAfter(int[] epochDays, long epochDay) {
+
+    int low = 0;
+    int high = epochDays.length;
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+      if (epochDays[middle] <= epochDay) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+    return low;
+  }
+}
@@ -0,0 +1,91 @@
+package com.example.familybenefitstown.part_res_rest_api.benefits;
+
+import com.example.familybenefitstown.dto.jdbc.BenefitJdbcRepository;
+import com.example.familybenefitstown.dto.jdbc.UserJdbcRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Пересчитывает сохраненные положенные пособия отдельных пользователей по правилам их городов, прочитанным
+ * в текущей транзакции и подготовленным на текущую дату. Вызывается внутри транзакции, изменившей пользователей, чтобы пособия фиксировались вместе с ними
+ */
+@Component
+public class UserBenefitRefresher {
+
+  /**
+   * Репозиторий операций с таблицей "user", выполняющий запросы сразу
+   */
+  private final UserJdbcRepository userJdbcRepository;
+
+  /**
+   * Репозиторий задач переоценки и положенных пособий пользователей
+   */
+  private final BenefitJdbcRepository benefitJdbcRepository;
+
+  /**
+   * Определитель положенных пособий по подготовленным правилам городов
+   */
+  private final BenefitEvaluator benefitEvaluator;
+
+  /**
+   * Конструктор для инициализации репозиториев и определителя пособий
+   * @param userJdbcRepository репозиторий операций с таблицей "user", выполняющий запросы сразу
+   * @param benefitJdbcRepository репозиторий задач переоценки и положенных пособий пользователей
+   * @param benefitEvaluator определитель положенных пособий по подготовленным правилам городов
+   */
+  @Autowired
+  public UserBenefitRefresher(UserJdbcRepository userJdbcRepository,
+                              BenefitJdbcRepository benefitJdbcRepository,
+                              BenefitEvaluator benefitEvaluator) {
+    this.userJdbcRepository = userJdbcRepository;
+    this.benefitJdbcRepository = benefitJdbcRepository;
+    this.benefitEvaluator = benefitEvaluator;
+  }
+
+  /**
+   * Пересчитывает положенные пособия пользователя по его городу и датам рождений детей, сохраненным в текущей транзакции
+   * @param idUser ID пользователя
+   */
+  public void refresh(String idUser) {
+    userJdbcRepository.findBenefitSubject(idUser).ifPresent(benefitSubject -> refresh(List.of(benefitSubject)));
+  }
+
+  /**
+   * Пересчитывает положенные пособия пользователей одним набором запросов.
+   * Пособия пользователей без города удаляются
+   * @param benefitSubjectList данные пользователей для определения пособий
+   */
+  public void refresh(List<BenefitSubject> benefitSubjectList) {
+
+    if (benefitSubjectList.isEmpty()) {
+      return;
+    }
+
+    List<String> idUserList = new ArrayList<>(benefitSubjectList.size());
+    List<String> idUserBenefitList = new ArrayList<>();
+    List<String> idBenefitRuleList = new ArrayList<>();
+    // Правила читаются в текущей транзакции по одному разу на город, а не из подготовленных правил,
+    // которые могут быть прочитаны до фиксации изменения правил
+    Map<String, CompiledBenefitRule[]> cityRulesMap = new HashMap<>();
+    for (BenefitSubject benefitSubject : benefitSubjectList) {
+      idUserList.add(benefitSubject.getIdUser());
+      if (benefitSubject.getIdCity() == null) {
+        continue;
+      }
+      CompiledBenefitRule[] compiledRules = cityRulesMap.computeIfAbsent(benefitSubject.getIdCity(), benefitEvaluator::readRules);
+      for (CompiledBenefitRule compiledRule : compiledRules) {
+        if (compiledRule.test(benefitSubject.getChildrenEpochDays())) {
+          idUserBenefitList.add(benefitSubject.getIdUser());
+          idBenefitRuleList.add(compiledRule.getId());
+        }
+      }
+    }
+
+    benefitJdbcRepository.saveBenefits(idUserList, idUserBenefitList, idBenefitRuleList);
+  }
+}
@@ -0,0 +1,99 @@
+package com.example.familybenefitstown.part_res_rest_api.bulk;
+
+import org.springframework.http.MediaType;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Формат потока записей для массовой загрузки и выгрузки
+ */
+public enum BulkFormat {
+
+  /**
+   * CSV с обязательной строкой заголовка, разделитель - запятая
+   */
+  CSV(BulkFormat.TEXT_CSV_VALUE),
+
+  /**
+   * Один JSON объект на строку
+   */
+  NDJSON(BulkFormat.APPLICATION_NDJSON_VALUE);
+
+  /**
+   * Тип содержимого CSV
+   */
+  public static final String TEXT_CSV_VALUE = "text/csv";
+
+  /**
+   * Тип содержимого NDJSON
+   */
+  public static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+  /**
+   * Тип содержимого формата
+   */
+  private final String mediaType;
+
+  BulkFormat(String mediaType) {
+    this.mediaType = mediaType;
+  }
+
+  /**
+   * Возвращает тип содержимого формата
+   * @return тип содержимого
+   */
+  public String getMediaType() {
+    return mediaType;
+  }
+
+  /**
+   * Определяет формат по значению заголовка "Content-Type"
+   * @param contentType значение заголовка "Content-Type"
+   * @return формат потока или {@code empty}, если тип содержимого не поддерживается
+   */
+  public static Optional<BulkFormat> fromContentType(String contentType) {
+
+    if (contentType == null) {
+      return Optional.empty();
+    }
+
+    MediaType mediaType = MediaType.parseMediaType(contentType);
+    for (BulkFormat bulkFormat : values()) {
+      if (MediaType.parseMediaType(bulkFormat.mediaType).includes(mediaType)) {
+        return Optional.of(bulkFormat);
+      }
+    }
+
+    return Optional.empty();
+  }
+
+  /**
+   * Определяет формат по значению заголовка "Accept" с учетом приоритета типов.
+   * Если заголовок отсутствует, возвращается {@code defaultFormat}
+   * @param accept значение заголовка "Accept"
+   * @param defaultFormat формат по умолчанию
+   * @return формат потока или {@code empty}, если ни один из принимаемых типов не поддерживается
+   */
+  public static Optional<BulkFormat> fromAccept(String accept, BulkFormat defaultFormat) {
+
+    if (accept == null || accept.isBlank()) {
+      return Optional.of(defaultFormat);
+    }
+
+    List<MediaType> mediaTypeList = MediaType.parseMediaTypes(accept);
+    MediaType.sortBySpecificityAndQuality(mediaTypeList);
+    for (MediaType mediaType : mediaTypeList) {
+      if (mediaType.includes(MediaType.parseMediaType(defaultFormat.mediaType))) {
+        return Optional.of(defaultFormat);
+      }
+      for (BulkFormat bulkFormat : values()) {
+        if (mediaType.includes(MediaType.parseMediaType(bulkFormat.mediaType))) {
+          return Optional.of(bulkFormat);
+        }
+      }
+    }
+
+    return Optional.empty();
+  }
+}
@@ -0,0 +1,305 @@
+package com.example.familybenefitstown.part_res_rest_api.bulk;
+
+import com.example.familybenefitstown.exceptions.InvalidStringException;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * Последовательно читает записи из потока формата CSV или NDJSON, не загружая поток в память целиком.
+ * Некорректная запись не прерывает чтение: выбрасывается исключение, а следующий вызов {@code read} продолжает со следующей записи
+ * @param <T> тип объекта записи
+ */
+public class BulkRecordReader<T> implements Closeable {
+
+  /**
+   * Максимальная длина одной записи в символах
+   */
+  private static final int MAX_RECORD_LENGTH = 1 << 20;
+
+  /**
+   * Поток символов
+   */
+  private final BufferedReader reader;
+
+  /**
+   * Формат потока
+   */
+  private final BulkFormat bulkFormat;
+
+  /**
+   * Объект для чтения записей NDJSON
+   */
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Тип объекта записи, для NDJSON
+   */
+  private final Class<T> recordType;
+
+  /**
+   * Функция преобразования записи CSV, ключи - названия столбцов из заголовка
+   */
+  private final Function<Map<String, String>, T> csvMapper;
+
+  /**
+   * Названия столбцов CSV
+   */
+  private String[] csvHeader;
+
+  /**
+   * Номер последней прочитанной записи, начиная с 1. Заголовок CSV не учитывается
+   */
+  private long numberRecord;
+
+  /**
+   * Конструктор для инициализации читателя
+   * @param inputStream поток записей в кодировке UTF-8
+   * @param bulkFormat формат потока
+   * @param objectMapper объект для чтения записей NDJSON
+   * @param recordType тип объекта записи, для NDJSON
+   * @param csvMapper функция преобразования записи CSV, ключи - названия столбцов из заголовка
+   */
+  public BulkRecordReader(InputStream inputStream,
+                          BulkFormat bulkFormat,
+                          ObjectMapper objectMapper,
+                          Class<T> recordType,
+                          Function<Map<String, String>, T> csvMapper) {
+    this.reader = new BufferedReader(new InputStreamReader(inputStream, StandardCharsets.UTF_8));
+    this.bulkFormat = bulkFormat;
+    this.objectMapper = objectMapper;
+    this.recordType = recordType;
+    this.csvMapper = csvMapper;
+  }
+
+  /**
+   * Читает следующую запись
+   * @return объект записи или {@code null}, если поток закончился
+   * @throws IOException если не удалось прочитать поток
+   * @throws InvalidStringException если запись некорректна. Запись пропускается
+   */
+  public T read() throws IOException, InvalidStringException {
+
+    if (bulkFormat == BulkFormat.NDJSON) {
+      return readJson();
+    }
+    return readCsv();
+  }
+
+  /**
+   * Возвращает номер последней прочитанной записи, начиная с 1
+   * @return номер записи
+   */
+  public long getNumberRecord() {
+    return numberRecord;
+  }
+
+  @Override
+  public void close() throws IOException {
+    reader.close();
+  }
+
+  /**
+   * Читает следующую непустую строку NDJSON как объект записи
+   * @return объект записи или {@code null}, если поток закончился
+   * @throws IOException если не удалось прочитать поток
+   * @throws InvalidStringException если строка не является JSON объектом записи
+   */
+  private T readJson() throws IOException, InvalidStringException {
+
+    String line;
+    do {
+      line = readJsonLine();
+      if (line == null) {
+        return null;
+      }
+    } while (line.isBlank());
+
+    numberRecord++;
+    if (line.length() > MAX_RECORD_LENGTH) {
+      throw new InvalidStringException(String.format(
+          "Record %s exceeds %s symbols", numberRecord, MAX_RECORD_LENGTH));
+    }
+
+    try {
+      return objectMapper.readValue(line, recordType);
+    } catch (JsonProcessingException e) {
+      throw new InvalidStringException(String.format(
+          "Record %s is not a valid JSON object: %s", numberRecord, e.getOriginalMessage()));
+    }
+  }
+
+  /**
+   * Читает строку NDJSON не длиннее {@link #MAX_RECORD_LENGTH} символов. Остаток более длинной строки пропускается,
+   * поэтому память не зависит от длины строки
+   * @return строка без символов конца строки, строка из {@code MAX_RECORD_LENGTH + 1} символов, если строка длиннее,
+   *         или {@code null}, если поток закончился
+   * @throws IOException если не удалось прочитать поток
+   */
+  private String readJsonLine() throws IOException {
+
+    int symbol = reader.read();
+    if (symbol == -1) {
+      return null;
+    }
+
+    StringBuilder line = new StringBuilder();
+    while (symbol != -1 && symbol != '\n') {
+      if (line.length() <= MAX_RECORD_LENGTH) {
+        line.append((char) symbol);
+      }
+      symbol = reader.read();
+    }
+
+    int length = line.length();
+    if (length > 0 && length <= MAX_RECORD_LENGTH && line.charAt(length - 1) == '\r') {
+      line.setLength(length - 1);
+    }
+    return line.toString();
+  }
+
+  /**
+   * Читает следующую запись CSV. При первом вызове читается строка заголовка
+   * @return объект записи или {@code null}, если поток закончился
+   * @throws IOException если не удалось прочитать поток
+   * @throws InvalidStringException если запись не соответствует формату CSV или заголовку
+   */
+  private T readCsv() throws IOException, InvalidStringException {
+
+    if (csvHeader == null) {
+      List<String> header = readCsvFields();
+      if (header == null) {
+        return null;
+      }
+      csvHeader = header.toArray(new String[0]);
+    }
+
+    List<String> fields;
+    do {
+      fields = readCsvFields();
+      if (fields == null) {
+        return null;
+      }
+    } while (fields.size() == 1 && fields.get(0) == null);
+
+    numberRecord++;
+    if (fields.size() != csvHeader.length) {
+      throw new InvalidStringException(String.format(
+          "Record %s has %s fields, header has %s", numberRecord, fields.size(), csvHeader.length));
+    }
+
+    Map<String, String> row = new HashMap<>(csvHeader.length * 2);
+    for (int i = 0; i < csvHeader.length; i++) {
+      row.put(csvHeader[i], fields.get(i));
+    }
+
+    return csvMapper.apply(row);
+  }
+
+  /**
+   * Читает поля одной записи CSV по RFC 4180. Пустое поле без кавычек возвращается как {@code null}
+   * @return список полей записи или {@code null}, если поток закончился
+   * @throws IOException если не удалось прочитать поток
+   * @throws InvalidStringException если кавычки в записи не закрыты или запись слишком длинная
+   */
+  private List<String> readCsvFields() throws IOException, InvalidStringException {
+
+    int symbol = reader.read();
+    if (symbol == -1) {
+      return null;
+    }
+
+    List<String> fields = new ArrayList<>();
+    StringBuilder field = new StringBuilder();
+    boolean isQuoted = false;
+    boolean wasQuoted = false;
+    int countSymbols = 0;
+
+    while (true) {
+      if (++countSymbols > MAX_RECORD_LENGTH) {
+        skipCsvRecord(symbol, isQuoted);
+        throw new InvalidStringException(String.format(
+            "%s exceeds %s symbols", nameFailedCsvRecord(), MAX_RECORD_LENGTH));
+      }
+
+      if (isQuoted) {
+        if (symbol == -1) {
+          throw new InvalidStringException(String.format(
+              "%s has unclosed quotes", nameFailedCsvRecord()));
+        }
+        if (symbol == '"') {
+          reader.mark(1);
+          if (reader.read() == '"') {
+            field.append('"');
+          } else {
+            reader.reset();
+            isQuoted = false;
+          }
+        } else {
+          field.append((char) symbol);
+        }
+
+      } else if (symbol == ',' || symbol == '\n' || symbol == '\r' || symbol == -1) {
+        fields.add(field.length() == 0 && !wasQuoted ? null : field.toString());
+        field.setLength(0);
+        wasQuoted = false;
+
+        if (symbol != ',') {
+          if (symbol == '\r') {
+            reader.mark(1);
+            if (reader.read() != '\n') {
+              reader.reset();
+            }
+          }
+          return fields;
+        }
+
+      } else if (symbol == '"' && field.length() == 0 && !wasQuoted) {
+        isQuoted = true;
+        wasQuoted = true;
+
+      } else {
+        field.append((char) symbol);
+      }
+
+      symbol = reader.read();
+    }
+  }
+
+  /**
+   * Учитывает некорректную запись CSV в номере записей, чтобы ошибка была отнесена к ней, а не к предыдущей записи.
+   * Некорректный заголовок не учитывается
+   * @return название некорректной записи для описания ошибки
+   */
+  private String nameFailedCsvRecord() {
+
+    if (csvHeader == null) {
+      return "Header";
+    }
+    numberRecord++;
+    return "Record " + numberRecord;
+  }
+
+  /**
+   * Пропускает остаток слишком длинной записи CSV
+   * @param symbol текущий символ
+   * @param isQuoted true, если текущий символ внутри кавычек
+   * @throws IOException если не удалось прочитать поток
+   */
+  private void skipCsvRecord(int symbol, boolean isQuoted) throws IOException {
+
+    while (symbol != -1 && (isQuoted || (symbol != '\n' && symbol != '\r'))) {
+      if (symbol == '"') {
+        isQuoted = !isQuoted;
+      }
+      symbol = reader.read();
+    }
+  }
+}
@@ -0,0 +1,134 @@
+package com.example.familybenefitstown.part_res_rest_api.bulk;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Последовательно записывает записи в поток формата CSV или NDJSON, не накапливая их в памяти.
+ * Данные передаются в поток по мере заполнения буфера
+ * @param <T> тип объекта записи
+ */
+public class BulkRecordWriter<T> implements Closeable {
+
+  /**
+   * Размер буфера символов
+   */
+  private static final int BUFFER_SIZE = 1 << 16;
+
+  /**
+   * Поток символов
+   */
+  private final Writer writer;
+
+  /**
+   * Формат потока
+   */
+  private final BulkFormat bulkFormat;
+
+  /**
+   * Объект для записи записей NDJSON
+   */
+  private final ObjectWriter objectWriter;
+
+  /**
+   * Названия столбцов CSV
+   */
+  private final List<String> csvHeader;
+
+  /**
+   * Функция преобразования объекта в поля записи CSV в порядке столбцов заголовка
+   */
+  private final Function<T, List<String>> csvMapper;
+
+  /**
+   * Число записанных записей
+   */
+  private long countRecords;
+
+  /**
+   * Конструктор для инициализации писателя
+   * @param outputStream поток записей, записывается в кодировке UTF-8
+   * @param bulkFormat формат потока
+   * @param objectMapper объект для записи записей NDJSON
+   * @param csvHeader названия столбцов CSV
+   * @param csvMapper функция преобразования объекта в поля записи CSV в порядке столбцов заголовка
+   */
+  public BulkRecordWriter(OutputStream outputStream,
+                          BulkFormat bulkFormat,
+                          ObjectMapper objectMapper,
+                          List<String> csvHeader,
+                          Function<T, List<String>> csvMapper) {
+    this.writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8), BUFFER_SIZE);
+    this.bulkFormat = bulkFormat;
+    this.objectWriter = objectMapper.writer().without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+    this.csvHeader = csvHeader;
+    this.csvMapper = csvMapper;
+  }
+
+  /**
+   * Записывает запись. Перед первой записью CSV записывается строка заголовка
+   * @param record объект записи
+   * @throws IOException если не удалось записать в поток
+   */
+  public void write(T record) throws IOException {
+
+    if (bulkFormat == BulkFormat.NDJSON) {
+      objectWriter.writeValue(writer, record);
+      writer.write('\n');
+    } else {
+      if (countRecords == 0) {
+        writeCsvFields(csvHeader);
+      }
+      writeCsvFields(csvMapper.apply(record));
+    }
+    countRecords++;
+  }
+
+  /**
+   * Возвращает число записанных записей
+   * @return число записей
+   */
+  public long getCountRecords() {
+    return countRecords;
+  }
+
+  /**
+   * Передает в поток оставшиеся данные. Для CSV без записей записывается только строка заголовка
+   * @throws IOException если не удалось записать в поток
+   */
+  @Override
+  public void close() throws IOException {
+
+    if (bulkFormat == BulkFormat.CSV && countRecords == 0) {
+      writeCsvFields(csvHeader);
+    }
+    writer.close();
+  }
+
+  /**
+   * Записывает поля одной записи CSV по RFC 4180. Значение {@code null} записывается как пустое поле
+   * @param fields список полей записи
+   * @throws IOException если не удалось записать в поток
+   */
+  private void writeCsvFields(List<String> fields) throws IOException {
+
+    for (int i = 0; i < fields.size(); i++) {
+      if (i > 0) {
+        writer.write(',');
+      }
+      String field = fields.get(i);
+      if (field != null) {
+        writer.write('"');
+        writer.write(field.replace("\"", "\"\""));
+        writer.write('"');
+      }
+    }
+    writer.write("\r\n");
+  }
+}
@@ -0,0 +1,70 @@
+package com.example.familybenefitstown.part_res_rest_api.bulk;
+
+import com.example.familybenefitstown.part_res_rest_api.api_models.common.ImportReport;
+import com.example.familybenefitstown.part_res_rest_api.api_models.common.ImportRowError;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Накапливает ошибки массовой загрузки. Сохраняется ограниченное число ошибок, остальные только подсчитываются,
+ * поэтому память не зависит от размера загружаемого потока
+ */
+public class ImportErrorCollector {
+
+  /**
+   * Максимальное число ошибок в отчете
+   */
+  public static final int MAX_ERRORS = 1000;
+
+  /**
+   * Сохраненные ошибки
+   */
+  private final List<ImportRowError> errorList = new ArrayList<>();
+
+  /**
+   * Общее число ошибок
+   */
+  private long countErrors;
+
+  /**
+   * Добавляет ошибку записи
+   * @param numberRow номер записи, начиная с 1
+   * @param message описание ошибки
+   */
+  public synchronized void add(long numberRow, String message) {
+
+    countErrors++;
+    if (errorList.size() < MAX_ERRORS) {
+      errorList.add(new ImportRowError(numberRow, message));
+    }
+  }
+
+  /**
+   * Возвращает общее число ошибок
+   * @return число ошибок
+   */
+  public synchronized long getCountErrors() {
+    return countErrors;
+  }
+
+  /**
+   * Формирует отчет о загрузке
+   * @param countRecord число прочитанных записей
+   * @param countImported число сохраненных объектов
+   * @return отчет о загрузке
+   */
+  public synchronized ImportReport toReport(long countRecord, long countImported) {
+
+    errorList.sort((error1, error2) -> Long.compare(error1.getNumberRow(), error2.getNumberRow()));
+
+    return ImportReport
+        .builder()
+        .countRecord(countRecord)
+        .countImported(countImported)
+        .countRejected(countErrors)
+        .errorList(new ArrayList<>(errorList))
+        .isErrorListTruncated(countErrors > errorList.size())
+        .build();
+  }
+}
@@ -0,0 +1,145 @@
+package com.example.familybenefitstown.part_res_rest_api.cache;
+
+import com.example.familybenefitstown.dto.entities.ChildBirthEntity;
+import com.example.familybenefitstown.dto.repositories.ChildBirthRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Словарь ID рождений детей по дате рождения. Таблица "child_birth" содержит одну запись на дату
+ * и не изменяется приложением, кроме добавления записей, поэтому сохраненные ID не устаревают.
+ * Даты из диапазона {@link #FIRST_DATE} - {@link #LAST_DATE} хранятся в массиве с индексом по номеру дня,
+ * остальные - в отдельном словаре. Используется при изменении связи "users_children" в режиме хранения
+ * {@link com.example.familybenefitstown.part_res_rest_api.services.implementations.UserServiceFB.ChildrenStorage#TABLES}
+ */
+@Slf4j
+@Component
+public class ChildBirthIdCache {
+
+  /**
+   * Первая дата, хранимая в массиве
+   */
+  private static final LocalDate FIRST_DATE = LocalDate.of(1900, 1, 1);
+
+  /**
+   * Дата, следующая за последней датой, хранимой в массиве
+   */
+  private static final LocalDate LAST_DATE = LocalDate.of(2100, 1, 1);
+
+  /**
+   * Номер дня первой даты, хранимой в массиве
+   */
+  private static final long FIRST_EPOCH_DAY = FIRST_DATE.toEpochDay();
+
+  /**
+   * Репозиторий, работающий с моделью таблицы "child_birth"
+   */
+  private final ChildBirthRepository childBirthRepository;
+
+  /**
+   * ID рождений детей, индекс - номер дня даты рождения относительно {@link #FIRST_DATE}
+   */
+  private final AtomicReferenceArray<String> idArray =
+      new AtomicReferenceArray<>((int) (LAST_DATE.toEpochDay() - FIRST_EPOCH_DAY));
+
+  /**
+   * ID рождений детей с датами вне диапазона массива, ключ - номер дня даты рождения
+   */
+  private final Map<Long, String> idOutOfRangeMap = new ConcurrentHashMap<>();
+
+  /**
+   * Конструктор для инициализации интерфейса репозитория
+   * @param childBirthRepository репозиторий, работающий с моделью таблицы "child_birth"
+   */
+  @Autowired
+  public ChildBirthIdCache(ChildBirthRepository childBirthRepository) {
+    this.childBirthRepository = childBirthRepository;
+  }
+
+  /**
+   * Загружает все рождения детей после запуска приложения
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void warmUp() {
+
+    List<ChildBirthEntity> childBirthEntityList = childBirthRepository.findAll();
+    putAll(childBirthEntityList);
+    log.info("Cache. Child birth dictionary loaded: {} dates.", childBirthEntityList.size());
+  }
+
+  /**
+   * Возвращает ID рождения ребенка по дате рождения
+   * @param dateBirth дата рождения
+   * @return ID рождения ребенка или {@code null}, если дата отсутствует в словаре
+   */
+  public String get(LocalDate dateBirth) {
+
+    long epochDay = dateBirth.toEpochDay();
+    int index = toIndex(epochDay);
+
+    return index < 0 ? idOutOfRangeMap.get(epochDay) : idArray.get(index);
+  }
+
+  /**
+   * Добавляет в словарь рождения детей, сохраненные в бд
+   * @param childBirthEntityCollection коллекция моделей рождений детей
+   */
+  public void putAll(Collection<ChildBirthEntity> childBirthEntityCollection) {
+
+    for (ChildBirthEntity childBirthEntity : childBirthEntityCollection) {
+      long epochDay = childBirthEntity.getDateBirth().toEpochDay();
+      int index = toIndex(epochDay);
+
+      if (index < 0) {
+        idOutOfRangeMap.put(epochDay, childBirthEntity.getId());
+      } else {
+        idArray.set(index, childBirthEntity.getId());
+      }
+    }
+  }
+
+  /**
+   * Добавляет в словарь рождения детей, созданные в текущей транзакции, после её фиксации.
+   * Если транзакции нет, рождения детей добавляются сразу
+   * @param childBirthEntityCollection коллекция моделей созданных рождений детей
+   */
+  public void putAllAfterCommit(Collection<ChildBirthEntity> childBirthEntityCollection) {
+
+    if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+      putAll(childBirthEntityCollection);
+      return;
+    }
+
+    List<ChildBirthEntity> childBirthEntityList = new ArrayList<>(childBirthEntityCollection);
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCommit() {
+        putAll(childBirthEntityList);
+      }
+    });
+  }
+
+  /**
+   * Возвращает индекс массива по номеру дня
+   * @param epochDay номер дня даты рождения
+   * @return индекс массива или -1, если дата вне диапазона массива
+   */
+  private int toIndex(long epochDay) {
+
+    long index = epochDay - FIRST_EPOCH_DAY;
+    return index < 0 || index >= idArray.length() ? -1 : (int) index;
+  }
+}
@@ -0,0 +1,96 @@
+package com.example.familybenefitstown.part_res_rest_api.cache;
+
+import com.example.familybenefitstown.part_res_rest_api.api_models.city.CityStatsInfo;
+import com.example.familybenefitstown.part_res_rest_api.events.CityChangeType;
+import com.example.familybenefitstown.part_res_rest_api.events.CityChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.time.Duration;
+
+/**
+ * Хранит статистику семей и детей по ID города.
+ * Записи не удаляются при изменении пользователей: статистика отстает от счетчиков бд не больше времени жизни записи,
+ * поэтому частые запросы статистики не нагружают бд
+ */
+@Component
+public class CityStatsCache {
+
+  /**
+   * Название кэша в метриках
+   */
+  private static final String NAME_CACHE = "cityStats";
+
+  /**
+   * Максимальное число хранимых записей
+   */
+  private static final long MAX_SIZE = 1_000L;
+
+  /**
+   * Время жизни записи после её создания
+   */
+  private static final Duration EXPIRE_AFTER_WRITE = Duration.ofMinutes(1);
+
+  /**
+   * Статистика городов, ключ - ID города
+   */
+  private final Cache<String, CityStatsInfo> cityStatsCache = Caffeine
+      .newBuilder()
+      .maximumSize(MAX_SIZE)
+      .expireAfterWrite(EXPIRE_AFTER_WRITE)
+      .recordStats()
+      .build();
+
+  /**
+   * Конструктор для регистрации метрик попаданий и промахов кэша
+   * @param meterRegistry реестр метрик
+   */
+  @Autowired
+  public CityStatsCache(MeterRegistry meterRegistry) {
+    CaffeineCacheMetrics.monitor(meterRegistry, cityStatsCache, NAME_CACHE);
+  }
+
+  /**
+   * Возвращает статистику города по его ID
+   * @param idCity ID города
+   * @return статистика города или {@code null}, если статистика отсутствует в кэше
+   */
+  public CityStatsInfo get(String idCity) {
+    return cityStatsCache.getIfPresent(idCity);
+  }
+
+  /**
+   * Сохраняет статистику города
+   * @param idCity ID города
+   * @param cityStatsInfo статистика города
+   */
+  public void put(String idCity, CityStatsInfo cityStatsInfo) {
+    cityStatsCache.put(idCity, cityStatsInfo);
+  }
+
+  /**
+   * Удаляет всю статистику городов
+   */
+  public void invalidateAll() {
+    cityStatsCache.invalidateAll();
+  }
+
+  /**
+   * Удаляет статистику города после фиксации его удаления и всю статистику после перезагрузки городов
+   * @param cityChangedEvent событие изменения города
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCityChanged(CityChangedEvent cityChangedEvent) {
+
+    if (cityChangedEvent.getType() == CityChangeType.DELETED) {
+      cityStatsCache.invalidate(cityChangedEvent.getIdCity());
+    } else if (cityChangedEvent.getType() == CityChangeType.RELOADED) {
+      cityStatsCache.invalidateAll();
+    }
+  }
+}
@@ -0,0 +1,84 @@
+package com.example.familybenefitstown.part_res_rest_api.cache;
+
+import com.example.familybenefitstown.part_res_rest_api.events.CityChangedEvent;
+import com.example.familybenefitstown.part_res_rest_api.services.interfaces.UserService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.UncheckedIOException;
+
+/**
+ * Хранит подготовленное тело ответа с дополнительными данными для пользователя.
+ * Тело формируется при первом запросе и сбрасывается при изменении множества городов
+ */
+@Slf4j
+@Component
+public class InitDataCache {
+
+  /**
+   * Интерфейс сервиса, управляющего объектом "пользователь"
+   */
+  private final UserService userService;
+
+  /**
+   * Объект для сериализации JSON
+   */
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Подготовленное тело ответа или {@code null}, если тело необходимо сформировать
+   */
+  private volatile PrecompressedBody initDataBody;
+
+  /**
+   * Конструктор для инициализации интерфейса сервиса
+   * @param userService интерфейс сервиса, управляющего объектом "пользователь"
+   * @param objectMapper объект для сериализации JSON
+   */
+  @Autowired
+  public InitDataCache(UserService userService, ObjectMapper objectMapper) {
+    this.userService = userService;
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Возвращает подготовленное тело ответа, формируя его, если оно отсутствует
+   * @return тело ответа с дополнительными данными для пользователя
+   */
+  public PrecompressedBody getInitDataBody() {
+
+    PrecompressedBody body = initDataBody;
+    if (body != null) {
+      return body;
+    }
+
+    // Формирование под блокировкой, чтобы одновременные запросы не формировали тело повторно,
+    // а сброс не мог быть перезаписан телом, сформированным до него
+    synchronized (this) {
+      if (initDataBody == null) {
+        try {
+          initDataBody = new PrecompressedBody(
+              MediaType.APPLICATION_JSON_VALUE, objectMapper.writeValueAsBytes(userService.getInitData()));
+        } catch (JsonProcessingException e) {
+          throw new UncheckedIOException(e);
+        }
+        log.info("Cache. Init data body built.");
+      }
+      return initDataBody;
+    }
+  }
+
+  /**
+   * Сбрасывает подготовленное тело ответа после фиксации изменения города
+   * @param cityChangedEvent событие изменения города
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public synchronized void onCityChanged(CityChangedEvent cityChangedEvent) {
+    initDataBody = null;
+  }
+}
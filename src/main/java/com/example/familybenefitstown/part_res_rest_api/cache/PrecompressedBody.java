@@ -0,0 +1,63 @@
+package com.example.familybenefitstown.part_res_rest_api.cache;
+
+import com.example.familybenefitstown.part_res_rest_api.converters.GzipConverter;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.util.zip.Deflater;
+
+/**
+ * Неизменяемое тело ответа, подготовленное заранее в исходном и сжатом gzip виде.
+ * Записывается в ответ без сериализации и сжатия при каждом запросе
+ */
+public final class PrecompressedBody {
+
+  /**
+   * Тип содержимого тела
+   */
+  private final String contentType;
+
+  /**
+   * Исходное тело
+   */
+  private final byte[] identityBytes;
+
+  /**
+   * Тело, сжатое gzip
+   */
+  private final byte[] gzipBytes;
+
+  /**
+   * Конструктор, сжимает исходное тело с максимальной степенью сжатия, так как сжатие выполняется однократно
+   * @param contentType тип содержимого тела
+   * @param identityBytes исходное тело. Массив не должен изменяться после передачи
+   */
+  public PrecompressedBody(String contentType, byte[] identityBytes) {
+    this.contentType = contentType;
+    this.identityBytes = identityBytes;
+    this.gzipBytes = GzipConverter.compress(identityBytes, Deflater.BEST_COMPRESSION);
+  }
+
+  /**
+   * Записывает тело в http ответ со статусом 200. Сжатое тело выбирается, если клиент принимает gzip
+   * @param acceptEncoding значение заголовка "Accept-Encoding" запроса, может быть {@code null}
+   * @param response http ответ
+   * @throws IOException если не удалось записать ответ
+   */
+  public void write(String acceptEncoding, HttpServletResponse response) throws IOException {
+
+    boolean isGzip = GzipConverter.acceptsGzip(acceptEncoding);
+    byte[] body = isGzip ? gzipBytes : identityBytes;
+
+    response.setStatus(HttpStatus.OK.value());
+    response.setContentType(contentType);
+    response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+    if (isGzip) {
+      response.setHeader(HttpHeaders.CONTENT_ENCODING, GzipConverter.ENCODING_GZIP);
+    }
+    response.setContentLength(body.length);
+    response.getOutputStream().write(body);
+  }
+}
@@ -0,0 +1,253 @@
+package com.example.familybenefitstown.part_res_rest_api.cache;
+
+import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AdminInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.user.UserInfo;
+import com.example.familybenefitstown.part_res_rest_api.events.CityChangeType;
+import com.example.familybenefitstown.part_res_rest_api.events.CityChangedEvent;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.Ticker;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Хранит собранную информацию о пользователях и администраторах по ID пользователя вместе с тегом версии,
+ * на которой информация была прочитана. Запись возвращается только для того же тега версии, поэтому чтение,
+ * сохранившее информацию после удаления записи изменившей её транзакцией, не отдает её под тегом новой версии.
+ * Число записей и время их жизни ограничены, вытеснение по частоте обращений.
+ * Записи удаляются при изменении пользователя, его ролей или городов.
+ * Информация изменяема, поэтому кэш хранит и возвращает копии, чтобы изменение полученного объекта не меняло запись
+ */
+@Component
+public class UserInfoCache {
+
+  /**
+   * Название кэша информации о пользователях в метриках
+   */
+  private static final String NAME_CACHE = "userInfo";
+
+  /**
+   * Название кэша информации об администраторах в метриках
+   */
+  private static final String NAME_ADMIN_CACHE = "adminInfo";
+
+  /**
+   * Максимальное число хранимых записей
+   */
+  private static final long MAX_SIZE = 10_000L;
+
+  /**
+   * Время жизни записи после её создания
+   */
+  private static final Duration EXPIRE_AFTER_WRITE = Duration.ofMinutes(10);
+
+  /**
+   * Информация о пользователях, ключ - ID пользователя
+   */
+  private final Cache<String, Versioned<UserInfo>> userInfoCache;
+
+  /**
+   * Информация об администраторах, ключ - ID администратора
+   */
+  private final Cache<String, Versioned<AdminInfo>> adminInfoCache;
+
+  /**
+   * Конструктор для регистрации метрик попаданий и промахов кэша
+   * @param meterRegistry реестр метрик
+   */
+  @Autowired
+  public UserInfoCache(MeterRegistry meterRegistry) {
+    this(meterRegistry, Ticker.systemTicker());
+  }
+
+  /**
+   * Конструктор для создания кэша с указанным источником времени
+   * @param meterRegistry реестр метрик
+   * @param ticker источник времени для истечения записей
+   */
+  UserInfoCache(MeterRegistry meterRegistry, Ticker ticker) {
+
+    this.userInfoCache = Caffeine
+        .newBuilder()
+        .maximumSize(MAX_SIZE)
+        .expireAfterWrite(EXPIRE_AFTER_WRITE)
+        .ticker(ticker)
+        .recordStats()
+        .build();
+    this.adminInfoCache = Caffeine
+        .newBuilder()
+        .maximumSize(MAX_SIZE)
+        .expireAfterWrite(EXPIRE_AFTER_WRITE)
+        .ticker(ticker)
+        .recordStats()
+        .build();
+
+    CaffeineCacheMetrics.monitor(meterRegistry, userInfoCache, NAME_CACHE);
+    CaffeineCacheMetrics.monitor(meterRegistry, adminInfoCache, NAME_ADMIN_CACHE);
+  }
+
+  /**
+   * Возвращает копию информации о пользователе по его ID, если она прочитана на указанной версии
+   * @param idUser ID пользователя
+   * @param versionTag тег текущей версии пользователя
+   * @return информация о пользователе или {@code null}, если информация отсутствует в кэше или прочитана на другой версии
+   */
+  public UserInfo get(String idUser, String versionTag) {
+
+    Versioned<UserInfo> versioned = userInfoCache.getIfPresent(idUser);
+    return versioned != null && versioned.versionTag.equals(versionTag) ? copy(versioned.value) : null;
+  }
+
+  /**
+   * Сохраняет копию информации о пользователе
+   * @param idUser ID пользователя
+   * @param versionTag тег версии пользователя, прочитанный до чтения информации
+   * @param userInfo информация о пользователе
+   */
+  public void put(String idUser, String versionTag, UserInfo userInfo) {
+    userInfoCache.put(idUser, new Versioned<>(versionTag, copy(userInfo)));
+  }
+
+  /**
+   * Возвращает копию информации об администраторе по его ID, если она прочитана на указанной версии
+   * @param idAdmin ID администратора
+   * @param versionTag тег текущей версии администратора
+   * @return информация об администраторе или {@code null}, если информация отсутствует в кэше или прочитана на другой версии
+   */
+  public AdminInfo getAdmin(String idAdmin, String versionTag) {
+
+    Versioned<AdminInfo> versioned = adminInfoCache.getIfPresent(idAdmin);
+    return versioned != null && versioned.versionTag.equals(versionTag) ? copy(versioned.value) : null;
+  }
+
+  /**
+   * Сохраняет копию информации об администраторе
+   * @param idAdmin ID администратора
+   * @param versionTag тег версии администратора, прочитанный до чтения информации
+   * @param adminInfo информация об администраторе
+   */
+  public void putAdmin(String idAdmin, String versionTag, AdminInfo adminInfo) {
+    adminInfoCache.put(idAdmin, new Versioned<>(versionTag, copy(adminInfo)));
+  }
+
+  /**
+   * Удаляет информацию о пользователе и администраторе сразу и повторно после фиксации текущей транзакции.
+   * Устаревшая информация, сохраненная чтением после удаления, не возвращается для тега новой версии
+   * @param idUser ID пользователя
+   */
+  public void invalidateAfterCommit(String idUser) {
+
+    invalidate(idUser);
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+        @Override
+        public void afterCommit() {
+          invalidate(idUser);
+        }
+      });
+    }
+  }
+
+  /**
+   * Удаляет всю информацию о пользователях после фиксации изменения или удаления города,
+   * так как информация содержит название города. Информация об администраторах город не содержит
+   * @param cityChangedEvent событие изменения города
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCityChanged(CityChangedEvent cityChangedEvent) {
+
+    if (cityChangedEvent.getType() != CityChangeType.CREATED) {
+      userInfoCache.invalidateAll();
+    }
+  }
+
+  /**
+   * Удаляет информацию о пользователе и администраторе с указанным ID
+   * @param idUser ID пользователя
+   */
+  private void invalidate(String idUser) {
+    userInfoCache.invalidate(idUser);
+    adminInfoCache.invalidate(idUser);
+  }
+
+  /**
+   * Копирует информацию о пользователе вместе со списками
+   * @param userInfo информация о пользователе
+   * @return копия информации
+   */
+  private static UserInfo copy(UserInfo userInfo) {
+
+    return UserInfo
+        .builder()
+        .id(userInfo.getId())
+        .name(userInfo.getName())
+        .email(userInfo.getEmail())
+        .birthDateChildren(copy(userInfo.getBirthDateChildren()))
+        .dateBirth(userInfo.getDateBirth())
+        .nameRoleList(copy(userInfo.getNameRoleList()))
+        .nameCity(userInfo.getNameCity())
+        .build();
+  }
+
+  /**
+   * Копирует информацию об администраторе вместе со списком ролей
+   * @param adminInfo информация об администраторе
+   * @return копия информации
+   */
+  private static AdminInfo copy(AdminInfo adminInfo) {
+
+    return AdminInfo
+        .builder()
+        .id(adminInfo.getId())
+        .name(adminInfo.getName())
+        .email(adminInfo.getEmail())
+        .nameRoleList(copy(adminInfo.getNameRoleList()))
+        .build();
+  }
+
+  /**
+   * Копирует список строк
+   * @param list список или {@code null}
+   * @return копия списка или {@code null}, если список {@code null}
+   */
+  private static List<String> copy(List<String> list) {
+    return list != null ? new ArrayList<>(list) : null;
+  }
+
+  /**
+   * Информация с тегом версии, на которой она прочитана
+   * @param <T> тип информации
+   */
+  private static final class Versioned<T> {
+
+    /**
+     * Тег версии, на которой прочитана информация
+     */
+    private final String versionTag;
+
+    /**
+     * Информация
+     */
+    private final T value;
+
+    /**
+     * Конструктор для инициализации информации и тега её версии
+     * @param versionTag тег версии, на которой прочитана информация
+     * @param value информация
+     */
+    private Versioned(String versionTag, T value) {
+      this.versionTag = versionTag;
+      this.value = value;
+    }
+  }
+}
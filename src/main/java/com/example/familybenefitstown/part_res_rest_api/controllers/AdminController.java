@@ -1,17 +1,31 @@
 package com.example.familybenefitstown.part_res_rest_api.controllers;
 
 import com.example.familybenefitstown.exceptions.AlreadyExistsException;
+import com.example.familybenefitstown.exceptions.DateFormatException;
 import com.example.familybenefitstown.exceptions.InvalidEmailException;
+import com.example.familybenefitstown.exceptions.InvalidFilterException;
+import com.example.familybenefitstown.exceptions.InvalidRangeException;
 import com.example.familybenefitstown.exceptions.InvalidStringException;
 import com.example.familybenefitstown.exceptions.NotFoundException;
+import com.example.familybenefitstown.part_res_rest_api.api_models.admin.ActivityInfo;
 import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AdminInfo;
 import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AdminSave;
+import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AudienceCount;
+import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AudienceFilter;
+import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AuditEventInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.common.ObjectShortInfo;
+import com.example.familybenefitstown.part_res_rest_api.audience.AudienceQuery;
 import com.example.familybenefitstown.part_res_rest_api.services.interfaces.AdminService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import java.util.List;
 
 /**
  * Контроллер запросов, связанных с администратором
@@ -19,6 +33,26 @@ import org.springframework.web.bind.annotation.*;
 @RestController
 public class AdminController {
 
+  /**
+   * Размер страницы поиска пользователей по умолчанию
+   */
+  private static final int DEFAULT_SEARCH_LIMIT = 50;
+
+  /**
+   * Максимальный размер страницы поиска пользователей
+   */
+  private static final int MAX_SEARCH_LIMIT = 500;
+
+  /**
+   * Размер страницы событий аудита по умолчанию
+   */
+  private static final int DEFAULT_AUDIT_LIMIT = 100;
+
+  /**
+   * Максимальный размер страницы событий аудита
+   */
+  private static final int MAX_AUDIT_LIMIT = 1000;
+
   /**
    * Интерфейс сервиса, управляющего объектом "администратор"
    */
@@ -37,7 +71,9 @@ public class AdminController {
    * Обрабатывает GET запрос "/api/admins/{id}" на получение информации об администраторе.
    * Для выполнения запроса клиент должен быть аутентифицирован и иметь роль "ROLE_ADMIN".
    * Администратор может получить информацию только о своем профиле.
+   * Поддерживает условный запрос по заголовку "If-None-Match" с тегом версии администратора.
    * @param idAdmin ID администратора
+   * @param webRequest запрос, по заголовкам которого проверяется актуальность данных клиента
    * @return информация об администраторе, если запрос выполнен успешно, и код ответа
    * @throws NotFoundException если администратор с данным ID не найден
    */
@@ -45,10 +81,16 @@ public class AdminController {
       value = "/api/admins/{id}",
       produces = MediaType.APPLICATION_JSON_VALUE)
   @ResponseBody
-  public ResponseEntity<AdminInfo> read(@PathVariable(name = "id") String idAdmin) throws NotFoundException {
+  public ResponseEntity<AdminInfo> read(@PathVariable(name = "id") String idAdmin, WebRequest webRequest) throws NotFoundException {
+
+    // Проверка актуальности данных клиента по версии администратора, без загрузки администратора
+    String versionTag = adminService.getVersionTag(idAdmin);
+    if (webRequest.checkNotModified(versionTag)) {
+      return null;
+    }
 
-    AdminInfo adminInfo = adminService.read(idAdmin);
-    return ResponseEntity.status(HttpStatus.OK).body(adminInfo);
+    AdminInfo adminInfo = adminService.read(idAdmin, versionTag);
+    return ResponseEntity.status(HttpStatus.OK).eTag(versionTag).cacheControl(CacheControl.noCache().cachePrivate()).body(adminInfo);
   }
 
   /**
@@ -72,4 +114,134 @@ public class AdminController {
     adminService.update(idAdmin, adminSave);
     return ResponseEntity.status(HttpStatus.CREATED).build();
   }
+
+  /**
+   * Обрабатывает GET запрос "/api/admins/users" на поиск пользователей и администраторов.
+   * Результат упорядочен по ID, следующая страница запрашивается с ID последнего полученного пользователя.
+   * Для выполнения запроса клиент должен быть аутентифицирован и иметь роль "ROLE_ADMIN"
+   * @param substring подстрока имени или email без учета регистра
+   * @param nameRole название роли
+   * @param idCity ID города
+   * @param idAfter ID последнего пользователя предыдущей страницы
+   * @param limit размер страницы, не более {@link #MAX_SEARCH_LIMIT}
+   * @return список кратких информаций о пользователях, если запрос выполнен успешно, и код ответа
+   */
+  @GetMapping(
+      value = "/api/admins/users",
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  @ResponseBody
+  public ResponseEntity<List<ObjectShortInfo>> searchUsers(@RequestParam(name = "q", required = false) String substring,
+                                                           @RequestParam(name = "role", required = false) String nameRole,
+                                                           @RequestParam(name = "city", required = false) String idCity,
+                                                           @RequestParam(name = "after", required = false) String idAfter,
+                                                           @RequestParam(name = "limit", required = false) Integer limit) {
+
+    if (limit != null && (limit < 1 || limit > MAX_SEARCH_LIMIT)) {
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+    }
+
+    return ResponseEntity.status(HttpStatus.OK).body(adminService.searchUsers(
+        substring, nameRole, idCity, idAfter, limit != null ? limit : DEFAULT_SEARCH_LIMIT));
+  }
+
+  /**
+   * Обрабатывает GET запрос "/api/admins/activity" на получение приближенного числа активных пользователей
+   * и числа входов в систему за день, неделю и месяц, заканчивающиеся датой.
+   * Для выполнения запроса клиент должен быть аутентифицирован и иметь роль "ROLE_ADMIN"
+   * @param idCity ID города, если не указан - все пользователи
+   * @param date последняя дата периодов в формате "dd.mm.yyyy", если не указана - текущая дата
+   * @return информация об активности пользователей, если запрос выполнен успешно, и код ответа
+   * @throws DateFormatException если дата не соответствует формату "dd.mm.yyyy"
+   */
+  @GetMapping(
+      value = "/api/admins/activity",
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  @ResponseBody
+  public ResponseEntity<ActivityInfo> readActivity(@RequestParam(name = "city", required = false) String idCity,
+                                                   @RequestParam(name = "date", required = false) String date)
+      throws DateFormatException {
+
+    return ResponseEntity.status(HttpStatus.OK).body(adminService.readActivity(idCity, date));
+  }
+
+  /**
+   * Обрабатывает GET запрос "/api/admins/audit" на получение событий аудита за период.
+   * Результат упорядочен от новых записей к старым, следующая страница запрашивается с ID последней полученной записи.
+   * Для выполнения запроса клиент должен быть аутентифицирован и иметь роль "ROLE_ADMIN"
+   * @param idUser ID пользователя
+   * @param type тип события
+   * @param dateFrom первая дата периода в формате "dd.mm.yyyy", если не указана - за 30 дней до последней даты
+   * @param dateTo последняя дата периода в формате "dd.mm.yyyy", если не указана - текущая дата
+   * @param idBefore ID последней записи предыдущей страницы
+   * @param limit размер страницы, не более {@link #MAX_AUDIT_LIMIT}
+   * @return список информаций о событиях, если запрос выполнен успешно, и код ответа
+   * @throws DateFormatException если дата не соответствует формату "dd.mm.yyyy"
+   */
+  @GetMapping(
+      value = "/api/admins/audit",
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  @ResponseBody
+  public ResponseEntity<List<AuditEventInfo>> readAudit(@RequestParam(name = "user", required = false) String idUser,
+                                                        @RequestParam(name = "type", required = false) String type,
+                                                        @RequestParam(name = "from", required = false) String dateFrom,
+                                                        @RequestParam(name = "to", required = false) String dateTo,
+                                                        @RequestParam(name = "before", required = false) Long idBefore,
+                                                        @RequestParam(name = "limit", required = false) Integer limit)
+      throws DateFormatException {
+
+    if (limit != null && (limit < 1 || limit > MAX_AUDIT_LIMIT)) {
+      return ResponseEntity.status(HttpStatus.BAD_REQUEST).build();
+    }
+
+    return ResponseEntity.status(HttpStatus.OK).body(adminService.readAudit(
+        idUser, type, dateFrom, dateTo, idBefore, limit != null ? limit : DEFAULT_AUDIT_LIMIT));
+  }
+
+  /**
+   * Обрабатывает POST запрос "/api/admins/audience/count" на подсчет семей, подходящих под фильтр аудитории.
+   * Для выполнения запроса клиент должен быть аутентифицирован и иметь роль "ROLE_ADMIN"
+   * @param audienceFilter корневое условие фильтра
+   * @return число подходящих семей, если запрос выполнен успешно, и код ответа
+   * @throws InvalidFilterException если тип условия не указан, у условия нет необходимых полей или превышены размеры фильтра
+   * @throws InvalidRangeException если возраст или число детей отрицательные, или начало диапазона больше его конца
+   * @throws DateFormatException если дата рождения ребенка не соответствует формату "dd.mm.yyyy"
+   */
+  @PostMapping(
+      value = "/api/admins/audience/count",
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  @ResponseBody
+  public ResponseEntity<AudienceCount> countAudience(@RequestBody AudienceFilter audienceFilter)
+      throws InvalidFilterException, InvalidRangeException, DateFormatException {
+
+    return ResponseEntity.status(HttpStatus.OK).body(adminService.countAudience(audienceFilter));
+  }
+
+  /**
+   * Обрабатывает POST запрос "/api/admins/audience/ids" на выборку ID семей, подходящих под фильтр аудитории.
+   * ID записываются по возрастанию, по одному в строке, по мере чтения из бд. Прерванную выборку можно продолжить
+   * с последнего полученного ID. Фильтр проверяется до начала ответа.
+   * Для выполнения запроса клиент должен быть аутентифицирован и иметь роль "ROLE_ADMIN"
+   * @param audienceFilter корневое условие фильтра
+   * @param idAfter ID, после которого начинается выборка
+   * @return тело ответа, записываемое в поток, и код ответа
+   * @throws InvalidFilterException если тип условия не указан, у условия нет необходимых полей или превышены размеры фильтра
+   * @throws InvalidRangeException если возраст или число детей отрицательные, или начало диапазона больше его конца
+   * @throws DateFormatException если дата рождения ребенка не соответствует формату "dd.mm.yyyy"
+   */
+  @PostMapping(
+      value = "/api/admins/audience/ids",
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.TEXT_PLAIN_VALUE)
+  public ResponseEntity<StreamingResponseBody> streamAudienceIds(@RequestBody AudienceFilter audienceFilter,
+                                                                 @RequestParam(name = "after", required = false) String idAfter)
+      throws InvalidFilterException, InvalidRangeException, DateFormatException {
+
+    AudienceQuery audienceQuery = adminService.compileAudience(audienceFilter);
+
+    return ResponseEntity
+        .status(HttpStatus.OK)
+        .contentType(MediaType.TEXT_PLAIN)
+        .body(outputStream -> adminService.writeAudienceIds(audienceQuery, idAfter, outputStream));
+  }
 }
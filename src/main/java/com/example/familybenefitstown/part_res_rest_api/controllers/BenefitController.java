@@ -0,0 +1,113 @@
+package com.example.familybenefitstown.part_res_rest_api.controllers;
+
+import com.example.familybenefitstown.exceptions.*;
+import com.example.familybenefitstown.part_res_rest_api.api_models.benefit.BenefitEvaluationInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.benefit.BenefitRuleInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.benefit.BenefitRuleSave;
+import com.example.familybenefitstown.part_res_rest_api.api_models.common.ObjectShortInfo;
+import com.example.familybenefitstown.part_res_rest_api.services.interfaces.BenefitService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+/**
+ * Контроллер запросов, связанных с пособием
+ */
+@RestController
+public class BenefitController {
+
+  /**
+   * Интерфейс сервиса, управляющего объектом "пособие"
+   */
+  private final BenefitService benefitService;
+
+  /**
+   * Конструктор для инициализации интерфейса сервиса
+   * @param benefitService интерфейс сервиса, управляющего объектом "пособие"
+   */
+  @Autowired
+  public BenefitController(BenefitService benefitService) {
+    this.benefitService = benefitService;
+  }
+
+  /**
+   * Обрабатывает GET запрос "/api/cities/{id}/benefits" на получение правил пособий города.
+   * Выполнить запрос может любой клиент
+   * @param idCity ID города
+   * @return список правил пособий города, если запрос выполнен успешно, и код ответа
+   * @throws NotFoundException если город с указанным ID не найден
+   */
+  @GetMapping(
+      value = "/api/cities/{id}/benefits",
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  @ResponseBody
+  public ResponseEntity<List<BenefitRuleInfo>> readAllOfCity(@PathVariable(name = "id") String idCity) throws NotFoundException {
+
+    List<BenefitRuleInfo> benefitRuleInfoList = benefitService.readAllOfCity(idCity);
+    return ResponseEntity.status(HttpStatus.OK).body(benefitRuleInfoList);
+  }
+
+  /**
+   * Обрабатывает PUT запрос "/api/cities/{id}/benefits" на замену всех правил пособий города.
+   * Положенные пособия пользователей города переоцениваются задачей после выполнения запроса.
+   * Для выполнения запроса клиент должен быть аутентифицирован и иметь роль "ROLE_ADMIN"
+   * @param idCity ID города
+   * @param benefitRuleSaveList список объектов запроса для сохранения правила пособия
+   * @return код ответа, результат обработки запроса
+   * @throws NotFoundException если город с указанным ID не найден
+   * @throws AlreadyExistsException если в запросе повторяется название пособия
+   * @throws InvalidStringException если название пособия не содержит букв или цифр
+   * @throws DateFormatException если дата рождения ребенка не соответствует формату "dd.mm.yyyy"
+   * @throws InvalidRangeException если возраст или число детей отрицательные, или начало диапазона больше его конца
+   */
+  @PutMapping(
+      value = "/api/cities/{id}/benefits",
+      consumes = MediaType.APPLICATION_JSON_VALUE)
+  public ResponseEntity<?> updateAllOfCity(@PathVariable(name = "id") String idCity,
+                                           @RequestBody List<BenefitRuleSave> benefitRuleSaveList)
+      throws NotFoundException, AlreadyExistsException, InvalidStringException, DateFormatException, InvalidRangeException {
+
+    benefitService.updateAllOfCity(idCity, benefitRuleSaveList);
+    return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+  }
+
+  /**
+   * Обрабатывает GET запрос "/api/cities/{id}/benefits/evaluation" на получение хода переоценки
+   * положенных пособий пользователей города после последнего изменения правил.
+   * Для выполнения запроса клиент должен быть аутентифицирован и иметь роль "ROLE_ADMIN"
+   * @param idCity ID города
+   * @return информация о ходе переоценки, если запрос выполнен успешно, и код ответа
+   * @throws NotFoundException если правила города не изменялись
+   */
+  @GetMapping(
+      value = "/api/cities/{id}/benefits/evaluation",
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  @ResponseBody
+  public ResponseEntity<BenefitEvaluationInfo> readEvaluationOfCity(@PathVariable(name = "id") String idCity) throws NotFoundException {
+
+    BenefitEvaluationInfo benefitEvaluationInfo = benefitService.readEvaluationOfCity(idCity);
+    return ResponseEntity.status(HttpStatus.OK).body(benefitEvaluationInfo);
+  }
+
+  /**
+   * Обрабатывает GET запрос "/api/users/{id}/benefits" на получение пособий,
+   * положенных пользователю по правилам его города и датам рождений его детей.
+   * Для выполнения запроса клиент должен быть аутентифицирован, иметь роль "ROLE_USER" и запрашивать свои пособия
+   * @param idUser ID пользователя
+   * @return список кратких информаций о положенных пособиях, если запрос выполнен успешно, и код ответа
+   * @throws NotFoundException если пользователь с указанным ID не найден
+   */
+  @GetMapping(
+      value = "/api/users/{id}/benefits",
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  @ResponseBody
+  public ResponseEntity<List<ObjectShortInfo>> readAllOfUser(@PathVariable(name = "id") String idUser) throws NotFoundException {
+
+    List<ObjectShortInfo> benefitShortInfoList = benefitService.readAllOfUser(idUser);
+    return ResponseEntity.status(HttpStatus.OK).body(benefitShortInfoList);
+  }
+}
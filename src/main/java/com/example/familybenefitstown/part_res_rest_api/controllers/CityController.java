@@ -4,16 +4,33 @@ import com.example.familybenefitstown.exceptions.AlreadyExistsException;
 import com.example.familybenefitstown.exceptions.InvalidStringException;
 import com.example.familybenefitstown.exceptions.NotFoundException;
 import com.example.familybenefitstown.part_res_rest_api.api_models.city.CityInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.city.CityPatch;
 import com.example.familybenefitstown.part_res_rest_api.api_models.city.CitySave;
+import com.example.familybenefitstown.part_res_rest_api.api_models.city.CityStatsInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.common.ImportReport;
 import com.example.familybenefitstown.part_res_rest_api.api_models.common.ObjectShortInfo;
+import com.example.familybenefitstown.part_res_rest_api.bulk.BulkFormat;
+import com.example.familybenefitstown.part_res_rest_api.converters.GzipConverter;
+import com.example.familybenefitstown.part_res_rest_api.events.CityChangeFeed;
 import com.example.familybenefitstown.part_res_rest_api.services.interfaces.CityService;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Контроллер запросов, связанных с городом
@@ -21,36 +38,62 @@ import java.util.List;
 @RestController
 public class CityController {
 
+  /**
+   * Тип содержимого запроса JSON Merge Patch
+   */
+  private static final String APPLICATION_MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
+  /**
+   * Время, в течение которого клиент может использовать полученную статистику города без повторного запроса
+   */
+  private static final Duration STATS_MAX_AGE = Duration.ofMinutes(1);
+
   /**
    * Интерфейс сервиса, управляющего объектом "город"
    */
   private final CityService cityService;
 
+  /**
+   * Поток изменений городов
+   */
+  private final CityChangeFeed cityChangeFeed;
+
   /**
    * Конструктор для инициализации интерфейса сервиса
    * @param cityService интерфейс сервиса, управляющего объектом "город"
+   * @param cityChangeFeed поток изменений городов
    */
   @Autowired
-  public CityController(CityService cityService) {
+  public CityController(CityService cityService, CityChangeFeed cityChangeFeed) {
     this.cityService = cityService;
+    this.cityChangeFeed = cityChangeFeed;
   }
 
   /**
    * Обрабатывает GET запрос "/api/cities" на получение списка городов,
    * в которых есть учреждения и пособия.
    * Фильтр по названию или ID пособия.
+   * Поддерживает условный запрос по заголовку "If-None-Match" с тегом версии множества городов.
    * Выполнить запрос может любой клиент
    * @param name Название города
+   * @param webRequest запрос, по заголовкам которого проверяется актуальность данных клиента
    * @return множество городов, если запрос выполнен успешно, и код ответа
    */
   @GetMapping(
       value = "/api/cities",
       produces = MediaType.APPLICATION_JSON_VALUE)
   @ResponseBody
-  public ResponseEntity<List<ObjectShortInfo>> readAllFilter(@RequestParam(name = "name", required = false) String name) {
+  public ResponseEntity<List<ObjectShortInfo>> readAllFilter(@RequestParam(name = "name", required = false) String name,
+                                                             WebRequest webRequest) {
+
+    // Проверка актуальности данных клиента по версии множества городов, без загрузки городов
+    String versionTag = cityService.getAllVersionTag();
+    if (webRequest.checkNotModified(versionTag)) {
+      return null;
+    }
 
     List<ObjectShortInfo> cityShortInfoList = cityService.readAllFilter(name);
-    return ResponseEntity.status(HttpStatus.OK).body(cityShortInfoList);
+    return ResponseEntity.status(HttpStatus.OK).eTag(versionTag).cacheControl(CacheControl.noCache()).body(cityShortInfoList);
   }
 
   /**
@@ -71,10 +114,58 @@ public class CityController {
     return ResponseEntity.status(HttpStatus.CREATED).build();
   }
 
+  /**
+   * Обрабатывает GET запрос "/api/cities/changes" на подключение к потоку изменений городов (Server-Sent Events).
+   * Событие "change" содержит созданный, обновленный или удаленный город. Событие "reset" означает,
+   * что список городов необходимо получить заново, и отправляется при первом подключении
+   * или если пропущенные изменения больше не хранятся.
+   * Выполнить запрос может любой клиент
+   * @param lastEventId ID последнего полученного события, при переподключении
+   * @return подключение к потоку изменений
+   */
+  @GetMapping(
+      value = "/api/cities/changes",
+      produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  public SseEmitter subscribeChanges(@RequestHeader(name = "Last-Event-ID", required = false) String lastEventId) {
+
+    return cityChangeFeed.subscribe(lastEventId);
+  }
+
+  /**
+   * Обрабатывает POST запрос "/api/cities/import" на массовое создание городов из потока записей CSV или NDJSON.
+   * Поток читается и сохраняется по частям, без загрузки в память целиком.
+   * Для выполнения запроса клиент должен быть аутентифицирован и иметь роль "ROLE_ADMIN"
+   * @param contentType тип содержимого запроса, определяет формат потока
+   * @param inputStream поток записей в кодировке UTF-8
+   * @return отчет о загрузке с ошибками по номерам записей и код ответа: 201, если сохранен хотя бы один объект,
+   *         иначе 200
+   * @throws IOException если не удалось прочитать поток
+   * @throws HttpMediaTypeNotSupportedException если формат потока не поддерживается
+   */
+  @PostMapping(
+      value = "/api/cities/import",
+      consumes = {BulkFormat.TEXT_CSV_VALUE, BulkFormat.APPLICATION_NDJSON_VALUE},
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  @ResponseBody
+  public ResponseEntity<ImportReport> importAll(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                InputStream inputStream)
+      throws IOException, HttpMediaTypeNotSupportedException {
+
+    BulkFormat bulkFormat = BulkFormat.fromContentType(contentType)
+        .orElseThrow(() -> new HttpMediaTypeNotSupportedException(contentType));
+
+    ImportReport importReport = cityService.importAll(inputStream, bulkFormat);
+    return ResponseEntity
+        .status(importReport.getCountImported() > 0 ? HttpStatus.CREATED : HttpStatus.OK)
+        .body(importReport);
+  }
+
   /**
    * Обрабатывает GET запрос "/api/cities/{id}" на получение информации о городе.
+   * Поддерживает условный запрос по заголовку "If-None-Match" с тегом версии города.
    * Выполнить запрос может любой клиент
    * @param idCity ID города
+   * @param webRequest запрос, по заголовкам которого проверяется актуальность данных клиента
    * @return информация о городе, если запрос выполнен успешно, и код ответа
    * @throws NotFoundException если город с указанным ID не найден
    */
@@ -82,10 +173,89 @@ public class CityController {
       value = "/api/cities/{id}",
       produces = MediaType.APPLICATION_JSON_VALUE)
   @ResponseBody
-  public ResponseEntity<CityInfo> read(@PathVariable(name = "id") String idCity) throws NotFoundException {
+  public ResponseEntity<CityInfo> read(@PathVariable(name = "id") String idCity, WebRequest webRequest) throws NotFoundException {
+
+    // Проверка актуальности данных клиента по версии города, без загрузки города
+    String versionTag = cityService.getVersionTag(idCity);
+    if (webRequest.checkNotModified(versionTag)) {
+      return null;
+    }
 
     CityInfo cityInfo = cityService.read(idCity);
-    return ResponseEntity.status(HttpStatus.OK).body(cityInfo);
+    return ResponseEntity.status(HttpStatus.OK).eTag(versionTag).cacheControl(CacheControl.noCache()).body(cityInfo);
+  }
+
+  /**
+   * Обрабатывает GET запрос "/api/cities/{id}/info" на получение информации города в виде текста.
+   * Информация хранится сжатой gzip и передается клиенту, принимающему gzip, без распаковки.
+   * Иначе информация распаковывается по частям при записи в ответ.
+   * Поддерживает условный запрос по заголовку "If-None-Match" с тегом версии города, изменение информации меняет версию.
+   * Выполнить запрос может любой клиент
+   * @param idCity ID города
+   * @param acceptEncoding значение заголовка "Accept-Encoding" запроса
+   * @param webRequest запрос, по заголовкам которого проверяется актуальность данных клиента
+   * @param response http ответ, в который записывается информация города
+   * @throws NotFoundException если город с указанным ID не найден
+   * @throws IOException если не удалось записать ответ
+   */
+  @GetMapping(
+      value = "/api/cities/{id}/info",
+      produces = MediaType.TEXT_PLAIN_VALUE)
+  public void readInfo(@PathVariable(name = "id") String idCity,
+                       @RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                       WebRequest webRequest,
+                       HttpServletResponse response) throws NotFoundException, IOException {
+
+    // Проверка актуальности данных клиента по версии города, без загрузки информации.
+    // Если данные актуальны, код ответа 304 и тег версии записываются в ответ при проверке
+    String versionTag = cityService.getVersionTag(idCity);
+    if (webRequest.checkNotModified(versionTag)) {
+      return;
+    }
+
+    Optional<byte[]> infoCompressedOpt = cityService.readInfoCompressed(idCity);
+
+    response.setStatus(HttpStatus.OK.value());
+    response.setHeader(HttpHeaders.ETAG, String.format("\"%s\"", versionTag));
+    response.setHeader(HttpHeaders.CACHE_CONTROL, CacheControl.noCache().getHeaderValue());
+    response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+    response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+    response.setHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+
+    if (infoCompressedOpt.isEmpty()) {
+      response.setContentLength(0);
+      return;
+    }
+    byte[] infoCompressed = infoCompressedOpt.get();
+
+    if (GzipConverter.acceptsGzip(acceptEncoding)) {
+      response.setHeader(HttpHeaders.CONTENT_ENCODING, GzipConverter.ENCODING_GZIP);
+      response.setContentLength(infoCompressed.length);
+      response.getOutputStream().write(infoCompressed);
+      return;
+    }
+
+    GzipConverter.decompressTo(infoCompressed, response.getOutputStream());
+  }
+
+  /**
+   * Обрабатывает GET запрос "/api/cities/{id}/stats" на получение статистики семей и детей города.
+   * Статистика может отставать от изменений пользователей не больше минуты.
+   * Для выполнения запроса клиент должен быть аутентифицирован и иметь роль "ROLE_ADMIN"
+   * @param idCity ID города
+   * @return статистика семей и детей города, если запрос выполнен успешно, и код ответа
+   * @throws NotFoundException если город с указанным ID не найден
+   */
+  @GetMapping(
+      value = "/api/cities/{id}/stats",
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  @ResponseBody
+  public ResponseEntity<CityStatsInfo> readStats(@PathVariable(name = "id") String idCity) throws NotFoundException {
+
+    CityStatsInfo cityStatsInfo = cityService.readStats(idCity);
+    return ResponseEntity.status(HttpStatus.OK)
+        .cacheControl(CacheControl.maxAge(STATS_MAX_AGE).cachePrivate())
+        .body(cityStatsInfo);
   }
 
   /**
@@ -108,6 +278,27 @@ public class CityController {
     return ResponseEntity.status(HttpStatus.CREATED).build();
   }
 
+  /**
+   * Обрабатывает PATCH запрос "/api/cities/{id}" на частичное обновление города по правилам JSON Merge Patch.
+   * Изменяются только поля, указанные в запросе.
+   * Для выполнения запроса клиент должен быть аутентифицирован и иметь роль "ROLE_ADMIN"
+   * @param idCity ID города
+   * @param cityPatch объект запроса для частичного обновления города
+   * @return код ответа, результат обработки запроса
+   * @throws AlreadyExistsException если город с отличным ID и данным названием уже существует
+   * @throws InvalidStringException если строковое поле объекта запроса не содержит букв или цифр
+   * @throws NotFoundException если город с указанным ID не найден
+   */
+  @PatchMapping(
+      value = "/api/cities/{id}",
+      consumes = {APPLICATION_MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+  public ResponseEntity<?> patch(@PathVariable(name = "id") String idCity, @RequestBody CityPatch cityPatch)
+      throws AlreadyExistsException, InvalidStringException, NotFoundException {
+
+    cityService.patch(idCity, cityPatch);
+    return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+  }
+
   /**
    * Обрабатывает DELETE запрос "/api/cities/{id}" на удаление городе.
    * Для выполнения запроса клиент должен быть аутентифицирован и иметь роль "ROLE_ADMIN"
@@ -1,15 +1,38 @@
 package com.example.familybenefitstown.part_res_rest_api.controllers;
 
 import com.example.familybenefitstown.exceptions.*;
+import com.example.familybenefitstown.part_auth.models.JwtUserData;
+import com.example.familybenefitstown.part_res_rest_api.api_models.common.ImportReport;
+import com.example.familybenefitstown.part_res_rest_api.api_models.user.UserBatchInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.user.UserBatchRead;
 import com.example.familybenefitstown.part_res_rest_api.api_models.user.UserInfo;
-import com.example.familybenefitstown.part_res_rest_api.api_models.user.UserInitData;
+import com.example.familybenefitstown.part_res_rest_api.api_models.user.UserPatch;
 import com.example.familybenefitstown.part_res_rest_api.api_models.user.UserSave;
+import com.example.familybenefitstown.part_res_rest_api.bulk.BulkFormat;
+import com.example.familybenefitstown.part_res_rest_api.cache.InitDataCache;
 import com.example.familybenefitstown.part_res_rest_api.services.interfaces.UserService;
+import com.example.familybenefitstown.resources.RDB;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.HttpMediaTypeNotAcceptableException;
+import org.springframework.web.HttpMediaTypeNotSupportedException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.servlet.http.HttpServletResponse;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * Контроллер запросов, связанных с пользователем
@@ -17,18 +40,30 @@ import org.springframework.web.bind.annotation.*;
 @RestController
 public class UserController {
 
+  /**
+   * Тип содержимого запроса JSON Merge Patch
+   */
+  private static final String APPLICATION_MERGE_PATCH_JSON_VALUE = "application/merge-patch+json";
+
   /**
    * Интерфейс сервиса, управляющего объектом "пользователь"
    */
   private final UserService userService;
 
+  /**
+   * Подготовленное тело ответа с дополнительными данными для пользователя
+   */
+  private final InitDataCache initDataCache;
+
   /**
    * Конструктор для инициализации интерфейса сервиса
    * @param userService интерфейс сервиса, управляющего объектом "пользователь"
+   * @param initDataCache подготовленное тело ответа с дополнительными данными для пользователя
    */
   @Autowired
-  public UserController(UserService userService) {
+  public UserController(UserService userService, InitDataCache initDataCache) {
     this.userService = userService;
+    this.initDataCache = initDataCache;
   }
 
   /**
@@ -55,8 +90,10 @@ public class UserController {
 
   /**
    * Обрабатывает GET запрос "/api/users/{id}" на получение информации о пользователе.
+   * Поддерживает условный запрос по заголовку "If-None-Match" с тегом версии пользователя.
    * Для выполнения запроса клиент должен быть аутентифицирован и иметь роль "ROLE_USER"
    * @param idUser ID пользователя
+   * @param webRequest запрос, по заголовкам которого проверяется актуальность данных клиента
    * @return информация о пользователе, если запрос выполнен успешно, и код ответа
    * @throws NotFoundException если пользователь с указанным ID не найден
    */
@@ -64,10 +101,134 @@ public class UserController {
       value = "/api/users/{id}",
       produces = MediaType.APPLICATION_JSON_VALUE)
   @ResponseBody
-  public ResponseEntity<UserInfo> read(@PathVariable(name = "id") String idUser) throws NotFoundException {
+  public ResponseEntity<UserInfo> read(@PathVariable(name = "id") String idUser, WebRequest webRequest) throws NotFoundException {
+
+    // Проверка актуальности данных клиента по версии пользователя, без загрузки пользователя
+    String versionTag = userService.getVersionTag(idUser);
+    if (webRequest.checkNotModified(versionTag)) {
+      return null;
+    }
+
+    // Информация из кэша отдается только прочитанная на версии тега, иначе читается из бд
+    UserInfo userInfo = userService.read(idUser, versionTag);
+    return ResponseEntity.status(HttpStatus.OK).eTag(versionTag).cacheControl(CacheControl.noCache().cachePrivate()).body(userInfo);
+  }
+
+  /**
+   * Обрабатывает POST запрос "/api/users/batch-read" на получение информации о нескольких пользователях.
+   * Доступ проверяется для каждого ID: пользователь получает только себя, а администратор - любых пользователей,
+   * так как ему уже доступны профили всех пользователей выгрузкой "/api/users/export".
+   * Для выполнения запроса клиент должен быть аутентифицирован и иметь роль "ROLE_USER" или "ROLE_ADMIN"
+   * @param userBatchRead объект запроса на получение нескольких пользователей, не более {@link UserService#MAX_READ_ALL_SIZE} ID
+   * @param userData данные аутентифицированного клиента
+   * @return информация о найденных пользователях и ID, по которым информация не получена, и код ответа
+   * @throws InvalidStringException если ID пользователя {@code null} или не содержит символов
+   * @throws InvalidRangeException если список ID пуст или число ID больше {@link UserService#MAX_READ_ALL_SIZE}
+   */
+  @PostMapping(
+      value = "/api/users/batch-read",
+      consumes = MediaType.APPLICATION_JSON_VALUE,
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  @ResponseBody
+  public ResponseEntity<UserBatchInfo> readAll(@RequestBody UserBatchRead userBatchRead,
+                                               @RequestAttribute(name = JwtUserData.REQUEST_ATTRIBUTE) JwtUserData userData)
+      throws InvalidStringException, InvalidRangeException {
+
+    // Проверка всех ID запроса, включая недоступные клиенту
+    List<String> idUserList = userBatchRead.getIdList();
+    userService.checkReadAll(idUserList);
+
+    // Разделение ID на доступные и недоступные клиенту, без повторений
+    boolean isAdmin = userData.hasRole(List.of(RDB.ROLE_ADMIN));
+    Set<String> permittedIdUserSet = new LinkedHashSet<>();
+    List<String> forbiddenIdUserList = new ArrayList<>();
+    for (String idUser : new LinkedHashSet<>(idUserList)) {
+      if (isAdmin || userData.getIdUser().equals(idUser)) {
+        permittedIdUserSet.add(idUser);
+      } else {
+        forbiddenIdUserList.add(idUser);
+      }
+    }
+
+    Map<String, UserInfo> userInfoMap = permittedIdUserSet.isEmpty()
+        ? Collections.emptyMap()
+        : userService.readAll(permittedIdUserSet);
+
+    List<UserInfo> userInfoList = new ArrayList<>(userInfoMap.size());
+    List<String> notFoundIdUserList = new ArrayList<>();
+    for (String idUser : permittedIdUserSet) {
+      UserInfo userInfo = userInfoMap.get(idUser);
+      if (userInfo != null) {
+        userInfoList.add(userInfo);
+      } else {
+        notFoundIdUserList.add(idUser);
+      }
+    }
+
+    return ResponseEntity.status(HttpStatus.OK).body(UserBatchInfo
+                                                         .builder()
+                                                         .userInfoList(userInfoList)
+                                                         .notFoundIdList(notFoundIdUserList)
+                                                         .forbiddenIdList(forbiddenIdUserList)
+                                                         .build());
+  }
+
+  /**
+   * Обрабатывает POST запрос "/api/users/import" на массовое создание пользователей из потока записей CSV или NDJSON.
+   * Поток читается и сохраняется по частям, без загрузки в память целиком.
+   * Для выполнения запроса клиент должен быть аутентифицирован и иметь роль "ROLE_ADMIN"
+   * @param contentType тип содержимого запроса, определяет формат потока
+   * @param inputStream поток записей в кодировке UTF-8
+   * @return отчет о загрузке с ошибками по номерам записей и код ответа: 201, если сохранен хотя бы один объект,
+   *         иначе 200
+   * @throws IOException если не удалось прочитать поток
+   * @throws HttpMediaTypeNotSupportedException если формат потока не поддерживается
+   */
+  @PostMapping(
+      value = "/api/users/import",
+      consumes = {BulkFormat.TEXT_CSV_VALUE, BulkFormat.APPLICATION_NDJSON_VALUE},
+      produces = MediaType.APPLICATION_JSON_VALUE)
+  @ResponseBody
+  public ResponseEntity<ImportReport> importAll(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+                                                InputStream inputStream)
+      throws IOException, HttpMediaTypeNotSupportedException {
+
+    BulkFormat bulkFormat = BulkFormat.fromContentType(contentType)
+        .orElseThrow(() -> new HttpMediaTypeNotSupportedException(contentType));
 
-    UserInfo userInfo = userService.read(idUser);
-    return ResponseEntity.status(HttpStatus.OK).body(userInfo);
+    ImportReport importReport = userService.importAll(inputStream, bulkFormat);
+    return ResponseEntity
+        .status(importReport.getCountImported() > 0 ? HttpStatus.CREATED : HttpStatus.OK)
+        .body(importReport);
+  }
+
+  /**
+   * Обрабатывает GET запрос "/api/users/export" на выгрузку всех пользователей в формате CSV или NDJSON.
+   * Формат определяется заголовком "Accept", по умолчанию NDJSON. Ответ записывается по мере чтения из бд,
+   * без загрузки всех пользователей в память.
+   * Для выполнения запроса клиент должен быть аутентифицирован и иметь роль "ROLE_ADMIN"
+   * @param accept значение заголовка "Accept"
+   * @return тело ответа, записываемое в поток, и код ответа
+   * @throws HttpMediaTypeNotAcceptableException если ни один из принимаемых форматов не поддерживается
+   */
+  @GetMapping(
+      value = "/api/users/export",
+      produces = {BulkFormat.APPLICATION_NDJSON_VALUE, BulkFormat.TEXT_CSV_VALUE})
+  public ResponseEntity<StreamingResponseBody> exportAll(
+      @RequestHeader(name = HttpHeaders.ACCEPT, required = false) String accept)
+      throws HttpMediaTypeNotAcceptableException {
+
+    BulkFormat bulkFormat = BulkFormat.fromAccept(accept, BulkFormat.NDJSON)
+        .orElseThrow(() -> new HttpMediaTypeNotAcceptableException(List.of(
+            MediaType.parseMediaType(BulkFormat.APPLICATION_NDJSON_VALUE),
+            MediaType.parseMediaType(BulkFormat.TEXT_CSV_VALUE))));
+
+    return ResponseEntity
+        .status(HttpStatus.OK)
+        .contentType(MediaType.parseMediaType(bulkFormat.getMediaType()))
+        .header(HttpHeaders.CONTENT_DISPOSITION, String.format(
+            "attachment; filename=\"users.%s\"", bulkFormat.name().toLowerCase()))
+        .body(outputStream -> userService.exportAll(outputStream, bulkFormat));
   }
 
   /**
@@ -93,6 +254,30 @@ public class UserController {
     return ResponseEntity.status(HttpStatus.CREATED).build();
   }
 
+  /**
+   * Обрабатывает PATCH запрос "/api/users/{id}" на частичное обновление пользователя по правилам JSON Merge Patch.
+   * Изменяются только поля, указанные в запросе, значение {@code null} обязательных полей отклоняется.
+   * Для выполнения запроса клиент должен быть аутентифицирован и иметь роль "ROLE_USER"
+   * @param idUser ID пользователя
+   * @param userPatch объект запроса для частичного обновления пользователя
+   * @return код ответа, результат обработки запроса
+   * @throws DateTimeException если даты рождения пользователя или детей позже текущей даты
+   * @throws AlreadyExistsException если пользователь с отличным ID и данным email уже существует
+   * @throws InvalidStringException если строковое поле объекта запроса не содержит букв или цифр, или "name" или "idCity" равны {@code null}
+   * @throws NotFoundException если пользователь или город с указанными данными не найдены
+   * @throws InvalidEmailException если указанный "email" не является email или равен {@code null}
+   * @throws DateFormatException если даты рождения пользователя или детей не соответствуют формату "dd.mm.yyyy"
+   */
+  @PatchMapping(
+      value = "/api/users/{id}",
+      consumes = {APPLICATION_MERGE_PATCH_JSON_VALUE, MediaType.APPLICATION_JSON_VALUE})
+  public ResponseEntity<?> patch(@PathVariable(name = "id") String idUser, @RequestBody UserPatch userPatch)
+      throws DateTimeException, AlreadyExistsException, InvalidStringException, NotFoundException, InvalidEmailException, DateFormatException {
+
+    userService.patch(idUser, userPatch);
+    return ResponseEntity.status(HttpStatus.NO_CONTENT).build();
+  }
+
   /**
    * Обрабатывает DELETE запрос "/api/users/{id}" на удаление пользователя.
    * Для выполнения запроса клиент должен быть аутентифицирован и иметь роль "ROLE_USER"
@@ -111,16 +296,19 @@ public class UserController {
   /**
    * Обрабатывает GET запрос "/api/users/init-data" на получение дополнительных данных для пользователя.
    * Данные содержат в себе множества кратких информаций о городах и полных критериях.
+   * Ответ записывается из заранее подготовленного тела, сжатого gzip, если клиент его принимает.
    * Выполнить запрос может любой клиент
-   * @return дополнительные данные для пользователя и код ответа
+   * @param acceptEncoding значение заголовка "Accept-Encoding" запроса
+   * @param response http ответ, в который записываются дополнительные данные для пользователя
+   * @throws IOException если не удалось записать ответ
    */
   @GetMapping(
       value = "/api/users/init-data",
       produces = MediaType.APPLICATION_JSON_VALUE)
-  @ResponseBody
-  public ResponseEntity<UserInitData> getInitData() {
+  public void getInitData(@RequestHeader(name = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding,
+                          HttpServletResponse response) throws IOException {
 
-    return ResponseEntity.status(HttpStatus.OK).body(userService.getInitData());
+    initDataCache.getInitDataBody().write(acceptEncoding, response);
   }
 }
 
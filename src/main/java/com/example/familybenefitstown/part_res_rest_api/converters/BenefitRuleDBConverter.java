@@ -0,0 +1,124 @@
+package com.example.familybenefitstown.part_res_rest_api.converters;
+
+import com.example.familybenefitstown.dto.entities.BenefitRuleEntity;
+import com.example.familybenefitstown.exceptions.DateFormatException;
+import com.example.familybenefitstown.exceptions.InvalidRangeException;
+import com.example.familybenefitstown.exceptions.InvalidStringException;
+import com.example.familybenefitstown.part_res_rest_api.api_models.benefit.BenefitRuleInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.benefit.BenefitRuleSave;
+import com.example.familybenefitstown.resources.R;
+import com.example.familybenefitstown.security.DateTimeSupport;
+import com.example.familybenefitstown.security.RandomValue;
+
+import java.time.LocalDate;
+import java.util.function.Function;
+
+/**
+ * Класс преобразования модели таблицы "benefit_rule" в другие объекты и получения из других объектов,
+ * обрабатывая строковые поля для БД и проверяя диапазоны значений.
+ */
+public class BenefitRuleDBConverter {
+
+  /**
+   * Преобразует объект запроса на сохранение правила пособия в модель таблицы "benefit_rule",
+   * обрабатывая строковые поля для БД. ID правила генерируется
+   * @param idCity подготовленное для БД ID города
+   * @param benefitRuleSave объект запроса на сохранение правила пособия
+   * @param prepareDBFunc функция обработки строки для БД
+   * @return модель таблицы "benefit_rule"
+   * @throws InvalidStringException если название пособия не содержит букв или цифр
+   * @throws DateFormatException если дата рождения ребенка не соответствует формату "dd.mm.yyyy"
+   * @throws InvalidRangeException если возраст или число детей отрицательные, или начало диапазона больше его конца
+   */
+  public static BenefitRuleEntity fromSave(String idCity, BenefitRuleSave benefitRuleSave, Function<String, String> prepareDBFunc)
+      throws InvalidStringException, DateFormatException, InvalidRangeException {
+
+    if (benefitRuleSave == null) {
+      return new BenefitRuleEntity();
+    }
+
+    String name = prepareDBFunc.apply(FieldConverter.withSymbolsField(benefitRuleSave.getName(), "name", true));
+
+    Integer minAgeChild = benefitRuleSave.getMinAgeChild();
+    Integer maxAgeChild = benefitRuleSave.getMaxAgeChild();
+    checkRange(minAgeChild, maxAgeChild, "AgeChild", name);
+
+    LocalDate dateBirthFrom = benefitRuleSave.getDateBirthFrom() != null
+        ? DateTimeSupport.strToDate(benefitRuleSave.getDateBirthFrom())
+        : null;
+    LocalDate dateBirthTo = benefitRuleSave.getDateBirthTo() != null
+        ? DateTimeSupport.strToDate(benefitRuleSave.getDateBirthTo())
+        : null;
+    if (dateBirthFrom != null && dateBirthTo != null && dateBirthFrom.isAfter(dateBirthTo)) {
+      throw new InvalidRangeException(String.format(
+          "The benefit \"%s\" has \"dateBirthFrom\" %s after \"dateBirthTo\" %s", name, dateBirthFrom, dateBirthTo));
+    }
+
+    int minCountChildren = benefitRuleSave.getMinCountChildren() != null
+        ? benefitRuleSave.getMinCountChildren()
+        : 1;
+    Integer maxCountChildren = benefitRuleSave.getMaxCountChildren();
+    checkRange(minCountChildren, maxCountChildren, "CountChildren", name);
+
+    return BenefitRuleEntity
+        .builder()
+        .id(RandomValue.randomString(R.ID_LENGTH))
+        .idCity(idCity)
+        .name(name)
+        .minAgeChild(minAgeChild)
+        .maxAgeChild(maxAgeChild)
+        .dateBirthFrom(dateBirthFrom)
+        .dateBirthTo(dateBirthTo)
+        .minCountChildren(minCountChildren)
+        .maxCountChildren(maxCountChildren)
+        .build();
+  }
+
+  /**
+   * Преобразует модель таблицы "benefit_rule" в объект информации о правиле пособия
+   * @param benefitRuleEntity модель таблицы "benefit_rule"
+   * @return информация о правиле пособия
+   */
+  public static BenefitRuleInfo toInfo(BenefitRuleEntity benefitRuleEntity) {
+
+    if (benefitRuleEntity == null) {
+      return new BenefitRuleInfo();
+    }
+
+    return BenefitRuleInfo
+        .builder()
+        .id(benefitRuleEntity.getId())
+        .name(benefitRuleEntity.getName())
+        .minAgeChild(benefitRuleEntity.getMinAgeChild())
+        .maxAgeChild(benefitRuleEntity.getMaxAgeChild())
+        .dateBirthFrom(benefitRuleEntity.getDateBirthFrom() != null
+                           ? R.SIMPLE_DATE_FORMAT.format(benefitRuleEntity.getDateBirthFrom())
+                           : null)
+        .dateBirthTo(benefitRuleEntity.getDateBirthTo() != null
+                         ? R.SIMPLE_DATE_FORMAT.format(benefitRuleEntity.getDateBirthTo())
+                         : null)
+        .minCountChildren(benefitRuleEntity.getMinCountChildren())
+        .maxCountChildren(benefitRuleEntity.getMaxCountChildren())
+        .build();
+  }
+
+  /**
+   * Проверяет неотрицательные границы диапазона и предшествие начала диапазона его концу
+   * @param min начало диапазона или {@code null}, если не ограничено
+   * @param max конец диапазона или {@code null}, если не ограничен
+   * @param field окончание названий полей диапазона
+   * @param name название пособия
+   * @throws InvalidRangeException если граница отрицательная или начало больше конца
+   */
+  private static void checkRange(Integer min, Integer max, String field, String name) throws InvalidRangeException {
+
+    if ((min != null && min < 0) || (max != null && max < 0)) {
+      throw new InvalidRangeException(String.format(
+          "The benefit \"%s\" has negative \"min%s\" or \"max%s\"", name, field, field));
+    }
+    if (min != null && max != null && min > max) {
+      throw new InvalidRangeException(String.format(
+          "The benefit \"%s\" has \"min%s\" %s greater than \"max%s\" %s", name, field, min, field, max));
+    }
+  }
+}
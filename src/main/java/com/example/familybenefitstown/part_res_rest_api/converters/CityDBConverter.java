@@ -4,6 +4,7 @@ import com.example.familybenefitstown.part_res_rest_api.api_models.city.CityInfo
 import com.example.familybenefitstown.part_res_rest_api.api_models.city.CitySave;
 import com.example.familybenefitstown.part_res_rest_api.api_models.common.ObjectShortInfo;
 import com.example.familybenefitstown.dto.entities.CityEntity;
+import com.example.familybenefitstown.dto.entities.CityInfoEntity;
 import com.example.familybenefitstown.exceptions.InvalidStringException;
 import com.example.familybenefitstown.resources.R;
 import com.example.familybenefitstown.security.RandomValue;
@@ -16,7 +17,8 @@ import java.util.function.Function;
 public class CityDBConverter {
 
   /**
-   * Преобразует объект запроса на сохранение города в модель таблицы "city", обрабатывая строковые поля для БД
+   * Преобразует объект запроса на сохранение города в модель таблицы "city", обрабатывая строковые поля для БД.
+   * Информация города преобразуется отдельно, методом {@link #infoFromSave}
    * @param idCity ID города. Если {@code null}, значение ID генерируется.
    * @param citySave объект запроса на сохранение города
    * @param prepareDBFunc функция обработки строки для БД
@@ -35,16 +37,38 @@ public class CityDBConverter {
                 ? prepareDBFunc.apply(idCity)
                 : RandomValue.randomString(R.ID_LENGTH))
         .name(prepareDBFunc.apply(FieldConverter.withSymbolsField(citySave.getName(), "name", true)))
-        .info(prepareDBFunc.apply(FieldConverter.withSymbolsField(citySave.getInfo(), "info", false)))
         .build();
   }
 
   /**
-   * Преобразует модель таблицы "city" в объект информации о городе
+   * Преобразует информацию из объекта запроса на сохранение города в модель таблицы "city_info",
+   * обрабатывая строку для БД и сжимая её
+   * @param idCity подготовленное для БД ID города
+   * @param citySave объект запроса на сохранение города
+   * @param prepareDBFunc функция обработки строки для БД
+   * @return модель таблицы "city_info" или {@code null}, если информация не указана
+   * @throws InvalidStringException если информация не содержит букв или цифр
+   */
+  public static CityInfoEntity infoFromSave(String idCity, CitySave citySave, Function<String, String> prepareDBFunc) throws InvalidStringException {
+
+    if (citySave == null || citySave.getInfo() == null) {
+      return null;
+    }
+
+    return CityInfoEntity
+        .builder()
+        .idCity(idCity)
+        .info(GzipConverter.compress(prepareDBFunc.apply(FieldConverter.withSymbolsField(citySave.getInfo(), "info", false))))
+        .build();
+  }
+
+  /**
+   * Преобразует модели таблиц "city" и "city_info" в объект информации о городе
    * @param cityEntity модель таблицы "city"
+   * @param cityInfoEntity модель таблицы "city_info" или {@code null}, если у города нет информации
    * @return информация о городе
    */
-  public static CityInfo toInfo(CityEntity cityEntity) {
+  public static CityInfo toInfo(CityEntity cityEntity, CityInfoEntity cityInfoEntity) {
 
     if (cityEntity == null) {
       return new CityInfo();
@@ -54,7 +78,9 @@ public class CityDBConverter {
         .builder()
         .id(cityEntity.getId())
         .name(cityEntity.getName())
-        .info(cityEntity.getInfo())
+        .info(cityInfoEntity != null
+                  ? GzipConverter.decompress(cityInfoEntity.getInfo())
+                  : null)
         .build();
   }
 
@@ -0,0 +1,160 @@
+package com.example.familybenefitstown.part_res_rest_api.converters;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Предоставляет статические методы сжатия gzip строк для хранения в БД и тел ответов,
+ * а также выбора gzip по заголовку "Accept-Encoding"
+ */
+public class GzipConverter {
+
+  /**
+   * Значение заголовка "Content-Encoding" для gzip
+   */
+  public static final String ENCODING_GZIP = "gzip";
+
+  /**
+   * Устаревшее название gzip, которое клиенты могут указывать в "Accept-Encoding"
+   */
+  private static final String ENCODING_X_GZIP = "x-gzip";
+
+  /**
+   * Обозначение любой кодировки в "Accept-Encoding"
+   */
+  private static final String ENCODING_ANY = "*";
+
+  /**
+   * Сжимает строку gzip в кодировке UTF-8
+   * @param text строка
+   * @return сжатая строка или {@code null}, если строка {@code null}
+   */
+  public static byte[] compress(String text) {
+
+    if (text == null) {
+      return null;
+    }
+
+    return compress(text.getBytes(StandardCharsets.UTF_8), Deflater.DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * Сжимает массив байтов gzip с указанной степенью сжатия
+   * @param bytes исходный массив
+   * @param level степень сжатия от {@link Deflater#BEST_SPEED} до {@link Deflater#BEST_COMPRESSION}
+   *              или {@link Deflater#DEFAULT_COMPRESSION}
+   * @return сжатый массив
+   */
+  public static byte[] compress(byte[] bytes, int level) {
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream(bytes.length / 3 + 64);
+    try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream) {
+      {
+        def.setLevel(level);
+      }
+    }) {
+      gzipOutputStream.write(bytes);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+
+    return outputStream.toByteArray();
+  }
+
+  /**
+   * Распаковывает строку, сжатую gzip в кодировке UTF-8
+   * @param bytes сжатая строка
+   * @return строка или {@code null}, если сжатая строка {@code null}
+   */
+  public static String decompress(byte[] bytes) {
+
+    if (bytes == null) {
+      return null;
+    }
+
+    try (GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      return new String(gzipInputStream.readAllBytes(), StandardCharsets.UTF_8);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * Распаковывает массив, сжатый gzip, в поток без промежуточного массива
+   * @param bytes сжатый массив
+   * @param outputStream поток для записи распакованных байтов
+   * @throws IOException если не удалось распаковать массив или записать в поток
+   */
+  public static void decompressTo(byte[] bytes, OutputStream outputStream) throws IOException {
+
+    try (GZIPInputStream gzipInputStream = new GZIPInputStream(new ByteArrayInputStream(bytes))) {
+      gzipInputStream.transferTo(outputStream);
+    }
+  }
+
+  /**
+   * Проверяет, принимает ли клиент gzip, по значению заголовка "Accept-Encoding".
+   * Просматриваются все кодировки заголовка: вес явно указанного gzip важнее веса "*",
+   * поэтому "gzip;q=0, *" запрещает gzip, а "*;q=0, gzip" разрешает
+   * @param acceptEncoding значение заголовка "Accept-Encoding", может быть {@code null}
+   * @return true, если gzip указан явно с ненулевым весом или не указан явно, но указан "*" с ненулевым весом
+   */
+  public static boolean acceptsGzip(String acceptEncoding) {
+
+    if (acceptEncoding == null) {
+      return false;
+    }
+
+    Boolean isGzipAccepted = null;
+    boolean isAnyAccepted = false;
+
+    for (String coding : acceptEncoding.split(",")) {
+      String[] parts = coding.split(";");
+      String name = parts[0].trim();
+      boolean isAccepted = !isZeroWeight(parts);
+
+      if (name.equalsIgnoreCase(ENCODING_GZIP) || name.equalsIgnoreCase(ENCODING_X_GZIP)) {
+        // Повторно указанный gzip разрешен, если хотя бы одно указание имеет ненулевой вес
+        isGzipAccepted = isAccepted || Boolean.TRUE.equals(isGzipAccepted);
+      } else if (name.equals(ENCODING_ANY)) {
+        isAnyAccepted = isAccepted;
+      }
+    }
+
+    return isGzipAccepted != null ? isGzipAccepted : isAnyAccepted;
+  }
+
+  /**
+   * Проверяет, равен ли нулю вес "q=..." кодировки
+   * @param parts название кодировки и ее параметры
+   * @return true, если вес указан и равен нулю
+   */
+  private static boolean isZeroWeight(String[] parts) {
+
+    for (int i = 1; i < parts.length; i++) {
+      String parameter = parts[i].trim();
+      if (parameter.length() < 2 || Character.toLowerCase(parameter.charAt(0)) != 'q') {
+        continue;
+      }
+      String value = parameter.substring(1).trim();
+      if (!value.startsWith("=")) {
+        continue;
+      }
+
+      try {
+        return Double.parseDouble(value.substring(1).trim()) == 0;
+      } catch (NumberFormatException e) {
+        return false;
+      }
+    }
+
+    return false;
+  }
+}
@@ -5,10 +5,14 @@ import com.example.familybenefitstown.part_res_rest_api.api_models.user.UserSave
 import com.example.familybenefitstown.dto.entities.ChildBirthEntity;
 import com.example.familybenefitstown.dto.entities.RoleEntity;
 import com.example.familybenefitstown.dto.entities.UserEntity;
+import com.example.familybenefitstown.dto.projections.UserProfile;
 import com.example.familybenefitstown.exceptions.InvalidStringException;
 import com.example.familybenefitstown.resources.R;
 import com.example.familybenefitstown.security.RandomValue;
 
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.List;
 import java.util.function.Function;
 import java.util.stream.Collectors;
@@ -76,5 +80,44 @@ public class UserDBConverter {
         .nameCity(nameCity)
         .build();
   }
+
+  /**
+   * Преобразует профиль пользователя в объект информации о пользователе.
+   * В преобразовании не участвует поле с датой рождения пользователя
+   * @param userProfile профиль пользователя
+   * @return информация о пользователе
+   */
+  public static UserInfo toInfo(UserProfile userProfile) {
+
+    if (userProfile == null) {
+      return new UserInfo();
+    }
+
+    return UserInfo
+        .builder()
+        .id(userProfile.getId())
+        .name(userProfile.getName())
+        .email(userProfile.getEmail())
+        .birthDateChildren(splitAggregated(userProfile.getBirthDateChildren())
+                               .stream()
+                               .map(dateBirth -> R.SIMPLE_DATE_FORMAT.format(LocalDate.parse(dateBirth)))
+                               .collect(Collectors.toList()))
+        .nameRoleList(splitAggregated(userProfile.getNameRoles()))
+        .nameCity(userProfile.getNameCity())
+        .build();
+  }
+
+  /**
+   * Разделяет строку, объединенную в запросе через запятую
+   * @param aggregated объединенная строка или {@code null}
+   * @return список значений, пустой, если строка {@code null}
+   */
+  private static List<String> splitAggregated(String aggregated) {
+
+    if (aggregated == null || aggregated.isEmpty()) {
+      return Collections.emptyList();
+    }
+    return Arrays.asList(aggregated.split(","));
+  }
 }
 
@@ -0,0 +1,371 @@
+package com.example.familybenefitstown.part_res_rest_api.events;
+
+import com.example.familybenefitstown.part_res_rest_api.api_models.city.CityChange;
+import lombok.AllArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Поток изменений городов для клиентов, подключенных по Server-Sent Events.
+ * Хранит ограниченное число последних изменений, чтобы переподключившийся клиент получил пропущенные изменения
+ * по заголовку "Last-Event-ID". Если пропущенные изменения уже вытеснены из буфера, клиенту отправляется событие "reset",
+ * после которого список городов необходимо получить заново.
+ * <p>
+ * События ставятся в очередь каждого клиента под блокировкой, а отправляются вне ее потоками отправки,
+ * поэтому медленный клиент не задерживает фиксирующий транзакцию поток и других клиентов.
+ * Клиент, очередь которого переполнена, отключается и получает пропущенное при переподключении
+ */
+@Slf4j
+@Component
+public class CityChangeFeed {
+
+  /**
+   * Число последних изменений, доступных для повторной отправки
+   */
+  private static final int REPLAY_SIZE = 1024;
+
+  /**
+   * Максимальное число событий в очереди клиента, после которого клиент отключается
+   */
+  private static final int MAX_PENDING = 2 * REPLAY_SIZE;
+
+  /**
+   * Число потоков отправки событий клиентам
+   */
+  private static final int SEND_THREADS = 2;
+
+  /**
+   * Время жизни подключения в миллисекундах, после которого клиент переподключается
+   */
+  private static final long TIMEOUT_MILLIS = 30L * 60L * 1000L;
+
+  /**
+   * Название события изменения города
+   */
+  private static final String EVENT_CHANGE = "change";
+
+  /**
+   * Название события, требующего заново получить список городов
+   */
+  private static final String EVENT_RESET = "reset";
+
+  /**
+   * Идентификатор потока, меняется при перезапуске сервиса, чтобы ID событий прошлого запуска вызывали "reset"
+   */
+  private final String idFeed = Long.toString(System.currentTimeMillis(), Character.MAX_RADIX);
+
+  /**
+   * Кольцевой буфер последних изменений, индекс - номер изменения по модулю размера буфера
+   */
+  private final CityChange[] replayBuffer = new CityChange[REPLAY_SIZE];
+
+  /**
+   * Номер последнего изменения, начиная с 1
+   */
+  private long lastSequence;
+
+  /**
+   * Подключенные клиенты
+   */
+  private final List<Subscriber> subscriberList = new CopyOnWriteArrayList<>();
+
+  /**
+   * Потоки отправки событий клиентам
+   */
+  private final ExecutorService sendExecutor;
+
+  /**
+   * Конструктор для создания потока изменений с собственными потоками отправки
+   */
+  public CityChangeFeed() {
+
+    AtomicInteger countThreads = new AtomicInteger();
+    this.sendExecutor = Executors.newFixedThreadPool(SEND_THREADS, runnable -> {
+      Thread thread = new Thread(runnable, "city-change-feed-" + countThreads.incrementAndGet());
+      thread.setDaemon(true);
+      return thread;
+    });
+  }
+
+  /**
+   * Конструктор для создания потока изменений с указанными потоками отправки
+   * @param sendExecutor потоки отправки событий клиентам
+   */
+  CityChangeFeed(ExecutorService sendExecutor) {
+    this.sendExecutor = sendExecutor;
+  }
+
+  /**
+   * Подключает клиента к потоку изменений
+   * @param lastEventId ID последнего полученного клиентом события или {@code null}, если клиент подключается впервые
+   * @return подключение клиента
+   */
+  public SseEmitter subscribe(String lastEventId) {
+
+    SseEmitter emitter = new SseEmitter(TIMEOUT_MILLIS);
+    subscribe(lastEventId, emitter);
+    return emitter;
+  }
+
+  /**
+   * Подключает клиента с указанным подключением к потоку изменений
+   * @param lastEventId ID последнего полученного клиентом события или {@code null}, если клиент подключается впервые
+   * @param emitter подключение клиента
+   */
+  void subscribe(String lastEventId, SseEmitter emitter) {
+
+    Subscriber subscriber = new Subscriber(emitter);
+    emitter.onCompletion(subscriber::close);
+    emitter.onTimeout(emitter::complete);
+    emitter.onError(throwable -> subscriber.close());
+
+    // Очередь повторной отправки заполняется и клиент регистрируется под блокировкой,
+    // чтобы новое изменение не было пропущено или отправлено дважды
+    synchronized (this) {
+      long sequenceFrom = toSequence(lastEventId);
+
+      if (sequenceFrom < 0 || sequenceFrom > lastSequence || lastSequence - sequenceFrom > REPLAY_SIZE) {
+        subscriber.enqueue(EVENT_RESET, lastSequence, CityChange.builder().type(CityChangeType.RELOADED).build());
+      } else {
+        for (long sequence = sequenceFrom + 1; sequence <= lastSequence; sequence++) {
+          subscriber.enqueue(EVENT_CHANGE, sequence, replayBuffer[(int) (sequence % REPLAY_SIZE)]);
+        }
+      }
+
+      subscriberList.add(subscriber);
+    }
+
+    subscriber.schedule();
+  }
+
+  /**
+   * Добавляет изменение в буфер и ставит его в очереди подключенных клиентов.
+   * Вызывается после фиксации транзакции, в которой изменен город, или сразу, если транзакции нет
+   * @param cityChangedEvent событие изменения города
+   */
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onCityChanged(CityChangedEvent cityChangedEvent) {
+
+    CityChange cityChange = CityChange
+        .builder()
+        .type(cityChangedEvent.getType())
+        .idCity(cityChangedEvent.getIdCity())
+        .nameCity(cityChangedEvent.getNameCity())
+        .build();
+
+    List<Subscriber> overflowSubscriberList = new ArrayList<>();
+
+    synchronized (this) {
+      long sequence = ++lastSequence;
+      replayBuffer[(int) (sequence % REPLAY_SIZE)] = cityChange;
+
+      for (Subscriber subscriber : subscriberList) {
+        if (!subscriber.enqueue(EVENT_CHANGE, sequence, cityChange)) {
+          overflowSubscriberList.add(subscriber);
+        }
+      }
+    }
+
+    for (Subscriber subscriber : overflowSubscriberList) {
+      log.debug("City change feed. Client disconnected: too many pending events");
+      subscriber.close();
+      subscriber.emitter.complete();
+    }
+    for (Subscriber subscriber : subscriberList) {
+      subscriber.schedule();
+    }
+  }
+
+  /**
+   * Возвращает число подключенных клиентов
+   * @return число подключенных клиентов
+   */
+  int countSubscribers() {
+    return subscriberList.size();
+  }
+
+  /**
+   * Останавливает потоки отправки событий при остановке сервиса
+   */
+  @PreDestroy
+  public void shutdown() {
+    sendExecutor.shutdownNow();
+  }
+
+  /**
+   * Отправляет событие клиенту. При ошибке отправки подключение закрывается
+   * @param emitter подключение клиента
+   * @param pendingEvent событие для отправки
+   * @return true, если событие отправлено
+   */
+  private boolean send(SseEmitter emitter, PendingEvent pendingEvent) {
+
+    try {
+      emitter.send(SseEmitter
+                       .event()
+                       .id(idFeed + "-" + pendingEvent.sequence)
+                       .name(pendingEvent.eventName)
+                       .data(pendingEvent.cityChange, MediaType.APPLICATION_JSON));
+      return true;
+
+    } catch (IOException | IllegalStateException e) {
+      log.debug("City change feed. Client disconnected: {}", e.getMessage());
+      emitter.completeWithError(e);
+      return false;
+    }
+  }
+
+  /**
+   * Извлекает номер изменения из ID события
+   * @param eventId ID события
+   * @return номер изменения или -1, если ID отсутствует или выдан другим запуском сервиса
+   */
+  private long toSequence(String eventId) {
+
+    String prefix = idFeed + "-";
+    if (eventId == null || !eventId.startsWith(prefix)) {
+      return -1;
+    }
+
+    try {
+      return Long.parseLong(eventId.substring(prefix.length()));
+    } catch (NumberFormatException e) {
+      return -1;
+    }
+  }
+
+  /**
+   * Событие, ожидающее отправки клиенту
+   */
+  @AllArgsConstructor
+  private static class PendingEvent {
+
+    /**
+     * Название события
+     */
+    private final String eventName;
+
+    /**
+     * Номер изменения
+     */
+    private final long sequence;
+
+    /**
+     * Изменение города
+     */
+    private final CityChange cityChange;
+  }
+
+  /**
+   * Подключенный клиент с очередью неотправленных событий.
+   * Очередь клиента отправляется не более чем одним потоком отправки одновременно, в порядке постановки событий
+   */
+  private class Subscriber implements Runnable {
+
+    /**
+     * Подключение клиента
+     */
+    private final SseEmitter emitter;
+
+    /**
+     * Очередь неотправленных событий
+     */
+    private final Queue<PendingEvent> pendingQueue = new ConcurrentLinkedQueue<>();
+
+    /**
+     * Число событий в очереди
+     */
+    private final AtomicInteger countPending = new AtomicInteger();
+
+    /**
+     * Признак того, что отправка очереди поставлена потокам отправки
+     */
+    private final AtomicBoolean isScheduled = new AtomicBoolean();
+
+    /**
+     * Признак отключения клиента
+     */
+    private volatile boolean isClosed;
+
+    private Subscriber(SseEmitter emitter) {
+      this.emitter = emitter;
+    }
+
+    /**
+     * Ставит событие в очередь клиента
+     * @param eventName название события
+     * @param sequence номер изменения
+     * @param cityChange изменение города
+     * @return false, если очередь клиента переполнена
+     */
+    private boolean enqueue(String eventName, long sequence, CityChange cityChange) {
+
+      if (countPending.incrementAndGet() > MAX_PENDING) {
+        return false;
+      }
+      pendingQueue.add(new PendingEvent(eventName, sequence, cityChange));
+      return true;
+    }
+
+    /**
+     * Ставит отправку очереди потокам отправки, если она еще не поставлена
+     */
+    private void schedule() {
+
+      if (!isClosed && !pendingQueue.isEmpty() && isScheduled.compareAndSet(false, true)) {
+        try {
+          sendExecutor.execute(this);
+        } catch (RejectedExecutionException e) {
+          isScheduled.set(false);
+          close();
+        }
+      }
+    }
+
+    /**
+     * Отправляет события очереди клиенту
+     */
+    @Override
+    public void run() {
+
+      PendingEvent pendingEvent;
+      while (!isClosed && (pendingEvent = pendingQueue.poll()) != null) {
+        countPending.decrementAndGet();
+        if (!send(emitter, pendingEvent)) {
+          close();
+          return;
+        }
+      }
+
+      isScheduled.set(false);
+      // Событие могло быть поставлено в очередь после ее опустошения, но до снятия признака
+      schedule();
+    }
+
+    /**
+     * Отключает клиента от потока изменений
+     */
+    private void close() {
+
+      isClosed = true;
+      subscriberList.remove(this);
+      pendingQueue.clear();
+    }
+  }
+}
@@ -0,0 +1,27 @@
+package com.example.familybenefitstown.part_res_rest_api.events;
+
+/**
+ * Тип изменения города
+ */
+public enum CityChangeType {
+
+  /**
+   * Город создан
+   */
+  CREATED,
+
+  /**
+   * Город обновлен
+   */
+  UPDATED,
+
+  /**
+   * Город удален
+   */
+  DELETED,
+
+  /**
+   * Изменено множество городов. Список городов необходимо получить заново
+   */
+  RELOADED
+}
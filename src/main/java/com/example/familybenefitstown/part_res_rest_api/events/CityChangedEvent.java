@@ -0,0 +1,27 @@
+package com.example.familybenefitstown.part_res_rest_api.events;
+
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+/**
+ * Событие изменения города, публикуется сервисом города после сохранения изменений
+ */
+@Getter
+@AllArgsConstructor
+public class CityChangedEvent {
+
+  /**
+   * Тип изменения
+   */
+  private final CityChangeType type;
+
+  /**
+   * ID города. {@code null} для типа {@link CityChangeType#RELOADED}
+   */
+  private final String idCity;
+
+  /**
+   * Название города. {@code null} для типов {@link CityChangeType#DELETED} и {@link CityChangeType#RELOADED}
+   */
+  private final String nameCity;
+}
@@ -0,0 +1,127 @@
+package com.example.familybenefitstown.part_res_rest_api.jobs;
+
+import com.example.familybenefitstown.dto.jdbc.ActivityJdbcRepository;
+import com.example.familybenefitstown.part_auth.activity.ActivityTracker;
+import com.example.familybenefitstown.part_auth.activity.HyperLogLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+
+/**
+ * Задача выгрузки корзин активности узла в таблицу "activity_sketch".
+ * Скетч корзины объединяется со строкой таблицы максимумом регистров, поэтому узлы выгружают
+ * свои скетчи независимо, а повторная выгрузка не искажает оценку. Число входов добавляется
+ * только невыгруженное. Каждая корзина выгружается отдельной транзакцией, неудачная выгрузка повторяется
+ */
+@Slf4j
+@Component
+public class ActivityFlushJob {
+
+  /**
+   * Пустые регистры скетча для создания строки таблицы
+   */
+  private static final byte[] EMPTY_REGISTERS = new byte[HyperLogLog.COUNT_REGISTERS];
+
+  /**
+   * Учет активных пользователей и входов в памяти узла
+   */
+  private final ActivityTracker activityTracker;
+
+  /**
+   * Репозиторий операций с таблицей "activity_sketch", выполняющий запросы сразу
+   */
+  private final ActivityJdbcRepository activityJdbcRepository;
+
+  /**
+   * Шаблон выполнения выгрузки корзины в транзакции
+   */
+  private final TransactionTemplate transactionTemplate;
+
+  /**
+   * Число дней хранения скетчей в бд
+   */
+  private final int retentionDays;
+
+  /**
+   * Число неудачных выгрузок корзин
+   */
+  private final Counter failedCounter;
+
+  /**
+   * Конструктор для инициализации учета активности, репозитория, настроек и метрик задачи
+   * @param activityTracker учет активных пользователей и входов в памяти узла
+   * @param activityJdbcRepository репозиторий операций с таблицей "activity_sketch", выполняющий запросы сразу
+   * @param transactionTemplate шаблон выполнения выгрузки корзины в транзакции
+   * @param meterRegistry реестр метрик
+   * @param retentionDays число дней хранения скетчей в бд
+   */
+  @Autowired
+  public ActivityFlushJob(ActivityTracker activityTracker,
+                          ActivityJdbcRepository activityJdbcRepository,
+                          TransactionTemplate transactionTemplate,
+                          MeterRegistry meterRegistry,
+                          @Value("${family-benefits-town.activity.retention-days:90}") int retentionDays) {
+    this.activityTracker = activityTracker;
+    this.activityJdbcRepository = activityJdbcRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.retentionDays = retentionDays;
+
+    this.failedCounter = meterRegistry.counter("activity.flush.failed");
+  }
+
+  /**
+   * Выгружает измененные корзины узла по расписанию и удаляет из памяти выгруженные корзины прошлых дней.
+   * Корзина вчерашнего дня сохраняется до следующего запуска, чтобы учесть активность около полуночи
+   */
+  @Scheduled(fixedDelayString = "${family-benefits-town.activity.flush-delay-ms:60000}")
+  public void flush() {
+
+    for (ActivityTracker.Bucket bucket : activityTracker.findDirtyBuckets()) {
+      long countLogins = bucket.beginFlush();
+      byte[] registers = bucket.getActiveRegisters();
+
+      try {
+        transactionTemplate.executeWithoutResult(status -> {
+          byte[] storedRegisters = activityJdbcRepository.lockRegisters(
+              bucket.getIdCity(), bucket.getDateActivity(), EMPTY_REGISTERS);
+          HyperLogLog.mergeInto(storedRegisters, registers);
+          activityJdbcRepository.updateSketch(bucket.getIdCity(), bucket.getDateActivity(), storedRegisters, countLogins);
+        });
+      } catch (DataAccessException e) {
+        bucket.failFlush(countLogins);
+        failedCounter.increment();
+        log.warn("DB. Activity sketch of city \"{}\" on {} was not flushed: {}",
+            bucket.getIdCity(), bucket.getDateActivity(), e.getMessage());
+      }
+    }
+
+    activityTracker.removeFlushedBefore(LocalDate.now().minusDays(1));
+  }
+
+  /**
+   * Удаляет скетчи старше срока хранения по расписанию
+   */
+  @Scheduled(cron = "${family-benefits-town.activity.purge-cron:0 15 4 * * *}")
+  public void purge() {
+
+    int countDeleted = activityJdbcRepository.deleteBefore(LocalDate.now().minusDays(retentionDays));
+    log.info("DB. Activity sketches purged: {}.", countDeleted);
+  }
+
+  /**
+   * Выгружает измененные корзины при остановке приложения, чтобы активность узла не терялась
+   */
+  @PreDestroy
+  public void flushOnShutdown() {
+    flush();
+  }
+}
@@ -0,0 +1,173 @@
+package com.example.familybenefitstown.part_res_rest_api.jobs;
+
+import com.example.familybenefitstown.dto.jdbc.AuditJdbcRepository;
+import com.example.familybenefitstown.part_auth.audit.AuditEvent;
+import com.example.familybenefitstown.part_auth.audit.AuditLog;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Задача записи событий аудита из буфера журнала в таблицу "audit_event" пакетами.
+ * Пакет записывается одной транзакцией, неудачно записанный пакет сохраняется в памяти и записывается повторно
+ * до чтения следующих событий. Задача также заранее создает месячные секции таблицы при запуске и по расписанию
+ * и сообщает о событиях в секции по умолчанию, для месяцев которых секции не созданы
+ */
+@Slf4j
+@Component
+public class AuditWriteJob {
+
+  /**
+   * Журнал событий аудита
+   */
+  private final AuditLog auditLog;
+
+  /**
+   * Репозиторий операций с таблицей "audit_event", выполняющий запросы сразу
+   */
+  private final AuditJdbcRepository auditJdbcRepository;
+
+  /**
+   * Шаблон выполнения записи пакета в транзакции
+   */
+  private final TransactionTemplate transactionTemplate;
+
+  /**
+   * Максимальное число событий в пакете
+   */
+  private final int batchSize;
+
+  /**
+   * Число месяцев, секции которых создаются заранее, включая текущий
+   */
+  private final int monthsAhead;
+
+  /**
+   * Пакет событий, ожидающий записи
+   */
+  private final List<AuditEvent> pendingEventList = new ArrayList<>();
+
+  /**
+   * Число записанных событий
+   */
+  private final Counter writtenCounter;
+
+  /**
+   * Число неудачных записей пакетов
+   */
+  private final Counter failedCounter;
+
+  /**
+   * Число неудачных созданий секций
+   */
+  private final Counter partitionFailedCounter;
+
+  /**
+   * Число событий в секции по умолчанию при последней проверке
+   */
+  private final AtomicLong countDefaultEvents = new AtomicLong();
+
+  /**
+   * Конструктор для инициализации журнала, репозитория, настроек и метрик задачи
+   * @param auditLog журнал событий аудита
+   * @param auditJdbcRepository репозиторий операций с таблицей "audit_event", выполняющий запросы сразу
+   * @param transactionTemplate шаблон выполнения записи пакета в транзакции
+   * @param meterRegistry реестр метрик
+   * @param batchSize максимальное число событий в пакете
+   * @param monthsAhead число месяцев, секции которых создаются заранее, включая текущий
+   */
+  @Autowired
+  public AuditWriteJob(AuditLog auditLog,
+                       AuditJdbcRepository auditJdbcRepository,
+                       TransactionTemplate transactionTemplate,
+                       MeterRegistry meterRegistry,
+                       @Value("${family-benefits-town.audit.batch-size:500}") int batchSize,
+                       @Value("${family-benefits-town.audit.months-ahead:6}") int monthsAhead) {
+    this.auditLog = auditLog;
+    this.auditJdbcRepository = auditJdbcRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.batchSize = batchSize;
+    this.monthsAhead = monthsAhead;
+
+    this.writtenCounter = meterRegistry.counter("audit.written");
+    this.failedCounter = meterRegistry.counter("audit.write.failed");
+    this.partitionFailedCounter = meterRegistry.counter("audit.partition.failed");
+    meterRegistry.gauge("audit.partition.default.events", countDefaultEvents);
+  }
+
+  /**
+   * Записывает накопленные события пакетами по расписанию, пока буфер не опустеет.
+   * При ошибке записи выполнение прекращается до следующего запуска, события буфера ожидают
+   */
+  @Scheduled(fixedDelayString = "${family-benefits-town.audit.write-delay-ms:1000}")
+  public synchronized void write() {
+
+    while (true) {
+      if (pendingEventList.isEmpty() && auditLog.drainTo(pendingEventList, batchSize) == 0) {
+        return;
+      }
+
+      try {
+        transactionTemplate.executeWithoutResult(status -> auditJdbcRepository.insertEvents(pendingEventList));
+      } catch (DataAccessException e) {
+        failedCounter.increment();
+        log.warn("DB. Audit batch of {} events was not written: {}", pendingEventList.size(), e.getMessage());
+        return;
+      }
+      writtenCounter.increment(pendingEventList.size());
+      pendingEventList.clear();
+    }
+  }
+
+  /**
+   * Создает отсутствующие месячные секции текущего и следующих месяцев при запуске приложения и по расписанию.
+   * События в секции по умолчанию означают, что секции их месяцев не созданы вовремя: события месяцев
+   * создаваемых секций переносятся, об оставшихся сообщается метрикой и в журнале.
+   * Ошибка создания не прерывает работу приложения и повторяется при следующем запуске
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  @Scheduled(cron = "${family-benefits-town.audit.partition-cron:0 0 3 * * *}")
+  public void createPartitions() {
+
+    try {
+      long countMoved = auditJdbcRepository.createPartitions(LocalDate.now(), monthsAhead);
+      if (countMoved > 0) {
+        log.warn("DB. Audit partitions: {} events moved out of the default partition.", countMoved);
+      }
+      log.info("DB. Audit partitions ensured for {} months.", monthsAhead);
+
+      countDefaultEvents.set(auditJdbcRepository.countDefaultEvents());
+    } catch (DataAccessException e) {
+      partitionFailedCounter.increment();
+      log.error("DB. Audit partitions were not created: {}", e.getMessage());
+      return;
+    }
+
+    if (countDefaultEvents.get() > 0) {
+      log.error("DB. Audit partitions: {} events are in the default partition outside the created months.",
+                countDefaultEvents.get());
+    }
+  }
+
+  /**
+   * Записывает накопленные события при остановке приложения, чтобы они не терялись
+   */
+  @PreDestroy
+  public void writeOnShutdown() {
+    write();
+  }
+}
@@ -0,0 +1,291 @@
+package com.example.familybenefitstown.part_res_rest_api.jobs;
+
+import com.example.familybenefitstown.dto.jdbc.BenefitNotificationJdbcRepository;
+import com.example.familybenefitstown.dto.jdbc.BenefitNotificationJdbcRepository.NewNotification;
+import com.example.familybenefitstown.dto.jdbc.BenefitNotificationJdbcRepository.PendingNotification;
+import com.example.familybenefitstown.dto.jdbc.UserJdbcRepository;
+import com.example.familybenefitstown.dto.entities.BenefitRuleEntity;
+import com.example.familybenefitstown.dto.repositories.BenefitRuleRepository;
+import com.example.familybenefitstown.part_auth.MailSenderProvider;
+import com.example.familybenefitstown.part_res_rest_api.benefits.BenefitSubject;
+import com.example.familybenefitstown.part_res_rest_api.benefits.CompiledBenefitRule;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.mail.MailException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.StringJoiner;
+import java.util.TreeSet;
+
+/**
+ * Задача уведомления пользователей об изменении положенных пособий из-за возраста детей.
+ * Раз в день находятся только дети, у которых сегодня день рождения с возрастом, на котором пособие
+ * становится или перестает быть положенным, по точным датам рождения. Для их родителей положенные пособия
+ * сравниваются со вчерашними, изменения ставятся в очередь. Очередь отправляется пакетами с паузой между сообщениями
+ */
+@Slf4j
+@Component
+public class BenefitNotificationJob {
+
+  /**
+   * Разделитель названий пособий в уведомлении
+   */
+  private static final String DELIMITER_BENEFITS = ", ";
+
+  /**
+   * Репозиторий уведомлений об изменении положенных пособий
+   */
+  private final BenefitNotificationJdbcRepository benefitNotificationJdbcRepository;
+
+  /**
+   * Репозиторий операций с таблицей "user", выполняющий запросы сразу
+   */
+  private final UserJdbcRepository userJdbcRepository;
+
+  /**
+   * Репозиторий, работающий с моделью таблицы "benefit_rule"
+   */
+  private final BenefitRuleRepository benefitRuleRepository;
+
+  /**
+   * Шаблон выполнения транзакции поиска за дату
+   */
+  private final TransactionTemplate transactionTemplate;
+
+  /**
+   * true, если задача выполняется
+   */
+  private final boolean enabled;
+
+  /**
+   * Число уведомлений, захватываемых для отправки одним запросом
+   */
+  private final int batchSize;
+
+  /**
+   * Максимальное число пакетов за один запуск отправки
+   */
+  private final int maxBatches;
+
+  /**
+   * Пауза между сообщениями в миллисекундах
+   */
+  private final long messagePauseMs;
+
+  /**
+   * Максимальное число попыток отправки уведомления
+   */
+  private final int maxAttempts;
+
+  /**
+   * Число секунд до повторной попытки отправки
+   */
+  private final long retryAfterSec;
+
+  /**
+   * Число созданных уведомлений
+   */
+  private final Counter createdCounter;
+
+  /**
+   * Число отправленных уведомлений
+   */
+  private final Counter sentCounter;
+
+  /**
+   * Число неудачных попыток отправки
+   */
+  private final Counter failedCounter;
+
+  /**
+   * Конструктор для инициализации репозиториев, настроек и метрик задачи
+   * @param benefitNotificationJdbcRepository репозиторий уведомлений об изменении положенных пособий
+   * @param userJdbcRepository репозиторий операций с таблицей "user", выполняющий запросы сразу
+   * @param benefitRuleRepository репозиторий, работающий с моделью таблицы "benefit_rule"
+   * @param transactionTemplate шаблон выполнения транзакции
+   * @param meterRegistry реестр метрик
+   * @param enabled true, если задача выполняется
+   * @param batchSize число уведомлений, захватываемых для отправки одним запросом
+   * @param maxBatches максимальное число пакетов за один запуск отправки
+   * @param messagePauseMs пауза между сообщениями в миллисекундах
+   * @param maxAttempts максимальное число попыток отправки уведомления
+   * @param retryAfterSec число секунд до повторной попытки отправки
+   */
+  @Autowired
+  public BenefitNotificationJob(BenefitNotificationJdbcRepository benefitNotificationJdbcRepository,
+                                UserJdbcRepository userJdbcRepository,
+                                BenefitRuleRepository benefitRuleRepository,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${family-benefits-town.benefit-notification.enabled:true}") boolean enabled,
+                                @Value("${family-benefits-town.benefit-notification.batch-size:100}") int batchSize,
+                                @Value("${family-benefits-town.benefit-notification.max-batches:50}") int maxBatches,
+                                @Value("${family-benefits-town.benefit-notification.message-pause-ms:100}") long messagePauseMs,
+                                @Value("${family-benefits-town.benefit-notification.max-attempts:3}") int maxAttempts,
+                                @Value("${family-benefits-town.benefit-notification.retry-after-sec:900}") long retryAfterSec) {
+    this.benefitNotificationJdbcRepository = benefitNotificationJdbcRepository;
+    this.userJdbcRepository = userJdbcRepository;
+    this.benefitRuleRepository = benefitRuleRepository;
+    this.transactionTemplate = transactionTemplate;
+    this.enabled = enabled;
+    this.batchSize = batchSize;
+    this.maxBatches = maxBatches;
+    this.messagePauseMs = messagePauseMs;
+    this.maxAttempts = maxAttempts;
+    this.retryAfterSec = retryAfterSec;
+
+    this.createdCounter = meterRegistry.counter("benefit.notification.created");
+    this.sentCounter = meterRegistry.counter("benefit.notification.sent");
+    this.failedCounter = meterRegistry.counter("benefit.notification.failed");
+  }
+
+  /**
+   * Ставит в очередь уведомления за текущую дату, если поиск за неё еще не выполнен.
+   * Запускается несколько раз в день, чтобы прерванный поиск был повторен
+   */
+  @Scheduled(cron = "${family-benefits-town.benefit-notification.enqueue-cron:0 5 * * * *}")
+  public void enqueue() {
+
+    if (!enabled) {
+      return;
+    }
+
+    LocalDate dateCurrent = LocalDate.now();
+    Integer countNotifications = transactionTemplate.execute(status -> enqueue(dateCurrent));
+    if (countNotifications != null) {
+      createdCounter.increment(countNotifications);
+      log.info("DB. Benefit notifications for {}: {} enqueued.", dateCurrent, countNotifications);
+    }
+  }
+
+  /**
+   * Отправляет очередь уведомлений пакетами, с паузой между сообщениями
+   */
+  @Scheduled(fixedDelayString = "${family-benefits-town.benefit-notification.send-delay-ms:60000}")
+  public void send() {
+
+    if (!enabled) {
+      return;
+    }
+
+    for (int numberBatch = 0; numberBatch < maxBatches; numberBatch++) {
+
+      List<PendingNotification> pendingNotificationList =
+          benefitNotificationJdbcRepository.claimUnsent(maxAttempts, retryAfterSec, batchSize);
+
+      List<String> idSentList = new ArrayList<>(pendingNotificationList.size());
+      for (PendingNotification pendingNotification : pendingNotificationList) {
+        try {
+          MailSenderProvider.sendBenefitsChanged(pendingNotification.getEmail(), pendingNotification.getNameUser(),
+                                                 pendingNotification.getBenefitsGained(), pendingNotification.getBenefitsLost());
+          idSentList.add(pendingNotification.getId());
+        } catch (MailException e) {
+          failedCounter.increment();
+          log.warn("Benefit notification \"{}\" was not sent: {}", pendingNotification.getId(), e.getMessage());
+        }
+
+        try {
+          Thread.sleep(messagePauseMs);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          break;
+        }
+      }
+
+      if (!idSentList.isEmpty()) {
+        benefitNotificationJdbcRepository.markSent(idSentList);
+        sentCounter.increment(idSentList.size());
+      }
+
+      if (pendingNotificationList.size() < batchSize || Thread.currentThread().isInterrupted()) {
+        break;
+      }
+    }
+  }
+
+  /**
+   * Находит родителей детей, у которых на дату день рождения с пороговым возрастом,
+   * сравнивает положенные им пособия на дату и на предыдущий день и создает уведомления об изменениях
+   * @param dateCurrent дата поиска
+   * @return число созданных уведомлений, или {@code null}, если поиск за дату уже выполнен
+   */
+  private Integer enqueue(LocalDate dateCurrent) {
+
+    if (!benefitNotificationJdbcRepository.startRun(dateCurrent)) {
+      return null;
+    }
+
+    // Точные даты рождения детей, достигающих порогового возраста на дату
+    Set<LocalDate> datesBirth = new TreeSet<>();
+    for (Integer ageThreshold : benefitRuleRepository.findAllAgeThresholds()) {
+      datesBirth.addAll(CompiledBenefitRule.datesBirthWithBirthday(dateCurrent, ageThreshold));
+    }
+
+    List<NewNotification> notificationList = new ArrayList<>();
+    if (!datesBirth.isEmpty()) {
+
+      LocalDate datePrevious = dateCurrent.minusDays(1);
+      Map<String, CompiledBenefitRule[][]> cityRulesMap = new HashMap<>();
+
+      for (BenefitSubject benefitSubject : userJdbcRepository.findBenefitSubjectsByChildBirth(datesBirth)) {
+
+        CompiledBenefitRule[][] cityRules = cityRulesMap.computeIfAbsent(
+            benefitSubject.getIdCity(), idCity -> compileRules(idCity, dateCurrent, datePrevious));
+        CompiledBenefitRule[] currentRules = cityRules[0];
+        CompiledBenefitRule[] previousRules = cityRules[1];
+
+        StringJoiner benefitsGained = new StringJoiner(DELIMITER_BENEFITS);
+        StringJoiner benefitsLost = new StringJoiner(DELIMITER_BENEFITS);
+        for (int index = 0; index < currentRules.length; index++) {
+          boolean isCurrent = currentRules[index].test(benefitSubject.getChildrenEpochDays());
+          boolean isPrevious = previousRules[index].test(benefitSubject.getChildrenEpochDays());
+          if (isCurrent && !isPrevious) {
+            benefitsGained.add(currentRules[index].getName());
+          } else if (!isCurrent && isPrevious) {
+            benefitsLost.add(currentRules[index].getName());
+          }
+        }
+
+        if (benefitsGained.length() > 0 || benefitsLost.length() > 0) {
+          notificationList.add(new NewNotification(
+              benefitSubject.getIdUser(),
+              benefitsGained.length() > 0 ? benefitsGained.toString() : null,
+              benefitsLost.length() > 0 ? benefitsLost.toString() : null));
+        }
+      }
+    }
+
+    benefitNotificationJdbcRepository.insertNotifications(dateCurrent, notificationList);
+    benefitNotificationJdbcRepository.finishRun(dateCurrent, notificationList.size());
+    return notificationList.size();
+  }
+
+  /**
+   * Читает правила города один раз и подготавливает их на дату и на предыдущий день
+   * @param idCity ID города
+   * @param dateCurrent дата поиска
+   * @param datePrevious предыдущий день
+   * @return правила на дату и правила на предыдущий день, в одинаковом порядке
+   */
+  private CompiledBenefitRule[][] compileRules(String idCity, LocalDate dateCurrent, LocalDate datePrevious) {
+
+    List<BenefitRuleEntity> benefitRuleEntityList = benefitRuleRepository.findAllByIdCityOrderByName(idCity);
+    CompiledBenefitRule[][] cityRules = new CompiledBenefitRule[2][benefitRuleEntityList.size()];
+    for (int index = 0; index < benefitRuleEntityList.size(); index++) {
+      cityRules[0][index] = CompiledBenefitRule.compile(benefitRuleEntityList.get(index), dateCurrent);
+      cityRules[1][index] = CompiledBenefitRule.compile(benefitRuleEntityList.get(index), datePrevious);
+    }
+    return cityRules;
+  }
+}
@@ -0,0 +1,394 @@
+package com.example.familybenefitstown.part_res_rest_api.jobs;
+
+import com.example.familybenefitstown.dto.jdbc.BenefitJdbcRepository;
+import com.example.familybenefitstown.dto.jdbc.BenefitJdbcRepository.EvaluationJob;
+import com.example.familybenefitstown.dto.jdbc.UserJdbcRepository;
+import com.example.familybenefitstown.dto.repositories.BenefitRuleRepository;
+import com.example.familybenefitstown.part_res_rest_api.benefits.BenefitEvaluator;
+import com.example.familybenefitstown.part_res_rest_api.benefits.BenefitSubject;
+import com.example.familybenefitstown.part_res_rest_api.benefits.CompiledBenefitRule;
+import com.example.familybenefitstown.part_res_rest_api.benefits.UserBenefitRefresher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.Collectors;
+
+/**
+ * Задача переоценки положенных пособий пользователей городов, правила которых изменились.
+ * Пользователи города читаются страницами по ID, страница оценивается частями параллельно в отдельном пуле
+ * ограниченного размера, чтение страницы, результаты и продвижение задачи фиксируются одной транзакцией.
+ * Прерванная задача продолжается с последней зафиксированной страницы, между страницами выдерживается пауза.
+ * <p>
+ * Раз в день пересчитываются пособия пользователей, дети которых достигли порогового возраста правил.
+ * Пропущенные дни пересчитываются вместе с текущим; если пропущено слишком много дней, переоцениваются все города
+ */
+@Slf4j
+@Component
+public class BenefitReevaluationJob {
+
+  /**
+   * Репозиторий задач переоценки и положенных пособий пользователей
+   */
+  private final BenefitJdbcRepository benefitJdbcRepository;
+
+  /**
+   * Репозиторий операций с таблицей "user", выполняющий запросы сразу
+   */
+  private final UserJdbcRepository userJdbcRepository;
+
+  /**
+   * Репозиторий, работающий с моделью таблицы "benefit_rule"
+   */
+  private final BenefitRuleRepository benefitRuleRepository;
+
+  /**
+   * Определитель положенных пособий по подготовленным правилам городов
+   */
+  private final BenefitEvaluator benefitEvaluator;
+
+  /**
+   * Пересчет сохраненных положенных пособий отдельных пользователей
+   */
+  private final UserBenefitRefresher userBenefitRefresher;
+
+  /**
+   * Шаблон выполнения транзакции записи страницы
+   */
+  private final TransactionTemplate transactionTemplate;
+
+  /**
+   * Пул оценки частей страницы
+   */
+  private final ForkJoinPool evaluationPool;
+
+  /**
+   * true, если задача выполняется
+   */
+  private final boolean enabled;
+
+  /**
+   * Число пользователей, читаемых одним запросом
+   */
+  private final int pageSize;
+
+  /**
+   * Число пользователей, оцениваемых одной частью пула
+   */
+  private final int chunkSize;
+
+  /**
+   * Пауза между страницами в миллисекундах
+   */
+  private final long pagePauseMs;
+
+  /**
+   * Число секунд без продвижения, после которого выполняемая задача считается прерванной
+   */
+  private final long staleAfterSec;
+
+  /**
+   * Максимальное число пропущенных дней учета возраста детей, пересчитываемых по датам рождения.
+   * При большем пропуске переоцениваются все города
+   */
+  private final int maxAgingDays;
+
+  /**
+   * Число оцененных пользователей
+   */
+  private final Counter evaluatedCounter;
+
+  /**
+   * Время обработки одной страницы
+   */
+  private final Timer pageTimer;
+
+  /**
+   * Конструктор для инициализации репозиториев, пула, настроек и метрик задачи
+   * @param benefitJdbcRepository репозиторий задач переоценки и положенных пособий пользователей
+   * @param userJdbcRepository репозиторий операций с таблицей "user", выполняющий запросы сразу
+   * @param benefitRuleRepository репозиторий, работающий с моделью таблицы "benefit_rule"
+   * @param benefitEvaluator определитель положенных пособий по подготовленным правилам городов
+   * @param userBenefitRefresher пересчет сохраненных положенных пособий отдельных пользователей
+   * @param transactionTemplate шаблон выполнения транзакции
+   * @param meterRegistry реестр метрик
+   * @param enabled true, если задача выполняется
+   * @param pageSize число пользователей, читаемых одним запросом
+   * @param chunkSize число пользователей, оцениваемых одной частью пула
+   * @param parallelism число потоков пула оценки
+   * @param pagePauseMs пауза между страницами в миллисекундах
+   * @param staleAfterSec число секунд без продвижения, после которого выполняемая задача считается прерванной
+   * @param maxAgingDays максимальное число пропущенных дней учета возраста детей, пересчитываемых по датам рождения
+   */
+  @Autowired
+  public BenefitReevaluationJob(BenefitJdbcRepository benefitJdbcRepository,
+                                UserJdbcRepository userJdbcRepository,
+                                BenefitRuleRepository benefitRuleRepository,
+                                BenefitEvaluator benefitEvaluator,
+                                UserBenefitRefresher userBenefitRefresher,
+                                TransactionTemplate transactionTemplate,
+                                MeterRegistry meterRegistry,
+                                @Value("${family-benefits-town.benefit-reevaluation.enabled:true}") boolean enabled,
+                                @Value("${family-benefits-town.benefit-reevaluation.page-size:2000}") int pageSize,
+                                @Value("${family-benefits-town.benefit-reevaluation.chunk-size:250}") int chunkSize,
+                                @Value("${family-benefits-town.benefit-reevaluation.parallelism:2}") int parallelism,
+                                @Value("${family-benefits-town.benefit-reevaluation.page-pause-ms:50}") long pagePauseMs,
+                                @Value("${family-benefits-town.benefit-reevaluation.stale-after-sec:300}") long staleAfterSec,
+                                @Value("${family-benefits-town.benefit-reevaluation.max-aging-days:31}") int maxAgingDays) {
+    this.benefitJdbcRepository = benefitJdbcRepository;
+    this.userJdbcRepository = userJdbcRepository;
+    this.benefitRuleRepository = benefitRuleRepository;
+    this.benefitEvaluator = benefitEvaluator;
+    this.userBenefitRefresher = userBenefitRefresher;
+    this.transactionTemplate = transactionTemplate;
+    this.evaluationPool = new ForkJoinPool(parallelism);
+    this.enabled = enabled;
+    this.pageSize = pageSize;
+    this.chunkSize = chunkSize;
+    this.pagePauseMs = pagePauseMs;
+    this.staleAfterSec = staleAfterSec;
+    this.maxAgingDays = maxAgingDays;
+
+    this.evaluatedCounter = meterRegistry.counter("benefit.reevaluation.users");
+    this.pageTimer = meterRegistry.timer("benefit.reevaluation.page");
+  }
+
+  /**
+   * Выполняет ожидающие и прерванные задачи переоценки по одной, пока они есть
+   */
+  @Scheduled(fixedDelayString = "${family-benefits-town.benefit-reevaluation.poll-delay-ms:10000}")
+  public void run() {
+
+    if (!enabled) {
+      return;
+    }
+
+    Optional<EvaluationJob> optJob = benefitJdbcRepository.claimJob(staleAfterSec);
+    while (optJob.isPresent() && !Thread.currentThread().isInterrupted()) {
+      process(optJob.get());
+      optJob = benefitJdbcRepository.claimJob(staleAfterSec);
+    }
+  }
+
+  /**
+   * Пересчитывает положенные пособия пользователей, дети которых достигли порогового возраста на текущую дату,
+   * если пересчет за неё еще не выполнен. Запускается несколько раз в день, чтобы прерванный пересчет был повторен.
+   * До пересчета за текущую дату пособия определяются по правилам при каждом чтении
+   */
+  @Scheduled(cron = "${family-benefits-town.benefit-reevaluation.aging-cron:0 1 * * * *}")
+  public void refreshAging() {
+
+    if (!enabled) {
+      return;
+    }
+
+    LocalDate dateCurrent = LocalDate.now();
+    Integer countUsers = transactionTemplate.execute(status -> refreshAging(dateCurrent));
+    if (countUsers != null) {
+      log.info("DB. Benefits of users with children of threshold age for {}: {} refreshed.", dateCurrent, countUsers);
+    }
+  }
+
+  /**
+   * Останавливает пул оценки
+   */
+  @PreDestroy
+  public void shutdown() {
+    evaluationPool.shutdownNow();
+  }
+
+  /**
+   * Обрабатывает задачу переоценки города постранично, начиная после последнего обработанного пользователя
+   * @param job захваченная задача
+   */
+  private void process(EvaluationJob job) {
+
+    log.info("DB. Benefit reevaluation of city \"{}\" (generation {}): started at {} of {} users.",
+             job.getIdCity(), job.getGeneration(), job.getCountProcessed(), job.getCountTotal());
+
+    long countProcessed = job.getCountProcessed();
+    String idUserLast = job.getIdUserLast();
+    while (true) {
+
+      String idUserAfter = idUserLast;
+      List<BenefitSubject> benefitSubjectList = pageTimer.record(
+          () -> transactionTemplate.execute(status -> evaluateAndSave(job, idUserAfter)));
+      if (benefitSubjectList == null) {
+        log.info("DB. Benefit reevaluation of city \"{}\" (generation {}): rules changed, restarting.",
+                 job.getIdCity(), job.getGeneration());
+        return;
+      }
+      if (benefitSubjectList.isEmpty()) {
+        break;
+      }
+
+      evaluatedCounter.increment(benefitSubjectList.size());
+      countProcessed += benefitSubjectList.size();
+      idUserLast = benefitSubjectList.get(benefitSubjectList.size() - 1).getIdUser();
+      log.debug("DB. Benefit reevaluation of city \"{}\": {} of {} users.", job.getIdCity(), countProcessed, job.getCountTotal());
+
+      if (benefitSubjectList.size() < pageSize) {
+        break;
+      }
+
+      try {
+        Thread.sleep(pagePauseMs);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+    }
+
+    if (benefitJdbcRepository.finishJob(job)) {
+      log.info("DB. Benefit reevaluation of city \"{}\" (generation {}): {} users done.",
+               job.getIdCity(), job.getGeneration(), countProcessed);
+    }
+  }
+
+  /**
+   * Читает страницу пользователей, оценивает её по правилам города, прочитанным в этой же транзакции
+   * и подготовленным на текущую дату, и записывает результаты. Должен вызываться внутри транзакции: пользователи страницы блокируются от изменения
+   * до записи результатов, поэтому результаты не заменяют пособия, пересчитанные при сохранении пользователя
+   * @param job задача переоценки
+   * @param idUserAfter ID пользователя, после которого начинается страница, или {@code null} для первой страницы
+   * @return страница пользователей в порядке ID, пустая, если пользователи закончились,
+   * или {@code null}, если поколение задачи устарело и результаты не записаны
+   */
+  private List<BenefitSubject> evaluateAndSave(EvaluationJob job, String idUserAfter) {
+
+    List<BenefitSubject> benefitSubjectList = userJdbcRepository.findBenefitSubjectPage(job.getIdCity(), idUserAfter, pageSize);
+    if (benefitSubjectList.isEmpty()) {
+      return benefitSubjectList;
+    }
+
+    // Правила читаются в транзакции страницы: изменение правил, зафиксированное после чтения,
+    // меняет поколение задачи, и запись страницы отклоняется
+    CompiledBenefitRule[] compiledRules = benefitEvaluator.readRules(job.getIdCity());
+    UserBenefits userBenefits = evaluationPool.invoke(
+        new EvaluationTask(benefitSubjectList, 0, benefitSubjectList.size(), compiledRules, chunkSize));
+
+    List<String> idUserPageList = benefitSubjectList
+        .stream()
+        .map(BenefitSubject::getIdUser)
+        .collect(Collectors.toList());
+
+    boolean isSaved = benefitJdbcRepository.savePage(
+        job, idUserPageList, userBenefits.idUserList, userBenefits.idBenefitRuleList);
+    return isSaved ? benefitSubjectList : null;
+  }
+
+  /**
+   * Пересчитывает положенные пособия пользователей, дети которых достигли порогового возраста
+   * в дни после последнего пересчета по указанную дату. Если пересчет еще не выполнялся, пересчитывается только
+   * указанная дата: пособия всех пользователей рассчитаны переоценкой городов
+   * @param dateCurrent дата пересчета
+   * @return число пользователей, пособия которых пересчитаны, или {@code null}, если пересчет за дату уже выполнен
+   */
+  private Integer refreshAging(LocalDate dateCurrent) {
+
+    if (!benefitJdbcRepository.startAgingRun(dateCurrent)) {
+      return null;
+    }
+
+    LocalDate dateLast = benefitJdbcRepository.findLastAgingRun(dateCurrent).orElse(dateCurrent.minusDays(1));
+    if (ChronoUnit.DAYS.between(dateLast, dateCurrent) > maxAgingDays) {
+      log.info("DB. Benefit aging was not refreshed since {}, reevaluating all cities.", dateLast);
+      benefitJdbcRepository.requestEvaluationOfAll();
+      benefitJdbcRepository.finishAgingRun(dateCurrent, 0);
+      return 0;
+    }
+
+    // Точные даты рождения детей, достигших порогового возраста в пропущенные дни и на текущую дату
+    List<Integer> ageThresholdList = benefitRuleRepository.findAllAgeThresholds();
+    Set<LocalDate> datesBirth = new TreeSet<>();
+    for (LocalDate dateBirthday = dateLast.plusDays(1); !dateBirthday.isAfter(dateCurrent); dateBirthday = dateBirthday.plusDays(1)) {
+      for (Integer ageThreshold : ageThresholdList) {
+        datesBirth.addAll(CompiledBenefitRule.datesBirthWithBirthday(dateBirthday, ageThreshold));
+      }
+    }
+
+    List<BenefitSubject> benefitSubjectList = datesBirth.isEmpty()
+        ? List.of()
+        : userJdbcRepository.findBenefitSubjectsByChildBirth(datesBirth);
+    userBenefitRefresher.refresh(benefitSubjectList);
+    benefitJdbcRepository.finishAgingRun(dateCurrent, benefitSubjectList.size());
+    return benefitSubjectList.size();
+  }
+
+  /**
+   * Положенные пособия пользователей: пары ID пользователя и ID правила пособия в двух списках
+   */
+  private static class UserBenefits {
+
+    private final List<String> idUserList = new ArrayList<>();
+    private final List<String> idBenefitRuleList = new ArrayList<>();
+
+    private UserBenefits append(UserBenefits userBenefits) {
+      idUserList.addAll(userBenefits.idUserList);
+      idBenefitRuleList.addAll(userBenefits.idBenefitRuleList);
+      return this;
+    }
+  }
+
+  /**
+   * Оценка части страницы пользователей. Часть больше указанного размера делится пополам и оценивается параллельно
+   */
+  private static class EvaluationTask extends RecursiveTask<UserBenefits> {
+
+    private final List<BenefitSubject> benefitSubjectList;
+    private final int indexFrom;
+    private final int indexTo;
+    private final CompiledBenefitRule[] compiledRules;
+    private final int chunkSize;
+
+    private EvaluationTask(List<BenefitSubject> benefitSubjectList, int indexFrom, int indexTo,
+                           CompiledBenefitRule[] compiledRules, int chunkSize) {
+      this.benefitSubjectList = benefitSubjectList;
+      this.indexFrom = indexFrom;
+      this.indexTo = indexTo;
+      this.compiledRules = compiledRules;
+      this.chunkSize = chunkSize;
+    }
+
+    @Override
+    protected UserBenefits compute() {
+
+      if (indexTo - indexFrom > chunkSize) {
+        int indexMiddle = (indexFrom + indexTo) >>> 1;
+        EvaluationTask taskLeft = new EvaluationTask(benefitSubjectList, indexFrom, indexMiddle, compiledRules, chunkSize);
+        EvaluationTask taskRight = new EvaluationTask(benefitSubjectList, indexMiddle, indexTo, compiledRules, chunkSize);
+        taskLeft.fork();
+        UserBenefits userBenefitsRight = taskRight.compute();
+        return taskLeft.join().append(userBenefitsRight);
+      }
+
+      UserBenefits userBenefits = new UserBenefits();
+      for (int index = indexFrom; index < indexTo; index++) {
+        BenefitSubject benefitSubject = benefitSubjectList.get(index);
+        for (CompiledBenefitRule compiledRule : compiledRules) {
+          if (compiledRule.test(benefitSubject.getChildrenEpochDays())) {
+            userBenefits.idUserList.add(benefitSubject.getIdUser());
+            userBenefits.idBenefitRuleList.add(compiledRule.getId());
+          }
+        }
+      }
+      return userBenefits;
+    }
+  }
+}
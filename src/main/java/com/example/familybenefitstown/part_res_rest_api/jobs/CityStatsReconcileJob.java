@@ -0,0 +1,99 @@
+package com.example.familybenefitstown.part_res_rest_api.jobs;
+
+import com.example.familybenefitstown.dto.jdbc.CityStatsJdbcRepository;
+import com.example.familybenefitstown.part_res_rest_api.cache.CityStatsCache;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Задача ночной сверки счетчиков семей и детей городов с таблицей "user".
+ * Счетчики изменяются вместе с пользователями, сверка исправляет расхождения от изменений в обход сервисов.
+ * На время пересчета изменения счетчиков, но не чтение статистики, ожидают его окончания
+ */
+@Slf4j
+@Component
+public class CityStatsReconcileJob {
+
+  /**
+   * Репозиторий операций со счетчиками семей и детей городов, выполняющий запросы сразу
+   */
+  private final CityStatsJdbcRepository cityStatsJdbcRepository;
+
+  /**
+   * Кэш статистики семей и детей городов
+   */
+  private final CityStatsCache cityStatsCache;
+
+  /**
+   * Шаблон выполнения пересчета в транзакции
+   */
+  private final TransactionTemplate transactionTemplate;
+
+  /**
+   * Выполняется ли задача
+   */
+  private final boolean enabled;
+
+  /**
+   * Число городов, счетчики которых отличались от пересчитанных
+   */
+  private final Counter driftedCounter;
+
+  /**
+   * Время пересчета
+   */
+  private final Timer reconcileTimer;
+
+  /**
+   * Конструктор для инициализации репозитория, кэша, настроек и метрик задачи
+   * @param cityStatsJdbcRepository репозиторий операций со счетчиками семей и детей городов, выполняющий запросы сразу
+   * @param cityStatsCache кэш статистики семей и детей городов
+   * @param transactionTemplate шаблон выполнения пересчета в транзакции
+   * @param meterRegistry реестр метрик
+   * @param enabled выполняется ли задача
+   */
+  @Autowired
+  public CityStatsReconcileJob(CityStatsJdbcRepository cityStatsJdbcRepository,
+                               CityStatsCache cityStatsCache,
+                               TransactionTemplate transactionTemplate,
+                               MeterRegistry meterRegistry,
+                               @Value("${family-benefits-town.city-stats.reconcile-enabled:true}") boolean enabled) {
+    this.cityStatsJdbcRepository = cityStatsJdbcRepository;
+    this.cityStatsCache = cityStatsCache;
+    this.transactionTemplate = transactionTemplate;
+    this.enabled = enabled;
+
+    this.driftedCounter = meterRegistry.counter("city.stats.drifted");
+    this.reconcileTimer = meterRegistry.timer("city.stats.reconcile");
+  }
+
+  /**
+   * Пересчитывает счетчики всех городов по расписанию
+   */
+  @Scheduled(cron = "${family-benefits-town.city-stats.reconcile-cron:0 0 4 * * *}")
+  public void run() {
+
+    if (!enabled) {
+      return;
+    }
+
+    Long countDrifted = reconcileTimer.record(() -> transactionTemplate.execute(
+        status -> cityStatsJdbcRepository.rebuild()));
+    long countCorrected = countDrifted != null ? countDrifted : 0;
+    driftedCounter.increment(countCorrected);
+    cityStatsCache.invalidateAll();
+
+    if (countCorrected > 0) {
+      log.warn("DB. City stats reconciled: {} cities corrected.", countCorrected);
+    } else {
+      log.info("DB. City stats reconciled: no drift.");
+    }
+  }
+}
@@ -0,0 +1,51 @@
+package com.example.familybenefitstown.part_res_rest_api.jobs;
+
+import com.example.familybenefitstown.dto.jdbc.UserJdbcRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Component;
+
+/**
+ * Пересоздает профили пользователей в таблице "user_profile_view" при запуске приложения
+ * с параметром {@code --rebuild-user-profiles}. Используется после изменения данных в обход приложения
+ */
+@Slf4j
+@Component
+public class UserProfileRebuildRunner implements ApplicationRunner {
+
+  /**
+   * Параметр запуска, включающий пересоздание профилей
+   */
+  private static final String OPTION_REBUILD = "rebuild-user-profiles";
+
+  /**
+   * Репозиторий операций с таблицей "user", выполняющий запросы сразу
+   */
+  private final UserJdbcRepository userJdbcRepository;
+
+  /**
+   * Конструктор для инициализации репозитория
+   * @param userJdbcRepository репозиторий операций с таблицей "user", выполняющий запросы сразу
+   */
+  @Autowired
+  public UserProfileRebuildRunner(UserJdbcRepository userJdbcRepository) {
+    this.userJdbcRepository = userJdbcRepository;
+  }
+
+  /**
+   * Пересоздает профили пользователей, если указан параметр запуска {@link #OPTION_REBUILD}
+   * @param args параметры запуска приложения
+   */
+  @Override
+  public void run(ApplicationArguments args) {
+
+    if (!args.containsOption(OPTION_REBUILD)) {
+      return;
+    }
+
+    long countProfiles = userJdbcRepository.rebuildProfiles();
+    log.info("DB. User profiles rebuilt: {} profiles.", countProfiles);
+  }
+}
@@ -0,0 +1,201 @@
+package com.example.familybenefitstown.part_res_rest_api.jobs;
+
+import com.example.familybenefitstown.dto.jdbc.UserJdbcRepository;
+import com.example.familybenefitstown.part_res_rest_api.cache.UserInfoCache;
+import com.example.familybenefitstown.resources.RDB;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Задача удаления пользователей без ролей, ни разу не входивших в систему и давно неактивных.
+ * Загруженные администратором пользователи, ни разу не входившие в систему, удаляются как неактивные с даты загрузки.
+ * Пользователи удаляются небольшими пакетами, каждый пакет - отдельной транзакцией с паузой между пакетами,
+ * строки, заблокированные другими транзакциями, пропускаются. Администраторы не удаляются
+ */
+@Slf4j
+@Component
+public class UserPurgeJob {
+
+  /**
+   * Режим работы задачи
+   */
+  public enum Mode {
+
+    /**
+     * Задача не выполняется
+     */
+    OFF,
+
+    /**
+     * Обновляется только метрика числа пользователей, подлежащих удалению
+     */
+    METRICS,
+
+    /**
+     * Обновляется метрика, в журнал записываются ID первого пакета пользователей, подлежащих удалению
+     */
+    DRY_RUN,
+
+    /**
+     * Обновляется метрика, пользователи удаляются
+     */
+    PURGE
+  }
+
+  /**
+   * ID ролей, пользователи с которыми не удаляются
+   */
+  private static final List<String> ID_PROTECTED_ROLE_LIST = List.of(RDB.ID_ROLE_ADMIN, RDB.ID_ROLE_SUPER_ADMIN);
+
+  /**
+   * Репозиторий операций с таблицей "user", выполняющий запросы сразу
+   */
+  private final UserJdbcRepository userJdbcRepository;
+
+  /**
+   * Кэш информации о пользователях
+   */
+  private final UserInfoCache userInfoCache;
+
+  /**
+   * Режим работы задачи
+   */
+  private final Mode mode;
+
+  /**
+   * Число пользователей, удаляемых одним запросом
+   */
+  private final int batchSize;
+
+  /**
+   * Пауза между пакетами в миллисекундах
+   */
+  private final long batchPauseMs;
+
+  /**
+   * Максимальное число пакетов за один запуск
+   */
+  private final int maxBatches;
+
+  /**
+   * Число дней с регистрации, после которого удаляется ни разу не входивший зарегистрировавшийся пользователь
+   */
+  private final int neverActiveDays;
+
+  /**
+   * Число дней без активности или с загрузки, после которого удаляется пользователь
+   */
+  private final int inactiveDays;
+
+  /**
+   * Число пользователей, подлежащих удалению, на момент последнего запуска
+   */
+  private final AtomicLong countCandidates = new AtomicLong();
+
+  /**
+   * Число удаленных пользователей
+   */
+  private final Counter deletedCounter;
+
+  /**
+   * Время удаления одного пакета
+   */
+  private final Timer batchTimer;
+
+  /**
+   * Конструктор для инициализации репозитория, кэша, настроек и метрик задачи
+   * @param userJdbcRepository репозиторий операций с таблицей "user", выполняющий запросы сразу
+   * @param userInfoCache кэш информации о пользователях
+   * @param meterRegistry реестр метрик
+   * @param mode режим работы задачи
+   * @param batchSize число пользователей, удаляемых одним запросом
+   * @param batchPauseMs пауза между пакетами в миллисекундах
+   * @param maxBatches максимальное число пакетов за один запуск
+   * @param neverActiveDays число дней с регистрации, после которого удаляется ни разу не входивший зарегистрировавшийся пользователь
+   * @param inactiveDays число дней без активности или с загрузки, после которого удаляется пользователь
+   */
+  @Autowired
+  public UserPurgeJob(UserJdbcRepository userJdbcRepository,
+                      UserInfoCache userInfoCache,
+                      MeterRegistry meterRegistry,
+                      @Value("${family-benefits-town.user-purge.mode:METRICS}") Mode mode,
+                      @Value("${family-benefits-town.user-purge.batch-size:500}") int batchSize,
+                      @Value("${family-benefits-town.user-purge.batch-pause-ms:200}") long batchPauseMs,
+                      @Value("${family-benefits-town.user-purge.max-batches:1000}") int maxBatches,
+                      @Value("${family-benefits-town.user-purge.never-active-days:30}") int neverActiveDays,
+                      @Value("${family-benefits-town.user-purge.inactive-days:1095}") int inactiveDays) {
+    this.userJdbcRepository = userJdbcRepository;
+    this.userInfoCache = userInfoCache;
+    this.mode = mode;
+    this.batchSize = batchSize;
+    this.batchPauseMs = batchPauseMs;
+    this.maxBatches = maxBatches;
+    this.neverActiveDays = neverActiveDays;
+    this.inactiveDays = inactiveDays;
+
+    meterRegistry.gauge("user.purge.candidates", countCandidates);
+    this.deletedCounter = meterRegistry.counter("user.purge.deleted");
+    this.batchTimer = meterRegistry.timer("user.purge.batch");
+  }
+
+  /**
+   * Запускает задачу по расписанию в соответствии с режимом работы
+   */
+  @Scheduled(cron = "${family-benefits-town.user-purge.cron:0 30 3 * * *}")
+  public void run() {
+
+    if (mode == Mode.OFF) {
+      return;
+    }
+
+    countCandidates.set(userJdbcRepository.countPurgeCandidates(ID_PROTECTED_ROLE_LIST, neverActiveDays, inactiveDays));
+    log.info("DB. User purge ({}): {} users to delete.", mode, countCandidates.get());
+
+    if (mode == Mode.DRY_RUN) {
+      log.info("DB. User purge ({}): first batch {}.", mode, userJdbcRepository.findPurgeCandidates(
+          ID_PROTECTED_ROLE_LIST, neverActiveDays, inactiveDays, batchSize));
+    } else if (mode == Mode.PURGE) {
+      purge();
+    }
+  }
+
+  /**
+   * Удаляет пользователей пакетами, пока пакеты заполнены и не превышено число пакетов за запуск
+   */
+  private void purge() {
+
+    long countDeleted = 0;
+    for (int numberBatch = 0; numberBatch < maxBatches; numberBatch++) {
+
+      List<String> idDeletedList = batchTimer.record(() -> userJdbcRepository.purgeBatch(
+          ID_PROTECTED_ROLE_LIST, neverActiveDays, inactiveDays, batchSize));
+      idDeletedList.forEach(userInfoCache::invalidateAfterCommit);
+      deletedCounter.increment(idDeletedList.size());
+      countDeleted += idDeletedList.size();
+
+      if (idDeletedList.size() < batchSize) {
+        break;
+      }
+
+      try {
+        Thread.sleep(batchPauseMs);
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+
+    long countPurged = countDeleted;
+    countCandidates.updateAndGet(count -> Math.max(0, count - countPurged));
+    log.info("DB. User purge ({}): {} users deleted.", mode, countPurged);
+  }
+}
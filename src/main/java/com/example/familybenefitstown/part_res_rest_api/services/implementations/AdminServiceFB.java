@@ -1,21 +1,49 @@
 package com.example.familybenefitstown.part_res_rest_api.services.implementations;
 
+import com.example.familybenefitstown.part_res_rest_api.api_models.admin.ActivityInfo;
 import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AdminInfo;
 import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AdminSave;
+import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AudienceCount;
+import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AudienceFilter;
+import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AuditEventInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.common.ObjectShortInfo;
+import com.example.familybenefitstown.part_res_rest_api.audience.AudienceQuery;
+import com.example.familybenefitstown.part_res_rest_api.cache.UserInfoCache;
 import com.example.familybenefitstown.part_res_rest_api.converters.AdminDBConverter;
 import com.example.familybenefitstown.dto.entities.UserEntity;
+import com.example.familybenefitstown.dto.jdbc.ActivityJdbcRepository;
+import com.example.familybenefitstown.dto.jdbc.AudienceJdbcRepository;
+import com.example.familybenefitstown.dto.jdbc.AuditJdbcRepository;
+import com.example.familybenefitstown.dto.jdbc.UserJdbcRepository;
 import com.example.familybenefitstown.dto.repositories.RoleRepository;
 import com.example.familybenefitstown.dto.repositories.UserRepository;
 import com.example.familybenefitstown.exceptions.AlreadyExistsException;
+import com.example.familybenefitstown.exceptions.DateFormatException;
 import com.example.familybenefitstown.exceptions.InvalidEmailException;
+import com.example.familybenefitstown.exceptions.InvalidFilterException;
+import com.example.familybenefitstown.exceptions.InvalidRangeException;
 import com.example.familybenefitstown.exceptions.InvalidStringException;
 import com.example.familybenefitstown.exceptions.NotFoundException;
+import com.example.familybenefitstown.part_auth.activity.ActivityTracker;
+import com.example.familybenefitstown.part_auth.activity.HyperLogLog;
 import com.example.familybenefitstown.part_res_rest_api.services.interfaces.AdminService;
 import com.example.familybenefitstown.security.DBSecuritySupport;
+import com.example.familybenefitstown.security.DateTimeSupport;
 import com.example.familybenefitstown.security.MailSecuritySupport;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
 
 /**
  * Реализация сервиса, управляющего объектом "администратор"
@@ -24,6 +52,21 @@ import org.springframework.stereotype.Service;
 @Service
 public class AdminServiceFB implements AdminService {
 
+  /**
+   * Число дней недели активности
+   */
+  private static final int DAYS_WEEK = 7;
+
+  /**
+   * Число дней месяца активности
+   */
+  private static final int DAYS_MONTH = 30;
+
+  /**
+   * Число дней периода событий аудита по умолчанию
+   */
+  private static final int DAYS_AUDIT_DEFAULT = 30;
+
   /**
    * Репозиторий, работающий с моделью таблицы "user"
    */
@@ -34,34 +77,118 @@ public class AdminServiceFB implements AdminService {
    */
   private final RoleRepository roleRepository;
 
+  /**
+   * Кэш информации о пользователях
+   */
+  private final UserInfoCache userInfoCache;
+
+  /**
+   * Репозиторий операций с таблицей "user", выполняющий запросы сразу
+   */
+  private final UserJdbcRepository userJdbcRepository;
+
+  /**
+   * Репозиторий операций с таблицей "activity_sketch", выполняющий запросы сразу
+   */
+  private final ActivityJdbcRepository activityJdbcRepository;
+
+  /**
+   * Учет активных пользователей и входов в памяти узла
+   */
+  private final ActivityTracker activityTracker;
+
+  /**
+   * Репозиторий операций с таблицей "audit_event", выполняющий запросы сразу
+   */
+  private final AuditJdbcRepository auditJdbcRepository;
+
+  /**
+   * Репозиторий выборки аудитории семей, выполняющий запросы сразу
+   */
+  private final AudienceJdbcRepository audienceJdbcRepository;
+
   /**
    * Конструктор для инициализации интерфейсов репозиториев и сервисов
    * @param userRepository репозиторий, работающий с моделью таблицы "user"
    * @param roleRepository репозиторий, работающий с моделью таблицы "role"
+   * @param userInfoCache кэш информации о пользователях
+   * @param userJdbcRepository репозиторий операций с таблицей "user", выполняющий запросы сразу
+   * @param activityJdbcRepository репозиторий операций с таблицей "activity_sketch", выполняющий запросы сразу
+   * @param activityTracker учет активных пользователей и входов в памяти узла
+   * @param auditJdbcRepository репозиторий операций с таблицей "audit_event", выполняющий запросы сразу
+   * @param audienceJdbcRepository репозиторий выборки аудитории семей, выполняющий запросы сразу
    */
   @Autowired
   public AdminServiceFB(UserRepository userRepository,
-                        RoleRepository roleRepository) {
+                        RoleRepository roleRepository,
+                        UserInfoCache userInfoCache,
+                        UserJdbcRepository userJdbcRepository,
+                        ActivityJdbcRepository activityJdbcRepository,
+                        ActivityTracker activityTracker,
+                        AuditJdbcRepository auditJdbcRepository,
+                        AudienceJdbcRepository audienceJdbcRepository) {
     this.userRepository = userRepository;
     this.roleRepository = roleRepository;
+    this.userInfoCache = userInfoCache;
+    this.userJdbcRepository = userJdbcRepository;
+    this.activityJdbcRepository = activityJdbcRepository;
+    this.activityTracker = activityTracker;
+    this.auditJdbcRepository = auditJdbcRepository;
+    this.audienceJdbcRepository = audienceJdbcRepository;
   }
 
   /**
-   * Возвращает администратора об учреждении по его ID
+   * Возвращает администратора об учреждении по его ID.
+   * Информация берется из кэша для текущей версии администратора, иначе собирается из бд и сохраняется в кэш
    * @param idAdmin ID администратора
    * @return информация об администраторе
    * @throws NotFoundException если администратор с данным ID не найден
    */
   @Override
   public AdminInfo read(String idAdmin) throws NotFoundException {
+    return read(idAdmin, getVersionTag(idAdmin));
+  }
+
+  /**
+   * Возвращает администратора по его ID не старше указанной версии.
+   * Информация берется из кэша, только если она прочитана на указанной версии, иначе собирается из бд
+   * и сохраняется в кэш с указанной версией
+   * @param idAdmin ID администратора
+   * @param versionTag тег версии администратора, прочитанный до вызова
+   * @return информация об администраторе
+   * @throws NotFoundException если администратор с данным ID не найден
+   */
+  @Override
+  public AdminInfo read(String idAdmin, String versionTag) throws NotFoundException {
 
     String preparedIdAdmin = DBSecuritySupport.preparePostgreSQLString(idAdmin);
+    AdminInfo cachedAdminInfo = userInfoCache.getAdmin(preparedIdAdmin, versionTag);
+    if (cachedAdminInfo != null) {
+      return cachedAdminInfo;
+    }
 
     // Получение администратора по его ID, если администратор существует
     UserEntity userEntityFromRequest = userRepository.findById(preparedIdAdmin).orElseThrow(
         () -> new NotFoundException(String.format("Administrator with ID \"%s\" not found", idAdmin)));
 
-    return AdminDBConverter.toInfo(userEntityFromRequest, roleRepository.findAllByIdUser(preparedIdAdmin));
+    AdminInfo adminInfo = AdminDBConverter.toInfo(userEntityFromRequest, roleRepository.findAllByIdUser(preparedIdAdmin));
+    userInfoCache.putAdmin(preparedIdAdmin, versionTag, adminInfo);
+    return adminInfo;
+  }
+
+  /**
+   * Возвращает тег версии администратора по его ID, учитывающий роли администратора.
+   * Для проверки актуальности загружается только версия
+   * @param idAdmin ID администратора
+   * @return тег версии администратора
+   * @throws NotFoundException если администратор с данным ID не найден
+   */
+  @Override
+  public String getVersionTag(String idAdmin) throws NotFoundException {
+
+    String preparedIdAdmin = DBSecuritySupport.preparePostgreSQLString(idAdmin);
+    return "admin-" + userRepository.findVersionById(preparedIdAdmin).orElseThrow(
+        () -> new NotFoundException(String.format("Administrator with ID \"%s\" not found", idAdmin)));
   }
 
   /**
@@ -74,6 +201,7 @@ public class AdminServiceFB implements AdminService {
    * @throws InvalidStringException если строковое поле объекта запроса не содержит букв или цифр
    */
   @Override
+  @Transactional(rollbackFor = Exception.class)
   public void update(String idAdmin, AdminSave adminSave) throws NotFoundException, InvalidEmailException, AlreadyExistsException, InvalidStringException {
 
     // Проверка строки email на соответствие формату email
@@ -84,10 +212,6 @@ public class AdminServiceFB implements AdminService {
         .fromSave(idAdmin, adminSave, DBSecuritySupport::preparePostgreSQLString);
     String preparedIdAdmin = userEntityFromSave.getId();
 
-    // Проверка отсутствия пользователя с отличным от данного ID и данным email
-    DBSecuritySupport.checkAbsenceAnotherByUniqStr(
-        userRepository::existsByIdIsNotAndEmail, preparedIdAdmin, userEntityFromSave.getEmail());
-
     // Получение администратора по его ID, если администратора существует
     UserEntity userEntityFromDB = userRepository.findById(preparedIdAdmin).orElseThrow(
         () -> new NotFoundException(String.format("Administrator with ID \"%s\" not found", userEntityFromSave.getId())));
@@ -95,8 +219,192 @@ public class AdminServiceFB implements AdminService {
     userEntityFromDB.setEmail(userEntityFromSave.getEmail());
     userEntityFromDB.setName(userEntityFromSave.getName());
 
-    userRepository.save(userEntityFromDB);
+    // Сохранение администратора. Отсутствие пользователя с отличным ID и данным email проверяется ограничением бд
+    DBSecuritySupport.saveCheckUniqStr(
+        () -> userRepository.saveAndFlush(userEntityFromDB),
+        UserJdbcRepository.CONSTRAINT_UNIQ_EMAIL, userEntityFromDB.getEmail());
+    userJdbcRepository.refreshProfile(preparedIdAdmin);
+    userInfoCache.invalidateAfterCommit(preparedIdAdmin);
     log.info("DB. Administrator with ID \"{}\" updated.", idAdmin);
   }
-}
 
+  /**
+   * Возвращает страницу кратких информаций о пользователях и администраторах, упорядоченных по ID.
+   * В качестве параметров фильтрации может быть указан {@code null}, если данный параметр не участвует в фильтрации
+   * @param substring подстрока имени или email без учета регистра
+   * @param nameRole название роли
+   * @param idCity ID города
+   * @param idAfter ID последнего пользователя предыдущей страницы
+   * @param limit размер страницы
+   * @return список кратких информаций о пользователях
+   */
+  @Override
+  public List<ObjectShortInfo> searchUsers(String substring, String nameRole, String idCity, String idAfter, int limit) {
+
+    return userJdbcRepository.findShortInfoPage(
+        substring == null || substring.isBlank() ? null : substring.strip(), nameRole, idCity, idAfter, limit);
+  }
+
+  /**
+   * Возвращает приближенное число активных пользователей и число входов за день, неделю и месяц,
+   * заканчивающиеся датой. Оценка объединяет скетчи всех узлов из бд и невыгруженные корзины текущего узла
+   * @param idCity ID города, {@code null} - все пользователи
+   * @param date последняя дата периодов в формате "dd.mm.yyyy", {@code null} - текущая дата
+   * @return информация об активности пользователей
+   * @throws DateFormatException если дата не соответствует формату "dd.mm.yyyy"
+   */
+  @Override
+  public ActivityInfo readActivity(String idCity, String date) throws DateFormatException {
+
+    LocalDate dateTo = date != null ? DateTimeSupport.strToDate(date) : LocalDate.now();
+    LocalDate dateFrom = dateTo.minusDays(DAYS_MONTH - 1);
+    String idCityKey = idCity != null ? DBSecuritySupport.preparePostgreSQLString(idCity) : ActivityTracker.ID_CITY_ALL;
+
+    // Регистры и входы по дням, номер дня - число дней до последней даты
+    byte[][] registersOfDays = new byte[DAYS_MONTH][HyperLogLog.COUNT_REGISTERS];
+    long[] countLoginsOfDays = new long[DAYS_MONTH];
+
+    for (ActivityJdbcRepository.StoredSketch storedSketch : activityJdbcRepository.findSketches(idCityKey, dateFrom, dateTo)) {
+      int numberDay = (int) ChronoUnit.DAYS.between(storedSketch.getDateActivity(), dateTo);
+      HyperLogLog.mergeInto(registersOfDays[numberDay], storedSketch.getRegisters());
+      countLoginsOfDays[numberDay] += storedSketch.getCountLogins();
+    }
+    for (int numberDay = 0; numberDay < DAYS_MONTH; numberDay++) {
+      ActivityTracker.Bucket bucket = activityTracker.findBucket(dateTo.minusDays(numberDay), idCityKey);
+      if (bucket != null) {
+        HyperLogLog.mergeInto(registersOfDays[numberDay], bucket.getActiveRegisters());
+        countLoginsOfDays[numberDay] += bucket.getCountLoginsUnflushed();
+      }
+    }
+
+    return ActivityInfo
+        .builder()
+        .countActiveDay(estimateActive(registersOfDays, 1))
+        .countActiveWeek(estimateActive(registersOfDays, DAYS_WEEK))
+        .countActiveMonth(estimateActive(registersOfDays, DAYS_MONTH))
+        .countLoginsDay(sumLogins(countLoginsOfDays, 1))
+        .countLoginsWeek(sumLogins(countLoginsOfDays, DAYS_WEEK))
+        .countLoginsMonth(sumLogins(countLoginsOfDays, DAYS_MONTH))
+        .build();
+  }
+
+  /**
+   * Возвращает страницу событий аудита за период, упорядоченных от новых записей к старым.
+   * События, ожидающие записи в буфере журнала, не возвращаются
+   * @param idUser ID пользователя, {@code null} - все пользователи
+   * @param type тип события, {@code null} - все типы
+   * @param dateFrom первая дата периода в формате "dd.mm.yyyy", {@code null} - за 30 дней до последней даты
+   * @param dateTo последняя дата периода в формате "dd.mm.yyyy", {@code null} - текущая дата
+   * @param idBefore ID последней записи предыдущей страницы
+   * @param limit размер страницы
+   * @return список информаций о событиях
+   * @throws DateFormatException если дата не соответствует формату "dd.mm.yyyy"
+   */
+  @Override
+  public List<AuditEventInfo> readAudit(String idUser, String type, String dateFrom, String dateTo, Long idBefore, int limit)
+      throws DateFormatException {
+
+    // Период ограничивает просматриваемые месячные секции таблицы
+    LocalDate dateLast = dateTo != null ? DateTimeSupport.strToDate(dateTo) : LocalDate.now();
+    LocalDate dateFirst = dateFrom != null ? DateTimeSupport.strToDate(dateFrom) : dateLast.minusDays(DAYS_AUDIT_DEFAULT);
+
+    return auditJdbcRepository.findEventPage(
+        dateFirst, dateLast,
+        idUser != null ? DBSecuritySupport.preparePostgreSQLString(idUser) : null,
+        type, idBefore, limit);
+  }
+
+  /**
+   * Подготавливает фильтр аудитории семей на текущую дату в условие SQL запроса
+   * @param audienceFilter корневое условие фильтра
+   * @return подготовленный фильтр
+   * @throws InvalidFilterException если тип условия не указан, у условия нет необходимых полей или превышены размеры фильтра
+   * @throws InvalidRangeException если возраст или число детей отрицательные, или начало диапазона больше его конца
+   * @throws DateFormatException если дата рождения ребенка не соответствует формату "dd.mm.yyyy"
+   */
+  @Override
+  public AudienceQuery compileAudience(AudienceFilter audienceFilter)
+      throws InvalidFilterException, InvalidRangeException, DateFormatException {
+
+    return AudienceQuery.compile(audienceFilter, LocalDate.now());
+  }
+
+  /**
+   * Возвращает число семей, подходящих под фильтр аудитории
+   * @param audienceFilter корневое условие фильтра
+   * @return число подходящих семей
+   * @throws InvalidFilterException если тип условия не указан, у условия нет необходимых полей или превышены размеры фильтра
+   * @throws InvalidRangeException если возраст или число детей отрицательные, или начало диапазона больше его конца
+   * @throws DateFormatException если дата рождения ребенка не соответствует формату "dd.mm.yyyy"
+   */
+  @Override
+  public AudienceCount countAudience(AudienceFilter audienceFilter)
+      throws InvalidFilterException, InvalidRangeException, DateFormatException {
+
+    return AudienceCount
+        .builder()
+        .countFamilies(audienceJdbcRepository.count(compileAudience(audienceFilter)))
+        .build();
+  }
+
+  /**
+   * Записывает в поток ID семей, подходящих под подготовленный фильтр, по возрастанию, по одному в строке,
+   * по мере чтения из бд. ID читаются курсором внутри транзакции только для чтения, без накопления результата в памяти
+   * @param audienceQuery подготовленный фильтр аудитории
+   * @param idAfter ID, после которого начинается выборка, {@code null} - с начала
+   * @param outputStream поток ID, записывается в кодировке UTF-8
+   * @throws IOException если не удалось записать в поток
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public void writeAudienceIds(AudienceQuery audienceQuery, String idAfter, OutputStream outputStream) throws IOException {
+
+    BufferedWriter writer = new BufferedWriter(new OutputStreamWriter(outputStream, StandardCharsets.UTF_8));
+    try {
+      audienceJdbcRepository.forEachId(
+          audienceQuery,
+          idAfter != null ? DBSecuritySupport.preparePostgreSQLString(idAfter) : null,
+          idUser -> {
+            try {
+              writer.write(idUser);
+              writer.write('\n');
+            } catch (IOException e) {
+              throw new UncheckedIOException(e);
+            }
+          });
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    writer.flush();
+  }
+
+  /**
+   * Оценивает число различных активных пользователей за последние дни объединением скетчей дней
+   * @param registersOfDays регистры скетчей по дням, номер дня - число дней до последней даты
+   * @param countDays число последних дней
+   * @return приближенное число активных пользователей
+   */
+  private static long estimateActive(byte[][] registersOfDays, int countDays) {
+
+    byte[] registers = new byte[HyperLogLog.COUNT_REGISTERS];
+    for (int numberDay = 0; numberDay < countDays; numberDay++) {
+      HyperLogLog.mergeInto(registers, registersOfDays[numberDay]);
+    }
+    return HyperLogLog.estimate(registers);
+  }
+
+  /**
+   * Суммирует входы за последние дни
+   * @param countLoginsOfDays число входов по дням, номер дня - число дней до последней даты
+   * @param countDays число последних дней
+   * @return число входов
+   */
+  private static long sumLogins(long[] countLoginsOfDays, int countDays) {
+
+    long countLogins = 0;
+    for (int numberDay = 0; numberDay < countDays; numberDay++) {
+      countLogins += countLoginsOfDays[numberDay];
+    }
+    return countLogins;
+  }
+}
@@ -0,0 +1,198 @@
+package com.example.familybenefitstown.part_res_rest_api.services.implementations;
+
+import com.example.familybenefitstown.dto.entities.BenefitRuleEntity;
+import com.example.familybenefitstown.dto.jdbc.BenefitJdbcRepository;
+import com.example.familybenefitstown.dto.jdbc.UserJdbcRepository;
+import com.example.familybenefitstown.dto.repositories.BenefitRuleRepository;
+import com.example.familybenefitstown.dto.repositories.CityRepository;
+import com.example.familybenefitstown.exceptions.*;
+import com.example.familybenefitstown.part_res_rest_api.api_models.benefit.BenefitEvaluationInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.benefit.BenefitRuleInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.benefit.BenefitRuleSave;
+import com.example.familybenefitstown.part_res_rest_api.api_models.common.ObjectShortInfo;
+import com.example.familybenefitstown.part_res_rest_api.benefits.BenefitEvaluator;
+import com.example.familybenefitstown.part_res_rest_api.benefits.BenefitSubject;
+import com.example.familybenefitstown.part_res_rest_api.converters.BenefitRuleDBConverter;
+import com.example.familybenefitstown.part_res_rest_api.services.interfaces.BenefitService;
+import com.example.familybenefitstown.security.DBSecuritySupport;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Реализация сервиса, управляющего объектом "пособие"
+ */
+@Slf4j
+@Service
+public class BenefitServiceFB implements BenefitService {
+
+  /**
+   * Репозиторий, работающий с моделью таблицы "benefit_rule"
+   */
+  private final BenefitRuleRepository benefitRuleRepository;
+
+  /**
+   * Репозиторий, работающий с моделью таблицы "city"
+   */
+  private final CityRepository cityRepository;
+
+  /**
+   * Репозиторий операций с таблицей "user", выполняющий запросы сразу
+   */
+  private final UserJdbcRepository userJdbcRepository;
+
+  /**
+   * Репозиторий задач переоценки и положенных пособий пользователей
+   */
+  private final BenefitJdbcRepository benefitJdbcRepository;
+
+  /**
+   * Определитель положенных пособий по подготовленным правилам городов
+   */
+  private final BenefitEvaluator benefitEvaluator;
+
+  /**
+   * Конструктор для инициализации интерфейсов репозиториев и определителя пособий
+   * @param benefitRuleRepository репозиторий, работающий с моделью таблицы "benefit_rule"
+   * @param cityRepository репозиторий, работающий с моделью таблицы "city"
+   * @param userJdbcRepository репозиторий операций с таблицей "user", выполняющий запросы сразу
+   * @param benefitJdbcRepository репозиторий задач переоценки и положенных пособий пользователей
+   * @param benefitEvaluator определитель положенных пособий по подготовленным правилам городов
+   */
+  @Autowired
+  public BenefitServiceFB(BenefitRuleRepository benefitRuleRepository,
+                          CityRepository cityRepository,
+                          UserJdbcRepository userJdbcRepository,
+                          BenefitJdbcRepository benefitJdbcRepository,
+                          BenefitEvaluator benefitEvaluator) {
+    this.benefitRuleRepository = benefitRuleRepository;
+    this.cityRepository = cityRepository;
+    this.userJdbcRepository = userJdbcRepository;
+    this.benefitJdbcRepository = benefitJdbcRepository;
+    this.benefitEvaluator = benefitEvaluator;
+  }
+
+  /**
+   * Возвращает правила пособий города в порядке названий пособий
+   * @param idCity ID города
+   * @return список информаций о правилах пособий
+   * @throws NotFoundException если город с указанным ID не найден
+   */
+  @Override
+  public List<BenefitRuleInfo> readAllOfCity(String idCity) throws NotFoundException {
+
+    String prepareIdCity = DBSecuritySupport.preparePostgreSQLString(idCity);
+
+    // Проверка существование города по его ID
+    DBSecuritySupport.checkExistenceById(
+        cityRepository::existsById, prepareIdCity);
+
+    return benefitRuleRepository.findAllByIdCityOrderByName(prepareIdCity)
+        .stream()
+        .map(BenefitRuleDBConverter::toInfo)
+        .collect(Collectors.toList());
+  }
+
+  /**
+   * Заменяет все правила пособий города правилами из запроса и запрашивает переоценку положенных пособий
+   * пользователей города. Переоценка выполняется задачей после фиксации транзакции
+   * @param idCity ID города
+   * @param benefitRuleSaveList список объектов запроса на сохранение правила пособия
+   * @throws NotFoundException если город с указанным ID не найден
+   * @throws AlreadyExistsException если в запросе повторяется название пособия
+   * @throws InvalidStringException если название пособия не содержит букв или цифр
+   * @throws DateFormatException если дата рождения ребенка не соответствует формату "dd.mm.yyyy"
+   * @throws InvalidRangeException если возраст или число детей отрицательные, или начало диапазона больше его конца
+   */
+  @Override
+  @Transactional(rollbackFor = Exception.class)
+  public void updateAllOfCity(String idCity, List<BenefitRuleSave> benefitRuleSaveList)
+      throws NotFoundException, AlreadyExistsException, InvalidStringException, DateFormatException, InvalidRangeException {
+
+    String prepareIdCity = DBSecuritySupport.preparePostgreSQLString(idCity);
+
+    // Получение моделей таблицы из запроса с подготовкой строковых значений для БД и проверкой диапазонов
+    List<BenefitRuleEntity> benefitRuleEntityList = new ArrayList<>(benefitRuleSaveList.size());
+    Set<String> nameBenefitSet = new HashSet<>();
+    for (BenefitRuleSave benefitRuleSave : benefitRuleSaveList) {
+      BenefitRuleEntity benefitRuleEntity = BenefitRuleDBConverter
+          .fromSave(prepareIdCity, benefitRuleSave, DBSecuritySupport::preparePostgreSQLString);
+      if (!nameBenefitSet.add(benefitRuleEntity.getName())) {
+        throw new AlreadyExistsException(String.format(
+            "Benefit with name \"%s\" is repeated in the request", benefitRuleEntity.getName()));
+      }
+      benefitRuleEntityList.add(benefitRuleEntity);
+    }
+
+    // Проверка существование города по его ID
+    DBSecuritySupport.checkExistenceById(
+        cityRepository::existsById, prepareIdCity);
+
+    // Задача переоценки запрашивается до удаления правил, блокируя запись результатов по удаляемым правилам
+    benefitJdbcRepository.requestEvaluation(prepareIdCity);
+    benefitRuleRepository.deleteAllByIdCity(prepareIdCity);
+    benefitRuleRepository.saveAll(benefitRuleEntityList);
+    benefitEvaluator.invalidateAfterCommit(prepareIdCity);
+    log.info("DB. Benefits of city with ID \"{}\" updated: {} rules.", idCity, benefitRuleEntityList.size());
+  }
+
+  /**
+   * Возвращает пособия, положенные пользователю по правилам его города и датам рождений его детей.
+   * Пособия читаются из таблицы "user_benefit", если они актуальны: возраст детей учтен на текущую дату, и переоценка
+   * города пользователя завершена или уже обработала пользователя. Иначе пособия определяются по правилам города,
+   * подготовленным на текущую дату, по городу и датам рождений детей, прочитанным одним запросом по первичному ключу
+   * @param idUser ID пользователя
+   * @return список кратких информаций о положенных пособиях в порядке их названий.
+   * Пустой, если у пользователя не указан город
+   * @throws NotFoundException если пользователь с указанным ID не найден
+   */
+  @Override
+  public List<ObjectShortInfo> readAllOfUser(String idUser) throws NotFoundException {
+
+    String prepareIdUser = DBSecuritySupport.preparePostgreSQLString(idUser);
+
+    if (benefitJdbcRepository.isEvaluated(prepareIdUser, LocalDate.now())) {
+      return benefitJdbcRepository.findAllOfUser(prepareIdUser);
+    }
+
+    BenefitSubject benefitSubject = userJdbcRepository
+        .findBenefitSubject(prepareIdUser)
+        .orElseThrow(() -> new NotFoundException(String.format("User with ID \"%s\" not found", idUser)));
+
+    if (benefitSubject.getIdCity() == null) {
+      return Collections.emptyList();
+    }
+
+    return benefitEvaluator.evaluate(benefitSubject.getIdCity(), benefitSubject.getChildrenEpochDays());
+  }
+
+  /**
+   * Возвращает ход переоценки положенных пособий пользователей города после последнего изменения правил
+   * @param idCity ID города
+   * @return информация о ходе переоценки
+   * @throws NotFoundException если правила города не изменялись
+   */
+  @Override
+  public BenefitEvaluationInfo readEvaluationOfCity(String idCity) throws NotFoundException {
+
+    return benefitJdbcRepository
+        .findJob(DBSecuritySupport.preparePostgreSQLString(idCity))
+        .map(evaluationJob -> BenefitEvaluationInfo
+            .builder()
+            .status(evaluationJob.getStatus())
+            .countProcessed(evaluationJob.getCountProcessed())
+            .countTotal(evaluationJob.getCountTotal())
+            .build())
+        .orElseThrow(() -> new NotFoundException(String.format(
+            "Benefit evaluation of city with ID \"%s\" not found", idCity)));
+  }
+}
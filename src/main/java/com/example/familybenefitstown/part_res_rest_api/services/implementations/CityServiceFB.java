@@ -1,21 +1,47 @@
 package com.example.familybenefitstown.part_res_rest_api.services.implementations;
 
 import com.example.familybenefitstown.dto.entities.CityEntity;
+import com.example.familybenefitstown.dto.entities.CityInfoEntity;
+import com.example.familybenefitstown.dto.jdbc.CityJdbcRepository;
+import com.example.familybenefitstown.dto.jdbc.CityStatsJdbcRepository;
+import com.example.familybenefitstown.dto.jdbc.PgCopyWriter;
+import com.example.familybenefitstown.dto.jdbc.UserJdbcRepository;
+import com.example.familybenefitstown.dto.repositories.CityInfoRepository;
 import com.example.familybenefitstown.dto.repositories.CityRepository;
 import com.example.familybenefitstown.exceptions.AlreadyExistsException;
 import com.example.familybenefitstown.exceptions.InvalidStringException;
 import com.example.familybenefitstown.exceptions.NotFoundException;
+import com.example.familybenefitstown.part_res_rest_api.api_models.city.AgeBandInfo;
 import com.example.familybenefitstown.part_res_rest_api.api_models.city.CityInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.city.CityPatch;
 import com.example.familybenefitstown.part_res_rest_api.api_models.city.CitySave;
+import com.example.familybenefitstown.part_res_rest_api.api_models.city.CityStatsInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.common.ImportReport;
 import com.example.familybenefitstown.part_res_rest_api.api_models.common.ObjectShortInfo;
+import com.example.familybenefitstown.part_res_rest_api.benefits.CompiledBenefitRule;
+import com.example.familybenefitstown.part_res_rest_api.bulk.BulkFormat;
+import com.example.familybenefitstown.part_res_rest_api.bulk.BulkRecordReader;
+import com.example.familybenefitstown.part_res_rest_api.bulk.ImportErrorCollector;
+import com.example.familybenefitstown.part_res_rest_api.cache.CityStatsCache;
 import com.example.familybenefitstown.part_res_rest_api.converters.CityDBConverter;
+import com.example.familybenefitstown.part_res_rest_api.converters.FieldConverter;
+import com.example.familybenefitstown.part_res_rest_api.events.CityChangeType;
+import com.example.familybenefitstown.part_res_rest_api.events.CityChangedEvent;
 import com.example.familybenefitstown.part_res_rest_api.services.interfaces.CityService;
 import com.example.familybenefitstown.security.DBSecuritySupport;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Optional;
 import java.util.stream.Collectors;
 
 /**
@@ -25,18 +51,80 @@ import java.util.stream.Collectors;
 @Service
 public class CityServiceFB implements CityService {
 
+  /**
+   * Минимальные возрасты возрастных групп статистики по возрастанию. Группа заканчивается перед следующей,
+   * последняя группа без ограничения
+   */
+  private static final int[] AGE_BAND_MIN_AGES = {0, 3, 7, 14, 18};
+
   /**
    * Репозиторий, работающий с моделью таблицы "city"
    */
   private final CityRepository cityRepository;
 
+  /**
+   * Репозиторий, работающий с моделью таблицы "city_info"
+   */
+  private final CityInfoRepository cityInfoRepository;
+
+  /**
+   * Репозиторий массовых операций с таблицей "city"
+   */
+  private final CityJdbcRepository cityJdbcRepository;
+
+  /**
+   * Репозиторий операций с таблицей "user", выполняющий запросы сразу
+   */
+  private final UserJdbcRepository userJdbcRepository;
+
+  /**
+   * Репозиторий операций со счетчиками семей и детей городов, выполняющий запросы сразу
+   */
+  private final CityStatsJdbcRepository cityStatsJdbcRepository;
+
+  /**
+   * Кэш статистики семей и детей городов
+   */
+  private final CityStatsCache cityStatsCache;
+
+  /**
+   * Объект для чтения записей JSON
+   */
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Публикатор событий изменения города
+   */
+  private final ApplicationEventPublisher eventPublisher;
+
   /**
    * Конструктор для инициализации интерфейсов репозиториев и сервиса
    * @param cityRepository репозиторий, работающий с моделью таблицы "city"
+   * @param cityInfoRepository репозиторий, работающий с моделью таблицы "city_info"
+   * @param cityJdbcRepository репозиторий массовых операций с таблицей "city"
+   * @param userJdbcRepository репозиторий операций с таблицей "user", выполняющий запросы сразу
+   * @param cityStatsJdbcRepository репозиторий операций со счетчиками семей и детей городов, выполняющий запросы сразу
+   * @param cityStatsCache кэш статистики семей и детей городов
+   * @param objectMapper объект для чтения записей JSON
+   * @param eventPublisher публикатор событий изменения города
    */
   @Autowired
-  public CityServiceFB(CityRepository cityRepository) {
+  public CityServiceFB(CityRepository cityRepository,
+                       CityInfoRepository cityInfoRepository,
+                       CityJdbcRepository cityJdbcRepository,
+                       UserJdbcRepository userJdbcRepository,
+                       CityStatsJdbcRepository cityStatsJdbcRepository,
+                       CityStatsCache cityStatsCache,
+                       ObjectMapper objectMapper,
+                       ApplicationEventPublisher eventPublisher) {
     this.cityRepository = cityRepository;
+    this.cityInfoRepository = cityInfoRepository;
+    this.cityJdbcRepository = cityJdbcRepository;
+    this.userJdbcRepository = userJdbcRepository;
+    this.cityStatsJdbcRepository = cityStatsJdbcRepository;
+    this.cityStatsCache = cityStatsCache;
+    this.objectMapper = objectMapper;
+    this.eventPublisher = eventPublisher;
   }
 
   /**
@@ -56,6 +144,15 @@ public class CityServiceFB implements CityService {
         .collect(Collectors.toList());
   }
 
+  /**
+   * Возвращает тег версии множества городов, меняющийся при любом изменении городов
+   * @return тег версии множества городов
+   */
+  @Override
+  public String getAllVersionTag() {
+    return "cities-" + cityRepository.getAllVersion();
+  }
+
   /**
    * Создает город по запросу на сохранение
    * @param citySave объект запроса на сохранение города
@@ -63,18 +160,26 @@ public class CityServiceFB implements CityService {
    * @throws InvalidStringException если строковое поле объекта запроса не содержит букв или цифр
    */
   @Override
+  @Transactional(rollbackFor = Exception.class)
   public void create(CitySave citySave) throws AlreadyExistsException, InvalidStringException {
 
-    // Получение модели таблицы из запроса с подготовкой строковых значений для БД
+    // Получение моделей таблиц из запроса с подготовкой строковых значений для БД
     CityEntity cityEntityFromSave = CityDBConverter
         .fromSave(null, citySave, DBSecuritySupport::preparePostgreSQLString);
+    CityInfoEntity cityInfoEntityFromSave = CityDBConverter
+        .infoFromSave(cityEntityFromSave.getId(), citySave, DBSecuritySupport::preparePostgreSQLString);
 
-    // Проверка отсутствия города по его названию
-    DBSecuritySupport.checkAbsenceByUniqStr(
-        cityRepository::existsByName, cityEntityFromSave.getName());
-
-    cityRepository.save(cityEntityFromSave);
+    // Создание города. Отсутствие города по его названию проверяется ограничением бд
+    DBSecuritySupport.saveCheckUniqStr(
+        () -> cityJdbcRepository.insert(cityEntityFromSave),
+        CityJdbcRepository.CONSTRAINT_UNIQ_NAME, cityEntityFromSave.getName());
+    if (cityInfoEntityFromSave != null) {
+      cityJdbcRepository.insertInfo(cityInfoEntityFromSave);
+    }
     log.info("DB. City with name \"{}\" created.", citySave.getName());
+
+    eventPublisher.publishEvent(new CityChangedEvent(
+        CityChangeType.CREATED, cityEntityFromSave.getId(), cityEntityFromSave.getName()));
   }
 
   /**
@@ -91,7 +196,98 @@ public class CityServiceFB implements CityService {
     CityEntity cityEntityFromRequest = cityRepository.findById(prepareIdCity).orElseThrow(
         () -> new NotFoundException(String.format("City with ID \"%s\" not found", idCity)));
 
-    return CityDBConverter.toInfo(cityEntityFromRequest);
+    return CityDBConverter.toInfo(cityEntityFromRequest, cityInfoRepository.findById(prepareIdCity).orElse(null));
+  }
+
+  /**
+   * Возвращает информацию города по его ID в сжатом gzip виде, без распаковки
+   * @param idCity ID города
+   * @return информация города, сжатая gzip, или {@code empty}, если у города нет информации
+   * @throws NotFoundException если город с указанным ID не найден
+   */
+  @Override
+  public Optional<byte[]> readInfoCompressed(String idCity) throws NotFoundException {
+
+    String prepareIdCity = DBSecuritySupport.preparePostgreSQLString(idCity);
+    Optional<CityInfoEntity> cityInfoEntityOpt = cityInfoRepository.findById(prepareIdCity);
+
+    // Проверка существования города только при отсутствии информации
+    if (cityInfoEntityOpt.isEmpty()) {
+      DBSecuritySupport.checkExistenceById(
+          cityRepository::existsById, prepareIdCity);
+    }
+
+    return cityInfoEntityOpt.map(CityInfoEntity::getInfo);
+  }
+
+  /**
+   * Возвращает тег версии города по его ID. Для проверки актуальности загружается только версия
+   * @param idCity ID города
+   * @return тег версии города
+   * @throws NotFoundException если город с указанным ID не найден
+   */
+  @Override
+  public String getVersionTag(String idCity) throws NotFoundException {
+
+    String prepareIdCity = DBSecuritySupport.preparePostgreSQLString(idCity);
+    return "city-" + cityRepository.findVersionById(prepareIdCity).orElseThrow(
+        () -> new NotFoundException(String.format("City with ID \"%s\" not found", idCity)));
+  }
+
+  /**
+   * Возвращает статистику семей и детей города по его ID.
+   * Статистика читается из кэша, при отсутствии - из счетчиков города, возрастные группы считаются на текущую дату
+   * @param idCity ID города
+   * @return статистика семей и детей города
+   * @throws NotFoundException если город с указанным ID не найден
+   */
+  @Override
+  public CityStatsInfo readStats(String idCity) throws NotFoundException {
+
+    String prepareIdCity = DBSecuritySupport.preparePostgreSQLString(idCity);
+    CityStatsInfo cityStatsInfo = cityStatsCache.get(prepareIdCity);
+    if (cityStatsInfo != null) {
+      return cityStatsInfo;
+    }
+
+    CityStatsJdbcRepository.Counts counts = cityStatsJdbcRepository.findCounts(prepareIdCity).orElseThrow(
+        () -> new NotFoundException(String.format("City with ID \"%s\" not found", idCity)));
+
+    // Распределение детей по возрастным группам по числу детей каждой даты рождения. Границы групп - последние
+    // даты рождения минимальных возрастов, как в правилах пособий и условиях аудитории
+    LocalDate dateCurrent = LocalDate.now();
+    LocalDate[] lastDatesBirthOfBands = new LocalDate[AGE_BAND_MIN_AGES.length];
+    for (int indexBand = 0; indexBand < AGE_BAND_MIN_AGES.length; indexBand++) {
+      lastDatesBirthOfBands[indexBand] = CompiledBenefitRule.lastDateBirthForAge(dateCurrent, AGE_BAND_MIN_AGES[indexBand]);
+    }
+    long[] countChildrenOfBands = new long[AGE_BAND_MIN_AGES.length];
+    cityStatsJdbcRepository.forEachChildBirth(prepareIdCity, (dateBirth, countChildren) -> {
+      int indexBand = AGE_BAND_MIN_AGES.length - 1;
+      while (indexBand > 0 && dateBirth.isAfter(lastDatesBirthOfBands[indexBand])) {
+        indexBand--;
+      }
+      countChildrenOfBands[indexBand] += countChildren;
+    });
+
+    List<AgeBandInfo> ageBandInfoList = new ArrayList<>(AGE_BAND_MIN_AGES.length);
+    for (int indexBand = 0; indexBand < AGE_BAND_MIN_AGES.length; indexBand++) {
+      ageBandInfoList.add(AgeBandInfo
+          .builder()
+          .minAge(AGE_BAND_MIN_AGES[indexBand])
+          .maxAge(indexBand + 1 < AGE_BAND_MIN_AGES.length ? AGE_BAND_MIN_AGES[indexBand + 1] - 1 : null)
+          .countChildren(countChildrenOfBands[indexBand])
+          .build());
+    }
+
+    cityStatsInfo = CityStatsInfo
+        .builder()
+        .countFamilies(counts.getCountFamilies())
+        .countChildren(counts.getCountChildren())
+        .countMultiChildFamilies(counts.getCountMultiChildFamilies())
+        .ageBandList(ageBandInfoList)
+        .build();
+    cityStatsCache.put(prepareIdCity, cityStatsInfo);
+    return cityStatsInfo;
   }
 
   /**
@@ -103,24 +299,83 @@ public class CityServiceFB implements CityService {
    * @throws InvalidStringException если строковое поле объекта запроса не содержит букв или цифр
    */
   @Override
+  @Transactional(rollbackFor = Exception.class)
   public void update(String idCity, CitySave citySave) throws NotFoundException, AlreadyExistsException, InvalidStringException {
 
-    // Получение модели таблицы из запроса с подготовкой строковых значений для БД
+    // Получение моделей таблиц из запроса с подготовкой строковых значений для БД
     CityEntity cityEntityFromSave = CityDBConverter
         .fromSave(idCity, citySave, DBSecuritySupport::preparePostgreSQLString);
 
     String prepareIdCity = cityEntityFromSave.getId();
 
+    CityInfoEntity cityInfoEntityFromSave = CityDBConverter
+        .infoFromSave(prepareIdCity, citySave, DBSecuritySupport::preparePostgreSQLString);
+
     // Проверка существование города по его ID
     DBSecuritySupport.checkExistenceById(
         cityRepository::existsById, prepareIdCity);
 
-    // Проверка отсутствия города с отличным от данного ID и данным названием
-    DBSecuritySupport.checkAbsenceAnotherByUniqStr(
-        cityRepository::existsByIdIsNotAndName, prepareIdCity, cityEntityFromSave.getName());
-
-    cityRepository.save(cityEntityFromSave);
+    // Сохранение города. Отсутствие города с отличным ID и данным названием проверяется ограничением бд
+    DBSecuritySupport.saveCheckUniqStr(
+        () -> cityRepository.saveAndFlush(cityEntityFromSave),
+        CityJdbcRepository.CONSTRAINT_UNIQ_NAME, cityEntityFromSave.getName());
+    userJdbcRepository.refreshProfileCity(prepareIdCity);
+    if (cityInfoEntityFromSave != null) {
+      cityInfoRepository.save(cityInfoEntityFromSave);
+    } else if (cityInfoRepository.existsById(prepareIdCity)) {
+      cityInfoRepository.deleteById(prepareIdCity);
+    }
     log.info("DB. City with ID \"{}\" updated.", idCity);
+
+    eventPublisher.publishEvent(new CityChangedEvent(
+        CityChangeType.UPDATED, prepareIdCity, cityEntityFromSave.getName()));
+  }
+
+  /**
+   * Частично обновляет город по запросу JSON Merge Patch. Проверяются и сохраняются только указанные поля:
+   * название записывается, только если оно изменено, информация города изменяется, только если указана
+   * @param idCity ID города
+   * @param cityPatch объект запроса на частичное обновление города
+   * @throws NotFoundException если город с указанным ID не найден
+   * @throws AlreadyExistsException если город с отличным ID и данным названием уже существует
+   * @throws InvalidStringException если строковое поле объекта запроса не содержит букв или цифр
+   */
+  @Override
+  @Transactional(rollbackFor = Exception.class)
+  public void patch(String idCity, CityPatch cityPatch) throws NotFoundException, AlreadyExistsException, InvalidStringException {
+
+    String prepareIdCity = DBSecuritySupport.preparePostgreSQLString(idCity);
+
+    // Получение города по его ID, если город существует
+    CityEntity cityEntityFromDB = cityRepository.findById(prepareIdCity)
+        .orElseThrow(() -> new NotFoundException(String.format(
+            "City with ID \"%s\" not found", prepareIdCity)));
+
+    if (cityPatch.isPatched("name")) {
+      cityEntityFromDB.setName(DBSecuritySupport.preparePostgreSQLString(
+          FieldConverter.withSymbolsField(cityPatch.getName(), "name", true)));
+
+      // Сохранение названия, если оно изменено. Отсутствие города с отличным ID и данным названием
+      // проверяется ограничением бд
+      DBSecuritySupport.saveCheckUniqStr(
+          () -> cityRepository.saveAndFlush(cityEntityFromDB),
+          CityJdbcRepository.CONSTRAINT_UNIQ_NAME, cityEntityFromDB.getName());
+      userJdbcRepository.refreshProfileCity(prepareIdCity);
+    }
+
+    if (cityPatch.isPatched("info")) {
+      CityInfoEntity cityInfoEntityFromPatch = CityDBConverter.infoFromSave(
+          prepareIdCity, new CitySave(null, cityPatch.getInfo()), DBSecuritySupport::preparePostgreSQLString);
+      if (cityInfoEntityFromPatch != null) {
+        cityInfoRepository.save(cityInfoEntityFromPatch);
+      } else if (cityInfoRepository.existsById(prepareIdCity)) {
+        cityInfoRepository.deleteById(prepareIdCity);
+      }
+    }
+    log.info("DB. City with ID \"{}\" patched: {}.", idCity, cityPatch.getPatchedFieldSet());
+
+    eventPublisher.publishEvent(new CityChangedEvent(
+        CityChangeType.UPDATED, prepareIdCity, cityEntityFromDB.getName()));
   }
 
   /**
@@ -139,6 +394,62 @@ public class CityServiceFB implements CityService {
 
     cityRepository.deleteById(prepareIdCity);
     log.info("DB. City with ID \"{}\" deleted.", idCity);
+
+    eventPublisher.publishEvent(new CityChangedEvent(
+        CityChangeType.DELETED, prepareIdCity, null));
   }
-}
 
+  /**
+   * Создает города из потока записей на сохранение.
+   * Некорректные записи и записи с существующими или повторяющимися названиями пропускаются и попадают в отчет
+   * @param inputStream поток записей в кодировке UTF-8
+   * @param bulkFormat формат потока
+   * @return отчет о загрузке
+   * @throws IOException если не удалось прочитать поток. Ни один город не сохраняется
+   */
+  @Override
+  @Transactional(rollbackFor = IOException.class)
+  public ImportReport importAll(InputStream inputStream, BulkFormat bulkFormat) throws IOException {
+
+    ImportErrorCollector errorCollector = new ImportErrorCollector();
+    long countRecord;
+
+    // Проверка записей и их передача в промежуточную таблицу по мере чтения потока
+    try (BulkRecordReader<CitySave> recordReader = new BulkRecordReader<>(
+        inputStream, bulkFormat, objectMapper, CitySave.class,
+        row -> new CitySave(row.get("name"), row.get("info")));
+         PgCopyWriter copyWriter = cityJdbcRepository.beginImport()) {
+
+      boolean hasNext = true;
+      while (hasNext) {
+        try {
+          CitySave citySave = recordReader.read();
+          hasNext = citySave != null;
+          if (hasNext) {
+            CityEntity cityEntityFromSave = CityDBConverter
+                .fromSave(null, citySave, DBSecuritySupport::preparePostgreSQLString);
+            CityInfoEntity cityInfoEntityFromSave = CityDBConverter
+                .infoFromSave(cityEntityFromSave.getId(), citySave, DBSecuritySupport::preparePostgreSQLString);
+            copyWriter.writeRow(
+                recordReader.getNumberRecord(), cityEntityFromSave.getId(), cityEntityFromSave.getName(),
+                cityInfoEntityFromSave != null ? cityInfoEntityFromSave.getInfo() : null);
+          }
+        } catch (InvalidStringException e) {
+          errorCollector.add(recordReader.getNumberRecord(), e.getMessage());
+        }
+      }
+      countRecord = recordReader.getNumberRecord();
+    }
+
+    // Перенос городов одним запросом с учетом уникальности названия
+    long countImported = cityJdbcRepository.mergeImport((numberRow, name) -> errorCollector.add(
+        numberRow, String.format("City with name \"%s\" already exists", name)));
+
+    log.info("DB. Cities imported: {} of {} records.", countImported, countRecord);
+
+    if (countImported > 0) {
+      eventPublisher.publishEvent(new CityChangedEvent(CityChangeType.RELOADED, null, null));
+    }
+    return errorCollector.toReport(countRecord, countImported);
+  }
+}
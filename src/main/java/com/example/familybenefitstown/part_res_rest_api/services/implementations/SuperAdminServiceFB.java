@@ -1,8 +1,13 @@
 package com.example.familybenefitstown.part_res_rest_api.services.implementations;
 
+import com.example.familybenefitstown.part_auth.audit.AuditEventType;
+import com.example.familybenefitstown.part_auth.audit.AuditLog;
 import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AdminSave;
+import com.example.familybenefitstown.part_res_rest_api.cache.UserInfoCache;
 import com.example.familybenefitstown.part_res_rest_api.converters.AdminDBConverter;
 import com.example.familybenefitstown.dto.entities.UserEntity;
+import com.example.familybenefitstown.dto.jdbc.CityStatsJdbcRepository;
+import com.example.familybenefitstown.dto.jdbc.UserJdbcRepository;
 import com.example.familybenefitstown.dto.repositories.UserRepository;
 import com.example.familybenefitstown.exceptions.AlreadyExistsException;
 import com.example.familybenefitstown.exceptions.InvalidEmailException;
@@ -17,6 +22,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.List;
+
 /**
  * Реализация сервиса, управляющего объектом "супер-администратор"
  */
@@ -29,13 +36,45 @@ public class SuperAdminServiceFB implements SuperAdminService {
    */
   private final UserRepository userRepository;
 
+  /**
+   * Репозиторий операций с таблицей "user", выполняющий запросы сразу
+   */
+  private final UserJdbcRepository userJdbcRepository;
+
+  /**
+   * Репозиторий операций со счетчиками семей и детей городов, выполняющий запросы сразу
+   */
+  private final CityStatsJdbcRepository cityStatsJdbcRepository;
+
+  /**
+   * Кэш информации о пользователях
+   */
+  private final UserInfoCache userInfoCache;
+
+  /**
+   * Журнал событий аудита
+   */
+  private final AuditLog auditLog;
+
   /**
    * Конструктор для инициализации интерфейсов репозиториев и сервисов
    * @param userRepository репозиторий, работающий с моделью таблицы "user"
+   * @param userJdbcRepository репозиторий операций с таблицей "user", выполняющий запросы сразу
+   * @param cityStatsJdbcRepository репозиторий операций со счетчиками семей и детей городов, выполняющий запросы сразу
+   * @param userInfoCache кэш информации о пользователях
+   * @param auditLog журнал событий аудита
    */
   @Autowired
-  public SuperAdminServiceFB(UserRepository userRepository) {
+  public SuperAdminServiceFB(UserRepository userRepository,
+                             UserJdbcRepository userJdbcRepository,
+                             CityStatsJdbcRepository cityStatsJdbcRepository,
+                             UserInfoCache userInfoCache,
+                             AuditLog auditLog) {
     this.userRepository = userRepository;
+    this.userJdbcRepository = userJdbcRepository;
+    this.cityStatsJdbcRepository = cityStatsJdbcRepository;
+    this.userInfoCache = userInfoCache;
+    this.auditLog = auditLog;
   }
 
   /**
@@ -46,7 +85,7 @@ public class SuperAdminServiceFB implements SuperAdminService {
    * @throws InvalidStringException если строковое поле объекта запроса не содержит букв или цифр
    */
   @Override
-  @Transactional
+  @Transactional(rollbackFor = Exception.class)
   public void create(AdminSave adminSave) throws AlreadyExistsException, InvalidEmailException, InvalidStringException {
 
     // Проверка строки email на соответствие формату email
@@ -56,12 +95,13 @@ public class SuperAdminServiceFB implements SuperAdminService {
     UserEntity userEntityFromSave = AdminDBConverter
         .fromSave(null, adminSave, DBSecuritySupport::preparePostgreSQLString);
 
-    // Проверка на существование пользователя или администратора по email
-    DBSecuritySupport.checkAbsenceByUniqStr(
-        userRepository::existsByEmail, userEntityFromSave.getEmail());
-
-    userRepository.save(userEntityFromSave);
+    // Создание администратора. Отсутствие пользователя или администратора по email проверяется ограничением бд
+    DBSecuritySupport.saveCheckUniqStr(
+        () -> userJdbcRepository.insert(userEntityFromSave),
+        UserJdbcRepository.CONSTRAINT_UNIQ_EMAIL, userEntityFromSave.getEmail());
     userRepository.addRoleToUser(userEntityFromSave.getId(), RDB.ID_ROLE_ADMIN);
+    userJdbcRepository.refreshProfile(userEntityFromSave.getId());
+    auditLog.record(AuditEventType.ADMIN_CREATED, userEntityFromSave.getId(), null);
     log.info("DB. Administrator with email \"{}\" created.", adminSave.getEmail());
   }
 
@@ -84,11 +124,20 @@ public class SuperAdminServiceFB implements SuperAdminService {
     // Если есть роль "ROLE_USER", удаление роли "ROLE_ADMIN", иначе удаление пользователя и его токена восстановления с кодом входа
     if (userRepository.hasUserRole(preparedIdAdmin, RDB.ID_ROLE_ADMIN)) {
       userRepository.deleteRoleFromUser(preparedIdAdmin, RDB.ID_ROLE_ADMIN);
+      userJdbcRepository.refreshProfile(preparedIdAdmin);
+      auditLog.record(AuditEventType.ROLE_REMOVED, preparedIdAdmin, RDB.NAME_ROLE_ADMIN);
       log.info("DB. Administrator with ID \"{}\" updated. Removed role \"{}\".", idAdmin, RDB.NAME_ROLE_ADMIN);
     } else {
+      CityStatsJdbcRepository.Membership membershipBefore = cityStatsJdbcRepository
+          .lockMembership(preparedIdAdmin)
+          .orElse(CityStatsJdbcRepository.Membership.NONE);
       userRepository.deleteById(preparedIdAdmin);
+      userRepository.flush();
+      cityStatsJdbcRepository.moveUser(preparedIdAdmin, membershipBefore);
+      auditLog.record(AuditEventType.ADMIN_DELETED, preparedIdAdmin, null);
       log.info("DB. Administrator with ID \"{}\" deleted.", idAdmin);
     }
+    userInfoCache.invalidateAfterCommit(preparedIdAdmin);
   }
 
   /**
@@ -111,6 +160,9 @@ public class SuperAdminServiceFB implements SuperAdminService {
     checkNotHasRoleElseThrowUserRole(preparedIdUser, RDB.ID_ROLE_ADMIN);
 
     userRepository.addRoleToUser(preparedIdUser, RDB.ID_ROLE_ADMIN);
+    userJdbcRepository.refreshProfile(preparedIdUser);
+    userInfoCache.invalidateAfterCommit(preparedIdUser);
+    auditLog.record(AuditEventType.ROLE_ADDED, preparedIdUser, RDB.NAME_ROLE_ADMIN);
     log.info("DB. User with ID \"{}\" updated. Added role \"{}\"", idUser, RDB.NAME_ROLE_ADMIN);
   }
 
@@ -134,6 +186,9 @@ public class SuperAdminServiceFB implements SuperAdminService {
     checkNotHasRoleElseThrowUserRole(preparedIdAdmin, RDB.ID_ROLE_USER);
 
     userRepository.addRoleToUser(preparedIdAdmin, RDB.ID_ROLE_USER);
+    userJdbcRepository.refreshProfile(preparedIdAdmin);
+    userInfoCache.invalidateAfterCommit(preparedIdAdmin);
+    auditLog.record(AuditEventType.ROLE_ADDED, preparedIdAdmin, RDB.NAME_ROLE_USER);
     log.info("DB. Administrator with ID \"{}\" updated. Added role \"{}\"", idAdmin, RDB.NAME_ROLE_USER);
   }
 
@@ -157,6 +212,11 @@ public class SuperAdminServiceFB implements SuperAdminService {
     UserEntity userEntitySuperAdmin = userRepository.getSuperAdmin();
     userRepository.deleteRoleFromUser(userEntitySuperAdmin.getId(), RDB.ID_ROLE_SUPER_ADMIN);
     userRepository.addRoleToUser(preparedIdAdmin, RDB.ID_ROLE_SUPER_ADMIN);
+    userJdbcRepository.refreshProfiles(List.of(userEntitySuperAdmin.getId(), preparedIdAdmin));
+    userInfoCache.invalidateAfterCommit(userEntitySuperAdmin.getId());
+    userInfoCache.invalidateAfterCommit(preparedIdAdmin);
+    auditLog.record(AuditEventType.ROLE_REMOVED, userEntitySuperAdmin.getId(), RDB.NAME_ROLE_SUPER_ADMIN);
+    auditLog.record(AuditEventType.ROLE_ADDED, preparedIdAdmin, RDB.NAME_ROLE_SUPER_ADMIN);
 
     log.info("DB. Administrator with ID \"{}\" updated. Added role \"{}\"", idAdmin, RDB.ROLE_SUPER_ADMIN);
   }
@@ -1,33 +1,58 @@
 package com.example.familybenefitstown.part_res_rest_api.services.implementations;
 
 import com.example.familybenefitstown.exceptions.*;
+import com.example.familybenefitstown.part_res_rest_api.api_models.common.ImportReport;
 import com.example.familybenefitstown.part_res_rest_api.api_models.user.UserInfo;
 import com.example.familybenefitstown.part_res_rest_api.api_models.user.UserInitData;
+import com.example.familybenefitstown.part_res_rest_api.api_models.user.UserPatch;
 import com.example.familybenefitstown.part_res_rest_api.api_models.user.UserSave;
+import com.example.familybenefitstown.part_res_rest_api.benefits.UserBenefitRefresher;
+import com.example.familybenefitstown.part_res_rest_api.bulk.BulkFormat;
+import com.example.familybenefitstown.part_res_rest_api.bulk.BulkRecordReader;
+import com.example.familybenefitstown.part_res_rest_api.bulk.BulkRecordWriter;
+import com.example.familybenefitstown.part_res_rest_api.bulk.ImportErrorCollector;
+import com.example.familybenefitstown.part_res_rest_api.cache.ChildBirthIdCache;
+import com.example.familybenefitstown.part_res_rest_api.cache.UserInfoCache;
 import com.example.familybenefitstown.part_res_rest_api.converters.CityDBConverter;
+import com.example.familybenefitstown.part_res_rest_api.converters.FieldConverter;
 import com.example.familybenefitstown.part_res_rest_api.converters.UserDBConverter;
 import com.example.familybenefitstown.dto.entities.ChildBirthEntity;
-import com.example.familybenefitstown.dto.entities.CityEntity;
 import com.example.familybenefitstown.dto.entities.UserEntity;
+import com.example.familybenefitstown.dto.jdbc.CityStatsJdbcRepository;
+import com.example.familybenefitstown.dto.jdbc.PgCopyWriter;
+import com.example.familybenefitstown.dto.jdbc.UserJdbcRepository;
+import com.example.familybenefitstown.dto.projections.UserProfile;
+import com.example.familybenefitstown.dto.projections.UserVersion;
 import com.example.familybenefitstown.dto.repositories.ChildBirthRepository;
 import com.example.familybenefitstown.dto.repositories.CityRepository;
-import com.example.familybenefitstown.dto.repositories.RoleRepository;
 import com.example.familybenefitstown.dto.repositories.UserRepository;
 import com.example.familybenefitstown.part_res_rest_api.services.interfaces.UserService;
-import com.example.familybenefitstown.resources.R;
 import com.example.familybenefitstown.resources.RDB;
-import com.example.familybenefitstown.security.RandomValue;
 import com.example.familybenefitstown.security.DBSecuritySupport;
 import com.example.familybenefitstown.security.DateTimeSupport;
 import com.example.familybenefitstown.security.MailSecuritySupport;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
 import java.util.stream.Collectors;
 
 /**
@@ -37,40 +62,124 @@ import java.util.stream.Collectors;
 @Service
 public class UserServiceFB implements UserService {
 
+  /**
+   * Режим хранения дат рождений детей. Чтение в обоих режимах выполняется из столбца "children_birth",
+   * другое хранилище приводится к изменяемому триггерами бд
+   */
+  public enum ChildrenStorage {
+
+    /**
+     * Изменяется связь "users_children" с рождениями детей "child_birth": только отличающиеся даты,
+     * с ID рождений детей из словаря {@link ChildBirthIdCache}
+     */
+    TABLES,
+
+    /**
+     * Изменяется столбец "children_birth" пользователя одним запросом
+     */
+    ARRAY
+  }
+
+  /**
+   * Названия столбцов CSV выгрузки пользователей
+   */
+  private static final List<String> EXPORT_CSV_HEADER = List.of(
+      "id", "name", "email", "nameCity", "birthDateChildren", "nameRoleList");
+
+  /**
+   * Число записей загрузки, проверяемых параллельно перед передачей в промежуточную таблицу
+   */
+  private static final int IMPORT_CHUNK_SIZE = 1000;
+
+  /**
+   * Разделитель дат рождений детей и названий ролей в поле записи CSV
+   */
+  private static final String CSV_LIST_SEPARATOR = ";";
+
   /**
    * Репозиторий, работающий с моделью таблицы "user"
    */
   private final UserRepository userRepository;
 
   /**
-   * Репозиторий, работающий с моделью таблицы "child"
+   * Репозиторий, работающий с моделью таблицы "city"
+   */
+  private final CityRepository cityRepository;
+
+  /**
+   * Репозиторий, работающий с моделью таблицы "child_birth"
    */
   private final ChildBirthRepository childBirthRepository;
+
   /**
-   * Репозиторий, работающий с моделью таблицы "role"
+   * Репозиторий операций с таблицей "user", выполняющий запросы сразу
    */
-  private final RoleRepository roleRepository;
+  private final UserJdbcRepository userJdbcRepository;
+
   /**
-   * Репозиторий, работающий с моделью таблицы "city"
+   * Репозиторий операций со счетчиками семей и детей городов, выполняющий запросы сразу
    */
-  private final CityRepository cityRepository;
+  private final CityStatsJdbcRepository cityStatsJdbcRepository;
+
+  /**
+   * Кэш информации о пользователях
+   */
+  private final UserInfoCache userInfoCache;
+
+  /**
+   * Пересчет сохраненных положенных пособий отдельных пользователей
+   */
+  private final UserBenefitRefresher userBenefitRefresher;
+
+  /**
+   * Словарь ID рождений детей по дате рождения
+   */
+  private final ChildBirthIdCache childBirthIdCache;
+
+  /**
+   * Объект для чтения записей JSON
+   */
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Режим хранения дат рождений детей
+   */
+  private final ChildrenStorage childrenStorage;
 
   /**
    * Конструктор для инициализации интерфейсов репозиториев и сервисов
    * @param userRepository репозиторий, работающий с моделью таблицы "user"
-   * @param childBirthRepository репозиторий, работающий с моделью таблицы "child"
-   * @param roleRepository репозиторий, работающий с моделью таблицы "role"
    * @param cityRepository репозиторий, работающий с моделью таблицы "city"
+   * @param childBirthRepository репозиторий, работающий с моделью таблицы "child_birth"
+   * @param userJdbcRepository репозиторий операций с таблицей "user", выполняющий запросы сразу
+   * @param cityStatsJdbcRepository репозиторий операций со счетчиками семей и детей городов, выполняющий запросы сразу
+   * @param userInfoCache кэш информации о пользователях
+   * @param userBenefitRefresher пересчет сохраненных положенных пособий отдельных пользователей
+   * @param childBirthIdCache словарь ID рождений детей по дате рождения
+   * @param objectMapper объект для чтения записей JSON
+   * @param childrenStorage режим хранения дат рождений детей
    */
   @Autowired
   public UserServiceFB(UserRepository userRepository,
+                       CityRepository cityRepository,
                        ChildBirthRepository childBirthRepository,
-                       RoleRepository roleRepository,
-                       CityRepository cityRepository) {
+                       UserJdbcRepository userJdbcRepository,
+                       CityStatsJdbcRepository cityStatsJdbcRepository,
+                       UserInfoCache userInfoCache,
+                       UserBenefitRefresher userBenefitRefresher,
+                       ChildBirthIdCache childBirthIdCache,
+                       ObjectMapper objectMapper,
+                       @Value("${family-benefits-town.children-storage:TABLES}") ChildrenStorage childrenStorage) {
     this.userRepository = userRepository;
-    this.childBirthRepository = childBirthRepository;
-    this.roleRepository = roleRepository;
     this.cityRepository = cityRepository;
+    this.childBirthRepository = childBirthRepository;
+    this.userJdbcRepository = userJdbcRepository;
+    this.cityStatsJdbcRepository = cityStatsJdbcRepository;
+    this.userInfoCache = userInfoCache;
+    this.userBenefitRefresher = userBenefitRefresher;
+    this.childBirthIdCache = childBirthIdCache;
+    this.objectMapper = objectMapper;
+    this.childrenStorage = childrenStorage;
   }
 
   /**
@@ -84,7 +193,7 @@ public class UserServiceFB implements UserService {
    * @throws InvalidStringException если строковое поле объекта запроса не содержит букв или цифр
    */
   @Override
-  @Transactional
+  @Transactional(rollbackFor = Exception.class)
   public void create(UserSave userSave) throws
       NotFoundException,
       AlreadyExistsException,
@@ -100,14 +209,6 @@ public class UserServiceFB implements UserService {
     UserEntity userEntityFromSave = UserDBConverter
         .fromSave(null, userSave, DBSecuritySupport::preparePostgreSQLString);
 
-    // Проверка существования города по ID
-    DBSecuritySupport.checkExistenceById(
-        cityRepository::existsById, userEntityFromSave.getIdCity());
-
-    // Проверка на отсутствие пользователя или администратора по email
-    DBSecuritySupport.checkAbsenceByUniqStr(
-        userRepository::existsByEmail, userEntityFromSave.getEmail());
-
     // Преобразование дат рождения пользователя и рождения детей
     userEntityFromSave.setDateBirth(DateTimeSupport.strToDate(userSave.getDateBirth()));
     List<LocalDate> childBirthList = DateTimeSupport.strToDate(userSave.getBirthDateChildren());
@@ -116,10 +217,17 @@ public class UserServiceFB implements UserService {
     DateTimeSupport.checkDateBeforeNow(userEntityFromSave.getDateBirth());
     DateTimeSupport.checkDateBeforeNow(childBirthList);
 
-    userRepository.save(userEntityFromSave);
+    // Создание пользователя. Существование города и отсутствие пользователя или администратора по email
+    // проверяются ограничениями бд
+    DBSecuritySupport.saveCheckUniqStrAndIdForeign(
+        () -> userJdbcRepository.insert(userEntityFromSave),
+        UserJdbcRepository.CONSTRAINT_UNIQ_EMAIL, userEntityFromSave.getEmail(),
+        UserJdbcRepository.CONSTRAINT_FK_CITY, userEntityFromSave.getIdCity());
     userRepository.addRoleToUser(userEntityFromSave.getId(), RDB.ID_ROLE_USER);
-    userRepository.deleteAllChildrenFromUser(userEntityFromSave.getId());
     setChildrenToUser(userEntityFromSave.getId(), childBirthList);
+    userJdbcRepository.refreshProfile(userEntityFromSave.getId());
+    userBenefitRefresher.refresh(userEntityFromSave.getId());
+    cityStatsJdbcRepository.moveUser(userEntityFromSave.getId(), CityStatsJdbcRepository.Membership.NONE);
 
     log.info("DB. User with email \"{}\" created.", userSave.getEmail());
   }
@@ -132,16 +240,90 @@ public class UserServiceFB implements UserService {
    */
   @Override
   public UserInfo read(String idUser) throws NotFoundException {
+    return read(idUser, getVersionTag(idUser));
+  }
+
+  /**
+   * Возвращает пользователя по его ID не старше указанной версии.
+   * Информация берется из кэша, только если она прочитана на указанной версии, иначе читается из бд
+   * и сохраняется в кэш с указанной версией. Прочитанная информация может быть новее версии, но не старше
+   * @param idUser ID пользователя
+   * @param versionTag тег версии пользователя, прочитанный до вызова
+   * @return информация о пользователе
+   * @throws NotFoundException если пользователь с указанным ID не найден
+   */
+  @Override
+  public UserInfo read(String idUser, String versionTag) throws NotFoundException {
 
-    // Получение пользователя по его ID, если пользователь существует
     String preparedIdUser = DBSecuritySupport.preparePostgreSQLString(idUser);
-    UserEntity userEntityFromRequest = getUserEntity(preparedIdUser);
+    UserInfo cachedUserInfo = userInfoCache.get(preparedIdUser, versionTag);
+    if (cachedUserInfo != null) {
+      return cachedUserInfo;
+    }
+
+    // Получение профиля пользователя с городом, ролями и детьми одним запросом, если пользователь существует
+    UserProfile userProfile = userRepository.findProfileById(preparedIdUser)
+        .orElseThrow(() -> new NotFoundException(String.format(
+            "User with ID \"%s\" not found", preparedIdUser)));
+
+    UserInfo userInfo = UserDBConverter.toInfo(userProfile);
+    userInfoCache.put(preparedIdUser, versionTag, userInfo);
+    return userInfo;
+  }
+
+  /**
+   * Возвращает информацию о нескольких пользователях по их ID.
+   * Пользователи, отсутствующие в кэше, загружаются одним запросом
+   * @param idUserCollection коллекция ID пользователей, от 1 до {@link #MAX_READ_ALL_SIZE}
+   * @return информация о найденных пользователях, ключ - ID пользователя
+   * @throws InvalidStringException если ID пользователя {@code null} или не содержит символов
+   * @throws InvalidRangeException если коллекция ID пуста или число ID больше {@link #MAX_READ_ALL_SIZE}
+   */
+  @Override
+  public Map<String, UserInfo> readAll(Collection<String> idUserCollection) throws InvalidStringException, InvalidRangeException {
+
+    // Проверка ID до обращения к кэшу и бд: пустой ID не может быть элементом массива запроса
+    checkReadAll(idUserCollection);
+
+    Map<String, UserInfo> userInfoMap = new HashMap<>(idUserCollection.size() * 2);
+    Map<String, String> missingVersionTagMap = new HashMap<>();
+
+    // Версии пользователей читаются одним запросом до информации, из кэша берется только информация текущей версии
+    for (UserVersion userVersion : userRepository.findAllVersionByIdIn(DBSecuritySupport.toPostgreSQLTextArray(idUserCollection))) {
+      String versionTag = toVersionTag(userVersion.getVersion());
+      UserInfo cachedUserInfo = userInfoCache.get(userVersion.getId(), versionTag);
+      if (cachedUserInfo != null) {
+        userInfoMap.put(userVersion.getId(), cachedUserInfo);
+      } else {
+        missingVersionTagMap.put(userVersion.getId(), versionTag);
+      }
+    }
+
+    if (!missingVersionTagMap.isEmpty()) {
+      for (UserProfile userProfile : userRepository.findAllProfileByIdIn(
+          DBSecuritySupport.toPostgreSQLTextArray(missingVersionTagMap.keySet()))) {
+        UserInfo userInfo = UserDBConverter.toInfo(userProfile);
+        userInfoCache.put(userInfo.getId(), missingVersionTagMap.get(userInfo.getId()), userInfo);
+        userInfoMap.put(userInfo.getId(), userInfo);
+      }
+    }
 
-    return UserDBConverter.toInfo(userEntityFromRequest,
-                                  childBirthRepository.findAllByIdUser(preparedIdUser),
-                                  roleRepository.findAllByIdUser(preparedIdUser),
-                                  cityRepository.findByIdUser(preparedIdUser)
-                                      .map(CityEntity::getName).orElse(null));
+    return userInfoMap;
+  }
+
+  /**
+   * Возвращает тег версии пользователя по его ID, учитывающий роли, детей и город пользователя.
+   * Для проверки актуальности загружается только версия
+   * @param idUser ID пользователя
+   * @return тег версии пользователя
+   * @throws NotFoundException если пользователь с указанным ID не найден
+   */
+  @Override
+  public String getVersionTag(String idUser) throws NotFoundException {
+
+    String preparedIdUser = DBSecuritySupport.preparePostgreSQLString(idUser);
+    return toVersionTag(userRepository.findVersionById(preparedIdUser).orElseThrow(
+        () -> new NotFoundException(String.format("User with ID \"%s\" not found", preparedIdUser))));
   }
 
   /**
@@ -156,7 +338,7 @@ public class UserServiceFB implements UserService {
    * @throws InvalidStringException если строковое поле объекта запроса не содержит букв или цифр
    */
   @Override
-  @Transactional
+  @Transactional(rollbackFor = Exception.class)
   public void update(String idUser, UserSave userSave) throws
       NotFoundException,
       InvalidEmailException,
@@ -174,16 +356,9 @@ public class UserServiceFB implements UserService {
 
     String preparedIdUser = userEntityFromSave.getId();
 
-    // Проверка существования города по ID
-    DBSecuritySupport.checkExistenceById(
-        cityRepository::existsById, userEntityFromSave.getIdCity());
-
-    // Проверка отсутствия пользователя с отличным от данного ID и данным email
-    DBSecuritySupport.checkAbsenceAnotherByUniqStr(
-        userRepository::existsByIdIsNotAndEmail, preparedIdUser, userEntityFromSave.getEmail());
-
-    // Получение пользователя по его ID, если пользователь существует
+    // Получение пользователя по его ID, если пользователь существует, и его вклада в счетчики города
     UserEntity userEntityFromDB = getUserEntity(preparedIdUser);
+    CityStatsJdbcRepository.Membership membershipBefore = lockMembership(preparedIdUser);
 
     // Преобразование дат рождения пользователя и рождения детей
     userEntityFromDB.setDateBirth(DateTimeSupport.strToDate(userSave.getDateBirth()));
@@ -195,13 +370,100 @@ public class UserServiceFB implements UserService {
 
     userEntityFromDB.setEmail(userEntityFromSave.getEmail());
     userEntityFromDB.setName(userEntityFromSave.getName());
-
-    userRepository.save(userEntityFromDB);
-    userRepository.deleteAllChildrenFromUser(preparedIdUser);
+    userEntityFromDB.setIdCity(userEntityFromSave.getIdCity());
+
+    // Сохранение пользователя. Существование города и отсутствие пользователя с отличным ID и данным email
+    // проверяются ограничениями бд
+    DBSecuritySupport.saveCheckUniqStrAndIdForeign(
+        () -> userRepository.saveAndFlush(userEntityFromDB),
+        UserJdbcRepository.CONSTRAINT_UNIQ_EMAIL, userEntityFromDB.getEmail(),
+        UserJdbcRepository.CONSTRAINT_FK_CITY, userEntityFromDB.getIdCity());
     setChildrenToUser(preparedIdUser, childBirthList);
+    userJdbcRepository.refreshProfile(preparedIdUser);
+    userBenefitRefresher.refresh(preparedIdUser);
+    cityStatsJdbcRepository.moveUser(preparedIdUser, membershipBefore);
+    userInfoCache.invalidateAfterCommit(preparedIdUser);
     log.info("DB. User with ID \"{}\" updated.", idUser);
   }
 
+  /**
+   * Частично обновляет пользователя по запросу JSON Merge Patch. Проверяются и сохраняются только указанные поля:
+   * в таблицу "user" записываются только измененные столбцы, дети пользователя изменяются, только если указаны.
+   * Значение {@code null} удаляет дату рождения и детей, для обязательных полей "name", "email" и "idCity" отклоняется
+   * @param idUser ID пользователя
+   * @param userPatch объект запроса на частичное обновление пользователя
+   * @throws NotFoundException если пользователь или город с указанными данными не найдены
+   * @throws InvalidEmailException если указанный "email" не является email или равен {@code null}
+   * @throws DateFormatException если даты рождения пользователя или детей не соответствуют формату "dd.mm.yyyy"
+   * @throws DateTimeException если даты рождения пользователя или детей позже текущей даты
+   * @throws AlreadyExistsException если пользователь с отличным ID и данным email уже существует
+   * @throws InvalidStringException если строковое поле объекта запроса не содержит букв или цифр, или "name" или "idCity" равны {@code null}
+   */
+  @Override
+  @Transactional(rollbackFor = Exception.class)
+  public void patch(String idUser, UserPatch userPatch) throws
+      NotFoundException,
+      InvalidEmailException,
+      DateFormatException,
+      DateTimeException,
+      AlreadyExistsException,
+      InvalidStringException {
+
+    String preparedIdUser = DBSecuritySupport.preparePostgreSQLString(idUser);
+
+    // Получение пользователя по его ID, если пользователь существует, и его вклада в счетчики города
+    UserEntity userEntityFromDB = getUserEntity(preparedIdUser);
+    CityStatsJdbcRepository.Membership membershipBefore = lockMembership(preparedIdUser);
+
+    // Обязательные поля нельзя удалить значением null, необязательные поля удаляются
+    if (userPatch.isPatched("name")) {
+      checkNotRemoved(userPatch.getName(), "name");
+      userEntityFromDB.setName(DBSecuritySupport.preparePostgreSQLString(
+          FieldConverter.withSymbolsField(userPatch.getName(), "name", true)));
+    }
+    if (userPatch.isPatched("email")) {
+      if (userPatch.getEmail() == null) {
+        throw new InvalidEmailException("The required field \"email\" cannot be removed");
+      }
+      MailSecuritySupport.checkEmailElseThrow(userPatch.getEmail());
+      userEntityFromDB.setEmail(DBSecuritySupport.preparePostgreSQLString(userPatch.getEmail()));
+    }
+    if (userPatch.isPatched("idCity")) {
+      checkNotRemoved(userPatch.getIdCity(), "idCity");
+      userEntityFromDB.setIdCity(DBSecuritySupport.preparePostgreSQLString(
+          FieldConverter.withSymbolsField(userPatch.getIdCity(), "idCity", true)));
+    }
+    if (userPatch.isPatched("dateBirth")) {
+      LocalDate dateBirth = null;
+      if (userPatch.getDateBirth() != null) {
+        dateBirth = DateTimeSupport.strToDate(userPatch.getDateBirth());
+        DateTimeSupport.checkDateBeforeNow(dateBirth);
+      }
+      userEntityFromDB.setDateBirth(dateBirth);
+    }
+
+    // Сохранение измененных столбцов пользователя. Если ни один столбец не изменен, запрос не выполняется.
+    // Существование города и отсутствие пользователя с отличным ID и данным email проверяются ограничениями бд
+    DBSecuritySupport.saveCheckUniqStrAndIdForeign(
+        () -> userRepository.saveAndFlush(userEntityFromDB),
+        UserJdbcRepository.CONSTRAINT_UNIQ_EMAIL, userEntityFromDB.getEmail(),
+        UserJdbcRepository.CONSTRAINT_FK_CITY, userEntityFromDB.getIdCity());
+
+    if (userPatch.isPatched("birthDateChildren")) {
+      List<LocalDate> childBirthList = userPatch.getBirthDateChildren() != null
+          ? DateTimeSupport.strToDate(userPatch.getBirthDateChildren())
+          : Collections.emptyList();
+      DateTimeSupport.checkDateBeforeNow(childBirthList);
+      setChildrenToUser(preparedIdUser, childBirthList);
+    }
+
+    userJdbcRepository.refreshProfile(preparedIdUser);
+    userBenefitRefresher.refresh(preparedIdUser);
+    cityStatsJdbcRepository.moveUser(preparedIdUser, membershipBefore);
+    userInfoCache.invalidateAfterCommit(preparedIdUser);
+    log.info("DB. User with ID \"{}\" patched: {}.", idUser, userPatch.getPatchedFieldSet());
+  }
+
   /**
    * Удаляет пользователя по его ID или удаляет роль "ROLE_USER" у администратора
    * @param idUser ID пользователя
@@ -218,11 +480,16 @@ public class UserServiceFB implements UserService {
     // Если есть роль "ROLE_ADMIN", удаление роли "ROLE_USER", иначе удаление пользователя и его токена восстановления
     if (userRepository.hasUserRole(preparedIdUser, RDB.ID_ROLE_ADMIN)) {
       userRepository.deleteRoleFromUser(preparedIdUser, RDB.ID_ROLE_ADMIN);
+      userJdbcRepository.refreshProfile(preparedIdUser);
       log.info("DB. User with ID \"{}\" updated. Removed role \"{}\"", idUser, RDB.NAME_ROLE_USER);
     } else {
+      CityStatsJdbcRepository.Membership membershipBefore = lockMembership(preparedIdUser);
       userRepository.deleteById(preparedIdUser);
+      userRepository.flush();
+      cityStatsJdbcRepository.moveUser(preparedIdUser, membershipBefore);
       log.info("DB. User with ID \"{}\" deleted.", idUser);
     }
+    userInfoCache.invalidateAfterCommit(preparedIdUser);
   }
 
   /**
@@ -242,6 +509,221 @@ public class UserServiceFB implements UserService {
         .build();
   }
 
+  /**
+   * Создает пользователей из потока записей на сохранение.
+   * Некорректные записи, записи с несуществующим городом и с существующими или повторяющимися email
+   * пропускаются и попадают в отчет
+   * @param inputStream поток записей в кодировке UTF-8
+   * @param bulkFormat формат потока
+   * @return отчет о загрузке
+   * @throws IOException если не удалось прочитать поток. Ни один пользователь не сохраняется
+   */
+  @Override
+  @Transactional(rollbackFor = IOException.class)
+  public ImportReport importAll(InputStream inputStream, BulkFormat bulkFormat) throws IOException {
+
+    ImportErrorCollector errorCollector = new ImportErrorCollector();
+    List<ImportRecord> importRecordList = new ArrayList<>(IMPORT_CHUNK_SIZE);
+    long countRecord;
+
+    // Чтение записей частями, параллельная проверка части и её передача в промежуточную таблицу
+    try (BulkRecordReader<UserSave> recordReader = new BulkRecordReader<>(
+        inputStream, bulkFormat, objectMapper, UserSave.class, UserServiceFB::userSaveFromCsv);
+         PgCopyWriter copyWriter = userJdbcRepository.beginImport()) {
+
+      boolean hasNext = true;
+      while (hasNext) {
+        try {
+          UserSave userSave = recordReader.read();
+          hasNext = userSave != null;
+          if (hasNext) {
+            importRecordList.add(new ImportRecord(recordReader.getNumberRecord(), userSave));
+          }
+        } catch (InvalidStringException e) {
+          errorCollector.add(recordReader.getNumberRecord(), e.getMessage());
+        }
+
+        if (importRecordList.size() == IMPORT_CHUNK_SIZE || !hasNext) {
+          writeImportRecords(importRecordList, copyWriter, errorCollector);
+          importRecordList.clear();
+        }
+      }
+      countRecord = recordReader.getNumberRecord();
+    }
+
+    // Перенос пользователей, их ролей и детей несколькими запросами с учетом уникальности email и существования города
+    long countImported = userJdbcRepository.mergeImport(RDB.ID_ROLE_USER, (numberRow, email, existsCity) ->
+        errorCollector.add(numberRow, existsCity
+            ? String.format("User with email \"%s\" already exists", email)
+            : String.format("City of user with email \"%s\" not found", email)));
+    userBenefitRefresher.refresh(userJdbcRepository.findImportedBenefitSubjects());
+
+    log.info("DB. Users imported: {} of {} records.", countImported, countRecord);
+
+    return errorCollector.toReport(countRecord, countImported);
+  }
+
+  /**
+   * Записывает информацию о всех пользователях в поток по мере чтения из бд.
+   * Пользователи читаются курсором внутри транзакции только для чтения, без накопления результата в памяти
+   * @param outputStream поток записей, записывается в кодировке UTF-8
+   * @param bulkFormat формат потока
+   * @throws IOException если не удалось записать в поток
+   */
+  @Override
+  @Transactional(readOnly = true)
+  public void exportAll(OutputStream outputStream, BulkFormat bulkFormat) throws IOException {
+
+    try (BulkRecordWriter<UserInfo> recordWriter = new BulkRecordWriter<>(
+        outputStream, bulkFormat, objectMapper, EXPORT_CSV_HEADER, UserServiceFB::userInfoToCsv)) {
+
+      userJdbcRepository.forEachProfile(userProfile -> {
+        try {
+          recordWriter.write(UserDBConverter.toInfo(userProfile));
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      });
+      log.info("DB. Users exported: {}.", recordWriter.getCountRecords());
+
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  /**
+   * Параллельно проверяет записи загрузки и передает корректные записи в промежуточную таблицу в порядке чтения
+   * @param importRecordList список записей загрузки
+   * @param copyWriter объект записи строк в промежуточную таблицу
+   * @param errorCollector накопитель ошибок загрузки
+   */
+  private void writeImportRecords(List<ImportRecord> importRecordList,
+                                  PgCopyWriter copyWriter,
+                                  ImportErrorCollector errorCollector) {
+
+    List<Object[]> rowList = importRecordList
+        .parallelStream()
+        .map(importRecord -> toImportRow(importRecord, errorCollector))
+        .collect(Collectors.toList());
+
+    for (Object[] row : rowList) {
+      if (row != null) {
+        copyWriter.writeRow(row);
+      }
+    }
+  }
+
+  /**
+   * Проверяет запись загрузки и преобразует её в строку промежуточной таблицы.
+   * Ошибка проверки добавляется в накопитель ошибок
+   * @param importRecord запись загрузки
+   * @param errorCollector накопитель ошибок загрузки
+   * @return значения столбцов строки или {@code null}, если запись некорректна
+   */
+  private Object[] toImportRow(ImportRecord importRecord, ImportErrorCollector errorCollector) {
+
+    UserSave userSave = importRecord.userSave;
+    try {
+      // Проверка строки email на соответствие формату email
+      MailSecuritySupport.checkEmailElseThrow(userSave.getEmail());
+
+      // Получение модели таблицы из записи с подготовкой строковых значений для БД
+      UserEntity userEntityFromSave = UserDBConverter
+          .fromSave(null, userSave, DBSecuritySupport::preparePostgreSQLString);
+
+      // Преобразование и проверка дат рождения пользователя и рождения детей
+      if (userSave.getDateBirth() != null) {
+        userEntityFromSave.setDateBirth(DateTimeSupport.strToDate(userSave.getDateBirth()));
+        DateTimeSupport.checkDateBeforeNow(userEntityFromSave.getDateBirth());
+      }
+      List<String> birthDateChildren = userSave.getBirthDateChildren() != null
+          ? userSave.getBirthDateChildren()
+          : Collections.emptyList();
+      if (birthDateChildren.contains(null)) {
+        throw new DateFormatException("The list of children birth dates contains an empty date");
+      }
+      List<LocalDate> childBirthList = DateTimeSupport.strToDate(birthDateChildren);
+      DateTimeSupport.checkDateBeforeNow(childBirthList);
+
+      return new Object[] {
+          importRecord.numberRecord, userEntityFromSave.getId(), userEntityFromSave.getName(),
+          userEntityFromSave.getEmail(), userEntityFromSave.getDateBirth(), userEntityFromSave.getIdCity(),
+          DBSecuritySupport.toPostgreSQLDateArray(new TreeSet<>(childBirthList))};
+
+    } catch (InvalidEmailException | InvalidStringException | DateFormatException | DateTimeException e) {
+      errorCollector.add(importRecord.numberRecord, e.getMessage());
+      return null;
+    }
+  }
+
+  /**
+   * Преобразует запись CSV в объект запроса на сохранение пользователя.
+   * Даты рождений детей указываются в одном поле через {@link #CSV_LIST_SEPARATOR}
+   * @param row запись CSV, ключи - названия столбцов
+   * @return объект запроса на сохранение пользователя
+   */
+  private static UserSave userSaveFromCsv(Map<String, String> row) {
+
+    String birthDateChildren = row.get("birthDateChildren");
+
+    return UserSave
+        .builder()
+        .name(row.get("name"))
+        .email(row.get("email"))
+        .dateBirth(row.get("dateBirth"))
+        .idCity(row.get("idCity"))
+        .birthDateChildren(birthDateChildren == null || birthDateChildren.isBlank()
+                               ? Collections.emptyList()
+                               : Arrays
+                                   .stream(birthDateChildren.split(CSV_LIST_SEPARATOR))
+                                   .map(String::trim)
+                                   .collect(Collectors.toList()))
+        .build();
+  }
+
+  /**
+   * Проверяет коллекцию ID запроса на получение нескольких пользователей
+   * @param idUserCollection коллекция ID пользователей или {@code null}
+   * @throws InvalidStringException если ID пользователя {@code null} или не содержит символов
+   * @throws InvalidRangeException если коллекция ID {@code null} или пуста, или число ID больше {@link #MAX_READ_ALL_SIZE}
+   */
+  @Override
+  public void checkReadAll(Collection<String> idUserCollection) throws InvalidStringException, InvalidRangeException {
+
+    int countIdUser = idUserCollection == null ? 0 : idUserCollection.size();
+    if (countIdUser == 0 || countIdUser > MAX_READ_ALL_SIZE) {
+      throw new InvalidRangeException(String.format(
+          "Attempt to read %d users, from 1 to %d are allowed", countIdUser, MAX_READ_ALL_SIZE));
+    }
+    for (String idUser : idUserCollection) {
+      if (idUser == null || idUser.isBlank()) {
+        throw new InvalidStringException("Attempt to read a user with an empty ID");
+      }
+    }
+  }
+
+  /**
+   * Возвращает тег версии пользователя по версиям пользователя и его города
+   * @param version версии пользователя и города через "-"
+   * @return тег версии пользователя
+   */
+  private static String toVersionTag(String version) {
+    return "user-" + version;
+  }
+
+  /**
+   * Проверяет, что обязательное поле запроса на частичное обновление не удаляется значением {@code null}
+   * @param value значение поля
+   * @param field название поля
+   * @throws InvalidStringException если значение поля равно {@code null}
+   */
+  private static void checkNotRemoved(String value, String field) throws InvalidStringException {
+
+    if (value == null) {
+      throw new InvalidStringException(String.format("The required field \"%s\" cannot be removed", field));
+    }
+  }
+
   /**
    * Возвращает модель пользователя по его ID
    * @param prepareId подготовленное для бд ID пользователя
@@ -256,25 +738,154 @@ public class UserServiceFB implements UserService {
   }
 
   /**
-   * Добавляет детей по их дням рождениям указанному пользователю по его ID
-   * @param idUser ID пользователя, которому добавляются модели детей
-   * @param childBirthList список дней рождений детей
+   * Блокирует строку пользователя до конца транзакции и возвращает его вклад в счетчики города
+   * @param idUser подготовленный для бд ID пользователя
+   * @return вклад пользователя в счетчики города
+   * @throws NotFoundException если пользователь с указанным ID не найден
+   */
+  private CityStatsJdbcRepository.Membership lockMembership(String idUser) throws NotFoundException {
+
+    return cityStatsJdbcRepository.lockMembership(idUser).orElseThrow(
+        () -> new NotFoundException(String.format("User with ID \"%s\" not found", idUser)));
+  }
+
+  /**
+   * Устанавливает детям указанного пользователя список дней рождений в хранилище режима {@link #childrenStorage}.
+   * Другое хранилище приводится к измененному триггером бд в той же транзакции
+   * @param idUser ID пользователя, детям которого устанавливаются дни рождения
+   * @param childBirthList список дней рождений детей из запроса
    */
   private void setChildrenToUser(String idUser, List<LocalDate> childBirthList) {
 
-    for (LocalDate childBirth : childBirthList) {
+    if (childrenStorage == ChildrenStorage.ARRAY) {
+      userRepository.setChildrenToUser(idUser, DBSecuritySupport.toPostgreSQLDateArray(childBirthList));
+    } else {
+      updateChildrenOfUser(idUser, getChildBirthSet(idUser), childBirthList);
+    }
+  }
+
+  /**
+   * Возвращает множество дат рождений детей пользователя по его ID
+   * @param prepareId подготовленное для бд ID пользователя
+   * @return множество дат рождений детей
+   */
+  private Set<LocalDate> getChildBirthSet(String prepareId) {
+
+    return childBirthRepository.findAllByIdUser(prepareId)
+        .stream()
+        .map(ChildBirthEntity::getDateBirth)
+        .collect(Collectors.toSet());
+  }
+
+  /**
+   * Приводит детей указанного пользователя к указанному списку дней рождений.
+   * Добавляются и удаляются только отличающиеся даты, каждое изменение выполняется одним запросом
+   * @param idUser ID пользователя, детям которого устанавливаются дни рождения
+   * @param storedChildBirthSet множество дней рождений детей, сохраненных у пользователя
+   * @param childBirthList список дней рождений детей из запроса
+   */
+  private void updateChildrenOfUser(String idUser, Set<LocalDate> storedChildBirthSet, List<LocalDate> childBirthList) {
 
-      // Получение существующей модели рождения ребенка или же создание новой
-      Optional<ChildBirthEntity> childEntityOpt = childBirthRepository.findByDateBirth(childBirth);
+    Set<LocalDate> addedChildBirthSet = new HashSet<>(childBirthList);
+    addedChildBirthSet.removeAll(storedChildBirthSet);
 
-      if (childEntityOpt.isPresent()) {
-        userRepository.addChildToUser(idUser, childEntityOpt.get().getId());
+    Set<LocalDate> deletedChildBirthSet = new HashSet<>(storedChildBirthSet);
+    deletedChildBirthSet.removeAll(childBirthList);
 
+    if (!deletedChildBirthSet.isEmpty()) {
+      userRepository.deleteChildrenFromUser(idUser, DBSecuritySupport.toPostgreSQLDateArray(deletedChildBirthSet));
+    }
+
+    if (!addedChildBirthSet.isEmpty()) {
+      userRepository.addChildrenToUser(idUser, DBSecuritySupport.toPostgreSQLTextArray(getChildBirthIdList(addedChildBirthSet)));
+    }
+  }
+
+  /**
+   * Возвращает ID рождений детей по датам рождения. ID берутся из словаря рождений детей,
+   * отсутствующие в словаре рождения детей создаются одним запросом
+   * @param childBirthSet множество дат рождения
+   * @return список ID рождений детей
+   */
+  private List<String> getChildBirthIdList(Set<LocalDate> childBirthSet) {
+
+    List<String> idChildBirthList = new ArrayList<>(childBirthSet.size());
+    Set<LocalDate> missingChildBirthSet = new HashSet<>();
+
+    for (LocalDate childBirth : childBirthSet) {
+      String idChildBirth = childBirthIdCache.get(childBirth);
+      if (idChildBirth == null) {
+        missingChildBirthSet.add(childBirth);
       } else {
-        ChildBirthEntity newChildBirthEntity = new ChildBirthEntity(RandomValue.randomString(R.ID_LENGTH), childBirth);
-        childBirthRepository.save(newChildBirthEntity);
-        userRepository.addChildToUser(idUser, newChildBirthEntity.getId());
+        idChildBirthList.add(idChildBirth);
+      }
+    }
+
+    if (missingChildBirthSet.isEmpty()) {
+      return idChildBirthList;
+    }
+
+    // Созданные рождения детей попадают в словарь только после фиксации транзакции
+    List<ChildBirthEntity> createdChildBirthList = childBirthRepository
+        .saveAllDateBirth(DBSecuritySupport.toPostgreSQLDateArray(missingChildBirthSet));
+    childBirthIdCache.putAllAfterCommit(createdChildBirthList);
+    for (ChildBirthEntity childBirthEntity : createdChildBirthList) {
+      idChildBirthList.add(childBirthEntity.getId());
+      missingChildBirthSet.remove(childBirthEntity.getDateBirth());
+    }
+
+    // Рождения детей, созданные другими транзакциями или триггером бд после загрузки словаря
+    if (!missingChildBirthSet.isEmpty()) {
+      List<ChildBirthEntity> existingChildBirthList = childBirthRepository.findAllByDateBirthIn(missingChildBirthSet);
+      childBirthIdCache.putAll(existingChildBirthList);
+      for (ChildBirthEntity childBirthEntity : existingChildBirthList) {
+        idChildBirthList.add(childBirthEntity.getId());
       }
     }
+
+    return idChildBirthList;
+  }
+
+  /**
+   * Преобразует информацию о пользователе в поля записи CSV в порядке {@link #EXPORT_CSV_HEADER}.
+   * Списки записываются в одно поле через {@link #CSV_LIST_SEPARATOR}
+   * @param userInfo информация о пользователе
+   * @return поля записи CSV
+   */
+  private static List<String> userInfoToCsv(UserInfo userInfo) {
+
+    return Arrays.asList(
+        userInfo.getId(),
+        userInfo.getName(),
+        userInfo.getEmail(),
+        userInfo.getNameCity(),
+        String.join(CSV_LIST_SEPARATOR, userInfo.getBirthDateChildren()),
+        String.join(CSV_LIST_SEPARATOR, userInfo.getNameRoleList()));
+  }
+
+  /**
+   * Запись загрузки пользователей с её номером в потоке
+   */
+  private static class ImportRecord {
+
+    /**
+     * Номер записи, начиная с 1
+     */
+    private final long numberRecord;
+
+    /**
+     * Объект запроса на сохранение пользователя
+     */
+    private final UserSave userSave;
+
+    /**
+     * Конструктор для инициализации записи
+     * @param numberRecord номер записи, начиная с 1
+     * @param userSave объект запроса на сохранение пользователя
+     */
+    private ImportRecord(long numberRecord, UserSave userSave) {
+      this.numberRecord = numberRecord;
+      this.userSave = userSave;
+    }
   }
 }
@@ -1,12 +1,25 @@
 package com.example.familybenefitstown.part_res_rest_api.services.interfaces;
 
+import com.example.familybenefitstown.part_res_rest_api.api_models.admin.ActivityInfo;
 import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AdminInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AuditEventInfo;
 import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AdminSave;
+import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AudienceCount;
+import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AudienceFilter;
+import com.example.familybenefitstown.part_res_rest_api.api_models.common.ObjectShortInfo;
+import com.example.familybenefitstown.part_res_rest_api.audience.AudienceQuery;
 import com.example.familybenefitstown.exceptions.AlreadyExistsException;
+import com.example.familybenefitstown.exceptions.DateFormatException;
 import com.example.familybenefitstown.exceptions.InvalidEmailException;
+import com.example.familybenefitstown.exceptions.InvalidFilterException;
+import com.example.familybenefitstown.exceptions.InvalidRangeException;
 import com.example.familybenefitstown.exceptions.InvalidStringException;
 import com.example.familybenefitstown.exceptions.NotFoundException;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
 /**
  * Интерфейс сервиса, управляющего объектом "администратор"
  */
@@ -20,6 +33,25 @@ public interface AdminService {
    */
   AdminInfo read(String idAdmin) throws NotFoundException;
 
+  /**
+   * Возвращает администратора по его ID не старше указанной версии.
+   * Информация из кэша возвращается, только если она прочитана на указанной версии
+   * @param idAdmin ID администратора
+   * @param versionTag тег версии администратора, прочитанный до вызова
+   * @return информация об администраторе
+   * @throws NotFoundException если администратор с данным ID не найден
+   */
+  AdminInfo read(String idAdmin, String versionTag) throws NotFoundException;
+
+  /**
+   * Возвращает тег версии администратора по его ID, учитывающий роли администратора.
+   * Для проверки актуальности загружается только версия
+   * @param idAdmin ID администратора
+   * @return тег версии администратора
+   * @throws NotFoundException если администратор с данным ID не найден
+   */
+  String getVersionTag(String idAdmin) throws NotFoundException;
+
   /**
    * Обновляет администратора по запросу на сохранение
    * @param idAdmin ID администратора
@@ -30,5 +62,73 @@ public interface AdminService {
    * @throws InvalidStringException если строковое поле объекта запроса не содержит букв или цифр
    */
   void update(String idAdmin, AdminSave adminSave) throws NotFoundException, InvalidEmailException, AlreadyExistsException, InvalidStringException;
-}
 
+  /**
+   * Возвращает страницу кратких информаций о пользователях и администраторах, упорядоченных по ID.
+   * В качестве параметров фильтрации может быть указан {@code null}, если данный параметр не участвует в фильтрации
+   * @param substring подстрока имени или email без учета регистра
+   * @param nameRole название роли
+   * @param idCity ID города
+   * @param idAfter ID последнего пользователя предыдущей страницы
+   * @param limit размер страницы
+   * @return список кратких информаций о пользователях
+   */
+  List<ObjectShortInfo> searchUsers(String substring, String nameRole, String idCity, String idAfter, int limit);
+
+  /**
+   * Возвращает приближенное число активных пользователей и число входов за день, неделю и месяц,
+   * заканчивающиеся датой. Оценка объединяет скетчи всех узлов из бд и невыгруженные корзины текущего узла
+   * @param idCity ID города, {@code null} - все пользователи
+   * @param date последняя дата периодов в формате "dd.mm.yyyy", {@code null} - текущая дата
+   * @return информация об активности пользователей
+   * @throws DateFormatException если дата не соответствует формату "dd.mm.yyyy"
+   */
+  ActivityInfo readActivity(String idCity, String date) throws DateFormatException;
+
+  /**
+   * Возвращает страницу событий аудита за период, упорядоченных от новых записей к старым.
+   * События, ожидающие записи в буфере журнала, не возвращаются
+   * @param idUser ID пользователя, {@code null} - все пользователи
+   * @param type тип события, {@code null} - все типы
+   * @param dateFrom первая дата периода в формате "dd.mm.yyyy", {@code null} - за 30 дней до последней даты
+   * @param dateTo последняя дата периода в формате "dd.mm.yyyy", {@code null} - текущая дата
+   * @param idBefore ID последней записи предыдущей страницы
+   * @param limit размер страницы
+   * @return список информаций о событиях
+   * @throws DateFormatException если дата не соответствует формату "dd.mm.yyyy"
+   */
+  List<AuditEventInfo> readAudit(String idUser, String type, String dateFrom, String dateTo, Long idBefore, int limit)
+      throws DateFormatException;
+
+  /**
+   * Подготавливает фильтр аудитории семей на текущую дату в условие SQL запроса
+   * @param audienceFilter корневое условие фильтра
+   * @return подготовленный фильтр
+   * @throws InvalidFilterException если тип условия не указан, у условия нет необходимых полей или превышены размеры фильтра
+   * @throws InvalidRangeException если возраст или число детей отрицательные, или начало диапазона больше его конца
+   * @throws DateFormatException если дата рождения ребенка не соответствует формату "dd.mm.yyyy"
+   */
+  AudienceQuery compileAudience(AudienceFilter audienceFilter)
+      throws InvalidFilterException, InvalidRangeException, DateFormatException;
+
+  /**
+   * Возвращает число семей, подходящих под фильтр аудитории
+   * @param audienceFilter корневое условие фильтра
+   * @return число подходящих семей
+   * @throws InvalidFilterException если тип условия не указан, у условия нет необходимых полей или превышены размеры фильтра
+   * @throws InvalidRangeException если возраст или число детей отрицательные, или начало диапазона больше его конца
+   * @throws DateFormatException если дата рождения ребенка не соответствует формату "dd.mm.yyyy"
+   */
+  AudienceCount countAudience(AudienceFilter audienceFilter)
+      throws InvalidFilterException, InvalidRangeException, DateFormatException;
+
+  /**
+   * Записывает в поток ID семей, подходящих под подготовленный фильтр, по возрастанию, по одному в строке,
+   * по мере чтения из бд
+   * @param audienceQuery подготовленный фильтр аудитории
+   * @param idAfter ID, после которого начинается выборка, {@code null} - с начала
+   * @param outputStream поток ID, записывается в кодировке UTF-8
+   * @throws IOException если не удалось записать в поток
+   */
+  void writeAudienceIds(AudienceQuery audienceQuery, String idAfter, OutputStream outputStream) throws IOException;
+}
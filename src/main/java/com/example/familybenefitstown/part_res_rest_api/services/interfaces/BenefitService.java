@@ -0,0 +1,54 @@
+package com.example.familybenefitstown.part_res_rest_api.services.interfaces;
+
+import com.example.familybenefitstown.exceptions.*;
+import com.example.familybenefitstown.part_res_rest_api.api_models.benefit.BenefitEvaluationInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.benefit.BenefitRuleInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.benefit.BenefitRuleSave;
+import com.example.familybenefitstown.part_res_rest_api.api_models.common.ObjectShortInfo;
+
+import java.util.List;
+
+/**
+ * Интерфейс сервиса, управляющего объектом "пособие"
+ */
+public interface BenefitService {
+
+  /**
+   * Возвращает правила пособий города в порядке названий пособий
+   * @param idCity ID города
+   * @return список информаций о правилах пособий
+   * @throws NotFoundException если город с указанным ID не найден
+   */
+  List<BenefitRuleInfo> readAllOfCity(String idCity) throws NotFoundException;
+
+  /**
+   * Заменяет все правила пособий города правилами из запроса и запрашивает переоценку положенных пособий
+   * пользователей города
+   * @param idCity ID города
+   * @param benefitRuleSaveList список объектов запроса на сохранение правила пособия
+   * @throws NotFoundException если город с указанным ID не найден
+   * @throws AlreadyExistsException если в запросе повторяется название пособия
+   * @throws InvalidStringException если название пособия не содержит букв или цифр
+   * @throws DateFormatException если дата рождения ребенка не соответствует формату "dd.mm.yyyy"
+   * @throws InvalidRangeException если возраст или число детей отрицательные, или начало диапазона больше его конца
+   */
+  void updateAllOfCity(String idCity, List<BenefitRuleSave> benefitRuleSaveList)
+      throws NotFoundException, AlreadyExistsException, InvalidStringException, DateFormatException, InvalidRangeException;
+
+  /**
+   * Возвращает пособия, положенные пользователю по правилам его города и датам рождений его детей
+   * @param idUser ID пользователя
+   * @return список кратких информаций о положенных пособиях в порядке их названий.
+   * Пустой, если у пользователя не указан город
+   * @throws NotFoundException если пользователь с указанным ID не найден
+   */
+  List<ObjectShortInfo> readAllOfUser(String idUser) throws NotFoundException;
+
+  /**
+   * Возвращает ход переоценки положенных пособий пользователей города после последнего изменения правил
+   * @param idCity ID города
+   * @return информация о ходе переоценки
+   * @throws NotFoundException если правила города не изменялись
+   */
+  BenefitEvaluationInfo readEvaluationOfCity(String idCity) throws NotFoundException;
+}
@@ -4,10 +4,17 @@ import com.example.familybenefitstown.exceptions.AlreadyExistsException;
 import com.example.familybenefitstown.exceptions.InvalidStringException;
 import com.example.familybenefitstown.exceptions.NotFoundException;
 import com.example.familybenefitstown.part_res_rest_api.api_models.city.CityInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.city.CityPatch;
 import com.example.familybenefitstown.part_res_rest_api.api_models.city.CitySave;
+import com.example.familybenefitstown.part_res_rest_api.api_models.city.CityStatsInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.common.ImportReport;
 import com.example.familybenefitstown.part_res_rest_api.api_models.common.ObjectShortInfo;
+import com.example.familybenefitstown.part_res_rest_api.bulk.BulkFormat;
 
+import java.io.IOException;
+import java.io.InputStream;
 import java.util.List;
+import java.util.Optional;
 
 /**
  * Интерфейс сервиса, управляющего объектом "город"
@@ -23,6 +30,12 @@ public interface CityService {
    */
   List<ObjectShortInfo> readAllFilter(String nameCity);
 
+  /**
+   * Возвращает тег версии множества городов, меняющийся при любом изменении городов
+   * @return тег версии множества городов
+   */
+  String getAllVersionTag();
+
   /**
    * Создает город по запросу на сохранение
    * @param citySave объект запроса на сохранение города
@@ -39,6 +52,31 @@ public interface CityService {
    */
   CityInfo read(String idCity) throws NotFoundException;
 
+  /**
+   * Возвращает информацию города по его ID в сжатом gzip виде, без распаковки
+   * @param idCity ID города
+   * @return информация города, сжатая gzip, или {@code empty}, если у города нет информации
+   * @throws NotFoundException если город с указанным ID не найден
+   */
+  Optional<byte[]> readInfoCompressed(String idCity) throws NotFoundException;
+
+  /**
+   * Возвращает тег версии города по его ID. Для проверки актуальности загружается только версия
+   * @param idCity ID города
+   * @return тег версии города
+   * @throws NotFoundException если город с указанным ID не найден
+   */
+  String getVersionTag(String idCity) throws NotFoundException;
+
+  /**
+   * Возвращает статистику семей и детей города по его ID.
+   * Статистика читается из счетчиков, изменяемых вместе с пользователями, и может отставать от них не больше минуты
+   * @param idCity ID города
+   * @return статистика семей и детей города
+   * @throws NotFoundException если город с указанным ID не найден
+   */
+  CityStatsInfo readStats(String idCity) throws NotFoundException;
+
   /**
    * Обновляет город по запросу на сохранение
    * @param idCity ID города
@@ -49,11 +87,30 @@ public interface CityService {
    */
   void update(String idCity, CitySave citySave) throws NotFoundException, AlreadyExistsException, InvalidStringException;
 
+  /**
+   * Частично обновляет город по запросу JSON Merge Patch. Проверяются и сохраняются только указанные поля
+   * @param idCity ID города
+   * @param cityPatch объект запроса на частичное обновление города
+   * @throws NotFoundException если город с указанным ID не найден
+   * @throws AlreadyExistsException если город с отличным ID и данным названием уже существует
+   * @throws InvalidStringException если строковое поле объекта запроса не содержит букв или цифр
+   */
+  void patch(String idCity, CityPatch cityPatch) throws NotFoundException, AlreadyExistsException, InvalidStringException;
+
   /**
    * Удаляет город по его ID
    * @param idCity ID города
    * @throws NotFoundException если город с указанным ID не найден
    */
   void delete(String idCity) throws NotFoundException;
-}
 
+  /**
+   * Создает города из потока записей на сохранение.
+   * Некорректные записи и записи с существующими или повторяющимися названиями пропускаются и попадают в отчет
+   * @param inputStream поток записей в кодировке UTF-8
+   * @param bulkFormat формат потока
+   * @return отчет о загрузке
+   * @throws IOException если не удалось прочитать поток. Ни один город не сохраняется
+   */
+  ImportReport importAll(InputStream inputStream, BulkFormat bulkFormat) throws IOException;
+}
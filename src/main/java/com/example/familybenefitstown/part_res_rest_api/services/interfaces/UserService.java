@@ -1,15 +1,29 @@
 package com.example.familybenefitstown.part_res_rest_api.services.interfaces;
 
 import com.example.familybenefitstown.exceptions.*;
+import com.example.familybenefitstown.part_res_rest_api.api_models.common.ImportReport;
 import com.example.familybenefitstown.part_res_rest_api.api_models.user.UserInfo;
 import com.example.familybenefitstown.part_res_rest_api.api_models.user.UserInitData;
+import com.example.familybenefitstown.part_res_rest_api.api_models.user.UserPatch;
 import com.example.familybenefitstown.part_res_rest_api.api_models.user.UserSave;
+import com.example.familybenefitstown.part_res_rest_api.bulk.BulkFormat;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Collection;
+import java.util.Map;
 
 /**
  * Интерфейс сервиса, управляющего объектом "пользователь"
  */
 public interface UserService {
 
+  /**
+   * Максимальное число ID в запросе на получение нескольких пользователей
+   */
+  int MAX_READ_ALL_SIZE = 100;
+
   /**
    * Создает пользователя по запросу на сохранение. Регистрация гостя
    * @param userSave объект запроса на сохранение пользователя
@@ -36,6 +50,44 @@ public interface UserService {
    */
   UserInfo read(String idUser) throws NotFoundException;
 
+  /**
+   * Возвращает пользователя по его ID не старше указанной версии.
+   * Информация из кэша возвращается, только если она прочитана на указанной версии
+   * @param idUser ID пользователя
+   * @param versionTag тег версии пользователя, прочитанный до вызова
+   * @return информация о пользователе
+   * @throws NotFoundException если пользователь с указанным ID не найден
+   */
+  UserInfo read(String idUser, String versionTag) throws NotFoundException;
+
+  /**
+   * Возвращает информацию о нескольких пользователях по их ID.
+   * Пользователи, отсутствующие в кэше, загружаются одним запросом
+   * @param idUserCollection коллекция ID пользователей, от 1 до {@link #MAX_READ_ALL_SIZE}
+   * @return информация о найденных пользователях, ключ - ID пользователя
+   * @throws InvalidStringException если ID пользователя {@code null} или не содержит символов
+   * @throws InvalidRangeException если коллекция ID пуста или число ID больше {@link #MAX_READ_ALL_SIZE}
+   */
+  Map<String, UserInfo> readAll(Collection<String> idUserCollection) throws InvalidStringException, InvalidRangeException;
+
+  /**
+   * Проверяет коллекцию ID запроса на получение нескольких пользователей.
+   * Вызывается до разделения ID по доступу, чтобы все ID запроса проверялись одинаково
+   * @param idUserCollection коллекция ID пользователей или {@code null}
+   * @throws InvalidStringException если ID пользователя {@code null} или не содержит символов
+   * @throws InvalidRangeException если коллекция ID {@code null} или пуста, или число ID больше {@link #MAX_READ_ALL_SIZE}
+   */
+  void checkReadAll(Collection<String> idUserCollection) throws InvalidStringException, InvalidRangeException;
+
+  /**
+   * Возвращает тег версии пользователя по его ID, учитывающий роли, детей и город пользователя.
+   * Для проверки актуальности загружается только версия
+   * @param idUser ID пользователя
+   * @return тег версии пользователя
+   * @throws NotFoundException если пользователь с указанным ID не найден
+   */
+  String getVersionTag(String idUser) throws NotFoundException;
+
   /**
    * Обновляет пользователя по запросу на обновление
    * @param idUser ID пользователя
@@ -55,6 +107,26 @@ public interface UserService {
       AlreadyExistsException,
       InvalidStringException;
 
+  /**
+   * Частично обновляет пользователя по запросу JSON Merge Patch. Проверяются и сохраняются только указанные поля,
+   * обязательные поля "name", "email" и "idCity" не удаляются значением {@code null}
+   * @param idUser ID пользователя
+   * @param userPatch объект запроса на частичное обновление пользователя
+   * @throws NotFoundException если пользователь или город с указанными данными не найдены
+   * @throws InvalidEmailException если указанный "email" не является email или равен {@code null}
+   * @throws DateFormatException если даты рождения пользователя или детей не соответствуют формату "dd.mm.yyyy"
+   * @throws DateTimeException если даты рождения пользователя или детей позже текущей даты
+   * @throws AlreadyExistsException если пользователь с отличным ID и данным email уже существует
+   * @throws InvalidStringException если строковое поле объекта запроса не содержит букв или цифр, или "name" или "idCity" равны {@code null}
+   */
+  void patch(String idUser, UserPatch userPatch) throws
+      NotFoundException,
+      InvalidEmailException,
+      DateFormatException,
+      DateTimeException,
+      AlreadyExistsException,
+      InvalidStringException;
+
   /**
    * Удаляет пользователя по его ID или удаляет роль "ROLE_USER" у администратора
    * @param idUser ID пользователя
@@ -68,5 +140,24 @@ public interface UserService {
    * @return дополнительные данные для пользователя
    */
   UserInitData getInitData();
+
+  /**
+   * Создает пользователей из потока записей на сохранение.
+   * Некорректные записи, записи с несуществующим городом и с существующими или повторяющимися email
+   * пропускаются и попадают в отчет
+   * @param inputStream поток записей в кодировке UTF-8
+   * @param bulkFormat формат потока
+   * @return отчет о загрузке
+   * @throws IOException если не удалось прочитать поток. Ни один пользователь не сохраняется
+   */
+  ImportReport importAll(InputStream inputStream, BulkFormat bulkFormat) throws IOException;
+
+  /**
+   * Записывает информацию о всех пользователях в поток по мере чтения из бд
+   * @param outputStream поток записей, записывается в кодировке UTF-8
+   * @param bulkFormat формат потока
+   * @throws IOException если не удалось записать в поток
+   */
+  void exportAll(OutputStream outputStream, BulkFormat bulkFormat) throws IOException;
 }
 
@@ -2,7 +2,14 @@ package com.example.familybenefitstown.security;
 
 import com.example.familybenefitstown.exceptions.AlreadyExistsException;
 import com.example.familybenefitstown.exceptions.NotFoundException;
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+import org.springframework.dao.DataIntegrityViolationException;
 
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.StringJoiner;
 import java.util.function.BiFunction;
 import java.util.function.Function;
 
@@ -11,6 +18,16 @@ import java.util.function.Function;
  */
 public class DBSecuritySupport {
 
+  /**
+   * Код состояния SQL нарушения ограничения уникальности
+   */
+  private static final String SQL_STATE_UNIQUE_VIOLATION = "23505";
+
+  /**
+   * Код состояния SQL нарушения ограничения внешнего ключа
+   */
+  private static final String SQL_STATE_FOREIGN_KEY_VIOLATION = "23503";
+
   /**
    * Проверяет существование в базе данных объекта по его ID
    * @param existFunc функция проверки, принимающая параметр типа {@link String} и возвращающая значение типа {@link Boolean}
@@ -54,6 +71,86 @@ public class DBSecuritySupport {
     }
   }
 
+  /**
+   * Сохраняет объект без предварительной проверки отсутствия объекта по уникальному строковому полю.
+   * Нарушение указанного ограничения уникальности преобразуется в {@link AlreadyExistsException}
+   * @param saveFunc функция сохранения, выполняющая запрос к бд сразу
+   * @param uniqConstraint название ограничения уникальности строкового поля
+   * @param uniqueStr уникальное строковое поле объекта
+   * @throws AlreadyExistsException если объект с данным строковым полем уже существует
+   */
+  public static void saveCheckUniqStr(Runnable saveFunc, String uniqConstraint, String uniqueStr) throws AlreadyExistsException {
+
+    try {
+      saveFunc.run();
+    } catch (DataIntegrityViolationException e) {
+      if (uniqConstraint.equals(getViolatedConstraint(e, SQL_STATE_UNIQUE_VIOLATION))) {
+        throw new AlreadyExistsException(String.format(
+            "Entity with field \"%s\" already exists, constraint \"%s\"", uniqueStr, uniqConstraint));
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Сохраняет объект без предварительных проверок отсутствия объекта по уникальному строковому полю
+   * и существования связанного объекта по ID.
+   * Нарушения указанных ограничений преобразуются в {@link AlreadyExistsException} и {@link NotFoundException}
+   * @param saveFunc функция сохранения, выполняющая запрос к бд сразу
+   * @param uniqConstraint название ограничения уникальности строкового поля
+   * @param uniqueStr уникальное строковое поле объекта
+   * @param fkConstraint название ограничения внешнего ключа
+   * @param idForeign ID связанного объекта
+   * @throws AlreadyExistsException если объект с данным строковым полем уже существует
+   * @throws NotFoundException если связанный объект не найден
+   */
+  public static void saveCheckUniqStrAndIdForeign(Runnable saveFunc,
+                                                  String uniqConstraint, String uniqueStr,
+                                                  String fkConstraint, String idForeign) throws AlreadyExistsException, NotFoundException {
+
+    try {
+      saveFunc.run();
+    } catch (DataIntegrityViolationException e) {
+      if (uniqConstraint.equals(getViolatedConstraint(e, SQL_STATE_UNIQUE_VIOLATION))) {
+        throw new AlreadyExistsException(String.format(
+            "Entity with field \"%s\" already exists, constraint \"%s\"", uniqueStr, uniqConstraint));
+      }
+      if (fkConstraint.equals(getViolatedConstraint(e, SQL_STATE_FOREIGN_KEY_VIOLATION))) {
+        throw new NotFoundException(String.format(
+            "Entity with ID \"%s\" not found, constraint \"%s\"", idForeign, fkConstraint));
+      }
+      throw e;
+    }
+  }
+
+  /**
+   * Возвращает название ограничения, нарушение которого вызвало исключение
+   * @param exception исключение нарушения целостности данных
+   * @param sqlState код состояния SQL ожидаемого нарушения
+   * @return название ограничения или {@code null}, если исключение вызвано другим нарушением
+   */
+  private static String getViolatedConstraint(DataIntegrityViolationException exception, String sqlState) {
+
+    for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+      if (cause instanceof SQLException) {
+        SQLException sqlException = (SQLException) cause;
+
+        // Ошибка пакетного запроса хранится в следующем исключении
+        while (sqlException.getNextException() != null && !(sqlException instanceof PSQLException)) {
+          sqlException = sqlException.getNextException();
+        }
+
+        if (!sqlState.equals(sqlException.getSQLState()) || !(sqlException instanceof PSQLException)) {
+          return null;
+        }
+        ServerErrorMessage serverErrorMessage = ((PSQLException) sqlException).getServerErrorMessage();
+        return serverErrorMessage != null ? serverErrorMessage.getConstraint() : null;
+      }
+    }
+
+    return null;
+  }
+
   /**
    * Подготавливает строку для вставки в SQL запрос, диалект PostgreSQL
    * @param content проверяемая строка
@@ -67,5 +164,36 @@ public class DBSecuritySupport {
 
     return content.replace("'", "''");
   }
-}
 
+  /**
+   * Преобразует коллекцию дат в литерал массива PostgreSQL вида "{yyyy-mm-dd,...}",
+   * передаваемый в запрос одним параметром с приведением типа {@code CAST(? AS DATE[])}
+   * @param dateCollection коллекция дат
+   * @return литерал массива дат
+   */
+  public static String toPostgreSQLDateArray(Collection<LocalDate> dateCollection) {
+
+    StringJoiner arrayJoiner = new StringJoiner(",", "{", "}");
+    for (LocalDate date : dateCollection) {
+      arrayJoiner.add(date.toString());
+    }
+
+    return arrayJoiner.toString();
+  }
+
+  /**
+   * Преобразует коллекцию строк в литерал массива PostgreSQL вида "{"str",...}",
+   * передаваемый в запрос одним параметром с приведением типа {@code CAST(? AS TEXT[])}
+   * @param strCollection коллекция строк
+   * @return литерал массива строк
+   */
+  public static String toPostgreSQLTextArray(Collection<String> strCollection) {
+
+    StringJoiner arrayJoiner = new StringJoiner(",", "{", "}");
+    for (String str : strCollection) {
+      arrayJoiner.add('"' + str.replace("\\", "\\\\").replace("\"", "\\\"") + '"');
+    }
+
+    return arrayJoiner.toString();
+  }
+}
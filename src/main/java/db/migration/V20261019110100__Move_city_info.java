@@ -0,0 +1,71 @@
+package db.migration;
+
+import org.flywaydb.core.api.migration.BaseJavaMigration;
+import org.flywaydb.core.api.migration.Context;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Переносит информацию городов из столбца "city.info" в таблицу "city_info", сжимая её gzip.
+ * Сжатие выполняется в миграции, так как PostgreSQL не предоставляет функции gzip
+ */
+public class V20261019110100__Move_city_info extends BaseJavaMigration {
+
+  /**
+   * Число строк, переносимых одним пакетом
+   */
+  private static final int BATCH_SIZE = 500;
+
+  @Override
+  public void migrate(Context context) throws Exception {
+
+    Connection connection = context.getConnection();
+
+    try (Statement selectStatement = connection.createStatement();
+         PreparedStatement insertStatement = connection.prepareStatement(
+             "INSERT INTO family_benefit_town.city_info (id_city, info) VALUES (?, ?);")) {
+
+      selectStatement.setFetchSize(BATCH_SIZE);
+      try (ResultSet resultSet = selectStatement.executeQuery(
+          "SELECT id, info FROM family_benefit_town.city WHERE info IS NOT NULL;")) {
+
+        int countBatch = 0;
+        while (resultSet.next()) {
+          insertStatement.setString(1, resultSet.getString(1));
+          insertStatement.setBytes(2, gzip(resultSet.getString(2)));
+          insertStatement.addBatch();
+
+          if (++countBatch == BATCH_SIZE) {
+            insertStatement.executeBatch();
+            countBatch = 0;
+          }
+        }
+        if (countBatch > 0) {
+          insertStatement.executeBatch();
+        }
+      }
+    }
+  }
+
+  /**
+   * Сжимает строку gzip в кодировке UTF-8
+   * @param text строка
+   * @return сжатая строка
+   * @throws IOException если не удалось сжать строку
+   */
+  private static byte[] gzip(String text) throws IOException {
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    try (GZIPOutputStream gzipOutputStream = new GZIPOutputStream(outputStream)) {
+      gzipOutputStream.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+    return outputStream.toByteArray();
+  }
+}
@@ -0,0 +1,101 @@
+CREATE SEQUENCE family_benefit_town.version_seq;
+
+ALTER TABLE family_benefit_town.city
+  ADD COLUMN "version" BIGINT NOT NULL DEFAULT nextval('family_benefit_town.version_seq');
+
+ALTER TABLE family_benefit_town.user
+  ADD COLUMN "version" BIGINT NOT NULL DEFAULT nextval('family_benefit_town.version_seq');
+
+COMMENT ON COLUMN family_benefit_town.city.version IS 'Версия города, меняется при каждом изменении записи';
+COMMENT ON COLUMN family_benefit_town.user.version IS 'Версия пользователя, меняется при изменении записи, ролей и детей';
+
+CREATE TABLE family_benefit_town.table_version (
+
+  "name" TEXT NOT NULL,
+  "version" BIGINT NOT NULL DEFAULT nextval('family_benefit_town.version_seq'),
+
+  CONSTRAINT table_version_pk PRIMARY KEY ("name")
+);
+
+COMMENT ON COLUMN family_benefit_town.table_version.name IS 'Название таблицы';
+COMMENT ON COLUMN family_benefit_town.table_version.version IS 'Версия множества записей таблицы';
+
+INSERT INTO family_benefit_town.table_version ("name") VALUES ('city');
+
+-- Новая версия записи при изменении хотя бы одного столбца
+CREATE OR REPLACE FUNCTION family_benefit_town.next_row_version() RETURNS TRIGGER
+  AS $$
+BEGIN
+  NEW.version := nextval('family_benefit_town.version_seq');
+  RETURN NEW;
+END;
+  $$
+LANGUAGE plpgsql;
+
+CREATE TRIGGER city_next_row_version
+  BEFORE UPDATE ON family_benefit_town.city
+  FOR EACH ROW
+  WHEN (OLD.* IS DISTINCT FROM NEW.*)
+  EXECUTE PROCEDURE family_benefit_town.next_row_version();
+
+CREATE TRIGGER user_next_row_version
+  BEFORE UPDATE ON family_benefit_town.user
+  FOR EACH ROW
+  WHEN (OLD.* IS DISTINCT FROM NEW.*)
+  EXECUTE PROCEDURE family_benefit_town.next_row_version();
+
+-- Новая версия множества записей таблицы при любом её изменении
+CREATE OR REPLACE FUNCTION family_benefit_town.next_table_version() RETURNS TRIGGER
+  AS $$
+BEGIN
+  UPDATE family_benefit_town.table_version
+  SET version = nextval('family_benefit_town.version_seq')
+  WHERE name = TG_TABLE_NAME;
+  RETURN NULL;
+END;
+  $$
+LANGUAGE plpgsql;
+
+CREATE TRIGGER city_next_table_version
+  AFTER INSERT OR UPDATE OR DELETE OR TRUNCATE ON family_benefit_town.city
+  FOR EACH STATEMENT
+  EXECUTE PROCEDURE family_benefit_town.next_table_version();
+
+-- Новая версия пользователей, у которых изменились роли или дети
+CREATE OR REPLACE FUNCTION family_benefit_town.next_user_version() RETURNS TRIGGER
+  AS $$
+BEGIN
+  UPDATE family_benefit_town.user
+  SET version = nextval('family_benefit_town.version_seq')
+  WHERE id IN (SELECT DISTINCT changed_rows.id_user FROM changed_rows);
+  RETURN NULL;
+END;
+  $$
+LANGUAGE plpgsql;
+
+CREATE TRIGGER users_children_insert_next_user_version
+  AFTER INSERT ON family_benefit_town.users_children
+  REFERENCING NEW TABLE AS changed_rows
+  FOR EACH STATEMENT
+  EXECUTE PROCEDURE family_benefit_town.next_user_version();
+
+CREATE TRIGGER users_children_delete_next_user_version
+  AFTER DELETE ON family_benefit_town.users_children
+  REFERENCING OLD TABLE AS changed_rows
+  FOR EACH STATEMENT
+  EXECUTE PROCEDURE family_benefit_town.next_user_version();
+
+CREATE TRIGGER users_roles_insert_next_user_version
+  AFTER INSERT ON family_benefit_town.users_roles
+  REFERENCING NEW TABLE AS changed_rows
+  FOR EACH STATEMENT
+  EXECUTE PROCEDURE family_benefit_town.next_user_version();
+
+CREATE TRIGGER users_roles_delete_next_user_version
+  AFTER DELETE ON family_benefit_town.users_roles
+  REFERENCING OLD TABLE AS changed_rows
+  FOR EACH STATEMENT
+  EXECUTE PROCEDURE family_benefit_town.next_user_version();
+
+GRANT USAGE, SELECT ON SEQUENCE family_benefit_town.version_seq TO familyben;
+GRANT SELECT, INSERT, UPDATE, DELETE ON TABLE family_benefit_town.table_version TO familyben;
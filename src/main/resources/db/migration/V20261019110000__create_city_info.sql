@@ -0,0 +1,49 @@
+CREATE TABLE family_benefit_town.city_info (
+
+  "id_city" TEXT NOT NULL,
+  "info" BYTEA NOT NULL,
+
+  CONSTRAINT city_info_pk PRIMARY KEY ("id_city"),
+  CONSTRAINT city_info_fk_city FOREIGN KEY ("id_city")
+    REFERENCES family_benefit_town.city("id")
+    ON DELETE CASCADE
+    ON UPDATE CASCADE
+);
+
+-- Информация хранится сжатой gzip, повторное сжатие базой данных не требуется
+ALTER TABLE family_benefit_town.city_info ALTER COLUMN "info" SET STORAGE EXTERNAL;
+
+COMMENT ON COLUMN family_benefit_town.city_info.id_city IS 'ID города';
+COMMENT ON COLUMN family_benefit_town.city_info.info IS 'Информация города, сжатая gzip';
+
+GRANT SELECT, INSERT, UPDATE, DELETE ON TABLE family_benefit_town.city_info TO familyben;
+
+-- Новая версия города при изменении его информации
+CREATE OR REPLACE FUNCTION family_benefit_town.next_city_version() RETURNS TRIGGER
+  AS $$
+BEGIN
+  UPDATE family_benefit_town.city
+  SET version = nextval('family_benefit_town.version_seq')
+  WHERE id IN (SELECT DISTINCT changed_rows.id_city FROM changed_rows);
+  RETURN NULL;
+END;
+  $$
+LANGUAGE plpgsql;
+
+CREATE TRIGGER city_info_insert_next_city_version
+  AFTER INSERT ON family_benefit_town.city_info
+  REFERENCING NEW TABLE AS changed_rows
+  FOR EACH STATEMENT
+  EXECUTE PROCEDURE family_benefit_town.next_city_version();
+
+CREATE TRIGGER city_info_update_next_city_version
+  AFTER UPDATE ON family_benefit_town.city_info
+  REFERENCING NEW TABLE AS changed_rows
+  FOR EACH STATEMENT
+  EXECUTE PROCEDURE family_benefit_town.next_city_version();
+
+CREATE TRIGGER city_info_delete_next_city_version
+  AFTER DELETE ON family_benefit_town.city_info
+  REFERENCING OLD TABLE AS changed_rows
+  FOR EACH STATEMENT
+  EXECUTE PROCEDURE family_benefit_town.next_city_version();
@@ -0,0 +1 @@
+ALTER TABLE family_benefit_town.city DROP COLUMN "info";
@@ -0,0 +1,11 @@
+-- Поиск пользователей по подстроке имени и email
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+
+CREATE INDEX user_idx_name_trgm ON family_benefit_town.user USING GIN (lower("name") gin_trgm_ops);
+CREATE INDEX user_idx_email_trgm ON family_benefit_town.user USING GIN (lower("email") gin_trgm_ops);
+
+-- Фильтр пользователей по городу, также используется при удалении города
+CREATE INDEX user_idx_id_city ON family_benefit_town.user ("id_city", "id");
+
+-- Фильтр пользователей по роли
+CREATE INDEX users_roles_idx_id_role ON family_benefit_town.users_roles ("id_role", "id_user");
@@ -0,0 +1,89 @@
+CREATE TABLE family_benefit_town.user_profile_view (
+
+  "id" TEXT NOT NULL,
+  "name" TEXT NOT NULL,
+  "email" TEXT NOT NULL,
+  "id_city" TEXT NULL,
+  "name_city" TEXT NULL,
+  "birth_date_children" TEXT NULL,
+  "name_roles" TEXT NULL,
+
+  CONSTRAINT user_profile_view_pk PRIMARY KEY ("id"),
+  CONSTRAINT user_profile_view_fk_user FOREIGN KEY ("id")
+    REFERENCES family_benefit_town.user("id")
+    ON DELETE CASCADE
+    ON UPDATE CASCADE
+);
+
+-- Обновление профилей при переименовании города
+CREATE INDEX user_profile_view_idx_id_city ON family_benefit_town.user_profile_view ("id_city");
+
+COMMENT ON TABLE family_benefit_town.user_profile_view IS 'Профили пользователей для чтения одной записью, обновляются при изменении пользователей, их ролей, детей и городов';
+COMMENT ON COLUMN family_benefit_town.user_profile_view.id IS 'ID пользователя';
+COMMENT ON COLUMN family_benefit_town.user_profile_view.name IS 'Имя пользователя';
+COMMENT ON COLUMN family_benefit_town.user_profile_view.email IS 'Эл. почта пользователя';
+COMMENT ON COLUMN family_benefit_town.user_profile_view.id_city IS 'ID города пользователя';
+COMMENT ON COLUMN family_benefit_town.user_profile_view.name_city IS 'Название города пользователя';
+COMMENT ON COLUMN family_benefit_town.user_profile_view.birth_date_children IS 'Даты рождений детей в формате YYYY-MM-DD через запятую, по возрастанию';
+COMMENT ON COLUMN family_benefit_town.user_profile_view.name_roles IS 'Названия ролей через запятую, по возрастанию';
+
+GRANT SELECT, INSERT, UPDATE, DELETE ON TABLE family_benefit_town.user_profile_view TO familyben;
+
+-- Пересчет профилей указанных пользователей. Профили удаленных пользователей удаляются внешним ключом
+CREATE OR REPLACE FUNCTION family_benefit_town.refresh_user_profile(ids_user TEXT[]) RETURNS VOID
+  AS $$
+INSERT INTO family_benefit_town.user_profile_view
+  ("id", "name", "email", "id_city", "name_city", "birth_date_children", "name_roles")
+SELECT family_benefit_town.user.id,
+       family_benefit_town.user.name,
+       family_benefit_town.user.email,
+       family_benefit_town.user.id_city,
+       family_benefit_town.city.name,
+       (SELECT string_agg(to_char(family_benefit_town.child_birth.date_birth, 'YYYY-MM-DD'), ',' ORDER BY family_benefit_town.child_birth.date_birth)
+        FROM family_benefit_town.users_children
+        INNER JOIN family_benefit_town.child_birth ON family_benefit_town.users_children.id_child_birth = family_benefit_town.child_birth.id
+        WHERE family_benefit_town.users_children.id_user = family_benefit_town.user.id),
+       (SELECT string_agg(family_benefit_town.role.name, ',' ORDER BY family_benefit_town.role.name)
+        FROM family_benefit_town.users_roles
+        INNER JOIN family_benefit_town.role ON family_benefit_town.users_roles.id_role = family_benefit_town.role.id
+        WHERE family_benefit_town.users_roles.id_user = family_benefit_town.user.id)
+FROM family_benefit_town.user
+LEFT JOIN family_benefit_town.city ON family_benefit_town.user.id_city = family_benefit_town.city.id
+WHERE family_benefit_town.user.id = ANY(ids_user)
+ON CONFLICT ON CONSTRAINT user_profile_view_pk DO UPDATE
+SET "name" = EXCLUDED.name,
+    "email" = EXCLUDED.email,
+    "id_city" = EXCLUDED.id_city,
+    "name_city" = EXCLUDED.name_city,
+    "birth_date_children" = EXCLUDED.birth_date_children,
+    "name_roles" = EXCLUDED.name_roles;
+  $$
+LANGUAGE SQL;
+
+-- Обновление названия города в профилях всех его пользователей одним запросом
+CREATE OR REPLACE FUNCTION family_benefit_town.refresh_user_profile_city(id_city_changed TEXT) RETURNS VOID
+  AS $$
+UPDATE family_benefit_town.user_profile_view
+SET "name_city" = family_benefit_town.city.name
+FROM family_benefit_town.city
+WHERE family_benefit_town.city.id = id_city_changed
+  AND family_benefit_town.user_profile_view.id_city = id_city_changed
+  AND family_benefit_town.user_profile_view.name_city IS DISTINCT FROM family_benefit_town.city.name;
+  $$
+LANGUAGE SQL;
+
+-- Полное пересоздание профилей всех пользователей
+CREATE OR REPLACE FUNCTION family_benefit_town.rebuild_user_profile() RETURNS BIGINT
+  AS $$
+DECLARE
+  count_profiles BIGINT;
+BEGIN
+  DELETE FROM family_benefit_town.user_profile_view;
+  PERFORM family_benefit_town.refresh_user_profile(ARRAY(SELECT family_benefit_town.user.id FROM family_benefit_town.user));
+  SELECT count(*) INTO count_profiles FROM family_benefit_town.user_profile_view;
+  RETURN count_profiles;
+END;
+  $$
+LANGUAGE plpgsql;
+
+SELECT family_benefit_town.rebuild_user_profile();
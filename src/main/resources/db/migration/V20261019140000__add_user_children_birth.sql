@@ -0,0 +1,108 @@
+ALTER TABLE family_benefit_town.user
+  ADD COLUMN "children_birth" DATE[] NOT NULL DEFAULT '{}';
+
+COMMENT ON COLUMN family_benefit_town.user.children_birth IS 'Даты рождений детей пользователя без повторов, по возрастанию';
+
+-- Перенос дат рождений детей из связи "users_children"
+UPDATE family_benefit_town.user
+SET children_birth = children.dates_birth
+FROM (SELECT family_benefit_town.users_children.id_user,
+             array_agg(family_benefit_town.child_birth.date_birth ORDER BY family_benefit_town.child_birth.date_birth) AS dates_birth
+      FROM family_benefit_town.users_children
+      INNER JOIN family_benefit_town.child_birth ON family_benefit_town.users_children.id_child_birth = family_benefit_town.child_birth.id
+      GROUP BY family_benefit_town.users_children.id_user) AS children
+WHERE family_benefit_town.user.id = children.id_user;
+
+-- Поиск пользователей по датам рождений детей операторами массивов @>, <@, &&
+CREATE INDEX user_idx_children_birth ON family_benefit_town.user USING GIN ("children_birth");
+
+-- Версия пользователя меняется при изменении столбца "children_birth", связь "users_children" заполняется из него
+DROP TRIGGER users_children_insert_next_user_version ON family_benefit_town.users_children;
+DROP TRIGGER users_children_delete_next_user_version ON family_benefit_town.users_children;
+
+-- Приведение связи "users_children" и рождений детей "child_birth" к столбцу "children_birth" указанных пользователей
+CREATE OR REPLACE FUNCTION family_benefit_town.sync_users_children(ids_user TEXT[]) RETURNS VOID
+  AS $$
+INSERT INTO family_benefit_town.child_birth (date_birth)
+SELECT DISTINCT unnest(family_benefit_town.user.children_birth)
+FROM family_benefit_town.user
+WHERE family_benefit_town.user.id = ANY(ids_user)
+ON CONFLICT ON CONSTRAINT child_birth_uniq_birth DO NOTHING;
+
+DELETE FROM family_benefit_town.users_children
+USING family_benefit_town.user, family_benefit_town.child_birth
+WHERE family_benefit_town.users_children.id_user = ANY(ids_user)
+  AND family_benefit_town.users_children.id_user = family_benefit_town.user.id
+  AND family_benefit_town.users_children.id_child_birth = family_benefit_town.child_birth.id
+  AND NOT (family_benefit_town.child_birth.date_birth = ANY(family_benefit_town.user.children_birth));
+
+INSERT INTO family_benefit_town.users_children (id_user, id_child_birth)
+SELECT family_benefit_town.user.id, family_benefit_town.child_birth.id
+FROM family_benefit_town.user
+CROSS JOIN LATERAL unnest(family_benefit_town.user.children_birth) AS children(date_birth)
+INNER JOIN family_benefit_town.child_birth ON family_benefit_town.child_birth.date_birth = children.date_birth
+WHERE family_benefit_town.user.id = ANY(ids_user)
+ON CONFLICT ON CONSTRAINT users_children_pk DO NOTHING;
+  $$
+LANGUAGE SQL;
+
+-- Синхронизация связи для всех созданных пользователей одним набором запросов
+CREATE OR REPLACE FUNCTION family_benefit_town.sync_users_children_insert() RETURNS TRIGGER
+  AS $$
+BEGIN
+  PERFORM family_benefit_town.sync_users_children(ARRAY(SELECT changed_rows.id FROM changed_rows));
+  RETURN NULL;
+END;
+  $$
+LANGUAGE plpgsql;
+
+-- Синхронизация связи пользователя с измененным столбцом "children_birth"
+CREATE OR REPLACE FUNCTION family_benefit_town.sync_users_children_update() RETURNS TRIGGER
+  AS $$
+BEGIN
+  PERFORM family_benefit_town.sync_users_children(ARRAY[NEW.id]);
+  RETURN NULL;
+END;
+  $$
+LANGUAGE plpgsql;
+
+CREATE TRIGGER user_insert_sync_users_children
+  AFTER INSERT ON family_benefit_town.user
+  REFERENCING NEW TABLE AS changed_rows
+  FOR EACH STATEMENT
+  EXECUTE PROCEDURE family_benefit_town.sync_users_children_insert();
+
+CREATE TRIGGER user_update_sync_users_children
+  AFTER UPDATE OF children_birth ON family_benefit_town.user
+  FOR EACH ROW
+  WHEN (OLD.children_birth IS DISTINCT FROM NEW.children_birth)
+  EXECUTE PROCEDURE family_benefit_town.sync_users_children_update();
+
+-- Профили читают даты рождений детей из столбца "children_birth" без соединения таблиц
+CREATE OR REPLACE FUNCTION family_benefit_town.refresh_user_profile(ids_user TEXT[]) RETURNS VOID
+  AS $$
+INSERT INTO family_benefit_town.user_profile_view
+  ("id", "name", "email", "id_city", "name_city", "birth_date_children", "name_roles")
+SELECT family_benefit_town.user.id,
+       family_benefit_town.user.name,
+       family_benefit_town.user.email,
+       family_benefit_town.user.id_city,
+       family_benefit_town.city.name,
+       (SELECT string_agg(to_char(children.date_birth, 'YYYY-MM-DD'), ',' ORDER BY children.date_birth)
+        FROM unnest(family_benefit_town.user.children_birth) AS children(date_birth)),
+       (SELECT string_agg(family_benefit_town.role.name, ',' ORDER BY family_benefit_town.role.name)
+        FROM family_benefit_town.users_roles
+        INNER JOIN family_benefit_town.role ON family_benefit_town.users_roles.id_role = family_benefit_town.role.id
+        WHERE family_benefit_town.users_roles.id_user = family_benefit_town.user.id)
+FROM family_benefit_town.user
+LEFT JOIN family_benefit_town.city ON family_benefit_town.user.id_city = family_benefit_town.city.id
+WHERE family_benefit_town.user.id = ANY(ids_user)
+ON CONFLICT ON CONSTRAINT user_profile_view_pk DO UPDATE
+SET "name" = EXCLUDED.name,
+    "email" = EXCLUDED.email,
+    "id_city" = EXCLUDED.id_city,
+    "name_city" = EXCLUDED.name_city,
+    "birth_date_children" = EXCLUDED.birth_date_children,
+    "name_roles" = EXCLUDED.name_roles;
+  $$
+LANGUAGE SQL;
@@ -0,0 +1,23 @@
+ALTER TABLE family_benefit_town.user
+  ADD COLUMN "date_registration" TIMESTAMP NOT NULL DEFAULT now(),
+  ADD COLUMN "date_last_activity" TIMESTAMP NULL;
+
+COMMENT ON COLUMN family_benefit_town.user.date_registration IS 'Дата и время создания пользователя. У пользователей, созданных до добавления столбца, - время миграции';
+COMMENT ON COLUMN family_benefit_town.user.date_last_activity IS 'Дата и время последнего входа или обновления токенов пользователя, NULL - пользователь ни разу не входил';
+
+-- Поиск неактивных пользователей для удаления
+CREATE INDEX user_idx_date_last_activity ON family_benefit_town.user ("date_last_activity");
+
+-- Поиск пользователей, ни разу не входивших в систему, для удаления
+CREATE INDEX user_idx_date_registration_never_active ON family_benefit_town.user ("date_registration")
+  WHERE "date_last_activity" IS NULL;
+
+-- Время активности не является содержимым пользователя и не меняет его версию
+DROP TRIGGER user_next_row_version ON family_benefit_town.user;
+
+CREATE TRIGGER user_next_row_version
+  BEFORE UPDATE ON family_benefit_town.user
+  FOR EACH ROW
+  WHEN ((OLD.name, OLD.email, OLD.date_birth, OLD.id_city, OLD.children_birth)
+    IS DISTINCT FROM (NEW.name, NEW.email, NEW.date_birth, NEW.id_city, NEW.children_birth))
+  EXECUTE PROCEDURE family_benefit_town.next_row_version();
@@ -0,0 +1,40 @@
+CREATE TABLE family_benefit_town.benefit_rule (
+
+  "id" TEXT NOT NULL DEFAULT family_benefit_town.generate_id(20),
+  "id_city" TEXT NOT NULL,
+  "name" TEXT NOT NULL,
+  "min_age_child" INTEGER NULL,
+  "max_age_child" INTEGER NULL,
+  "date_birth_from" DATE NULL,
+  "date_birth_to" DATE NULL,
+  "min_count_children" INTEGER NOT NULL DEFAULT 1,
+  "max_count_children" INTEGER NULL,
+
+  CONSTRAINT benefit_rule_pk PRIMARY KEY ("id"),
+  CONSTRAINT benefit_rule_uniq_city_name UNIQUE ("id_city", "name"),
+  CONSTRAINT benefit_rule_fk_city FOREIGN KEY ("id_city")
+    REFERENCES family_benefit_town.city("id")
+    ON DELETE CASCADE
+    ON UPDATE CASCADE,
+  CONSTRAINT benefit_rule_check_age CHECK (
+    ("min_age_child" IS NULL OR "min_age_child" >= 0) AND
+    ("max_age_child" IS NULL OR "max_age_child" >= COALESCE("min_age_child", 0))),
+  CONSTRAINT benefit_rule_check_date_birth CHECK (
+    "date_birth_from" IS NULL OR "date_birth_to" IS NULL OR "date_birth_from" <= "date_birth_to"),
+  CONSTRAINT benefit_rule_check_count CHECK (
+    "min_count_children" >= 0 AND
+    ("max_count_children" IS NULL OR "max_count_children" >= "min_count_children"))
+);
+
+COMMENT ON TABLE family_benefit_town.benefit_rule IS 'Правила получения пособий в городе. Пособие положено, если число детей, подходящих по возрасту и дате рождения, в указанных пределах';
+COMMENT ON COLUMN family_benefit_town.benefit_rule.id IS 'ID правила пособия';
+COMMENT ON COLUMN family_benefit_town.benefit_rule.id_city IS 'ID города пособия';
+COMMENT ON COLUMN family_benefit_town.benefit_rule.name IS 'Название пособия';
+COMMENT ON COLUMN family_benefit_town.benefit_rule.min_age_child IS 'Минимальный полный возраст ребенка в годах, включительно, NULL - без ограничения';
+COMMENT ON COLUMN family_benefit_town.benefit_rule.max_age_child IS 'Максимальный полный возраст ребенка в годах, включительно, NULL - без ограничения';
+COMMENT ON COLUMN family_benefit_town.benefit_rule.date_birth_from IS 'Первая дата рождения ребенка, включительно, NULL - без ограничения';
+COMMENT ON COLUMN family_benefit_town.benefit_rule.date_birth_to IS 'Последняя дата рождения ребенка, включительно, NULL - без ограничения';
+COMMENT ON COLUMN family_benefit_town.benefit_rule.min_count_children IS 'Минимальное число подходящих детей';
+COMMENT ON COLUMN family_benefit_town.benefit_rule.max_count_children IS 'Максимальное число подходящих детей, NULL - без ограничения';
+
+GRANT SELECT, INSERT, UPDATE, DELETE ON TABLE family_benefit_town.benefit_rule TO familyben;
@@ -0,0 +1,58 @@
+CREATE TABLE family_benefit_town.user_benefit (
+
+  "id_user" TEXT NOT NULL,
+  "id_benefit_rule" TEXT NOT NULL,
+
+  CONSTRAINT user_benefit_pk PRIMARY KEY ("id_user", "id_benefit_rule"),
+  CONSTRAINT user_benefit_fk_user FOREIGN KEY ("id_user")
+    REFERENCES family_benefit_town.user("id")
+    ON DELETE CASCADE
+    ON UPDATE CASCADE,
+  CONSTRAINT user_benefit_fk_benefit_rule FOREIGN KEY ("id_benefit_rule")
+    REFERENCES family_benefit_town.benefit_rule("id")
+    ON DELETE CASCADE
+    ON UPDATE CASCADE
+);
+
+COMMENT ON TABLE family_benefit_town.user_benefit IS 'Положенные пользователям пособия, рассчитанные задачей переоценки после изменения правил города';
+COMMENT ON COLUMN family_benefit_town.user_benefit.id_user IS 'ID пользователя';
+COMMENT ON COLUMN family_benefit_town.user_benefit.id_benefit_rule IS 'ID правила положенного пособия';
+
+-- Удаление связей при удалении правил пособий
+CREATE INDEX user_benefit_idx_benefit_rule ON family_benefit_town.user_benefit ("id_benefit_rule");
+
+CREATE TABLE family_benefit_town.benefit_evaluation_job (
+
+  "id_city" TEXT NOT NULL,
+  "generation" BIGINT NOT NULL DEFAULT 1,
+  "status" TEXT NOT NULL DEFAULT 'PENDING',
+  "id_user_last" TEXT NULL,
+  "count_processed" BIGINT NOT NULL DEFAULT 0,
+  "count_total" BIGINT NOT NULL DEFAULT 0,
+  "date_start" TIMESTAMP NOT NULL DEFAULT now(),
+  "date_update" TIMESTAMP NOT NULL DEFAULT now(),
+
+  CONSTRAINT benefit_evaluation_job_pk PRIMARY KEY ("id_city"),
+  CONSTRAINT benefit_evaluation_job_fk_city FOREIGN KEY ("id_city")
+    REFERENCES family_benefit_town.city("id")
+    ON DELETE CASCADE
+    ON UPDATE CASCADE,
+  CONSTRAINT benefit_evaluation_job_check_status CHECK ("status" IN ('PENDING', 'RUNNING', 'DONE'))
+);
+
+COMMENT ON TABLE family_benefit_town.benefit_evaluation_job IS 'Задачи переоценки положенных пособий пользователей города после изменения правил';
+COMMENT ON COLUMN family_benefit_town.benefit_evaluation_job.id_city IS 'ID города';
+COMMENT ON COLUMN family_benefit_town.benefit_evaluation_job.generation IS 'Поколение задачи, увеличивается при каждом изменении правил. Результаты устаревшего поколения не записываются';
+COMMENT ON COLUMN family_benefit_town.benefit_evaluation_job.status IS 'Состояние задачи: PENDING - ожидает, RUNNING - выполняется, DONE - выполнена';
+COMMENT ON COLUMN family_benefit_town.benefit_evaluation_job.id_user_last IS 'ID последнего обработанного пользователя, с которого продолжается задача. NULL - обработка не начата';
+COMMENT ON COLUMN family_benefit_town.benefit_evaluation_job.count_processed IS 'Число обработанных пользователей';
+COMMENT ON COLUMN family_benefit_town.benefit_evaluation_job.count_total IS 'Число пользователей города на начало обработки';
+COMMENT ON COLUMN family_benefit_town.benefit_evaluation_job.date_start IS 'Дата и время изменения правил, запросившего задачу';
+COMMENT ON COLUMN family_benefit_town.benefit_evaluation_job.date_update IS 'Дата и время последнего изменения задачи. Выполняемая задача, давно не изменявшаяся, считается прерванной';
+
+-- Поиск ожидающих и прерванных задач
+CREATE INDEX benefit_evaluation_job_idx_status ON family_benefit_town.benefit_evaluation_job ("status", "date_update")
+  WHERE "status" <> 'DONE';
+
+GRANT SELECT, INSERT, UPDATE, DELETE ON TABLE family_benefit_town.user_benefit TO familyben;
+GRANT SELECT, INSERT, UPDATE, DELETE ON TABLE family_benefit_town.benefit_evaluation_job TO familyben;
@@ -0,0 +1,52 @@
+-- Поиск родителей по рождению ребенка: первичный ключ связи начинается с ID пользователя
+CREATE INDEX users_children_idx_child_birth ON family_benefit_town.users_children ("id_child_birth");
+
+CREATE TABLE family_benefit_town.benefit_notification_run (
+
+  "date_run" DATE NOT NULL,
+  "date_start" TIMESTAMP NOT NULL DEFAULT now(),
+  "count_notifications" INTEGER NOT NULL DEFAULT 0,
+
+  CONSTRAINT benefit_notification_run_pk PRIMARY KEY ("date_run")
+);
+
+COMMENT ON TABLE family_benefit_town.benefit_notification_run IS 'Выполненные ежедневные поиски изменений положенных пособий. Поиск за дату выполняется не более одного раза';
+COMMENT ON COLUMN family_benefit_town.benefit_notification_run.date_run IS 'Дата, за которую выполнен поиск';
+COMMENT ON COLUMN family_benefit_town.benefit_notification_run.date_start IS 'Дата и время выполнения поиска';
+COMMENT ON COLUMN family_benefit_town.benefit_notification_run.count_notifications IS 'Число созданных уведомлений';
+
+CREATE TABLE family_benefit_town.benefit_notification (
+
+  "id" TEXT NOT NULL DEFAULT family_benefit_town.generate_id(20),
+  "id_user" TEXT NOT NULL,
+  "date_notification" DATE NOT NULL,
+  "benefits_gained" TEXT NULL,
+  "benefits_lost" TEXT NULL,
+  "count_attempts" INTEGER NOT NULL DEFAULT 0,
+  "date_attempt" TIMESTAMP NULL,
+  "date_sent" TIMESTAMP NULL,
+
+  CONSTRAINT benefit_notification_pk PRIMARY KEY ("id"),
+  CONSTRAINT benefit_notification_uniq_user_date UNIQUE ("id_user", "date_notification"),
+  CONSTRAINT benefit_notification_fk_user FOREIGN KEY ("id_user")
+    REFERENCES family_benefit_town.user("id")
+    ON DELETE CASCADE
+    ON UPDATE CASCADE
+);
+
+COMMENT ON TABLE family_benefit_town.benefit_notification IS 'Очередь уведомлений пользователей об изменении положенных пособий из-за возраста детей';
+COMMENT ON COLUMN family_benefit_town.benefit_notification.id IS 'ID уведомления';
+COMMENT ON COLUMN family_benefit_town.benefit_notification.id_user IS 'ID пользователя';
+COMMENT ON COLUMN family_benefit_town.benefit_notification.date_notification IS 'Дата, с которой изменились положенные пособия';
+COMMENT ON COLUMN family_benefit_town.benefit_notification.benefits_gained IS 'Названия пособий, ставших положенными, через запятую';
+COMMENT ON COLUMN family_benefit_town.benefit_notification.benefits_lost IS 'Названия пособий, переставших быть положенными, через запятую';
+COMMENT ON COLUMN family_benefit_town.benefit_notification.count_attempts IS 'Число попыток отправки';
+COMMENT ON COLUMN family_benefit_town.benefit_notification.date_attempt IS 'Дата и время последней попытки отправки';
+COMMENT ON COLUMN family_benefit_town.benefit_notification.date_sent IS 'Дата и время отправки, NULL - не отправлено';
+
+-- Выбор неотправленных уведомлений
+CREATE INDEX benefit_notification_idx_unsent ON family_benefit_town.benefit_notification ("id")
+  WHERE "date_sent" IS NULL;
+
+GRANT SELECT, INSERT, UPDATE, DELETE ON TABLE family_benefit_town.benefit_notification_run TO familyben;
+GRANT SELECT, INSERT, UPDATE, DELETE ON TABLE family_benefit_town.benefit_notification TO familyben;
@@ -0,0 +1,149 @@
+CREATE TABLE family_benefit_town.city_stats (
+
+  "id_city" TEXT NOT NULL,
+  "count_families" BIGINT NOT NULL DEFAULT 0,
+  "count_children" BIGINT NOT NULL DEFAULT 0,
+  "count_multi_child_families" BIGINT NOT NULL DEFAULT 0,
+
+  CONSTRAINT city_stats_pk PRIMARY KEY ("id_city"),
+  CONSTRAINT city_stats_fk_city FOREIGN KEY ("id_city")
+    REFERENCES family_benefit_town.city("id")
+    ON DELETE CASCADE
+    ON UPDATE CASCADE
+);
+
+COMMENT ON TABLE family_benefit_town.city_stats IS 'Счетчики семей и детей города, изменяемые при изменении пользователей и сверяемые с таблицей "user" раз в сутки';
+COMMENT ON COLUMN family_benefit_town.city_stats.id_city IS 'ID города';
+COMMENT ON COLUMN family_benefit_town.city_stats.count_families IS 'Число пользователей города';
+COMMENT ON COLUMN family_benefit_town.city_stats.count_children IS 'Число детей пользователей города';
+COMMENT ON COLUMN family_benefit_town.city_stats.count_multi_child_families IS 'Число пользователей города с тремя и более детьми';
+
+GRANT SELECT, INSERT, UPDATE, DELETE ON TABLE family_benefit_town.city_stats TO familyben;
+
+CREATE TABLE family_benefit_town.city_stats_child_birth (
+
+  "id_city" TEXT NOT NULL,
+  "date_birth" DATE NOT NULL,
+  "count_children" BIGINT NOT NULL,
+
+  CONSTRAINT city_stats_child_birth_pk PRIMARY KEY ("id_city", "date_birth"),
+  CONSTRAINT city_stats_child_birth_fk_city FOREIGN KEY ("id_city")
+    REFERENCES family_benefit_town.city("id")
+    ON DELETE CASCADE
+    ON UPDATE CASCADE
+);
+
+COMMENT ON TABLE family_benefit_town.city_stats_child_birth IS 'Число детей пользователей города по дате рождения, возрастные группы считаются из него на текущую дату. Строки с нулевым числом удаляются';
+COMMENT ON COLUMN family_benefit_town.city_stats_child_birth.id_city IS 'ID города';
+COMMENT ON COLUMN family_benefit_town.city_stats_child_birth.date_birth IS 'Дата рождения детей';
+COMMENT ON COLUMN family_benefit_town.city_stats_child_birth.count_children IS 'Число детей с датой рождения';
+
+GRANT SELECT, INSERT, UPDATE, DELETE ON TABLE family_benefit_town.city_stats_child_birth TO familyben;
+
+-- Вклад пользователя в счетчики города: город, даты рождений детей и знак (1 - добавление, -1 - удаление)
+CREATE TYPE family_benefit_town.city_stats_delta AS (
+  "id_city" TEXT,
+  "children_birth" DATE[],
+  "sign" INTEGER
+);
+
+-- Применение вкладов к счетчикам. Строки изменяются в порядке ключа, чтобы одновременные изменения
+-- нескольких городов не блокировали друг друга, нулевые изменения не блокируют строки
+CREATE OR REPLACE FUNCTION family_benefit_town.apply_city_stats_delta(deltas family_benefit_town.city_stats_delta[]) RETURNS VOID
+  AS $$
+INSERT INTO family_benefit_town.city_stats (id_city, count_families, count_children, count_multi_child_families)
+SELECT delta.id_city,
+       sum(delta.sign),
+       sum(delta.sign * cardinality(delta.children_birth)),
+       coalesce(sum(delta.sign) FILTER (WHERE cardinality(delta.children_birth) >= 3), 0)
+FROM unnest(deltas) AS delta
+WHERE delta.id_city IS NOT NULL
+GROUP BY delta.id_city
+HAVING sum(delta.sign) <> 0
+    OR sum(delta.sign * cardinality(delta.children_birth)) <> 0
+    OR coalesce(sum(delta.sign) FILTER (WHERE cardinality(delta.children_birth) >= 3), 0) <> 0
+ORDER BY delta.id_city
+ON CONFLICT ON CONSTRAINT city_stats_pk DO UPDATE
+SET "count_families" = family_benefit_town.city_stats.count_families + EXCLUDED.count_families,
+    "count_children" = family_benefit_town.city_stats.count_children + EXCLUDED.count_children,
+    "count_multi_child_families" = family_benefit_town.city_stats.count_multi_child_families + EXCLUDED.count_multi_child_families;
+
+INSERT INTO family_benefit_town.city_stats_child_birth (id_city, date_birth, count_children)
+SELECT delta.id_city, children.date_birth, sum(delta.sign)
+FROM unnest(deltas) AS delta
+CROSS JOIN LATERAL unnest(delta.children_birth) AS children(date_birth)
+WHERE delta.id_city IS NOT NULL
+GROUP BY delta.id_city, children.date_birth
+HAVING sum(delta.sign) <> 0
+ORDER BY delta.id_city, children.date_birth
+ON CONFLICT ON CONSTRAINT city_stats_child_birth_pk DO UPDATE
+SET "count_children" = family_benefit_town.city_stats_child_birth.count_children + EXCLUDED.count_children;
+
+DELETE FROM family_benefit_town.city_stats_child_birth
+WHERE family_benefit_town.city_stats_child_birth.id_city IN (SELECT delta.id_city FROM unnest(deltas) AS delta)
+  AND family_benefit_town.city_stats_child_birth.count_children = 0;
+  $$
+LANGUAGE SQL;
+
+-- Перенос вклада пользователя из прежних города и детей в текущие из таблицы "user".
+-- Прежние значения NULL - пользователь создан, пользователь отсутствует в таблице - удален
+CREATE OR REPLACE FUNCTION family_benefit_town.move_city_stats(id_user TEXT, id_city_old TEXT, children_birth_old DATE[]) RETURNS VOID
+  AS $$
+SELECT family_benefit_town.apply_city_stats_delta(ARRAY(
+  SELECT ROW(id_city_old, coalesce(children_birth_old, '{}'), -1)::family_benefit_town.city_stats_delta
+  UNION ALL
+  SELECT ROW(family_benefit_town.user.id_city, family_benefit_town.user.children_birth, 1)::family_benefit_town.city_stats_delta
+  FROM family_benefit_town.user
+  WHERE family_benefit_town.user.id = id_user));
+  $$
+LANGUAGE SQL;
+
+-- Полный пересчет счетчиков всех городов по таблице "user". Изменения счетчиков ожидают окончания пересчета,
+-- поэтому изменения пользователей, не видимые пересчету, применяются после него поверх пересчитанных значений.
+-- Возвращает число городов, счетчики которых отличались от пересчитанных
+CREATE OR REPLACE FUNCTION family_benefit_town.rebuild_city_stats() RETURNS BIGINT
+  AS $$
+DECLARE
+  count_drifted BIGINT;
+BEGIN
+  LOCK TABLE family_benefit_town.city_stats, family_benefit_town.city_stats_child_birth IN EXCLUSIVE MODE;
+
+  CREATE TEMP TABLE city_stats_actual ON COMMIT DROP AS
+  SELECT family_benefit_town.user.id_city,
+         count(*) AS count_families,
+         coalesce(sum(cardinality(family_benefit_town.user.children_birth)), 0) AS count_children,
+         count(*) FILTER (WHERE cardinality(family_benefit_town.user.children_birth) >= 3) AS count_multi_child_families
+  FROM family_benefit_town.user
+  WHERE family_benefit_town.user.id_city IS NOT NULL
+  GROUP BY family_benefit_town.user.id_city;
+
+  SELECT count(*) INTO count_drifted
+  FROM city_stats_actual
+  FULL JOIN family_benefit_town.city_stats ON family_benefit_town.city_stats.id_city = city_stats_actual.id_city
+  WHERE (city_stats_actual.count_families, city_stats_actual.count_children, city_stats_actual.count_multi_child_families)
+    IS DISTINCT FROM
+    (family_benefit_town.city_stats.count_families, family_benefit_town.city_stats.count_children,
+     family_benefit_town.city_stats.count_multi_child_families);
+
+  DELETE FROM family_benefit_town.city_stats;
+  INSERT INTO family_benefit_town.city_stats (id_city, count_families, count_children, count_multi_child_families)
+  SELECT city_stats_actual.id_city, city_stats_actual.count_families,
+         city_stats_actual.count_children, city_stats_actual.count_multi_child_families
+  FROM city_stats_actual;
+
+  DELETE FROM family_benefit_town.city_stats_child_birth;
+  INSERT INTO family_benefit_town.city_stats_child_birth (id_city, date_birth, count_children)
+  SELECT family_benefit_town.user.id_city, children.date_birth, count(*)
+  FROM family_benefit_town.user
+  CROSS JOIN LATERAL unnest(family_benefit_town.user.children_birth) AS children(date_birth)
+  WHERE family_benefit_town.user.id_city IS NOT NULL
+  GROUP BY family_benefit_town.user.id_city, children.date_birth;
+
+  DROP TABLE city_stats_actual;
+  RETURN count_drifted;
+END;
+  $$
+LANGUAGE plpgsql;
+
+-- Начальное заполнение счетчиков
+SELECT family_benefit_town.rebuild_city_stats();
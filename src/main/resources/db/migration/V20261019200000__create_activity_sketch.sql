@@ -0,0 +1,23 @@
+CREATE TABLE family_benefit_town.activity_sketch (
+
+  "id_city" TEXT NOT NULL,
+  "date_activity" DATE NOT NULL,
+  "registers" BYTEA NOT NULL,
+  "count_logins" BIGINT NOT NULL DEFAULT 0,
+  "date_update" TIMESTAMP NOT NULL DEFAULT now(),
+
+  CONSTRAINT activity_sketch_pk PRIMARY KEY ("id_city", "date_activity"),
+  CONSTRAINT activity_sketch_check_registers CHECK (length("registers") = 4096)
+);
+
+COMMENT ON TABLE family_benefit_town.activity_sketch IS 'Скетчи HyperLogLog активных пользователей и число входов за день по городу, объединенные со всех узлов';
+COMMENT ON COLUMN family_benefit_town.activity_sketch.id_city IS 'ID города, пустая строка - все пользователи, включая пользователей без города. Без внешнего ключа: статистика удаленного города сохраняется';
+COMMENT ON COLUMN family_benefit_town.activity_sketch.date_activity IS 'Дата активности';
+COMMENT ON COLUMN family_benefit_town.activity_sketch.registers IS 'Регистры скетча активных пользователей, 4096 байт, объединяются максимумом';
+COMMENT ON COLUMN family_benefit_town.activity_sketch.count_logins IS 'Число входов в систему';
+COMMENT ON COLUMN family_benefit_town.activity_sketch.date_update IS 'Дата и время последней выгрузки в строку';
+
+-- Удаление скетчей старше срока хранения
+CREATE INDEX activity_sketch_idx_date_activity ON family_benefit_town.activity_sketch ("date_activity");
+
+GRANT SELECT, INSERT, UPDATE, DELETE ON TABLE family_benefit_town.activity_sketch TO familyben;
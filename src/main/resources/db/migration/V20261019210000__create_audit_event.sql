@@ -0,0 +1,46 @@
+CREATE TABLE family_benefit_town.audit_event (
+
+  "id" BIGSERIAL NOT NULL,
+  "date_event" TIMESTAMP NOT NULL,
+  "type" TEXT NOT NULL,
+  "id_user" TEXT NULL,
+  "details" TEXT NULL,
+
+  CONSTRAINT audit_event_pk PRIMARY KEY ("date_event", "id")
+) PARTITION BY RANGE ("date_event");
+
+COMMENT ON TABLE family_benefit_town.audit_event IS 'Журнал событий аудита: вход в систему, выдача токенов и изменение ролей. Только добавление, разделен на секции по месяцам. Без внешнего ключа: события удаленных пользователей сохраняются';
+COMMENT ON COLUMN family_benefit_town.audit_event.id IS 'ID записи события, возрастает в порядке записи';
+COMMENT ON COLUMN family_benefit_town.audit_event.date_event IS 'Дата и время события';
+COMMENT ON COLUMN family_benefit_town.audit_event.type IS 'Тип события';
+COMMENT ON COLUMN family_benefit_town.audit_event.id_user IS 'ID пользователя, к которому относится событие';
+COMMENT ON COLUMN family_benefit_town.audit_event.details IS 'Подробности события: название роли или адрес клиента';
+
+-- Поиск событий пользователя за период, создается в каждой секции
+CREATE INDEX audit_event_idx_user_date_event ON family_benefit_town.audit_event ("id_user", "date_event");
+
+-- Секция для событий вне созданных месячных секций, чтобы запись не отклонялась
+CREATE TABLE family_benefit_town.audit_event_default PARTITION OF family_benefit_town.audit_event DEFAULT;
+
+-- Создание отсутствующих месячных секций, начиная с месяца даты
+CREATE OR REPLACE FUNCTION family_benefit_town.create_audit_event_partitions(date_from DATE, count_months INTEGER) RETURNS VOID
+  AS $$
+DECLARE
+  month_start DATE;
+BEGIN
+  FOR number_month IN 0 .. count_months - 1 LOOP
+    month_start := date_trunc('month', date_from)::DATE + make_interval(months => number_month);
+    EXECUTE format(
+      'CREATE TABLE IF NOT EXISTS family_benefit_town.%I PARTITION OF family_benefit_town.audit_event FOR VALUES FROM (%L) TO (%L);',
+      'audit_event_' || to_char(month_start, 'YYYY_MM'), month_start, (month_start + INTERVAL '1 month')::DATE);
+  END LOOP;
+END;
+  $$
+LANGUAGE plpgsql;
+
+-- Начальные секции: текущий и два следующих месяца
+SELECT family_benefit_town.create_audit_event_partitions(current_date, 3);
+
+-- Журнал только дополняется: изменение и удаление событий запрещены
+GRANT SELECT, INSERT ON TABLE family_benefit_town.audit_event TO familyben;
+GRANT USAGE ON SEQUENCE family_benefit_town.audit_event_id_seq TO familyben;
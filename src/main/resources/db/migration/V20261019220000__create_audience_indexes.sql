@@ -0,0 +1,6 @@
+-- Фильтр аудитории по числу детей в городе. Выражение совпадает с условием фильтра,
+-- иначе индекс не используется
+CREATE INDEX user_idx_city_count_children ON family_benefit_town.user ("id_city", cardinality("children_birth"), "id");
+
+-- Статистика выражения числа детей для оценки числа строк планировщиком
+ANALYZE family_benefit_town.user;
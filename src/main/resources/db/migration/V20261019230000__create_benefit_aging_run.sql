@@ -0,0 +1,25 @@
+CREATE TABLE family_benefit_town.benefit_aging_run (
+
+  "date_run" DATE NOT NULL,
+  "date_start" TIMESTAMP NOT NULL DEFAULT now(),
+  "count_users" INTEGER NOT NULL DEFAULT 0,
+
+  CONSTRAINT benefit_aging_run_pk PRIMARY KEY ("date_run")
+);
+
+COMMENT ON TABLE family_benefit_town.benefit_aging_run IS 'Выполненные ежедневные пересчеты положенных пособий пользователей, дети которых достигли порогового возраста. Пересчет за дату выполняется не более одного раза';
+COMMENT ON COLUMN family_benefit_town.benefit_aging_run.date_run IS 'Дата, за которую выполнен пересчет';
+COMMENT ON COLUMN family_benefit_town.benefit_aging_run.date_start IS 'Дата и время выполнения пересчета';
+COMMENT ON COLUMN family_benefit_town.benefit_aging_run.count_users IS 'Число пользователей, пособия которых пересчитаны';
+
+COMMENT ON TABLE family_benefit_town.user_benefit IS 'Положенные пользователям пособия. Рассчитываются задачей переоценки после изменения правил города, при сохранении пользователя и при достижении детьми порогового возраста';
+
+-- Переоценка всех городов: пособия пользователей, сохраненных или переоцененных до начала чтения таблицы "user_benefit",
+-- могли устареть
+INSERT INTO family_benefit_town.benefit_evaluation_job (id_city)
+SELECT family_benefit_town.city.id FROM family_benefit_town.city
+ON CONFLICT ON CONSTRAINT benefit_evaluation_job_pk DO UPDATE
+SET generation = family_benefit_town.benefit_evaluation_job.generation + 1, status = 'PENDING',
+    id_user_last = NULL, count_processed = 0, count_total = 0, date_start = now(), date_update = now();
+
+GRANT SELECT, INSERT, UPDATE ON TABLE family_benefit_town.benefit_aging_run TO familyben;
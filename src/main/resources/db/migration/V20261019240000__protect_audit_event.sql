@@ -0,0 +1,69 @@
+-- Журнал аудита принадлежит пользователю приложения, так как приложение создает месячные секции,
+-- поэтому права GRANT не запрещают ему изменение и удаление событий. Запрет обеспечивается триггерами,
+-- отклоняющими изменение, удаление и очистку событий. Удаление старых секций целиком остается возможным
+
+-- Отклонение изменения журнала аудита
+CREATE OR REPLACE FUNCTION family_benefit_town.reject_audit_event_change() RETURNS TRIGGER
+  AS $$
+BEGIN
+  RAISE EXCEPTION 'Audit events are append-only: % on % is not allowed', TG_OP, TG_TABLE_NAME
+    USING ERRCODE = 'insufficient_privilege';
+END;
+  $$
+LANGUAGE plpgsql;
+
+-- Строковый триггер секционированной таблицы копируется во все существующие и будущие секции
+CREATE TRIGGER audit_event_reject_update_delete
+  BEFORE UPDATE OR DELETE
+  ON family_benefit_town.audit_event
+  FOR EACH ROW
+  EXECUTE PROCEDURE family_benefit_town.reject_audit_event_change();
+
+-- Триггер очистки не копируется в секции, поэтому создается для таблицы и каждой секции отдельно
+CREATE TRIGGER audit_event_reject_truncate
+  BEFORE TRUNCATE
+  ON family_benefit_town.audit_event
+  FOR EACH STATEMENT
+  EXECUTE PROCEDURE family_benefit_town.reject_audit_event_change();
+
+DO $$
+DECLARE
+  name_partition TEXT;
+BEGIN
+  FOR name_partition IN
+    SELECT pg_class.relname
+    FROM pg_inherits
+    INNER JOIN pg_class ON pg_class.oid = pg_inherits.inhrelid
+    WHERE pg_inherits.inhparent = 'family_benefit_town.audit_event'::REGCLASS
+  LOOP
+    EXECUTE format(
+      'CREATE TRIGGER audit_event_reject_truncate BEFORE TRUNCATE ON family_benefit_town.%I FOR EACH STATEMENT EXECUTE PROCEDURE family_benefit_town.reject_audit_event_change();',
+      name_partition);
+  END LOOP;
+END;
+  $$;
+
+-- Создание отсутствующих месячных секций, начиная с месяца даты, с запретом очистки каждой созданной секции
+CREATE OR REPLACE FUNCTION family_benefit_town.create_audit_event_partitions(date_from DATE, count_months INTEGER) RETURNS VOID
+  AS $$
+DECLARE
+  month_start DATE;
+  name_partition TEXT;
+BEGIN
+  FOR number_month IN 0 .. count_months - 1 LOOP
+    month_start := date_trunc('month', date_from)::DATE + make_interval(months => number_month);
+    name_partition := 'audit_event_' || to_char(month_start, 'YYYY_MM');
+    IF to_regclass(format('family_benefit_town.%I', name_partition)) IS NULL THEN
+      EXECUTE format(
+        'CREATE TABLE family_benefit_town.%I PARTITION OF family_benefit_town.audit_event FOR VALUES FROM (%L) TO (%L);',
+        name_partition, month_start, (month_start + INTERVAL '1 month')::DATE);
+      EXECUTE format(
+        'CREATE TRIGGER audit_event_reject_truncate BEFORE TRUNCATE ON family_benefit_town.%I FOR EACH STATEMENT EXECUTE PROCEDURE family_benefit_town.reject_audit_event_change();',
+        name_partition);
+    END IF;
+  END LOOP;
+END;
+  $$
+LANGUAGE plpgsql;
+
+COMMENT ON TABLE family_benefit_town.audit_event IS 'Журнал событий аудита: вход в систему, выдача токенов и изменение ролей. Только добавление: изменение, удаление и очистка отклоняются триггерами. Разделен на секции по месяцам. Без внешнего ключа: события удаленных пользователей сохраняются';
@@ -0,0 +1,14 @@
+ALTER TABLE family_benefit_town.user
+  ADD COLUMN "date_import" TIMESTAMP NULL;
+
+COMMENT ON COLUMN family_benefit_town.user.date_import IS 'Дата и время загрузки пользователя администратором, NULL - пользователь зарегистрировался сам. Загруженные пользователи, ни разу не входившие в систему, удаляются как неактивные с даты загрузки';
+
+-- Поиск зарегистрировавшихся пользователей, ни разу не входивших в систему, для удаления
+DROP INDEX family_benefit_town.user_idx_date_registration_never_active;
+
+CREATE INDEX user_idx_date_registration_never_active ON family_benefit_town.user ("date_registration")
+  WHERE "date_last_activity" IS NULL AND "date_import" IS NULL;
+
+-- Поиск загруженных пользователей, ни разу не входивших в систему, для удаления
+CREATE INDEX user_idx_date_import_never_active ON family_benefit_town.user ("date_import")
+  WHERE "date_last_activity" IS NULL AND "date_import" IS NOT NULL;
@@ -0,0 +1,79 @@
+-- Хранение дат рождений детей задается режимом приложения "family-benefits-town.children-storage":
+-- TABLES - приложение изменяет связь "users_children", столбец "children_birth" выводится из неё;
+-- ARRAY - приложение изменяет столбец "children_birth", связь "users_children" выводится из него.
+-- Чтение в обоих режимах выполняется из столбца "children_birth".
+-- Изменения, выполненные синхронизацией, отмечаются локальным параметром транзакции
+-- "family_benefit_town.sync_children" и не синхронизируются в обратную сторону
+
+-- Приведение столбца "children_birth" указанных пользователей к связи "users_children"
+CREATE OR REPLACE FUNCTION family_benefit_town.sync_children_birth(ids_user TEXT[]) RETURNS VOID
+  AS $$
+UPDATE family_benefit_town.user
+SET children_birth = children.dates_birth
+FROM (SELECT ids.id_user,
+             ARRAY(SELECT family_benefit_town.child_birth.date_birth
+                   FROM family_benefit_town.users_children
+                   INNER JOIN family_benefit_town.child_birth ON family_benefit_town.users_children.id_child_birth = family_benefit_town.child_birth.id
+                   WHERE family_benefit_town.users_children.id_user = ids.id_user
+                   ORDER BY 1) AS dates_birth
+      FROM (SELECT DISTINCT unnest(ids_user)) AS ids(id_user)) AS children
+WHERE family_benefit_town.user.id = children.id_user
+  AND family_benefit_town.user.children_birth <> children.dates_birth;
+  $$
+LANGUAGE SQL;
+
+-- Синхронизация столбца пользователей с измененной связью одним запросом на оператор
+CREATE OR REPLACE FUNCTION family_benefit_town.sync_children_birth_changed() RETURNS TRIGGER
+  AS $$
+BEGIN
+  IF current_setting('family_benefit_town.sync_children', TRUE) = 'on' THEN
+    RETURN NULL;
+  END IF;
+  PERFORM set_config('family_benefit_town.sync_children', 'on', TRUE);
+  PERFORM family_benefit_town.sync_children_birth(ARRAY(SELECT changed_rows.id_user FROM changed_rows));
+  PERFORM set_config('family_benefit_town.sync_children', 'off', TRUE);
+  RETURN NULL;
+END;
+  $$
+LANGUAGE plpgsql;
+
+CREATE TRIGGER users_children_insert_sync_children_birth
+  AFTER INSERT ON family_benefit_town.users_children
+  REFERENCING NEW TABLE AS changed_rows
+  FOR EACH STATEMENT
+  EXECUTE PROCEDURE family_benefit_town.sync_children_birth_changed();
+
+CREATE TRIGGER users_children_delete_sync_children_birth
+  AFTER DELETE ON family_benefit_town.users_children
+  REFERENCING OLD TABLE AS changed_rows
+  FOR EACH STATEMENT
+  EXECUTE PROCEDURE family_benefit_town.sync_children_birth_changed();
+
+-- Синхронизация связи из столбца пропускает изменения столбца, выполненные синхронизацией из связи
+CREATE OR REPLACE FUNCTION family_benefit_town.sync_users_children_insert() RETURNS TRIGGER
+  AS $$
+BEGIN
+  IF current_setting('family_benefit_town.sync_children', TRUE) = 'on' THEN
+    RETURN NULL;
+  END IF;
+  PERFORM set_config('family_benefit_town.sync_children', 'on', TRUE);
+  PERFORM family_benefit_town.sync_users_children(ARRAY(SELECT changed_rows.id FROM changed_rows));
+  PERFORM set_config('family_benefit_town.sync_children', 'off', TRUE);
+  RETURN NULL;
+END;
+  $$
+LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION family_benefit_town.sync_users_children_update() RETURNS TRIGGER
+  AS $$
+BEGIN
+  IF current_setting('family_benefit_town.sync_children', TRUE) = 'on' THEN
+    RETURN NULL;
+  END IF;
+  PERFORM set_config('family_benefit_town.sync_children', 'on', TRUE);
+  PERFORM family_benefit_town.sync_users_children(ARRAY[NEW.id]);
+  PERFORM set_config('family_benefit_town.sync_children', 'off', TRUE);
+  RETURN NULL;
+END;
+  $$
+LANGUAGE plpgsql;
@@ -0,0 +1,2 @@
+-- Родители по рождению ребенка ищутся пересечением столбца "children_birth" по индексу "user_idx_children_birth"
+DROP INDEX family_benefit_town.users_children_idx_child_birth;
@@ -0,0 +1,67 @@
+-- События, записанные в секцию по умолчанию до создания месячной секции, переносятся в создаваемую секцию.
+-- Иначе создание секции отклоняется проверкой секции по умолчанию, и секции месяца не создаются никогда
+
+-- Удаление событий разрешено только переносу из секции по умолчанию, отмеченному локальным параметром транзакции
+-- "family_benefit_town.audit_event_move"
+CREATE OR REPLACE FUNCTION family_benefit_town.reject_audit_event_change() RETURNS TRIGGER
+  AS $$
+BEGIN
+  IF TG_OP = 'DELETE' AND TG_TABLE_NAME = 'audit_event_default'
+      AND current_setting('family_benefit_town.audit_event_move', TRUE) = 'on' THEN
+    RETURN OLD;
+  END IF;
+  RAISE EXCEPTION 'Audit events are append-only: % on % is not allowed', TG_OP, TG_TABLE_NAME
+    USING ERRCODE = 'insufficient_privilege';
+END;
+  $$
+LANGUAGE plpgsql;
+
+DROP FUNCTION family_benefit_town.create_audit_event_partitions(DATE, INTEGER);
+
+-- Создание отсутствующих месячных секций, начиная с месяца даты, с запретом очистки каждой созданной секции.
+-- Секция заполняется событиями месяца из секции по умолчанию и присоединяется после их удаления оттуда.
+-- Запись событий блокируется на время создания секции. Возвращает число перенесенных событий
+CREATE FUNCTION family_benefit_town.create_audit_event_partitions(date_from DATE, count_months INTEGER) RETURNS BIGINT
+  AS $$
+DECLARE
+  month_start DATE;
+  month_end DATE;
+  name_partition TEXT;
+  count_moved BIGINT;
+  count_moved_total BIGINT := 0;
+BEGIN
+  FOR number_month IN 0 .. count_months - 1 LOOP
+    month_start := date_trunc('month', date_from)::DATE + make_interval(months => number_month);
+    month_end := (month_start + INTERVAL '1 month')::DATE;
+    name_partition := 'audit_event_' || to_char(month_start, 'YYYY_MM');
+    IF to_regclass(format('family_benefit_town.%I', name_partition)) IS NULL THEN
+      LOCK TABLE family_benefit_town.audit_event_default IN SHARE ROW EXCLUSIVE MODE;
+
+      EXECUTE format('CREATE TABLE family_benefit_town.%I (LIKE family_benefit_town.audit_event);', name_partition);
+      EXECUTE format(
+        'INSERT INTO family_benefit_town.%I (id, date_event, type, id_user, details) ' ||
+        'SELECT id, date_event, type, id_user, details FROM family_benefit_town.audit_event_default ' ||
+        'WHERE date_event >= %L AND date_event < %L;',
+        name_partition, month_start, month_end);
+      GET DIAGNOSTICS count_moved = ROW_COUNT;
+
+      IF count_moved > 0 THEN
+        PERFORM set_config('family_benefit_town.audit_event_move', 'on', TRUE);
+        DELETE FROM family_benefit_town.audit_event_default
+        WHERE date_event >= month_start AND date_event < month_end;
+        PERFORM set_config('family_benefit_town.audit_event_move', 'off', TRUE);
+        count_moved_total := count_moved_total + count_moved;
+      END IF;
+
+      EXECUTE format(
+        'ALTER TABLE family_benefit_town.audit_event ATTACH PARTITION family_benefit_town.%I FOR VALUES FROM (%L) TO (%L);',
+        name_partition, month_start, month_end);
+      EXECUTE format(
+        'CREATE TRIGGER audit_event_reject_truncate BEFORE TRUNCATE ON family_benefit_town.%I FOR EACH STATEMENT EXECUTE PROCEDURE family_benefit_town.reject_audit_event_change();',
+        name_partition);
+    END IF;
+  END LOOP;
+  RETURN count_moved_total;
+END;
+  $$
+LANGUAGE plpgsql;
@@ -0,0 +1,165 @@
+package com.example.familybenefitstown.part_res_rest_api.audience;
+
+import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AudienceFilter;
+import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AudienceFilterType;
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.AssertionsForClassTypes;
+import org.junit.Test;
+
+import java.sql.Date;
+import java.time.LocalDate;
+import java.util.List;
+
+@Slf4j
+public class AudienceQueryTest {
+
+  /**
+   * Начало условия наличия ребенка с датой рождения из отрезка
+   */
+  private static final String SQL_CHILD_BIRTH =
+      "family_benefit_town.user.children_birth && ARRAY(SELECT family_benefit_town.child_birth.date_birth " +
+          "FROM family_benefit_town.child_birth WHERE TRUE";
+
+  /**
+   * Условие первой даты рождения
+   */
+  private static final String SQL_CHILD_BIRTH_FROM = " AND family_benefit_town.child_birth.date_birth >= ?";
+
+  /**
+   * Условие последней даты рождения
+   */
+  private static final String SQL_CHILD_BIRTH_TO = " AND family_benefit_town.child_birth.date_birth <= ?";
+
+  /**
+   * Условие города
+   */
+  private static final String SQL_CITY = "family_benefit_town.user.id_city = ?";
+
+  /**
+   * <p>
+   *   Тест подготовки условия {@code CHILD_AGE} методом {@code compile} класса {@link AudienceQuery}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Возраст от 1 до 1 года 28 февраля невисокосного года: родившиеся 29 февраля входят в отрезок.</li>
+   *   <li>Возраст от 1 года накануне дня рождения и 29 февраля високосного года.</li>
+   *   <li>Только максимальный возраст и возраст без пределов.</li>
+   * </ol>
+   */
+  @Test
+  public void test_compileChildAge() throws Exception {
+
+    log.info("Start test_compileChildAge");
+
+    // 1. Возраст от 1 до 1 года 28 февраля невисокосного года: родившиеся 29 февраля входят в отрезок.
+
+    AudienceQuery ageOne = AudienceQuery.compile(childAge(1, 1), LocalDate.of(2021, 2, 28));
+    AssertionsForClassTypes.assertThat(ageOne.getSqlCondition())
+        .isEqualTo(SQL_CHILD_BIRTH + SQL_CHILD_BIRTH_FROM + SQL_CHILD_BIRTH_TO + ")");
+    AssertionsForClassTypes.assertThat(ageOne.getArgList())
+        .isEqualTo(List.of(Date.valueOf("2019-03-01"), Date.valueOf("2020-02-29")));
+
+    // 2. Возраст от 1 года накануне дня рождения и 29 февраля високосного года.
+
+    AssertionsForClassTypes.assertThat(AudienceQuery.compile(childAge(1, null), LocalDate.of(2021, 2, 27)).getArgList())
+        .isEqualTo(List.of(Date.valueOf("2020-02-27")));
+    AssertionsForClassTypes.assertThat(AudienceQuery.compile(childAge(1, null), LocalDate.of(2024, 2, 29)).getArgList())
+        .isEqualTo(List.of(Date.valueOf("2023-02-28")));
+
+    // 3. Только максимальный возраст и возраст без пределов.
+
+    AudienceQuery underThree = AudienceQuery.compile(childAge(null, 2), LocalDate.of(2021, 2, 28));
+    AssertionsForClassTypes.assertThat(underThree.getSqlCondition())
+        .isEqualTo(SQL_CHILD_BIRTH + SQL_CHILD_BIRTH_FROM + ")");
+    AssertionsForClassTypes.assertThat(underThree.getArgList())
+        .isEqualTo(List.of(Date.valueOf("2018-03-01")));
+
+    AudienceQuery anyAge = AudienceQuery.compile(childAge(null, null), LocalDate.of(2021, 2, 28));
+    AssertionsForClassTypes.assertThat(anyAge.getSqlCondition())
+        .isEqualTo("cardinality(family_benefit_town.user.children_birth) > 0");
+    AssertionsForClassTypes.assertThat(anyAge.getArgList().isEmpty()).isTrue();
+
+    log.info("End test_compileChildAge");
+  }
+
+  /**
+   * <p>
+   *   Тест подготовки условий {@code CHILD_BIRTH}, {@code CITY} и их соединения методом {@code compile}
+   *   класса {@link AudienceQuery}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Отрезок дат рождения передается параметрами включительно.</li>
+   *   <li>Город с кавычкой передается параметром, а не в тексте условия.</li>
+   *   <li>Условия {@code OR} и {@code NOT} соединяются со скобками, параметры следуют в порядке условий.</li>
+   * </ol>
+   */
+  @Test
+  public void test_compileJoined() throws Exception {
+
+    log.info("Start test_compileJoined");
+
+    LocalDate dateCurrent = LocalDate.of(2021, 2, 28);
+    AudienceFilter childBirth = AudienceFilter
+        .builder()
+        .type(AudienceFilterType.CHILD_BIRTH)
+        .dateBirthFrom("01.01.2015")
+        .dateBirthTo("31.12.2015")
+        .build();
+    AudienceFilter city = AudienceFilter.builder().type(AudienceFilterType.CITY).idCity("id_city' OR TRUE").build();
+
+    // 1. Отрезок дат рождения передается параметрами включительно.
+
+    AudienceQuery childBirthQuery = AudienceQuery.compile(childBirth, dateCurrent);
+    AssertionsForClassTypes.assertThat(childBirthQuery.getSqlCondition())
+        .isEqualTo(SQL_CHILD_BIRTH + SQL_CHILD_BIRTH_FROM + SQL_CHILD_BIRTH_TO + ")");
+    AssertionsForClassTypes.assertThat(childBirthQuery.getArgList())
+        .isEqualTo(List.of(Date.valueOf("2015-01-01"), Date.valueOf("2015-12-31")));
+
+    // 2. Город с кавычкой передается параметром, а не в тексте условия.
+
+    AudienceQuery cityQuery = AudienceQuery.compile(city, dateCurrent);
+    AssertionsForClassTypes.assertThat(cityQuery.getSqlCondition()).isEqualTo(SQL_CITY);
+    AssertionsForClassTypes.assertThat(cityQuery.getArgList()).isEqualTo(List.of("id_city'' OR TRUE"));
+
+    // 3. Условия OR и NOT соединяются со скобками, параметры следуют в порядке условий.
+
+    AudienceQuery orQuery = AudienceQuery.compile(AudienceFilter
+                                                      .builder()
+                                                      .type(AudienceFilterType.OR)
+                                                      .filterList(List.of(
+                                                          city,
+                                                          AudienceFilter
+                                                              .builder()
+                                                              .type(AudienceFilterType.NOT)
+                                                              .filterList(List.of(childBirth))
+                                                              .build()))
+                                                      .build(), dateCurrent);
+    AssertionsForClassTypes.assertThat(orQuery.getSqlCondition())
+        .isEqualTo("(" + SQL_CITY + " OR NOT (" + SQL_CHILD_BIRTH + SQL_CHILD_BIRTH_FROM + SQL_CHILD_BIRTH_TO + ")))");
+    AssertionsForClassTypes.assertThat(orQuery.getArgList())
+        .isEqualTo(List.of("id_city'' OR TRUE", Date.valueOf("2015-01-01"), Date.valueOf("2015-12-31")));
+
+    log.info("End test_compileJoined");
+  }
+
+  /**
+   * Создает условие возраста ребенка
+   * @param minAgeChild минимальный возраст или {@code null}
+   * @param maxAgeChild максимальный возраст или {@code null}
+   * @return условие {@code CHILD_AGE}
+   */
+  private static AudienceFilter childAge(Integer minAgeChild, Integer maxAgeChild) {
+
+    return AudienceFilter
+        .builder()
+        .type(AudienceFilterType.CHILD_AGE)
+        .minAgeChild(minAgeChild)
+        .maxAgeChild(maxAgeChild)
+        .build();
+  }
+}
@@ -0,0 +1,130 @@
+package com.example.familybenefitstown.part_res_rest_api.bulk;
+
+import com.example.familybenefitstown.exceptions.InvalidStringException;
+import com.example.familybenefitstown.part_res_rest_api.api_models.city.CitySave;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.AssertionsForClassTypes;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+@Slf4j
+public class BulkRecordReaderTest {
+
+  /**
+   * Длина записи, превышающая максимальную
+   */
+  private static final int LENGTH_OVERSIZED = (1 << 20) + 1;
+
+  /**
+   * <p>
+   *   Тест чтения NDJSON читателем {@link BulkRecordReader}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Пустые строки пропускаются, строки с "\r\n" читаются.</li>
+   *   <li>Слишком длинная строка отклоняется под своим номером, чтение продолжается со следующей строки.</li>
+   * </ol>
+   */
+  @Test
+  public void test_readJson() throws IOException {
+
+    log.info("Start test_readJson");
+
+    String ndjson = "{\"name\":\"city1\"}\r\n" +
+        "\n" +
+        "{\"name\":\"" + "a".repeat(LENGTH_OVERSIZED) + "\"}\n" +
+        "{\"name\":\"city3\"}";
+
+    List<String> resultList = readAll(ndjson, BulkFormat.NDJSON);
+
+    // 1. Пустые строки пропускаются, строки с "\r\n" читаются.
+
+    AssertionsForClassTypes.assertThat(resultList.get(0)).isEqualTo("1:city1");
+
+    // 2. Слишком длинная строка отклоняется под своим номером, чтение продолжается со следующей строки.
+
+    AssertionsForClassTypes.assertThat(resultList.get(1)).isEqualTo("2:Record 2 exceeds 1048576 symbols");
+    AssertionsForClassTypes.assertThat(resultList.get(2)).isEqualTo("3:city3");
+    AssertionsForClassTypes.assertThat(resultList.size()).isEqualTo(3);
+
+    log.info("End test_readJson");
+  }
+
+  /**
+   * <p>
+   *   Тест чтения CSV читателем {@link BulkRecordReader}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Поля в кавычках с переводом строки и экранированной кавычкой читаются.</li>
+   *   <li>Слишком длинная запись и запись с незакрытыми кавычками отклоняются под своими номерами.</li>
+   * </ol>
+   */
+  @Test
+  public void test_readCsv() throws IOException {
+
+    log.info("Start test_readCsv");
+
+    String csv = "name,info\r\n" +
+        "city1,\"line1\nline \"\"2\"\"\"\r\n" +
+        "city2," + "a".repeat(LENGTH_OVERSIZED) + "\r\n" +
+        "city3,\r\n" +
+        "city4,\"unclosed";
+
+    List<String> resultList = readAll(csv, BulkFormat.CSV);
+
+    // 1. Поля в кавычках с переводом строки и экранированной кавычкой читаются.
+
+    AssertionsForClassTypes.assertThat(resultList.get(0)).isEqualTo("1:city1");
+
+    // 2. Слишком длинная запись и запись с незакрытыми кавычками отклоняются под своими номерами.
+
+    AssertionsForClassTypes.assertThat(resultList.get(1)).isEqualTo("2:Record 2 exceeds 1048576 symbols");
+    AssertionsForClassTypes.assertThat(resultList.get(2)).isEqualTo("3:city3");
+    AssertionsForClassTypes.assertThat(resultList.get(3)).isEqualTo("4:Record 4 has unclosed quotes");
+    AssertionsForClassTypes.assertThat(resultList.size()).isEqualTo(4);
+
+    log.info("End test_readCsv");
+  }
+
+  /**
+   * Читает все записи потока городов
+   * @param content содержимое потока
+   * @param bulkFormat формат потока
+   * @return список "номер записи:название города" или "номер записи:описание ошибки"
+   * @throws IOException если не удалось прочитать поток
+   */
+  private static List<String> readAll(String content, BulkFormat bulkFormat) throws IOException {
+
+    List<String> resultList = new ArrayList<>();
+    try (BulkRecordReader<CitySave> recordReader = new BulkRecordReader<>(
+        new ByteArrayInputStream(content.getBytes(StandardCharsets.UTF_8)), bulkFormat, new ObjectMapper(),
+        CitySave.class, row -> new CitySave(row.get("name"), row.get("info")))) {
+
+      boolean hasNext = true;
+      while (hasNext) {
+        try {
+          CitySave citySave = recordReader.read();
+          hasNext = citySave != null;
+          if (hasNext) {
+            resultList.add(recordReader.getNumberRecord() + ":" + citySave.getName());
+          }
+        } catch (InvalidStringException e) {
+          resultList.add(recordReader.getNumberRecord() + ":" + e.getMessage());
+        }
+      }
+    }
+
+    return resultList;
+  }
+}
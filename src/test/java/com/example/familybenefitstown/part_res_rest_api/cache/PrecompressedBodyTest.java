@@ -0,0 +1,73 @@
+package com.example.familybenefitstown.part_res_rest_api.cache;
+
+import com.example.familybenefitstown.part_res_rest_api.converters.GzipConverter;
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.AssertionsForClassTypes;
+import org.junit.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+@Slf4j
+public class PrecompressedBodyTest {
+
+  /**
+   * <p>
+   *   Тест метода {@code write} тела ответа {@link PrecompressedBody}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Клиент принимает gzip, записывается сжатое тело.</li>
+   *   <li>Клиент запрещает gzip, разрешая "*", записывается исходное тело.</li>
+   *   <li>Заголовок "Accept-Encoding" отсутствует, записывается исходное тело.</li>
+   * </ol>
+   */
+  @Test
+  public void test_write() throws Exception {
+
+    log.info("Start test_write");
+
+    byte[] identityBytes = "{\"cities\":[]}".repeat(50).getBytes(StandardCharsets.UTF_8);
+    PrecompressedBody precompressedBody = new PrecompressedBody(MediaType.APPLICATION_JSON_VALUE, identityBytes);
+
+    // 1. Клиент принимает gzip, записывается сжатое тело.
+
+    MockHttpServletResponse gzipResponse = new MockHttpServletResponse();
+    precompressedBody.write("br;q=1.0, gzip;q=0.8", gzipResponse);
+
+    AssertionsForClassTypes.assertThat(gzipResponse.getStatus()).isEqualTo(200);
+    AssertionsForClassTypes.assertThat(gzipResponse.getContentType()).isEqualTo(MediaType.APPLICATION_JSON_VALUE);
+    AssertionsForClassTypes.assertThat(gzipResponse.getHeader(HttpHeaders.VARY)).isEqualTo(HttpHeaders.ACCEPT_ENCODING);
+    AssertionsForClassTypes.assertThat(gzipResponse.getHeader(HttpHeaders.CONTENT_ENCODING))
+        .isEqualTo(GzipConverter.ENCODING_GZIP);
+    AssertionsForClassTypes.assertThat(gzipResponse.getContentLength())
+        .isEqualTo(gzipResponse.getContentAsByteArray().length);
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    GzipConverter.decompressTo(gzipResponse.getContentAsByteArray(), outputStream);
+    AssertionsForClassTypes.assertThat(outputStream.toByteArray()).isEqualTo(identityBytes);
+
+    // 2. Клиент запрещает gzip, разрешая "*", записывается исходное тело.
+
+    MockHttpServletResponse identityResponse = new MockHttpServletResponse();
+    precompressedBody.write("*, gzip;q=0", identityResponse);
+
+    AssertionsForClassTypes.assertThat(identityResponse.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+    AssertionsForClassTypes.assertThat(identityResponse.getContentLength()).isEqualTo(identityBytes.length);
+    AssertionsForClassTypes.assertThat(identityResponse.getContentAsByteArray()).isEqualTo(identityBytes);
+
+    // 3. Заголовок "Accept-Encoding" отсутствует, записывается исходное тело.
+
+    MockHttpServletResponse noHeaderResponse = new MockHttpServletResponse();
+    precompressedBody.write(null, noHeaderResponse);
+
+    AssertionsForClassTypes.assertThat(noHeaderResponse.getHeader(HttpHeaders.CONTENT_ENCODING)).isNull();
+    AssertionsForClassTypes.assertThat(noHeaderResponse.getContentAsByteArray()).isEqualTo(identityBytes);
+
+    log.info("End test_write");
+  }
+}
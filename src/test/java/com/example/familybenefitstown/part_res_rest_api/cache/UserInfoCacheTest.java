@@ -0,0 +1,178 @@
+package com.example.familybenefitstown.part_res_rest_api.cache;
+
+import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AdminInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.user.UserInfo;
+import com.example.familybenefitstown.part_res_rest_api.events.CityChangeType;
+import com.example.familybenefitstown.part_res_rest_api.events.CityChangedEvent;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.AssertionsForClassTypes;
+import org.junit.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+@Slf4j
+public class UserInfoCacheTest {
+
+  /**
+   * Тег версии, с которым сохраняются и читаются записи
+   */
+  private static final String VERSION_TAG = "user-1-1";
+
+  private final AtomicLong nanos = new AtomicLong();
+
+  private final MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
+  private final UserInfoCache userInfoCache = new UserInfoCache(meterRegistry, nanos::get);
+
+  /**
+   * <p>
+   *   Тест попаданий и копирования записей кэша {@link UserInfoCache}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Промах и попадание учитываются в метриках кэшей пользователей и администраторов.</li>
+   *   <li>Изменение сохраненного и полученного объекта не меняет запись кэша.</li>
+   *   <li>Запись другой версии не возвращается, в том числе сохраненная чтением после удаления записи.</li>
+   * </ol>
+   */
+  @Test
+  public void test_get() {
+
+    log.info("Start test_get");
+
+    // 1. Промах и попадание учитываются в метриках кэшей пользователей и администраторов.
+
+    AssertionsForClassTypes.assertThat(userInfoCache.get("id_user", VERSION_TAG)).isNull();
+    userInfoCache.put("id_user", VERSION_TAG, userInfo());
+    AssertionsForClassTypes.assertThat(userInfoCache.get("id_user", VERSION_TAG)).isEqualTo(userInfo());
+    AssertionsForClassTypes.assertThat(countGets("userInfo", "miss")).isEqualTo(1);
+    AssertionsForClassTypes.assertThat(countGets("userInfo", "hit")).isEqualTo(1);
+
+    AssertionsForClassTypes.assertThat(userInfoCache.getAdmin("id_user", VERSION_TAG)).isNull();
+    userInfoCache.putAdmin("id_user", VERSION_TAG, adminInfo());
+    AssertionsForClassTypes.assertThat(userInfoCache.getAdmin("id_user", VERSION_TAG)).isEqualTo(adminInfo());
+    AssertionsForClassTypes.assertThat(countGets("adminInfo", "miss")).isEqualTo(1);
+    AssertionsForClassTypes.assertThat(countGets("adminInfo", "hit")).isEqualTo(1);
+
+    // 2. Изменение сохраненного и полученного объекта не меняет запись кэша.
+
+    UserInfo savedUserInfo = userInfo();
+    userInfoCache.put("id_other_user", VERSION_TAG, savedUserInfo);
+    savedUserInfo.setName("changed");
+    savedUserInfo.getNameRoleList().add("ROLE_ADMIN");
+
+    UserInfo readUserInfo = userInfoCache.get("id_other_user", VERSION_TAG);
+    readUserInfo.setEmail("changed@email.com");
+    readUserInfo.getBirthDateChildren().clear();
+    AssertionsForClassTypes.assertThat(userInfoCache.get("id_other_user", VERSION_TAG)).isEqualTo(userInfo());
+
+    AdminInfo readAdminInfo = userInfoCache.getAdmin("id_user", VERSION_TAG);
+    readAdminInfo.getNameRoleList().clear();
+    AssertionsForClassTypes.assertThat(userInfoCache.getAdmin("id_user", VERSION_TAG)).isEqualTo(adminInfo());
+
+    // 3. Запись другой версии не возвращается, в том числе сохраненная чтением после удаления записи.
+
+    AssertionsForClassTypes.assertThat(userInfoCache.get("id_user", "user-2-1")).isNull();
+    AssertionsForClassTypes.assertThat(userInfoCache.getAdmin("id_user", "admin-2-1")).isNull();
+
+    userInfoCache.invalidateAfterCommit("id_user");
+    userInfoCache.put("id_user", VERSION_TAG, userInfo());
+    AssertionsForClassTypes.assertThat(userInfoCache.get("id_user", "user-2-1")).isNull();
+    userInfoCache.put("id_user", "user-2-1", userInfo());
+    AssertionsForClassTypes.assertThat(userInfoCache.get("id_user", "user-2-1")).isEqualTo(userInfo());
+
+    log.info("End test_get");
+  }
+
+  /**
+   * <p>
+   *   Тест удаления записей кэша {@link UserInfoCache}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Удаление пользователя удаляет его информацию о пользователе и администраторе.</li>
+   *   <li>Создание города не удаляет записи, изменение города удаляет информацию о пользователях.</li>
+   *   <li>Записи истекают через 10 минут после сохранения.</li>
+   * </ol>
+   */
+  @Test
+  public void test_invalidate() {
+
+    log.info("Start test_invalidate");
+
+    // 1. Удаление пользователя удаляет его информацию о пользователе и администраторе.
+
+    userInfoCache.put("id_user", VERSION_TAG, userInfo());
+    userInfoCache.putAdmin("id_user", VERSION_TAG, adminInfo());
+    userInfoCache.put("id_other_user", VERSION_TAG, userInfo());
+    userInfoCache.invalidateAfterCommit("id_user");
+
+    AssertionsForClassTypes.assertThat(userInfoCache.get("id_user", VERSION_TAG)).isNull();
+    AssertionsForClassTypes.assertThat(userInfoCache.getAdmin("id_user", VERSION_TAG)).isNull();
+    AssertionsForClassTypes.assertThat(userInfoCache.get("id_other_user", VERSION_TAG)).isNotNull();
+
+    // 2. Создание города не удаляет записи, изменение города удаляет информацию о пользователях.
+
+    userInfoCache.putAdmin("id_admin", VERSION_TAG, adminInfo());
+    userInfoCache.onCityChanged(new CityChangedEvent(CityChangeType.CREATED, "id_city", "city"));
+    AssertionsForClassTypes.assertThat(userInfoCache.get("id_other_user", VERSION_TAG)).isNotNull();
+
+    userInfoCache.onCityChanged(new CityChangedEvent(CityChangeType.UPDATED, "id_city", "new city"));
+    AssertionsForClassTypes.assertThat(userInfoCache.get("id_other_user", VERSION_TAG)).isNull();
+    AssertionsForClassTypes.assertThat(userInfoCache.getAdmin("id_admin", VERSION_TAG)).isNotNull();
+
+    // 3. Записи истекают через 10 минут после сохранения.
+
+    userInfoCache.put("id_user", VERSION_TAG, userInfo());
+    nanos.addAndGet(Duration.ofMinutes(10).toNanos() - 1);
+    AssertionsForClassTypes.assertThat(userInfoCache.get("id_user", VERSION_TAG)).isNotNull();
+    nanos.addAndGet(1);
+    AssertionsForClassTypes.assertThat(userInfoCache.get("id_user", VERSION_TAG)).isNull();
+    AssertionsForClassTypes.assertThat(userInfoCache.getAdmin("id_admin", VERSION_TAG)).isNull();
+
+    log.info("End test_invalidate");
+  }
+
+  /**
+   * Возвращает число обращений к кэшу с указанным результатом
+   * @param nameCache название кэша в метриках
+   * @param result результат обращения: "hit" или "miss"
+   * @return число обращений
+   */
+  private long countGets(String nameCache, String result) {
+    return (long) meterRegistry.get("cache.gets").tag("cache", nameCache).tag("result", result).functionCounter().count();
+  }
+
+  private static UserInfo userInfo() {
+
+    return UserInfo
+        .builder()
+        .id("id_user")
+        .name("user")
+        .email("user@email.com")
+        .birthDateChildren(new ArrayList<>(List.of("01.01.2015")))
+        .nameRoleList(new ArrayList<>(List.of("ROLE_USER")))
+        .nameCity("city")
+        .build();
+  }
+
+  private static AdminInfo adminInfo() {
+
+    return AdminInfo
+        .builder()
+        .id("id_user")
+        .name("admin")
+        .email("admin@email.com")
+        .nameRoleList(new ArrayList<>(List.of("ROLE_ADMIN", "ROLE_USER")))
+        .build();
+  }
+}
@@ -0,0 +1,98 @@
+package com.example.familybenefitstown.part_res_rest_api.converters;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.AssertionsForClassTypes;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.Deflater;
+
+@Slf4j
+public class GzipConverterTest {
+
+  /**
+   * <p>
+   *   Тест метода {@code acceptsGzip} утилиты {@link GzipConverter}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Заголовок отсутствует или не содержит gzip и "*".</li>
+   *   <li>gzip указан явно с ненулевым и нулевым весом, в том числе не первой кодировкой.</li>
+   *   <li>Явно указанный gzip важнее "*" независимо от порядка кодировок.</li>
+   *   <li>gzip не указан явно, используется вес "*".</li>
+   * </ol>
+   */
+  @Test
+  public void test_acceptsGzip() {
+
+    log.info("Start test_acceptsGzip");
+
+    // 1. Заголовок отсутствует или не содержит gzip и "*".
+
+    AssertionsForClassTypes.assertThat(GzipConverter.acceptsGzip(null)).isFalse();
+    AssertionsForClassTypes.assertThat(GzipConverter.acceptsGzip("")).isFalse();
+    AssertionsForClassTypes.assertThat(GzipConverter.acceptsGzip("br, deflate")).isFalse();
+    AssertionsForClassTypes.assertThat(GzipConverter.acceptsGzip("identity")).isFalse();
+
+    // 2. gzip указан явно с ненулевым и нулевым весом, в том числе не первой кодировкой.
+
+    AssertionsForClassTypes.assertThat(GzipConverter.acceptsGzip("gzip")).isTrue();
+    AssertionsForClassTypes.assertThat(GzipConverter.acceptsGzip("br, GZIP;q=0.5")).isTrue();
+    AssertionsForClassTypes.assertThat(GzipConverter.acceptsGzip("deflate, x-gzip")).isTrue();
+    AssertionsForClassTypes.assertThat(GzipConverter.acceptsGzip("gzip;q=0")).isFalse();
+    AssertionsForClassTypes.assertThat(GzipConverter.acceptsGzip("br, gzip ; Q = 0.000")).isFalse();
+
+    // 3. Явно указанный gzip важнее "*" независимо от порядка кодировок.
+
+    AssertionsForClassTypes.assertThat(GzipConverter.acceptsGzip("*, gzip;q=0")).isFalse();
+    AssertionsForClassTypes.assertThat(GzipConverter.acceptsGzip("gzip;q=0, *")).isFalse();
+    AssertionsForClassTypes.assertThat(GzipConverter.acceptsGzip("*;q=0, gzip")).isTrue();
+    AssertionsForClassTypes.assertThat(GzipConverter.acceptsGzip("gzip, *;q=0")).isTrue();
+
+    // 4. gzip не указан явно, используется вес "*".
+
+    AssertionsForClassTypes.assertThat(GzipConverter.acceptsGzip("br, *")).isTrue();
+    AssertionsForClassTypes.assertThat(GzipConverter.acceptsGzip("br, *;q=0")).isFalse();
+
+    log.info("End test_acceptsGzip");
+  }
+
+  /**
+   * <p>
+   *   Тест методов сжатия и распаковки утилиты {@link GzipConverter}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Сжатие и распаковка строки и {@code null}.</li>
+   *   <li>Сжатие массива с максимальной степенью сжатия и распаковка в поток.</li>
+   * </ol>
+   */
+  @Test
+  public void test_compress() throws Exception {
+
+    log.info("Start test_compress");
+
+    // 1. Сжатие и распаковка строки и {@code null}.
+
+    String text = "Информация о городе. ".repeat(100);
+    byte[] compressed = GzipConverter.compress(text);
+    AssertionsForClassTypes.assertThat(compressed.length).isLessThan(text.getBytes(StandardCharsets.UTF_8).length);
+    AssertionsForClassTypes.assertThat(GzipConverter.decompress(compressed)).isEqualTo(text);
+    AssertionsForClassTypes.assertThat(GzipConverter.compress((String) null)).isNull();
+    AssertionsForClassTypes.assertThat(GzipConverter.decompress(null)).isNull();
+
+    // 2. Сжатие массива с максимальной степенью сжатия и распаковка в поток.
+
+    byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    GzipConverter.decompressTo(GzipConverter.compress(bytes, Deflater.BEST_COMPRESSION), outputStream);
+    AssertionsForClassTypes.assertThat(outputStream.toByteArray()).isEqualTo(bytes);
+
+    log.info("End test_compress");
+  }
+}
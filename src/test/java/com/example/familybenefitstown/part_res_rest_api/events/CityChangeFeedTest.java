@@ -0,0 +1,175 @@
+package com.example.familybenefitstown.part_res_rest_api.events;
+
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.AssertionsForClassTypes;
+import org.junit.After;
+import org.junit.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+@Slf4j
+public class CityChangeFeedTest {
+
+  private final ExecutorService sendExecutor = Executors.newSingleThreadExecutor();
+
+  private final CityChangeFeed cityChangeFeed = new CityChangeFeed(sendExecutor);
+
+  @After
+  public void shutdown() {
+    sendExecutor.shutdownNow();
+  }
+
+  /**
+   * <p>
+   *   Тест порядка событий и повторной отправки по "Last-Event-ID" потока {@link CityChangeFeed}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Первое подключение получает "reset", затем изменения по порядку.</li>
+   *   <li>Переподключение с ID первого изменения получает пропущенные изменения, затем новые.</li>
+   *   <li>Переподключение с ID другого запуска сервиса получает "reset".</li>
+   * </ol>
+   */
+  @Test
+  public void test_subscribe() throws Exception {
+
+    log.info("Start test_subscribe");
+
+    // 1. Первое подключение получает "reset", затем изменения по порядку.
+
+    RecordingEmitter firstEmitter = new RecordingEmitter(false);
+    cityChangeFeed.subscribe(null, firstEmitter);
+    for (int i = 1; i <= 3; i++) {
+      cityChangeFeed.onCityChanged(new CityChangedEvent(CityChangeType.UPDATED, "id_city" + i, "city" + i));
+    }
+    awaitSent();
+
+    String idFeed = firstEmitter.idList.get(0).substring(0, firstEmitter.idList.get(0).lastIndexOf('-'));
+    AssertionsForClassTypes.assertThat(firstEmitter.nameList).isEqualTo(List.of("reset", "change", "change", "change"));
+    AssertionsForClassTypes.assertThat(firstEmitter.idList)
+        .isEqualTo(List.of(idFeed + "-0", idFeed + "-1", idFeed + "-2", idFeed + "-3"));
+
+    // 2. Переподключение с ID первого изменения получает пропущенные изменения, затем новые.
+
+    RecordingEmitter replayEmitter = new RecordingEmitter(false);
+    cityChangeFeed.subscribe(idFeed + "-1", replayEmitter);
+    cityChangeFeed.onCityChanged(new CityChangedEvent(CityChangeType.DELETED, "id_city1", null));
+    awaitSent();
+
+    AssertionsForClassTypes.assertThat(replayEmitter.nameList).isEqualTo(List.of("change", "change", "change"));
+    AssertionsForClassTypes.assertThat(replayEmitter.idList)
+        .isEqualTo(List.of(idFeed + "-2", idFeed + "-3", idFeed + "-4"));
+    AssertionsForClassTypes.assertThat(firstEmitter.idList.get(4)).isEqualTo(idFeed + "-4");
+
+    // 3. Переподключение с ID другого запуска сервиса получает "reset".
+
+    RecordingEmitter otherFeedEmitter = new RecordingEmitter(false);
+    cityChangeFeed.subscribe("other-2", otherFeedEmitter);
+    awaitSent();
+
+    AssertionsForClassTypes.assertThat(otherFeedEmitter.nameList).isEqualTo(List.of("reset"));
+    AssertionsForClassTypes.assertThat(otherFeedEmitter.idList).isEqualTo(List.of(idFeed + "-4"));
+    AssertionsForClassTypes.assertThat(cityChangeFeed.countSubscribers()).isEqualTo(3);
+
+    log.info("End test_subscribe");
+  }
+
+  /**
+   * <p>
+   *   Тест отключения клиентов потока {@link CityChangeFeed}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Клиент с ошибкой отправки удаляется, остальные клиенты получают изменения.</li>
+   *   <li>Клиент, отключившийся после получения событий, удаляется при следующем изменении.</li>
+   * </ol>
+   */
+  @Test
+  public void test_removeDeadEmitter() throws Exception {
+
+    log.info("Start test_removeDeadEmitter");
+
+    // 1. Клиент с ошибкой отправки удаляется, остальные клиенты получают изменения.
+
+    RecordingEmitter aliveEmitter = new RecordingEmitter(false);
+    RecordingEmitter deadEmitter = new RecordingEmitter(true);
+    cityChangeFeed.subscribe(null, aliveEmitter);
+    cityChangeFeed.subscribe(null, deadEmitter);
+    awaitSent();
+
+    AssertionsForClassTypes.assertThat(cityChangeFeed.countSubscribers()).isEqualTo(1);
+
+    cityChangeFeed.onCityChanged(new CityChangedEvent(CityChangeType.CREATED, "id_city", "city"));
+    awaitSent();
+
+    AssertionsForClassTypes.assertThat(aliveEmitter.nameList).isEqualTo(List.of("reset", "change"));
+    AssertionsForClassTypes.assertThat(deadEmitter.nameList.isEmpty()).isTrue();
+
+    // 2. Клиент, отключившийся после получения событий, удаляется при следующем изменении.
+
+    RecordingEmitter disconnectedEmitter = new RecordingEmitter(false);
+    cityChangeFeed.subscribe(null, disconnectedEmitter);
+    awaitSent();
+    disconnectedEmitter.isFailing = true;
+    cityChangeFeed.onCityChanged(new CityChangedEvent(CityChangeType.DELETED, "id_city", null));
+    awaitSent();
+
+    AssertionsForClassTypes.assertThat(cityChangeFeed.countSubscribers()).isEqualTo(1);
+    AssertionsForClassTypes.assertThat(aliveEmitter.nameList).isEqualTo(List.of("reset", "change", "change"));
+
+    log.info("End test_removeDeadEmitter");
+  }
+
+  /**
+   * Ожидает отправки событий, поставленных потоку отправки
+   */
+  private void awaitSent() throws ExecutionException, InterruptedException {
+    sendExecutor.submit(() -> {}).get();
+  }
+
+  /**
+   * Подключение, запоминающее ID и названия отправленных событий
+   */
+  private static class RecordingEmitter extends SseEmitter {
+
+    private final List<String> idList = new CopyOnWriteArrayList<>();
+
+    private final List<String> nameList = new CopyOnWriteArrayList<>();
+
+    private volatile boolean isFailing;
+
+    private RecordingEmitter(boolean isFailing) {
+      this.isFailing = isFailing;
+    }
+
+    @Override
+    public void send(SseEventBuilder builder) throws IOException {
+
+      if (isFailing) {
+        throw new IOException("Broken pipe");
+      }
+
+      for (DataWithMediaType dataWithMediaType : builder.build()) {
+        if (dataWithMediaType.getData() instanceof String) {
+          for (String line : ((String) dataWithMediaType.getData()).split("\n")) {
+            if (line.startsWith("id:")) {
+              idList.add(line.substring("id:".length()));
+            } else if (line.startsWith("event:")) {
+              nameList.add(line.substring("event:".length()));
+            }
+          }
+        }
+      }
+    }
+  }
+}
@@ -2,7 +2,10 @@ package com.example.familybenefitstown.repositories;
 
 import com.example.familybenefitstown.FamilyBenefitsTownApplication;
 import com.example.familybenefitstown.dto.entities.CityEntity;
+import com.example.familybenefitstown.dto.entities.CityInfoEntity;
+import com.example.familybenefitstown.dto.repositories.CityInfoRepository;
 import com.example.familybenefitstown.dto.repositories.CityRepository;
+import com.example.familybenefitstown.part_res_rest_api.converters.GzipConverter;
 import lombok.extern.slf4j.Slf4j;
 import org.assertj.core.api.AssertionsForClassTypes;
 import org.junit.Test;
@@ -19,6 +22,9 @@ public class CityRepositoryTest {
   @Autowired
   private CityRepository cityRepository;
 
+  @Autowired
+  private CityInfoRepository cityInfoRepository;
+
   private static final String ID_TEST_CITY = "id_test_city";
   private static final String NAME_TEST_CITY = "testCity";
   private static final String INFO_TEST_CITY = "testInfo";
@@ -34,7 +40,6 @@ public class CityRepositoryTest {
     cityRepository.save(CityEntity.builder()
                             .id(ID_TEST_CITY)
                             .name(NAME_TEST_CITY)
-                            .info(INFO_TEST_CITY)
                             .build());
 
     log.info("End createCityEntity_TestCity");
@@ -79,10 +84,8 @@ public class CityRepositoryTest {
 
     AssertionsForClassTypes.assertThat(testCity.getId()).isEqualTo(ID_TEST_CITY);
     AssertionsForClassTypes.assertThat(testCity.getName()).isEqualTo(NAME_TEST_CITY);
-    AssertionsForClassTypes.assertThat(testCity.getInfo()).isEqualTo(INFO_TEST_CITY);
 
     testCity.setName("new name");
-    testCity.setInfo("new info");
     log.info("Save changed test city");
     cityRepository.save(testCity);
 
@@ -91,13 +94,57 @@ public class CityRepositoryTest {
 
     AssertionsForClassTypes.assertThat(testCity.getId()).isEqualTo(ID_TEST_CITY);
     AssertionsForClassTypes.assertThat(testCity.getName()).isEqualTo("new name");
-    AssertionsForClassTypes.assertThat(testCity.getInfo()).isEqualTo("new info");
 
     deleteCityEntity_TestCity();
 
     log.info("End TEST baseTableTest_city");
   }
 
+  /**
+   * <p>
+   *   Тестирует таблицу информации города <b>"city_info"</b> по модели {@link CityInfoEntity}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Сохранение и получение сжатой информации.</li>
+   *   <li>Сохранение информации меняет версию города.</li>
+   *   <li>Удаление города удаляет его информацию.</li>
+   * </ol>
+   */
+  @Test
+  public void relationTableTest_oneToOne_cityInfo() {
+
+    log.info("Start TEST relationTableTest_oneToOne_cityInfo");
+
+    createCityEntity_TestCity();
+    String versionCreated = cityRepository.findVersionById(ID_TEST_CITY).orElseThrow();
+
+    // 1. Сохранение и получение сжатой информации.
+
+    log.info("Save test city info");
+    cityInfoRepository.save(new CityInfoEntity(ID_TEST_CITY, GzipConverter.compress(INFO_TEST_CITY)));
+
+    log.info("Get test city info");
+    CityInfoEntity testCityInfo = cityInfoRepository.findById(ID_TEST_CITY).orElseThrow();
+    AssertionsForClassTypes.assertThat(GzipConverter.decompress(testCityInfo.getInfo())).isEqualTo(INFO_TEST_CITY);
+
+    // 2. Сохранение информации меняет версию города.
+
+    AssertionsForClassTypes.assertThat(cityRepository.findVersionById(ID_TEST_CITY).orElseThrow())
+        .isNotEqualTo(versionCreated);
+
+    // 3. Удаление города удаляет его информацию.
+
+    deleteCityEntity_TestCity();
+
+    log.info("Exists test city info");
+    AssertionsForClassTypes.assertThat(cityInfoRepository.existsById(ID_TEST_CITY)).isFalse();
+
+    log.info("End TEST relationTableTest_oneToOne_cityInfo");
+  }
+
   /**
    * <p>
    *   Тестирует дополнительные методы репозитория {@link CityRepository}.
@@ -145,4 +192,56 @@ public class CityRepositoryTest {
 
     log.info("End TEST baseRepositoryTest_customMethods");
   }
+
+  /**
+   * <p>
+   *   Тестирует версии таблицы <b>"city"</b>, назначаемые базой данных.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>{@code findVersionById(id)} и {@code getAllVersion()} после создания города.</li>
+   *   <li>Сохранение города без изменений не меняет версию города.</li>
+   *   <li>Изменение города меняет версию города и версию множества городов.</li>
+   * </ol>
+   */
+  @Test
+  public void versionTest_city() {
+
+    log.info("Start TEST versionTest_city");
+
+    String allVersionBeforeCreate = cityRepository.getAllVersion();
+
+    createCityEntity_TestCity();
+
+    // 1. findVersionById(id) и getAllVersion() после создания города.
+
+    log.info("Get test city version");
+    String versionCreated = cityRepository.findVersionById(ID_TEST_CITY).orElseThrow();
+    String allVersionCreated = cityRepository.getAllVersion();
+    AssertionsForClassTypes.assertThat(allVersionCreated).isNotEqualTo(allVersionBeforeCreate);
+    AssertionsForClassTypes.assertThat(cityRepository.findVersionById("Not_existing_id")).isEmpty();
+
+    // 2. Сохранение города без изменений не меняет версию города.
+
+    log.info("Save unchanged test city");
+    cityRepository.save(cityRepository.findById(ID_TEST_CITY).orElseThrow());
+    AssertionsForClassTypes.assertThat(cityRepository.findVersionById(ID_TEST_CITY).orElseThrow())
+        .isEqualTo(versionCreated);
+
+    // 3. Изменение города меняет версию города и версию множества городов.
+
+    log.info("Save changed test city");
+    CityEntity testCity = cityRepository.findById(ID_TEST_CITY).orElseThrow();
+    testCity.setName("new name");
+    cityRepository.save(testCity);
+    AssertionsForClassTypes.assertThat(cityRepository.findVersionById(ID_TEST_CITY).orElseThrow())
+        .isNotEqualTo(versionCreated);
+    AssertionsForClassTypes.assertThat(cityRepository.getAllVersion()).isNotEqualTo(allVersionCreated);
+
+    deleteCityEntity_TestCity();
+
+    log.info("End TEST versionTest_city");
+  }
 }
@@ -2,19 +2,25 @@ package com.example.familybenefitstown.repositories;
 
 import com.example.familybenefitstown.FamilyBenefitsTownApplication;
 import com.example.familybenefitstown.dto.entities.*;
+import com.example.familybenefitstown.dto.jdbc.UserJdbcRepository;
+import com.example.familybenefitstown.dto.projections.UserProfile;
 import com.example.familybenefitstown.dto.repositories.*;
 import com.example.familybenefitstown.resources.RDB;
+import com.example.familybenefitstown.security.DBSecuritySupport;
 import lombok.extern.slf4j.Slf4j;
 import org.assertj.core.api.AssertionsForClassTypes;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.util.List;
+import java.util.stream.Collectors;
 
 @Slf4j
 @RunWith(SpringRunner.class)
@@ -34,6 +40,10 @@ public class UserRepositoryTest {
   private RefreshTokenRepository refreshTokenRepository;
   @Autowired
   private LoginCodeRepository loginCodeRepository;
+  @Autowired
+  private UserJdbcRepository userJdbcRepository;
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
 
   private static final String ID_TEST_USER = "id_test_user";
   private static final String EMAIL_TEST_USER = "testUser@mail.com";
@@ -322,6 +332,251 @@ public class UserRepositoryTest {
     log.info("End TEST relationTableTest_manyToMany_userChild");
   }
 
+  /**
+   * <p>
+   *   Тестирует получение профиля пользователя {@code findProfileById(id)} одним запросом
+   *   после пересчета профиля в таблице "user_profile_view".
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Профиль несуществующего пользователя.</li>
+   *   <li>Профиль пользователя без города, ролей и детей.</li>
+   *   <li>Профиль пользователя с городом, ролью и двумя детьми.</li>
+   * </ol>
+   */
+  @Test
+  @Transactional
+  public void customQueryTest_findProfileById() {
+
+    log.info("Start TEST customQueryTest_findProfileById");
+
+    // 1. Профиль несуществующего пользователя.
+
+    AssertionsForClassTypes.assertThat(userRepository.findProfileById("Not_existing_id")).isEmpty();
+
+    // 2. Профиль пользователя без города, ролей и детей.
+
+    createUserEntity_TestUser();
+    userRepository.flush();
+    userJdbcRepository.refreshProfile(ID_TEST_USER);
+    log.info("Get test user profile (2)");
+    UserProfile emptyProfile = userRepository.findProfileById(ID_TEST_USER).orElseThrow();
+    AssertionsForClassTypes.assertThat(emptyProfile.getEmail()).isEqualTo(EMAIL_TEST_USER);
+    AssertionsForClassTypes.assertThat(emptyProfile.getNameCity()).isNull();
+    AssertionsForClassTypes.assertThat(emptyProfile.getNameRoles()).isNull();
+    AssertionsForClassTypes.assertThat(emptyProfile.getBirthDateChildren()).isNull();
+
+    // 3. Профиль пользователя с городом, ролью и двумя детьми.
+
+    CityEntity testCity = new CityEntity("id_testCity", "testCity", null);
+    log.info("Save city (3)");
+    cityRepository.save(testCity);
+    UserEntity testUser = userRepository.findById(ID_TEST_USER).orElseThrow();
+    testUser.setIdCity(testCity.getId());
+    userRepository.save(testUser);
+
+    log.info("Add role and children to test user (3)");
+    userRepository.addRoleToUser(ID_TEST_USER, RDB.ID_ROLE_USER);
+    ChildBirthEntity testChildOlder = new ChildBirthEntity("id_testChild1", LocalDate.of(2010, 10, 10));
+    ChildBirthEntity testChildYounger = new ChildBirthEntity("id_testChild2", LocalDate.of(2015, 5, 5));
+    childBirthRepository.save(testChildYounger);
+    childBirthRepository.save(testChildOlder);
+    userRepository.addChildToUser(ID_TEST_USER, testChildYounger.getId());
+    userRepository.addChildToUser(ID_TEST_USER, testChildOlder.getId());
+    userRepository.flush();
+    userJdbcRepository.refreshProfile(ID_TEST_USER);
+
+    log.info("Get test user profile (3)");
+    UserProfile fullProfile = userRepository.findProfileById(ID_TEST_USER).orElseThrow();
+    AssertionsForClassTypes.assertThat(fullProfile.getId()).isEqualTo(ID_TEST_USER);
+    AssertionsForClassTypes.assertThat(fullProfile.getName()).isEqualTo(NAME_TEST_USER);
+    AssertionsForClassTypes.assertThat(fullProfile.getNameCity()).isEqualTo("testCity");
+    AssertionsForClassTypes.assertThat(fullProfile.getNameRoles()).isEqualTo(RDB.NAME_ROLE_USER);
+    AssertionsForClassTypes.assertThat(fullProfile.getBirthDateChildren()).isEqualTo("2010-10-10,2015-05-05");
+
+    log.info("End TEST customQueryTest_findProfileById");
+  }
+
+  /**
+   * <p>
+   *   Тестирует пакетное добавление и удаление детей пользователя по литералу массива дат
+   *   и приведение столбца "children_birth" к связи "users_children".
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Повторное создание рождений детей с одними и теми же датами.</li>
+   *   <li>Повторное добавление детей пользователю.</li>
+   *   <li>Удаление одного ребенка у пользователя.</li>
+   * </ol>
+   */
+  @Test
+  @Transactional
+  public void customQueryTest_addAndDeleteChildren() {
+
+    log.info("Start TEST customQueryTest_addAndDeleteChildren");
+
+    createUserEntity_TestUser();
+    List<LocalDate> childBirthDateList = List.of(LocalDate.of(2010, 10, 10), LocalDate.of(2015, 5, 5));
+    String datesBirth = DBSecuritySupport.toPostgreSQLDateArray(childBirthDateList);
+
+    // 1. Повторное создание рождений детей с одними и теми же датами.
+
+    log.info("Save children birth twice (1)");
+    childBirthRepository.saveAllDateBirth(datesBirth);
+    AssertionsForClassTypes.assertThat(childBirthRepository.saveAllDateBirth(datesBirth).size()).isEqualTo(0);
+    List<ChildBirthEntity> savedChildBirthList = childBirthRepository.findAllByDateBirthIn(childBirthDateList);
+    AssertionsForClassTypes.assertThat(savedChildBirthList.size()).isEqualTo(2);
+
+    // 2. Повторное добавление детей пользователю.
+
+    log.info("Add children to test user twice (2)");
+    String idsChildBirth = DBSecuritySupport.toPostgreSQLTextArray(savedChildBirthList
+                                                                       .stream()
+                                                                       .map(ChildBirthEntity::getId)
+                                                                       .collect(Collectors.toList()));
+    userRepository.addChildrenToUser(ID_TEST_USER, idsChildBirth);
+    userRepository.addChildrenToUser(ID_TEST_USER, idsChildBirth);
+    AssertionsForClassTypes.assertThat(childBirthRepository.findAllByIdUser(ID_TEST_USER).size()).isEqualTo(2);
+
+    // 3. Удаление одного ребенка у пользователя.
+
+    log.info("Delete child from test user (3)");
+    userRepository.deleteChildrenFromUser(ID_TEST_USER,
+        DBSecuritySupport.toPostgreSQLDateArray(List.of(LocalDate.of(2010, 10, 10))));
+    List<ChildBirthEntity> childBirthList = childBirthRepository.findAllByIdUser(ID_TEST_USER);
+    AssertionsForClassTypes.assertThat(childBirthList.size()).isEqualTo(1);
+    AssertionsForClassTypes.assertThat(childBirthList.get(0).getDateBirth()).isEqualTo(LocalDate.of(2015, 5, 5));
+
+    log.info("End TEST customQueryTest_addAndDeleteChildren");
+  }
+
+  /**
+   * <p>
+   *   Тестирует установку дат рождений детей пользователя {@code setChildrenToUser(id, datesBirth)}
+   *   одним изменением столбца "children_birth".
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Установка дат с повтором, создание отсутствующих рождений детей.</li>
+   *   <li>Замена дат одной датой.</li>
+   *   <li>Удаление всех дат.</li>
+   * </ol>
+   */
+  @Test
+  @Transactional
+  public void customQueryTest_setChildrenToUser() {
+
+    log.info("Start TEST customQueryTest_setChildrenToUser");
+
+    createUserEntity_TestUser();
+
+    // 1. Установка дат с повтором, создание отсутствующих рождений детей.
+
+    log.info("Set children with duplicate date (1)");
+    userRepository.setChildrenToUser(ID_TEST_USER, DBSecuritySupport.toPostgreSQLDateArray(
+        List.of(LocalDate.of(2015, 5, 5), LocalDate.of(2010, 10, 10), LocalDate.of(2015, 5, 5))));
+    AssertionsForClassTypes.assertThat(childBirthRepository.findAllByIdUser(ID_TEST_USER).size()).isEqualTo(2);
+    AssertionsForClassTypes.assertThat(childBirthRepository.findByDateBirth(LocalDate.of(2015, 5, 5))).isPresent();
+
+    // 2. Замена дат одной датой.
+
+    log.info("Replace children with one date (2)");
+    userRepository.setChildrenToUser(ID_TEST_USER, DBSecuritySupport.toPostgreSQLDateArray(
+        List.of(LocalDate.of(2012, 2, 2))));
+    List<ChildBirthEntity> childBirthList = childBirthRepository.findAllByIdUser(ID_TEST_USER);
+    AssertionsForClassTypes.assertThat(childBirthList.size()).isEqualTo(1);
+    AssertionsForClassTypes.assertThat(childBirthList.get(0).getDateBirth()).isEqualTo(LocalDate.of(2012, 2, 2));
+
+    // 3. Удаление всех дат.
+
+    log.info("Set empty children (3)");
+    userRepository.setChildrenToUser(ID_TEST_USER, DBSecuritySupport.toPostgreSQLDateArray(List.of()));
+    AssertionsForClassTypes.assertThat(childBirthRepository.findAllByIdUser(ID_TEST_USER).size()).isEqualTo(0);
+
+    log.info("End TEST customQueryTest_setChildrenToUser");
+  }
+
+  /**
+   * <p>
+   *   Тестирует выбор пользователей, подлежащих удалению, {@code findPurgeCandidates(...)}
+   *   репозитория {@link UserJdbcRepository}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Пользователь без ролей подлежит удалению.</li>
+   *   <li>Активный пользователь с ролью "ROLE_USER" не подлежит удалению.</li>
+   *   <li>Администратор без активности не подлежит удалению.</li>
+   *   <li>Загруженный 60 дней назад и ни разу не входивший пользователь удаляется только как неактивный.</li>
+   *   <li>Зарегистрировавшийся 60 дней назад и ни разу не входивший пользователь подлежит удалению.</li>
+   * </ol>
+   */
+  @Test
+  @Transactional
+  public void customQueryTest_findPurgeCandidates() {
+
+    log.info("Start TEST customQueryTest_findPurgeCandidates");
+
+    List<String> idsProtectedRole = List.of(RDB.ID_ROLE_ADMIN, RDB.ID_ROLE_SUPER_ADMIN);
+
+    // 1. Пользователь без ролей подлежит удалению.
+
+    createUserEntity_TestUser();
+    userRepository.flush();
+    log.info("Find candidates without roles (1)");
+    AssertionsForClassTypes.assertThat(userJdbcRepository.findPurgeCandidates(idsProtectedRole, 30, 1095, Integer.MAX_VALUE)
+                                           .contains(ID_TEST_USER)).isTrue();
+
+    // 2. Активный пользователь с ролью "ROLE_USER" не подлежит удалению.
+
+    userRepository.addRoleToUser(ID_TEST_USER, RDB.ID_ROLE_USER);
+    userJdbcRepository.updateLastActivity(ID_TEST_USER);
+    log.info("Find candidates with active user (2)");
+    AssertionsForClassTypes.assertThat(userJdbcRepository.findPurgeCandidates(idsProtectedRole, 30, 1095, Integer.MAX_VALUE)
+                                           .contains(ID_TEST_USER)).isFalse();
+
+    // 3. Администратор без активности не подлежит удалению.
+
+    userRepository.addRoleToUser(ID_TEST_USER, RDB.ID_ROLE_ADMIN);
+    log.info("Find candidates with admin (3)");
+    AssertionsForClassTypes.assertThat(userJdbcRepository.findPurgeCandidates(idsProtectedRole, 0, 0, Integer.MAX_VALUE)
+                                           .contains(ID_TEST_USER)).isFalse();
+
+    // 4. Загруженный 60 дней назад и ни разу не входивший пользователь удаляется только как неактивный.
+
+    userRepository.saveAndFlush(UserEntity.builder()
+                                    .id("id_imported_user")
+                                    .email("imported.user@email.com")
+                                    .name("ImportedUser")
+                                    .build());
+    userRepository.addRoleToUser("id_imported_user", RDB.ID_ROLE_USER);
+    jdbcTemplate.update("UPDATE family_benefit_town.user SET date_registration = now() - INTERVAL '60 days', " +
+                            "date_import = now() - INTERVAL '60 days' WHERE family_benefit_town.user.id = ?;",
+                        "id_imported_user");
+    log.info("Find candidates with imported user (4)");
+    AssertionsForClassTypes.assertThat(userJdbcRepository.findPurgeCandidates(idsProtectedRole, 30, 1095, Integer.MAX_VALUE)
+                                           .contains("id_imported_user")).isFalse();
+    AssertionsForClassTypes.assertThat(userJdbcRepository.findPurgeCandidates(idsProtectedRole, 30, 59, Integer.MAX_VALUE)
+                                           .contains("id_imported_user")).isTrue();
+
+    // 5. Зарегистрировавшийся 60 дней назад и ни разу не входивший пользователь подлежит удалению.
+
+    jdbcTemplate.update("UPDATE family_benefit_town.user SET date_import = NULL WHERE family_benefit_town.user.id = ?;",
+                        "id_imported_user");
+    log.info("Find candidates with registered user (5)");
+    AssertionsForClassTypes.assertThat(userJdbcRepository.findPurgeCandidates(idsProtectedRole, 30, 1095, Integer.MAX_VALUE)
+                                           .contains("id_imported_user")).isTrue();
+
+    log.info("End TEST customQueryTest_findPurgeCandidates");
+  }
+
   /**
    * <p>
    *   Тестирует связь <b><i>many-to-one</i></b> между таблицами <b>"user"</b> и <b>"city"</b>, между моделями {@link UserEntity} и {@link CityEntity}.
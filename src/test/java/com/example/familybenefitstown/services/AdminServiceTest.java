@@ -1,16 +1,33 @@
 package com.example.familybenefitstown.services;
 
 import com.example.familybenefitstown.FamilyBenefitsTownApplication;
+import com.example.familybenefitstown.part_auth.activity.ActivityTracker;
+import com.example.familybenefitstown.part_auth.activity.HyperLogLog;
+import com.example.familybenefitstown.part_auth.audit.AuditEventType;
+import com.example.familybenefitstown.part_auth.audit.AuditLog;
+import com.example.familybenefitstown.part_res_rest_api.api_models.admin.ActivityInfo;
 import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AdminInfo;
 import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AdminSave;
+import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AudienceFilter;
+import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AudienceFilterType;
+import com.example.familybenefitstown.part_res_rest_api.api_models.admin.AuditEventInfo;
+import com.example.familybenefitstown.dto.entities.CityEntity;
+import com.example.familybenefitstown.dto.entities.UserEntity;
+import com.example.familybenefitstown.dto.repositories.CityRepository;
 import com.example.familybenefitstown.dto.repositories.UserRepository;
 import com.example.familybenefitstown.exceptions.AlreadyExistsException;
+import com.example.familybenefitstown.exceptions.DateFormatException;
 import com.example.familybenefitstown.exceptions.InvalidEmailException;
+import com.example.familybenefitstown.exceptions.InvalidFilterException;
+import com.example.familybenefitstown.exceptions.InvalidRangeException;
 import com.example.familybenefitstown.exceptions.InvalidStringException;
 import com.example.familybenefitstown.exceptions.NotFoundException;
+import com.example.familybenefitstown.resources.R;
 import com.example.familybenefitstown.resources.RDB;
 import com.example.familybenefitstown.resources.TE;
+import com.example.familybenefitstown.part_res_rest_api.jobs.AuditWriteJob;
 import com.example.familybenefitstown.part_res_rest_api.services.interfaces.AdminService;
+import com.example.familybenefitstown.security.DBSecuritySupport;
 import lombok.extern.slf4j.Slf4j;
 import org.assertj.core.api.AssertionsForClassTypes;
 import org.junit.Test;
@@ -20,6 +37,9 @@ import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
 import java.util.List;
 
 @Slf4j
@@ -33,6 +53,18 @@ public class AdminServiceTest {
   @Autowired
   private UserRepository userRepository;
 
+  @Autowired
+  private CityRepository cityRepository;
+
+  @Autowired
+  private ActivityTracker activityTracker;
+
+  @Autowired
+  private AuditLog auditLog;
+
+  @Autowired
+  private AuditWriteJob auditWriteJob;
+
   /**
    * Создает тестовых пользователей перед каждым тестом
    */
@@ -87,6 +119,72 @@ public class AdminServiceTest {
     log.info("End deleteTestUsers");
   }
 
+  /**
+   * Создает два тестовых города аудитории с семьями: в первом городе - семья с детьми 1 года и 10 лет,
+   * семья с ребенком, которому сегодня исполнилось 3 года, семья без детей и администратор без роли пользователя
+   * с ребенком 1 года, во втором городе - семья с ребенком 1 года
+   * @param dateCurrent текущая дата
+   */
+  private void createAudienceUsers(LocalDate dateCurrent) {
+
+    log.info("Start createAudienceUsers");
+
+    cityRepository.saveAndFlush(new CityEntity("id_audience_city1", "audienceCity1", null));
+    cityRepository.saveAndFlush(new CityEntity("id_audience_city2", "audienceCity2", null));
+
+    saveAudienceUser("id_audience_user1", "id_audience_city1", RDB.ID_ROLE_USER,
+                     List.of(dateCurrent.minusYears(1), dateCurrent.minusYears(10)));
+    saveAudienceUser("id_audience_user2", "id_audience_city1", RDB.ID_ROLE_USER,
+                     List.of(dateCurrent.minusYears(3)));
+    saveAudienceUser("id_audience_user3", "id_audience_city1", RDB.ID_ROLE_USER,
+                     List.of());
+    saveAudienceUser("id_audience_user4", "id_audience_city2", RDB.ID_ROLE_USER,
+                     List.of(dateCurrent.minusYears(1)));
+    saveAudienceUser("id_audience_admin", "id_audience_city1", RDB.ID_ROLE_ADMIN,
+                     List.of(dateCurrent.minusYears(1)));
+
+    log.info("End createAudienceUsers");
+  }
+
+  /**
+   * Сохраняет тестового пользователя аудитории с ролью и датами рождения детей
+   * @param idUser ID пользователя
+   * @param idCity ID города пользователя
+   * @param idRole ID роли пользователя
+   * @param dateBirthChildList даты рождения детей
+   */
+  private void saveAudienceUser(String idUser, String idCity, String idRole, List<LocalDate> dateBirthChildList) {
+
+    userRepository.saveAndFlush(UserEntity
+                                    .builder()
+                                    .id(idUser)
+                                    .email(idUser + "@email.com")
+                                    .name("AudienceUser")
+                                    .idCity(idCity)
+                                    .build());
+    userRepository.addRoleToUser(idUser, idRole);
+    userRepository.setChildrenToUser(idUser, DBSecuritySupport.toPostgreSQLDateArray(dateBirthChildList));
+  }
+
+  /**
+   * Создает условие города
+   * @param idCity ID города
+   * @return условие {@code CITY}
+   */
+  private static AudienceFilter city(String idCity) {
+    return AudienceFilter.builder().type(AudienceFilterType.CITY).idCity(idCity).build();
+  }
+
+  /**
+   * Создает условие, соединяющее вложенные условия логической операцией
+   * @param type тип условия: {@code AND} или {@code OR}
+   * @param filters вложенные условия
+   * @return условие указанного типа
+   */
+  private static AudienceFilter joined(AudienceFilterType type, AudienceFilter... filters) {
+    return AudienceFilter.builder().type(type).filterList(List.of(filters)).build();
+  }
+
   /**
    * <p>
    *   Тест метода {@code read} сервиса {@link AdminService}.
@@ -161,7 +259,7 @@ public class AdminServiceTest {
    *   <li>Обновление несуществующего администратора.</li>
    *   <li>Обновление существующего администратора с некорректными полями "name" и "email".</li>
    *   <li>Обновление существующего администратора с повторяющимся email.</li>
-   *   <li>Обновление существующего администратора корректными данными.</li>
+   *   <li>Обновление существующего администратора корректными данными, сохраненного в кэше чтением.</li>
    * </ol>
    */
   @Test
@@ -200,9 +298,10 @@ public class AdminServiceTest {
     AssertionsForClassTypes.assertThatExceptionOfType(AlreadyExistsException.class)
         .isThrownBy(() -> adminService.update(TE.UE_USER_ADMIN.getId(), repEmailAdminSave));
 
-    // 4. Обновление существующего администратора корректными данными.
+    // 4. Обновление существующего администратора корректными данными, сохраненного в кэше чтением.
 
     try {
+      adminService.read(TE.UE_USER_ADMIN.getId());
       adminService.update(TE.UE_USER_ADMIN.getId(), correctAdminSave);
     } catch (Exception e) {
       log.info(e.getMessage());
@@ -211,9 +310,298 @@ public class AdminServiceTest {
     AssertionsForClassTypes.assertThat(
         userRepository.findById(TE.UE_USER_ADMIN.getId()).orElseThrow().getName())
         .isEqualTo(correctAdminSave.getName());
+    AssertionsForClassTypes.assertThatNoException().isThrownBy(() -> {
+      AdminInfo adminInfo = adminService.read(TE.UE_USER_ADMIN.getId());
+      AssertionsForClassTypes.assertThat(adminInfo.getName()).isEqualTo(correctAdminSave.getName());
+      AssertionsForClassTypes.assertThat(adminInfo.getEmail()).isEqualTo(correctAdminSave.getEmail());
+    });
 
     deleteTestUsers();
 
     log.info("End test_update");
   }
+
+  /**
+   * <p>
+   *   Тест метода {@code readActivity} сервиса {@link AdminService}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Запрос активности с датой неверного формата.</li>
+   *   <li>Запрос активности города после входов пользователей, с повторным входом одного пользователя.</li>
+   *   <li>Оценка числа различных строк скетчем HyperLogLog для большого числа строк.</li>
+   * </ol>
+   */
+  @Test
+  public void test_readActivity() {
+
+    log.info("Start test_readActivity");
+
+    String idCity = "test_activity_city";
+
+    // 1. Запрос активности с датой неверного формата.
+
+    AssertionsForClassTypes.assertThatExceptionOfType(DateFormatException.class)
+        .isThrownBy(() -> adminService.readActivity(idCity, "2026-10-19"));
+
+    // 2. Запрос активности города после входов пользователей, с повторным входом одного пользователя.
+
+    activityTracker.recordLogin("test_activity_user_1", idCity);
+    activityTracker.recordLogin("test_activity_user_2", idCity);
+    activityTracker.recordLogin("test_activity_user_3", idCity);
+    activityTracker.recordLogin("test_activity_user_1", idCity);
+
+    try {
+      ActivityInfo activityInfo = adminService.readActivity(idCity, null);
+
+      AssertionsForClassTypes.assertThat(activityInfo.getCountActiveDay()).isEqualTo(3);
+      AssertionsForClassTypes.assertThat(activityInfo.getCountActiveMonth()).isEqualTo(3);
+      AssertionsForClassTypes.assertThat(activityInfo.getCountLoginsDay()).isEqualTo(4);
+      AssertionsForClassTypes.assertThat(activityInfo.getCountLoginsMonth()).isEqualTo(4);
+    } catch (Exception e) {
+      log.info(e.getMessage());
+    }
+
+    // 3. Оценка числа различных строк скетчем HyperLogLog для большого числа строк.
+
+    HyperLogLog hyperLogLog = new HyperLogLog();
+    int countValues = 100_000;
+    for (int numberValue = 0; numberValue < countValues; numberValue++) {
+      hyperLogLog.offer("user_" + numberValue);
+    }
+
+    AssertionsForClassTypes.assertThat(HyperLogLog.estimate(hyperLogLog.toByteArray()))
+        .isBetween((long) (countValues * 0.95), (long) (countValues * 1.05));
+
+    log.info("End test_readActivity");
+  }
+
+  /**
+   * <p>
+   *   Тест метода {@code readAudit} сервиса {@link AdminService}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Запрос событий с датой неверного формата.</li>
+   *   <li>Запрос событий пользователя после записи журнала, от новых записей к старым.</li>
+   *   <li>Запрос событий пользователя по типу и следующей страницы.</li>
+   * </ol>
+   */
+  @Test
+  public void test_readAudit() {
+
+    log.info("Start test_readAudit");
+
+    String idUser = "test_audit_user";
+
+    // 1. Запрос событий с датой неверного формата.
+
+    AssertionsForClassTypes.assertThatExceptionOfType(DateFormatException.class)
+        .isThrownBy(() -> adminService.readAudit(idUser, null, "2026-10-19", null, null, 10));
+
+    // 2. Запрос событий пользователя после записи журнала, от новых записей к старым.
+
+    auditLog.record(AuditEventType.LOGIN, idUser, null);
+    auditLog.record(AuditEventType.ROLE_ADDED, idUser, RDB.NAME_ROLE_ADMIN);
+    auditWriteJob.write();
+
+    try {
+      List<AuditEventInfo> auditEventInfoList = adminService.readAudit(idUser, null, null, null, null, 10);
+
+      AssertionsForClassTypes.assertThat(auditEventInfoList.size()).isGreaterThanOrEqualTo(2);
+      AssertionsForClassTypes.assertThat(auditEventInfoList.get(0).getType()).isEqualTo(AuditEventType.ROLE_ADDED.name());
+      AssertionsForClassTypes.assertThat(auditEventInfoList.get(0).getDetails()).isEqualTo(RDB.NAME_ROLE_ADMIN);
+      AssertionsForClassTypes.assertThat(auditEventInfoList.get(1).getType()).isEqualTo(AuditEventType.LOGIN.name());
+
+      // 3. Запрос событий пользователя по типу и следующей страницы.
+
+      List<AuditEventInfo> loginEventInfoList = adminService.readAudit(
+          idUser, AuditEventType.LOGIN.name(), null, null, null, 10);
+      AssertionsForClassTypes.assertThat(loginEventInfoList.get(0).getIdEvent())
+          .isEqualTo(auditEventInfoList.get(1).getIdEvent());
+
+      List<AuditEventInfo> nextEventInfoList = adminService.readAudit(
+          idUser, null, null, null, auditEventInfoList.get(0).getIdEvent(), 1);
+      AssertionsForClassTypes.assertThat(nextEventInfoList.get(0).getIdEvent())
+          .isEqualTo(auditEventInfoList.get(1).getIdEvent());
+    } catch (Exception e) {
+      log.info(e.getMessage());
+    }
+
+    log.info("End test_readAudit");
+  }
+
+  /**
+   * <p>
+   *   Тест метода {@code countAudience} сервиса {@link AdminService}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Подсчет по фильтрам без типа, с неверным числом вложенных условий и со слишком глубокой вложенностью.</li>
+   *   <li>Подсчет по фильтрам с некорректными диапазонами и датой неверного формата.</li>
+   *   <li>Подсчет по условию и по пересечению условия с его отрицанием.</li>
+   *   <li>Точный подсчет семей тестовых городов по городу, возрасту детей, пересечению дат рождения и объединению условий.</li>
+   * </ol>
+   */
+  @Test
+  @Transactional
+  public void test_countAudience() throws Exception {
+
+    log.info("Start test_countAudience");
+
+    createTestUsers();
+
+    AudienceFilter withoutChildren = AudienceFilter.builder().type(AudienceFilterType.COUNT_CHILDREN).maxCountChildren(0).build();
+    AudienceFilter notWithoutChildren = AudienceFilter.builder().type(AudienceFilterType.NOT).filterList(List.of(withoutChildren)).build();
+
+    AudienceFilter deepFilter = withoutChildren;
+    for (int depth = 0; depth < 10; depth++) {
+      deepFilter = AudienceFilter.builder().type(AudienceFilterType.AND).filterList(List.of(deepFilter)).build();
+    }
+    AudienceFilter deepFilterFinal = deepFilter;
+
+    // 1. Подсчет по фильтрам без типа, с неверным числом вложенных условий и со слишком глубокой вложенностью.
+
+    AssertionsForClassTypes.assertThatExceptionOfType(InvalidFilterException.class)
+        .isThrownBy(() -> adminService.countAudience(new AudienceFilter()));
+    AssertionsForClassTypes.assertThatExceptionOfType(InvalidFilterException.class)
+        .isThrownBy(() -> adminService.countAudience(AudienceFilter.builder().type(AudienceFilterType.NOT)
+                                                         .filterList(List.of(withoutChildren, withoutChildren)).build()));
+    AssertionsForClassTypes.assertThatExceptionOfType(InvalidFilterException.class)
+        .isThrownBy(() -> adminService.countAudience(AudienceFilter.builder().type(AudienceFilterType.CITY).build()));
+    AssertionsForClassTypes.assertThatExceptionOfType(InvalidFilterException.class)
+        .isThrownBy(() -> adminService.countAudience(deepFilterFinal));
+
+    // 2. Подсчет по фильтрам с некорректными диапазонами и датой неверного формата.
+
+    AssertionsForClassTypes.assertThatExceptionOfType(InvalidRangeException.class)
+        .isThrownBy(() -> adminService.countAudience(AudienceFilter.builder().type(AudienceFilterType.CHILD_AGE)
+                                                         .minAgeChild(5).maxAgeChild(3).build()));
+    AssertionsForClassTypes.assertThatExceptionOfType(InvalidRangeException.class)
+        .isThrownBy(() -> adminService.countAudience(AudienceFilter.builder().type(AudienceFilterType.COUNT_CHILDREN)
+                                                         .minCountChildren(-1).build()));
+    AssertionsForClassTypes.assertThatExceptionOfType(DateFormatException.class)
+        .isThrownBy(() -> adminService.countAudience(AudienceFilter.builder().type(AudienceFilterType.CHILD_BIRTH)
+                                                         .dateBirthFrom("2020-01-01").build()));
+
+    // 3. Подсчет по условию и по пересечению условия с его отрицанием.
+
+    try {
+      AssertionsForClassTypes.assertThat(adminService.countAudience(withoutChildren).getCountFamilies())
+          .isGreaterThanOrEqualTo(1);
+      AssertionsForClassTypes.assertThat(adminService.countAudience(AudienceFilter.builder().type(AudienceFilterType.AND)
+                                                                        .filterList(List.of(withoutChildren, notWithoutChildren))
+                                                                        .build()).getCountFamilies())
+          .isEqualTo(0);
+    } catch (Exception e) {
+      log.info(e.getMessage());
+    }
+
+    // 4. Точный подсчет семей тестовых городов по городу, возрасту детей, пересечению дат рождения и объединению условий.
+
+    LocalDate dateCurrent = LocalDate.now();
+    createAudienceUsers(dateCurrent);
+    AudienceFilter city1 = city("id_audience_city1");
+
+    AssertionsForClassTypes.assertThat(adminService.countAudience(city1).getCountFamilies()).isEqualTo(3);
+    AssertionsForClassTypes.assertThat(adminService.countAudience(joined(
+        AudienceFilterType.AND, city1, AudienceFilter.builder().type(AudienceFilterType.CHILD_AGE)
+            .minAgeChild(1).maxAgeChild(2).build())).getCountFamilies()).isEqualTo(1);
+    AssertionsForClassTypes.assertThat(adminService.countAudience(joined(
+        AudienceFilterType.AND, city1, AudienceFilter.builder().type(AudienceFilterType.CHILD_AGE)
+            .minAgeChild(3).maxAgeChild(3).build())).getCountFamilies()).isEqualTo(1);
+    AssertionsForClassTypes.assertThat(adminService.countAudience(joined(
+        AudienceFilterType.AND, city1, AudienceFilter.builder().type(AudienceFilterType.CHILD_AGE)
+            .maxAgeChild(2).build())).getCountFamilies()).isEqualTo(1);
+    AssertionsForClassTypes.assertThat(adminService.countAudience(joined(
+        AudienceFilterType.AND, city1, AudienceFilter.builder().type(AudienceFilterType.CHILD_BIRTH)
+            .dateBirthFrom(R.SIMPLE_DATE_FORMAT.format(dateCurrent.minusYears(3)))
+            .dateBirthTo(R.SIMPLE_DATE_FORMAT.format(dateCurrent.minusYears(1))).build())).getCountFamilies()).isEqualTo(2);
+    AssertionsForClassTypes.assertThat(adminService.countAudience(joined(
+        AudienceFilterType.AND, city1, AudienceFilter.builder().type(AudienceFilterType.CHILD_BIRTH)
+            .dateBirthFrom(R.SIMPLE_DATE_FORMAT.format(dateCurrent.minusYears(10).minusDays(1)))
+            .dateBirthTo(R.SIMPLE_DATE_FORMAT.format(dateCurrent.minusYears(10))).build())).getCountFamilies()).isEqualTo(1);
+    AssertionsForClassTypes.assertThat(adminService.countAudience(joined(
+        AudienceFilterType.AND, city1, AudienceFilter.builder().type(AudienceFilterType.CHILD_BIRTH)
+            .dateBirthFrom(R.SIMPLE_DATE_FORMAT.format(dateCurrent.minusYears(10).plusDays(1)))
+            .dateBirthTo(R.SIMPLE_DATE_FORMAT.format(dateCurrent.minusYears(3).minusDays(1))).build())).getCountFamilies()).isEqualTo(0);
+    AssertionsForClassTypes.assertThat(adminService.countAudience(joined(
+        AudienceFilterType.OR, city1, city("id_audience_city2"))).getCountFamilies()).isEqualTo(4);
+    AssertionsForClassTypes.assertThat(adminService.countAudience(joined(
+        AudienceFilterType.AND,
+        joined(AudienceFilterType.OR, city1, city("id_audience_city2")),
+        joined(AudienceFilterType.OR,
+               AudienceFilter.builder().type(AudienceFilterType.COUNT_CHILDREN).maxCountChildren(0).build(),
+               AudienceFilter.builder().type(AudienceFilterType.CHILD_AGE).minAgeChild(3).build())))
+                                           .getCountFamilies()).isEqualTo(3);
+
+    deleteTestUsers();
+
+    log.info("End test_countAudience");
+  }
+
+  /**
+   * <p>
+   *   Тест метода {@code writeAudienceIds} сервиса {@link AdminService}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Запись ID семей тестовых городов по возрастанию, без администратора без роли пользователя.</li>
+   *   <li>Запись ID семей после указанного ID и после последнего ID.</li>
+   *   <li>Запись ID семей по объединению условий возраста детей и города.</li>
+   * </ol>
+   */
+  @Test
+  @Transactional
+  public void test_writeAudienceIds() throws Exception {
+
+    log.info("Start test_writeAudienceIds");
+
+    createAudienceUsers(LocalDate.now());
+    AudienceFilter cities = joined(AudienceFilterType.OR, city("id_audience_city1"), city("id_audience_city2"));
+
+    // 1. Запись ID семей тестовых городов по возрастанию, без администратора без роли пользователя.
+
+    AssertionsForClassTypes.assertThat(writeAudienceIds(cities, null))
+        .isEqualTo("id_audience_user1\nid_audience_user2\nid_audience_user3\nid_audience_user4\n");
+
+    // 2. Запись ID семей после указанного ID и после последнего ID.
+
+    AssertionsForClassTypes.assertThat(writeAudienceIds(cities, "id_audience_user2"))
+        .isEqualTo("id_audience_user3\nid_audience_user4\n");
+    AssertionsForClassTypes.assertThat(writeAudienceIds(cities, "id_audience_user4")).isEmpty();
+
+    // 3. Запись ID семей по объединению условий возраста детей и города.
+
+    AssertionsForClassTypes.assertThat(writeAudienceIds(joined(
+        AudienceFilterType.AND, cities, joined(
+            AudienceFilterType.OR,
+            city("id_audience_city2"),
+            AudienceFilter.builder().type(AudienceFilterType.CHILD_AGE).minAgeChild(10).build())), null))
+        .isEqualTo("id_audience_user1\nid_audience_user4\n");
+
+    log.info("End test_writeAudienceIds");
+  }
+
+  /**
+   * Записывает ID семей, подходящих под фильтр, в строку
+   * @param audienceFilter корневое условие фильтра
+   * @param idAfter ID, после которого начинается выборка, {@code null} - с начала
+   * @return ID семей, по одному в строке
+   * @throws Exception если фильтр некорректен или не удалось записать ID
+   */
+  private String writeAudienceIds(AudienceFilter audienceFilter, String idAfter) throws Exception {
+
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    adminService.writeAudienceIds(adminService.compileAudience(audienceFilter), idAfter, outputStream);
+    return outputStream.toString(StandardCharsets.UTF_8);
+  }
 }
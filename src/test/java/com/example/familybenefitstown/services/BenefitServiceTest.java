@@ -0,0 +1,200 @@
+package com.example.familybenefitstown.services;
+
+import com.example.familybenefitstown.FamilyBenefitsTownApplication;
+import com.example.familybenefitstown.dto.entities.BenefitRuleEntity;
+import com.example.familybenefitstown.dto.entities.CityEntity;
+import com.example.familybenefitstown.dto.entities.UserEntity;
+import com.example.familybenefitstown.dto.jdbc.BenefitJdbcRepository;
+import com.example.familybenefitstown.dto.repositories.CityRepository;
+import com.example.familybenefitstown.dto.repositories.UserRepository;
+import com.example.familybenefitstown.exceptions.*;
+import com.example.familybenefitstown.part_res_rest_api.api_models.benefit.BenefitRuleSave;
+import com.example.familybenefitstown.part_res_rest_api.api_models.common.ObjectShortInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.user.UserPatch;
+import com.example.familybenefitstown.part_res_rest_api.benefits.CompiledBenefitRule;
+import com.example.familybenefitstown.part_res_rest_api.jobs.BenefitReevaluationJob;
+import com.example.familybenefitstown.part_res_rest_api.services.interfaces.BenefitService;
+import com.example.familybenefitstown.part_res_rest_api.services.interfaces.UserService;
+import com.example.familybenefitstown.security.DBSecuritySupport;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.AssertionsForClassTypes;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDate;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {FamilyBenefitsTownApplication.class})
+public class BenefitServiceTest {
+
+  @Autowired
+  private BenefitService benefitService;
+
+  @Autowired
+  private CityRepository cityRepository;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private BenefitReevaluationJob benefitReevaluationJob;
+
+  @Autowired
+  private BenefitJdbcRepository benefitJdbcRepository;
+
+  @Autowired
+  private UserService userService;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  /**
+   * <p>
+   *   Тест методов {@code updateAllOfCity}, {@code readAllOfUser} и {@code readEvaluationOfCity} сервиса {@link BenefitService}
+   *   и сохранения положенных пособий задачей {@link BenefitReevaluationJob}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Создание города и пользователя с детьми 1 года и 10 лет.</li>
+   *   <li>Замена правил пособий города.</li>
+   *   <li>Получение положенных пользователю пособий.</li>
+   *   <li>Переоценка положенных пособий пользователей города задачей.</li>
+   *   <li>Получение сохраненных пособий и их пересчет при изменении детей пользователя.</li>
+   *   <li>Замена правил с повторяющимся названием и с началом диапазона больше конца.</li>
+   * </ol>
+   */
+  @Test
+  @Transactional
+  public void test_readAllOfUser() throws Exception {
+
+    log.info("Start test_readAllOfUser");
+
+    // 1. Создание города и пользователя с детьми 1 года и 10 лет.
+
+    LocalDate dateCurrent = LocalDate.now();
+    cityRepository.saveAndFlush(new CityEntity("id_benefit_city", "benefitCity", null));
+    userRepository.saveAndFlush(UserEntity
+                                    .builder()
+                                    .id("id_benefit_user")
+                                    .email("benefit.user@email.com")
+                                    .name("BenefitUser")
+                                    .idCity("id_benefit_city")
+                                    .build());
+    userRepository.setChildrenToUser("id_benefit_user", DBSecuritySupport.toPostgreSQLDateArray(List.of(
+        dateCurrent.minusYears(1), dateCurrent.minusYears(10))));
+
+    // 2. Замена правил пособий города.
+
+    benefitService.updateAllOfCity("id_benefit_city", List.of(
+        BenefitRuleSave.builder().name("underThree").maxAgeChild(2).build(),
+        BenefitRuleSave.builder().name("twoUnderEighteen").maxAgeChild(17).minCountChildren(2).build(),
+        BenefitRuleSave.builder().name("threeChildren").minCountChildren(3).build(),
+        BenefitRuleSave.builder().name("olderTen").minAgeChild(11).build()));
+    AssertionsForClassTypes.assertThat(benefitService.readAllOfCity("id_benefit_city").size()).isEqualTo(4);
+
+    // 3. Получение положенных пользователю пособий.
+
+    List<String> nameBenefitList = benefitService.readAllOfUser("id_benefit_user")
+        .stream()
+        .map(ObjectShortInfo::getNameObject)
+        .collect(Collectors.toList());
+    AssertionsForClassTypes.assertThat(nameBenefitList).isEqualTo(List.of("twoUnderEighteen", "underThree"));
+
+    AssertionsForClassTypes.assertThatThrownBy(() -> benefitService.readAllOfUser("id_not_found"))
+        .isInstanceOf(NotFoundException.class);
+
+    // 4. Переоценка положенных пособий пользователей города задачей.
+
+    AssertionsForClassTypes.assertThat(benefitService.readEvaluationOfCity("id_benefit_city").getStatus()).isEqualTo("PENDING");
+    benefitReevaluationJob.run();
+    AssertionsForClassTypes.assertThat(benefitService.readEvaluationOfCity("id_benefit_city").getStatus()).isEqualTo("DONE");
+    AssertionsForClassTypes.assertThat(benefitService.readEvaluationOfCity("id_benefit_city").getCountProcessed()).isEqualTo(1L);
+
+    // 5. Получение сохраненных пособий и их пересчет при изменении детей пользователя.
+
+    benefitReevaluationJob.refreshAging();
+    AssertionsForClassTypes.assertThat(benefitJdbcRepository.isEvaluated("id_benefit_user", dateCurrent)).isTrue();
+    nameBenefitList = benefitJdbcRepository.findAllOfUser("id_benefit_user")
+        .stream()
+        .map(ObjectShortInfo::getNameObject)
+        .collect(Collectors.toList());
+    AssertionsForClassTypes.assertThat(nameBenefitList).isEqualTo(List.of("twoUnderEighteen", "underThree"));
+
+    DateTimeFormatter dateFormatter = DateTimeFormatter.ofPattern("dd.MM.uuuu");
+    userService.patch("id_benefit_user", objectMapper.readValue(String.format(
+        "{\"birthDateChildren\":[\"%s\"]}", dateCurrent.minusYears(12).format(dateFormatter)), UserPatch.class));
+    nameBenefitList = benefitService.readAllOfUser("id_benefit_user")
+        .stream()
+        .map(ObjectShortInfo::getNameObject)
+        .collect(Collectors.toList());
+    AssertionsForClassTypes.assertThat(nameBenefitList).isEqualTo(List.of("olderTen"));
+    AssertionsForClassTypes.assertThat(benefitJdbcRepository.findAllOfUser("id_benefit_user").size()).isEqualTo(1);
+
+    // 6. Замена правил с повторяющимся названием и с началом диапазона больше конца.
+
+    AssertionsForClassTypes.assertThatThrownBy(() -> benefitService.updateAllOfCity("id_benefit_city", List.of(
+        BenefitRuleSave.builder().name("underThree").build(),
+        BenefitRuleSave.builder().name("underThree").build())))
+        .isInstanceOf(AlreadyExistsException.class);
+    AssertionsForClassTypes.assertThatThrownBy(() -> benefitService.updateAllOfCity("id_benefit_city", List.of(
+        BenefitRuleSave.builder().name("invalidAge").minAgeChild(5).maxAgeChild(3).build())))
+        .isInstanceOf(InvalidRangeException.class);
+
+    log.info("End test_readAllOfUser");
+  }
+
+  /**
+   * <p>
+   *   Тест методов {@code test} и {@code datesBirthWithBirthday} подготовленного правила {@link CompiledBenefitRule}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Ребенку, родившемуся 29 февраля, исполняется год 28 февраля невисокосного года.</li>
+   *   <li>Даты рождения детей, которым исполняется год 28 февраля невисокосного года и 1 марта високосного.</li>
+   * </ol>
+   */
+  @Test
+  public void test_compiledRule() {
+
+    log.info("Start test_compiledRule");
+
+    // 1. Ребенку, родившемуся 29 февраля, исполняется год 28 февраля невисокосного года.
+
+    BenefitRuleEntity benefitRuleEntity = BenefitRuleEntity
+        .builder()
+        .id("id_rule")
+        .idCity("id_city")
+        .name("underOne")
+        .maxAgeChild(0)
+        .minCountChildren(1)
+        .build();
+    int[] childrenEpochDays = {(int) LocalDate.of(2020, 2, 29).toEpochDay()};
+
+    AssertionsForClassTypes.assertThat(CompiledBenefitRule.compile(benefitRuleEntity, LocalDate.of(2021, 2, 27))
+                                           .test(childrenEpochDays)).isTrue();
+    AssertionsForClassTypes.assertThat(CompiledBenefitRule.compile(benefitRuleEntity, LocalDate.of(2021, 2, 28))
+                                           .test(childrenEpochDays)).isFalse();
+
+    // 2. Даты рождения детей, которым исполняется год 28 февраля невисокосного года и 1 марта високосного.
+
+    AssertionsForClassTypes.assertThat(CompiledBenefitRule.datesBirthWithBirthday(LocalDate.of(2021, 2, 28), 1))
+        .isEqualTo(List.of(LocalDate.of(2020, 2, 28), LocalDate.of(2020, 2, 29)));
+    AssertionsForClassTypes.assertThat(CompiledBenefitRule.datesBirthWithBirthday(LocalDate.of(2024, 3, 1), 1))
+        .isEqualTo(List.of(LocalDate.of(2023, 3, 1)));
+
+    log.info("End test_compiledRule");
+  }
+}
@@ -0,0 +1,298 @@
+package com.example.familybenefitstown.services;
+
+import com.example.familybenefitstown.FamilyBenefitsTownApplication;
+import com.example.familybenefitstown.dto.repositories.CityInfoRepository;
+import com.example.familybenefitstown.dto.repositories.CityRepository;
+import com.example.familybenefitstown.dto.repositories.UserRepository;
+import com.example.familybenefitstown.exceptions.AlreadyExistsException;
+import com.example.familybenefitstown.exceptions.InvalidStringException;
+import com.example.familybenefitstown.exceptions.NotFoundException;
+import com.example.familybenefitstown.part_res_rest_api.api_models.city.CityPatch;
+import com.example.familybenefitstown.part_res_rest_api.api_models.city.AgeBandInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.city.CitySave;
+import com.example.familybenefitstown.part_res_rest_api.api_models.city.CityStatsInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.common.ImportReport;
+import com.example.familybenefitstown.part_res_rest_api.api_models.common.ImportRowError;
+import com.example.familybenefitstown.part_res_rest_api.api_models.user.UserPatch;
+import com.example.familybenefitstown.part_res_rest_api.api_models.user.UserSave;
+import com.example.familybenefitstown.part_res_rest_api.bulk.BulkFormat;
+import com.example.familybenefitstown.part_res_rest_api.cache.CityStatsCache;
+import com.example.familybenefitstown.part_res_rest_api.services.interfaces.CityService;
+import com.example.familybenefitstown.part_res_rest_api.services.interfaces.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.AssertionsForClassTypes;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.stream.Collectors;
+
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {FamilyBenefitsTownApplication.class})
+public class CityServiceTest {
+
+  @Autowired
+  private CityService cityService;
+
+  @Autowired
+  private CityRepository cityRepository;
+
+  @Autowired
+  private CityInfoRepository cityInfoRepository;
+
+  @Autowired
+  private UserService userService;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private CityStatsCache cityStatsCache;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  /**
+   * <p>
+   *   Тест метода {@code importAll} сервиса {@link CityService}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Загрузка CSV с корректными, некорректными и повторяющимися записями.</li>
+   *   <li>Загрузка NDJSON с некорректным JSON и с уже существующим названием.</li>
+   * </ol>
+   */
+  @Test
+  @Transactional
+  public void test_importAll() throws IOException {
+
+    log.info("Start test_importAll");
+
+    // 1. Загрузка CSV с корректными, некорректными и повторяющимися записями.
+
+    String csv = "name,info\r\n" +
+        "\"import, city 1\",\"info \"\"1\"\"\"\r\n" +
+        "importCity2,\r\n" +
+        "\r\n" +
+        ",no name\r\n" +
+        "   ,space name\r\n" +
+        "\"import, city 1\",duplicate\r\n" +
+        "importCity3\r\n";
+
+    ImportReport csvReport = cityService.importAll(
+        new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), BulkFormat.CSV);
+
+    AssertionsForClassTypes.assertThat(csvReport.getCountRecord()).isEqualTo(6);
+    AssertionsForClassTypes.assertThat(csvReport.getCountImported()).isEqualTo(2);
+    AssertionsForClassTypes.assertThat(csvReport.getCountRejected()).isEqualTo(4);
+    AssertionsForClassTypes.assertThat(csvReport.isErrorListTruncated()).isFalse();
+    AssertionsForClassTypes.assertThat(numberRows(csvReport.getErrorList())).isEqualTo(List.of(3L, 4L, 5L, 6L));
+    AssertionsForClassTypes.assertThat(cityRepository.existsByName("import, city 1")).isTrue();
+    AssertionsForClassTypes.assertThat(cityRepository.existsByName("importCity2")).isTrue();
+
+    // 2. Загрузка NDJSON с некорректным JSON и с уже существующим названием.
+
+    String ndjson = "{\"name\":\"importCity4\",\"info\":\"info\"}\n" +
+        "{\"name\":\n" +
+        "\n" +
+        "{\"name\":\"importCity2\"}\n";
+
+    ImportReport ndjsonReport = cityService.importAll(
+        new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), BulkFormat.NDJSON);
+
+    AssertionsForClassTypes.assertThat(ndjsonReport.getCountRecord()).isEqualTo(3);
+    AssertionsForClassTypes.assertThat(ndjsonReport.getCountImported()).isEqualTo(1);
+    AssertionsForClassTypes.assertThat(numberRows(ndjsonReport.getErrorList())).isEqualTo(List.of(2L, 3L));
+    AssertionsForClassTypes.assertThat(cityRepository.existsByName("importCity4")).isTrue();
+
+    log.info("End test_importAll");
+  }
+
+  /**
+   * <p>
+   *   Тест метода {@code create} сервиса {@link CityService}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Создание города.</li>
+   *   <li>Создание города с уже существующим названием, нарушение ограничения уникальности.</li>
+   * </ol>
+   */
+  @Test
+  @Transactional
+  public void test_create() throws AlreadyExistsException, InvalidStringException {
+
+    log.info("Start test_create");
+
+    // 1. Создание города.
+
+    cityService.create(new CitySave("createCity", "info"));
+    AssertionsForClassTypes.assertThat(cityRepository.existsByName("createCity")).isTrue();
+
+    // 2. Создание города с уже существующим названием, нарушение ограничения уникальности.
+
+    AssertionsForClassTypes.assertThatThrownBy(() -> cityService.create(new CitySave("createCity", null)))
+        .isInstanceOf(AlreadyExistsException.class);
+
+    log.info("End test_create");
+  }
+
+  /**
+   * <p>
+   *   Тест метода {@code patch} сервиса {@link CityService}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Создание двух городов.</li>
+   *   <li>Удаление информации города без изменения названия.</li>
+   *   <li>Изменение названия на уже существующее, нарушение ограничения уникальности.</li>
+   * </ol>
+   */
+  @Test
+  @Transactional
+  public void test_patch() throws AlreadyExistsException, InvalidStringException, NotFoundException, IOException {
+
+    log.info("Start test_patch");
+
+    // 1. Создание двух городов.
+
+    cityService.create(new CitySave("patchCity1", "info"));
+    cityService.create(new CitySave("patchCity2", null));
+    String idCity = cityRepository.findAll()
+        .stream()
+        .filter(cityEntity -> cityEntity.getName().equals("patchCity1"))
+        .findFirst()
+        .orElseThrow()
+        .getId();
+
+    // 2. Удаление информации города без изменения названия.
+
+    cityService.patch(idCity, objectMapper.readValue("{\"info\":null}", CityPatch.class));
+
+    AssertionsForClassTypes.assertThat(cityRepository.existsByName("patchCity1")).isTrue();
+    AssertionsForClassTypes.assertThat(cityInfoRepository.existsById(idCity)).isFalse();
+
+    // 3. Изменение названия на уже существующее, нарушение ограничения уникальности.
+
+    CityPatch cityPatch = objectMapper.readValue("{\"name\":\"patchCity2\"}", CityPatch.class);
+    AssertionsForClassTypes.assertThatThrownBy(() -> cityService.patch(idCity, cityPatch))
+        .isInstanceOf(AlreadyExistsException.class);
+
+    log.info("End test_patch");
+  }
+
+  /**
+   * <p>
+   *   Тест метода {@code readStats} сервиса {@link CityService}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Создание города и пользователя с тремя детьми.</li>
+   *   <li>Изменение детей пользователя на одного ребенка.</li>
+   *   <li>Удаление пользователя.</li>
+   *   <li>Получение статистики несуществующего города.</li>
+   * </ol>
+   */
+  @Test
+  @Transactional
+  public void test_readStats() throws Exception {
+
+    log.info("Start test_readStats");
+
+    // 1. Создание города и пользователя с тремя детьми.
+
+    cityService.create(new CitySave("statsCity", null));
+    String idCity = cityRepository.findAll()
+        .stream()
+        .filter(cityEntity -> cityEntity.getName().equals("statsCity"))
+        .findFirst()
+        .orElseThrow()
+        .getId();
+    userService.create(UserSave
+                           .builder()
+                           .name("statsUser")
+                           .email("stats.user@email.com")
+                           .dateBirth("01.01.1985")
+                           .idCity(idCity)
+                           .birthDateChildren(List.of("01.01.2010", "01.01.2015", "01.01.2020"))
+                           .build());
+    String idUser = userRepository.findByEmail("stats.user@email.com").orElseThrow().getId();
+
+    CityStatsInfo cityStatsInfo = cityService.readStats(idCity);
+    AssertionsForClassTypes.assertThat(cityStatsInfo.getCountFamilies()).isEqualTo(1L);
+    AssertionsForClassTypes.assertThat(cityStatsInfo.getCountChildren()).isEqualTo(3L);
+    AssertionsForClassTypes.assertThat(cityStatsInfo.getCountMultiChildFamilies()).isEqualTo(1L);
+    AssertionsForClassTypes.assertThat(countChildrenOfBands(cityStatsInfo)).isEqualTo(3L);
+
+    // 2. Изменение детей пользователя на одного ребенка.
+
+    userService.patch(idUser, objectMapper.readValue("{\"birthDateChildren\":[\"01.01.2015\"]}", UserPatch.class));
+    cityStatsCache.invalidateAll();
+
+    cityStatsInfo = cityService.readStats(idCity);
+    AssertionsForClassTypes.assertThat(cityStatsInfo.getCountFamilies()).isEqualTo(1L);
+    AssertionsForClassTypes.assertThat(cityStatsInfo.getCountChildren()).isEqualTo(1L);
+    AssertionsForClassTypes.assertThat(cityStatsInfo.getCountMultiChildFamilies()).isEqualTo(0L);
+    AssertionsForClassTypes.assertThat(countChildrenOfBands(cityStatsInfo)).isEqualTo(1L);
+
+    // 3. Удаление пользователя.
+
+    userService.delete(idUser);
+    cityStatsCache.invalidateAll();
+
+    cityStatsInfo = cityService.readStats(idCity);
+    AssertionsForClassTypes.assertThat(cityStatsInfo.getCountFamilies()).isEqualTo(0L);
+    AssertionsForClassTypes.assertThat(cityStatsInfo.getCountChildren()).isEqualTo(0L);
+    AssertionsForClassTypes.assertThat(countChildrenOfBands(cityStatsInfo)).isEqualTo(0L);
+
+    // 4. Получение статистики несуществующего города.
+
+    AssertionsForClassTypes.assertThatThrownBy(() -> cityService.readStats("id_not_found"))
+        .isInstanceOf(NotFoundException.class);
+
+    log.info("End test_readStats");
+  }
+
+  /**
+   * Возвращает число детей всех возрастных групп статистики
+   * @param cityStatsInfo статистика города
+   * @return число детей всех возрастных групп
+   */
+  private long countChildrenOfBands(CityStatsInfo cityStatsInfo) {
+
+    return cityStatsInfo.getAgeBandList()
+        .stream()
+        .mapToLong(AgeBandInfo::getCountChildren)
+        .sum();
+  }
+
+  /**
+   * Возвращает номера записей из списка ошибок
+   * @param errorList список ошибок
+   * @return номера записей
+   */
+  private List<Long> numberRows(List<ImportRowError> errorList) {
+
+    return errorList
+        .stream()
+        .map(ImportRowError::getNumberRow)
+        .collect(Collectors.toList());
+  }
+}
@@ -0,0 +1,317 @@
+package com.example.familybenefitstown.services;
+
+import com.example.familybenefitstown.FamilyBenefitsTownApplication;
+import com.example.familybenefitstown.dto.entities.CityEntity;
+import com.example.familybenefitstown.dto.entities.UserEntity;
+import com.example.familybenefitstown.dto.repositories.CityRepository;
+import com.example.familybenefitstown.dto.repositories.UserRepository;
+import com.example.familybenefitstown.exceptions.InvalidEmailException;
+import com.example.familybenefitstown.exceptions.InvalidRangeException;
+import com.example.familybenefitstown.exceptions.InvalidStringException;
+import com.example.familybenefitstown.exceptions.NotFoundException;
+import com.example.familybenefitstown.part_res_rest_api.api_models.common.ImportReport;
+import com.example.familybenefitstown.part_res_rest_api.api_models.common.ImportRowError;
+import com.example.familybenefitstown.part_res_rest_api.api_models.user.UserInfo;
+import com.example.familybenefitstown.part_res_rest_api.api_models.user.UserPatch;
+import com.example.familybenefitstown.part_res_rest_api.bulk.BulkFormat;
+import com.example.familybenefitstown.part_res_rest_api.services.interfaces.UserService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.assertj.core.api.AssertionsForClassTypes;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@Slf4j
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = {FamilyBenefitsTownApplication.class})
+public class UserServiceTest {
+
+  private static final String ID_IMPORT_CITY = "id_importCity";
+
+  @Autowired
+  private UserService userService;
+
+  @Autowired
+  private UserRepository userRepository;
+
+  @Autowired
+  private CityRepository cityRepository;
+
+  @Autowired
+  private ObjectMapper objectMapper;
+
+  /**
+   * <p>
+   *   Тест метода {@code importAll} сервиса {@link UserService}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Создание города пользователей.</li>
+   *   <li>Загрузка CSV с корректными, некорректными, повторяющимися записями и с несуществующим городом.</li>
+   *   <li>Проверка детей загруженного пользователя.</li>
+   *   <li>Загрузка NDJSON с некорректным JSON и с уже существующим email.</li>
+   * </ol>
+   */
+  @Test
+  @Transactional
+  public void test_importAll() throws IOException, NotFoundException {
+
+    log.info("Start test_importAll");
+
+    // 1. Создание города пользователей.
+
+    cityRepository.saveAndFlush(new CityEntity(ID_IMPORT_CITY, "importCity", null));
+
+    // 2. Загрузка CSV с корректными, некорректными, повторяющимися записями и с несуществующим городом.
+
+    String csv = "name,email,dateBirth,idCity,birthDateChildren\r\n" +
+        "importUser1,import1@mail.com,01.01.1990," + ID_IMPORT_CITY + ",01.01.2015;02.02.2018;01.01.2015\r\n" +
+        "importUser2,not email,01.01.1990," + ID_IMPORT_CITY + ",\r\n" +
+        "importUser3,import3@mail.com,01.01.2999," + ID_IMPORT_CITY + ",\r\n" +
+        "importUser4,import4@mail.com,01.01.1990,id_notExistCity,\r\n" +
+        "importUser5,import1@mail.com,01.01.1990," + ID_IMPORT_CITY + ",\r\n" +
+        "importUser6,import6@mail.com,," + ID_IMPORT_CITY + ",\r\n";
+
+    ImportReport csvReport = userService.importAll(
+        new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), BulkFormat.CSV);
+
+    AssertionsForClassTypes.assertThat(csvReport.getCountRecord()).isEqualTo(6);
+    AssertionsForClassTypes.assertThat(csvReport.getCountImported()).isEqualTo(2);
+    AssertionsForClassTypes.assertThat(csvReport.getCountRejected()).isEqualTo(4);
+    AssertionsForClassTypes.assertThat(numberRows(csvReport.getErrorList())).isEqualTo(List.of(2L, 3L, 4L, 5L));
+    AssertionsForClassTypes.assertThat(userRepository.existsByEmail("import6@mail.com")).isTrue();
+    AssertionsForClassTypes.assertThat(userRepository.existsByEmail("import4@mail.com")).isFalse();
+
+    // 3. Проверка детей загруженного пользователя.
+
+    UserEntity importedUser = userRepository.findByEmail("import1@mail.com").orElseThrow();
+    UserInfo importedUserInfo = userService.read(importedUser.getId());
+
+    AssertionsForClassTypes.assertThat(importedUserInfo.getName()).isEqualTo("importUser1");
+    AssertionsForClassTypes.assertThat(importedUserInfo.getBirthDateChildren().size()).isEqualTo(2);
+
+    // 4. Загрузка NDJSON с некорректным JSON и с уже существующим email.
+
+    String ndjson = "{\"name\":\"importUser7\",\"email\":\"import7@mail.com\",\"idCity\":\"" + ID_IMPORT_CITY + "\"," +
+        "\"birthDateChildren\":[\"01.01.2015\"]}\n" +
+        "{\"name\":\n" +
+        "\n" +
+        "{\"name\":\"importUser8\",\"email\":\"import6@mail.com\",\"idCity\":\"" + ID_IMPORT_CITY + "\"}\n";
+
+    ImportReport ndjsonReport = userService.importAll(
+        new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), BulkFormat.NDJSON);
+
+    AssertionsForClassTypes.assertThat(ndjsonReport.getCountRecord()).isEqualTo(3);
+    AssertionsForClassTypes.assertThat(ndjsonReport.getCountImported()).isEqualTo(1);
+    AssertionsForClassTypes.assertThat(numberRows(ndjsonReport.getErrorList())).isEqualTo(List.of(2L, 3L));
+    AssertionsForClassTypes.assertThat(userRepository.existsByEmail("import7@mail.com")).isTrue();
+
+    log.info("End test_importAll");
+  }
+
+  /**
+   * <p>
+   *   Тест метода {@code exportAll} сервиса {@link UserService}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Загрузка пользователя с детьми.</li>
+   *   <li>Выгрузка CSV и проверка записи пользователя.</li>
+   *   <li>Выгрузка NDJSON и проверка записи пользователя.</li>
+   * </ol>
+   */
+  @Test
+  @Transactional
+  public void test_exportAll() throws IOException {
+
+    log.info("Start test_exportAll");
+
+    // 1. Загрузка пользователя с детьми.
+
+    cityRepository.saveAndFlush(new CityEntity(ID_IMPORT_CITY, "importCity", null));
+    String ndjson = "{\"name\":\"exportUser\",\"email\":\"export@mail.com\",\"idCity\":\"" + ID_IMPORT_CITY + "\"," +
+        "\"birthDateChildren\":[\"02.02.2018\",\"01.01.2015\"]}\n";
+    userService.importAll(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), BulkFormat.NDJSON);
+
+    // 2. Выгрузка CSV и проверка записи пользователя.
+
+    ByteArrayOutputStream csvStream = new ByteArrayOutputStream();
+    userService.exportAll(csvStream, BulkFormat.CSV);
+    String csv = csvStream.toString(StandardCharsets.UTF_8);
+
+    AssertionsForClassTypes.assertThat(csv).startsWith("\"id\",\"name\",\"email\",\"nameCity\",\"birthDateChildren\",\"nameRoleList\"\r\n");
+    AssertionsForClassTypes.assertThat(csv).contains("\"exportUser\",\"export@mail.com\",\"importCity\",\"01.01.2015;02.02.2018\"");
+
+    // 3. Выгрузка NDJSON и проверка записи пользователя.
+
+    ByteArrayOutputStream ndjsonStream = new ByteArrayOutputStream();
+    userService.exportAll(ndjsonStream, BulkFormat.NDJSON);
+    String exportedNdjson = ndjsonStream.toString(StandardCharsets.UTF_8);
+
+    AssertionsForClassTypes.assertThat(exportedNdjson).contains("\"email\":\"export@mail.com\"");
+
+    log.info("End test_exportAll");
+  }
+
+  /**
+   * <p>
+   *   Тест метода {@code readAll} сервиса {@link UserService}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Запрос с ID {@code null}, с пустым ID и с числом ID больше допустимого.</li>
+   *   <li>Проверка отсутствующего и пустого списка ID.</li>
+   *   <li>Запрос существующего и несуществующего пользователей.</li>
+   * </ol>
+   */
+  @Test
+  @Transactional
+  public void test_readAll() throws IOException, InvalidStringException, InvalidRangeException {
+
+    log.info("Start test_readAll");
+
+    // 1. Запрос с ID {@code null}, с пустым ID и с числом ID больше допустимого.
+
+    AssertionsForClassTypes.assertThatThrownBy(() -> userService.readAll(Arrays.asList("id_user", null)))
+        .isInstanceOf(InvalidStringException.class);
+    AssertionsForClassTypes.assertThatThrownBy(() -> userService.readAll(List.of("id_user", "  ")))
+        .isInstanceOf(InvalidStringException.class);
+    AssertionsForClassTypes.assertThatThrownBy(() -> userService.readAll(IntStream
+                                                                             .rangeClosed(0, UserService.MAX_READ_ALL_SIZE)
+                                                                             .mapToObj(number -> "id_user" + number)
+                                                                             .collect(Collectors.toList())))
+        .isInstanceOf(InvalidRangeException.class);
+
+    // 2. Проверка отсутствующего и пустого списка ID.
+
+    AssertionsForClassTypes.assertThatThrownBy(() -> userService.checkReadAll(null))
+        .isInstanceOf(InvalidRangeException.class);
+    AssertionsForClassTypes.assertThatThrownBy(() -> userService.checkReadAll(List.of()))
+        .isInstanceOf(InvalidRangeException.class);
+
+    // 3. Запрос существующего и несуществующего пользователей.
+
+    cityRepository.saveAndFlush(new CityEntity(ID_IMPORT_CITY, "importCity", null));
+    String ndjson = "{\"name\":\"readUser\",\"email\":\"read@mail.com\",\"idCity\":\"" + ID_IMPORT_CITY + "\"}\n";
+    userService.importAll(new ByteArrayInputStream(ndjson.getBytes(StandardCharsets.UTF_8)), BulkFormat.NDJSON);
+    String idUser = userRepository.findByEmail("read@mail.com").orElseThrow().getId();
+
+    Map<String, UserInfo> userInfoMap = userService.readAll(List.of(idUser, "id_notExistUser"));
+    AssertionsForClassTypes.assertThat(userInfoMap.keySet()).isEqualTo(Set.of(idUser));
+    AssertionsForClassTypes.assertThat(userInfoMap.get(idUser).getName()).isEqualTo("readUser");
+
+    log.info("End test_readAll");
+  }
+
+  /**
+   * <p>
+   *   Тест метода {@code patch} сервиса {@link UserService}.
+   * </p>
+   * <p>
+   *   Порядок тестирования:
+   * </p>
+   * <ol>
+   *   <li>Создание города и пользователя с датой рождения.</li>
+   *   <li>Запрос без полей "email" и "idCity" не изменяет их.</li>
+   *   <li>Запрос с полем "email" изменяет его, "dateBirth" со значением {@code null} удаляет дату рождения.</li>
+   *   <li>Запросы с "email", "name" и "idCity" со значением {@code null} отклоняются, поля не изменяются.</li>
+   * </ol>
+   */
+  @Test
+  @Transactional
+  public void test_patch() throws Exception {
+
+    log.info("Start test_patch");
+
+    // 1. Создание города и пользователя с датой рождения.
+
+    cityRepository.saveAndFlush(new CityEntity(ID_IMPORT_CITY, "importCity", null));
+    userRepository.saveAndFlush(UserEntity
+                                    .builder()
+                                    .id("id_patch_user")
+                                    .email("patch@mail.com")
+                                    .name("patchUser")
+                                    .dateBirth(LocalDate.of(1990, 1, 1))
+                                    .idCity(ID_IMPORT_CITY)
+                                    .build());
+
+    // 2. Запрос без полей "email" и "idCity" не изменяет их.
+
+    userService.patch("id_patch_user", userPatch("{\"name\":\"patchedUser\"}"));
+    UserEntity patchedUser = userRepository.findById("id_patch_user").orElseThrow();
+
+    AssertionsForClassTypes.assertThat(patchedUser.getName()).isEqualTo("patchedUser");
+    AssertionsForClassTypes.assertThat(patchedUser.getEmail()).isEqualTo("patch@mail.com");
+    AssertionsForClassTypes.assertThat(patchedUser.getIdCity()).isEqualTo(ID_IMPORT_CITY);
+    AssertionsForClassTypes.assertThat(patchedUser.getDateBirth()).isEqualTo(LocalDate.of(1990, 1, 1));
+
+    // 3. Запрос с полем "email" изменяет его, "dateBirth" со значением null удаляет дату рождения.
+
+    userService.patch("id_patch_user", userPatch("{\"email\":\"patched@mail.com\",\"dateBirth\":null}"));
+    patchedUser = userRepository.findById("id_patch_user").orElseThrow();
+
+    AssertionsForClassTypes.assertThat(patchedUser.getEmail()).isEqualTo("patched@mail.com");
+    AssertionsForClassTypes.assertThat(patchedUser.getDateBirth()).isNull();
+
+    // 4. Запросы с "email", "name" и "idCity" со значением null отклоняются, поля не изменяются.
+
+    AssertionsForClassTypes.assertThatThrownBy(() -> userService.patch("id_patch_user", userPatch("{\"email\":null}")))
+        .isInstanceOf(InvalidEmailException.class);
+    AssertionsForClassTypes.assertThatThrownBy(() -> userService.patch("id_patch_user", userPatch("{\"name\":null}")))
+        .isInstanceOf(InvalidStringException.class);
+    AssertionsForClassTypes.assertThatThrownBy(() -> userService.patch("id_patch_user", userPatch("{\"idCity\":null}")))
+        .isInstanceOf(InvalidStringException.class);
+    patchedUser = userRepository.findById("id_patch_user").orElseThrow();
+
+    AssertionsForClassTypes.assertThat(patchedUser.getName()).isEqualTo("patchedUser");
+    AssertionsForClassTypes.assertThat(patchedUser.getEmail()).isEqualTo("patched@mail.com");
+    AssertionsForClassTypes.assertThat(patchedUser.getIdCity()).isEqualTo(ID_IMPORT_CITY);
+
+    log.info("End test_patch");
+  }
+
+  /**
+   * Преобразует тело запроса JSON Merge Patch в объект запроса на частичное обновление пользователя
+   * @param json тело запроса
+   * @return объект запроса с запомненными указанными полями
+   * @throws IOException если тело запроса не является JSON
+   */
+  private UserPatch userPatch(String json) throws IOException {
+    return objectMapper.readValue(json, UserPatch.class);
+  }
+
+  /**
+   * Возвращает номера записей из списка ошибок
+   * @param errorList список ошибок
+   * @return номера записей
+   */
+  private List<Long> numberRows(List<ImportRowError> errorList) {
+
+    return errorList
+        .stream()
+        .map(ImportRowError::getNumberRow)
+        .collect(Collectors.toList());
+  }
+}